@@ -0,0 +1,212 @@
+package hotelreservationsystem;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bounded read-through cache of availability search results, keyed by
+ * room type and stay.
+ *
+ * Entries are evicted least-recently-used once the capacity is reached.
+ * Invalidation is precise: a booking or cancellation drops only the
+ * entries of the same room type whose stay overlaps the changed nights,
+ * and a room change drops the entries of that room's type. A per-type
+ * index keeps invalidation from scanning unrelated types.
+ *
+ * Methods are synchronized because an access-ordered map mutates on
+ * every lookup, even when the owning service is only being read.
+ *
+ * @author Software Re-Engineering Enhancement
+ */
+public class AvailabilityCache {
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    /**
+     * Search key: room type ordinal and half-open stay in epoch days
+     */
+    private static final class Key {
+        final int roomTypeId;
+        final int checkIn;
+        final int checkOut;
+
+        Key(int roomTypeId, int checkIn, int checkOut) {
+            this.roomTypeId = roomTypeId;
+            this.checkIn = checkIn;
+            this.checkOut = checkOut;
+        }
+
+        boolean overlaps(int fromNight, int toNight) {
+            return checkIn < toNight && fromNight < checkOut;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return roomTypeId == key.roomTypeId && checkIn == key.checkIn
+                    && checkOut == key.checkOut;
+        }
+
+        @Override
+        public int hashCode() {
+            return (roomTypeId * 31 + checkIn) * 31 + checkOut;
+        }
+    }
+
+    /**
+     * Point-in-time cache metrics
+     */
+    public static final class Stats {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final long invalidations;
+        private final int size;
+
+        Stats(long hits, long misses, long evictions, long invalidations, int size) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.invalidations = invalidations;
+            this.size = size;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        /**
+         * Entries dropped to stay within capacity
+         */
+        public long getEvictions() {
+            return evictions;
+        }
+
+        /**
+         * Entries dropped because a mutation made them stale
+         */
+        public long getInvalidations() {
+            return invalidations;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public double getHitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0.0 : (double) hits / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Hits: %d | Misses: %d | Hit rate: %.1f%% | Evictions: %d | " +
+                                 "Invalidations: %d | Size: %d",
+                                 hits, misses, getHitRate() * 100, evictions, invalidations, size);
+        }
+    }
+
+    private final int capacity;
+    private final LinkedHashMap<Key, List<Room>> entries;
+    private final Map<Integer, Set<Key>> keysByType;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    public AvailabilityCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public AvailabilityCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+        this.keysByType = new HashMap<>();
+    }
+
+    /**
+     * Returns the cached result, or null on a miss
+     */
+    public synchronized List<Room> get(int roomTypeId, int checkIn, int checkOut) {
+        List<Room> result = entries.get(new Key(roomTypeId, checkIn, checkOut));
+        if (result == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return result;
+    }
+
+    public synchronized void put(int roomTypeId, int checkIn, int checkOut, List<Room> result) {
+        Key key = new Key(roomTypeId, checkIn, checkOut);
+        if (entries.put(key, result) == null) {
+            keysByType.computeIfAbsent(roomTypeId, type -> new HashSet<>()).add(key);
+        }
+        if (entries.size() > capacity) {
+            Iterator<Map.Entry<Key, List<Room>>> eldest = entries.entrySet().iterator();
+            Key evicted = eldest.next().getKey();
+            eldest.remove();
+            unindex(evicted);
+            evictions++;
+        }
+    }
+
+    /**
+     * Drops the entries of a room type whose stay overlaps [fromNight, toNight)
+     */
+    public synchronized void invalidate(int roomTypeId, int fromNight, int toNight) {
+        Set<Key> keys = keysByType.get(roomTypeId);
+        if (keys == null) {
+            return;
+        }
+        Iterator<Key> iterator = keys.iterator();
+        while (iterator.hasNext()) {
+            Key key = iterator.next();
+            if (key.overlaps(fromNight, toNight)) {
+                iterator.remove();
+                entries.remove(key);
+                invalidations++;
+            }
+        }
+        if (keys.isEmpty()) {
+            keysByType.remove(roomTypeId);
+        }
+    }
+
+    /**
+     * Drops every entry of a room type
+     */
+    public synchronized void invalidateType(int roomTypeId) {
+        Set<Key> keys = keysByType.remove(roomTypeId);
+        if (keys != null) {
+            entries.keySet().removeAll(keys);
+            invalidations += keys.size();
+        }
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(hits, misses, evictions, invalidations, entries.size());
+    }
+
+    private void unindex(Key key) {
+        Set<Key> keys = keysByType.get(key.roomTypeId);
+        keys.remove(key);
+        if (keys.isEmpty()) {
+            keysByType.remove(key.roomTypeId);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package hotelreservationsystem;
+
+import hotelreservationsystem.constants.AppConstants;
+import hotelreservationsystem.utils.RequestValidator;
+import java.util.Date;
+
+/**
+ * Unvalidated input for booking a concrete room, checked as a whole by
+ * VALIDATOR so every problem is reported at once.
+ *
+ * The dates are held as given, not copied: the request is short-lived and
+ * the Reservation built from it makes its own defensive copies.
+ *
+ * Refactoring Technique: Introduce Parameter Object
+ *
+ * @author Software Re-Engineering Enhancement
+ */
+public class BookingRequest {
+    public static final RequestValidator<BookingRequest> VALIDATOR = RequestValidator.<BookingRequest>builder()
+            .requireId(BookingRequest::getReservationId, AppConstants.ERROR_INVALID_RESERVATION_ID)
+            .requireId(BookingRequest::getUserId, AppConstants.ERROR_INVALID_USER_ID)
+            .requireId(BookingRequest::getRoomId, AppConstants.ERROR_INVALID_ROOM_ID)
+            .requireDateRange(BookingRequest::getCheckInDate, BookingRequest::getCheckOutDate,
+                              AppConstants.ERROR_INVALID_DATE_RANGE)
+            .build();
+
+    private final int reservationId;
+    private final int userId;
+    private final int roomId;
+    private final Date checkInDate;
+    private final Date checkOutDate;
+
+    public BookingRequest(int reservationId, int userId, int roomId,
+                          Date checkInDate, Date checkOutDate) {
+        this.reservationId = reservationId;
+        this.userId = userId;
+        this.roomId = roomId;
+        this.checkInDate = checkInDate;
+        this.checkOutDate = checkOutDate;
+    }
+
+    public int getReservationId() {
+        return reservationId;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public int getRoomId() {
+        return roomId;
+    }
+
+    public Date getCheckInDate() {
+        return checkInDate;
+    }
+
+    public Date getCheckOutDate() {
+        return checkOutDate;
+    }
+
+    /**
+     * Builds the reservation; call only once VALIDATOR accepts the request
+     */
+    public Reservation toReservation(double totalCost) {
+        return new Reservation(reservationId, userId, roomId, checkInDate, checkOutDate, totalCost);
+    }
+}
@@ -0,0 +1,87 @@
+package hotelreservationsystem;
+
+import hotelreservationsystem.exceptions.ReservationException;
+import hotelreservationsystem.exceptions.RoomException;
+import hotelreservationsystem.exceptions.UserException;
+import java.util.List;
+
+/**
+ * Deletes users and rooms together with the reservations that depend on
+ * them, so no booking is left pointing at a missing user or room and no
+ * calendar night stays occupied by one.
+ *
+ * Each cascade checks everything that can fail before it changes
+ * anything, and the steps after that cannot fail, so a deletion either
+ * happens completely or not at all. The affected reservations come from
+ * ReservationService's per-user and per-room indexes: the work is O(k)
+ * in the k reservations involved, independent of the total booked.
+ *
+ * Like the services, this class is not thread-safe.
+ *
+ * Refactoring Technique: Extract Class
+ *
+ * @author Software Re-Engineering Enhancement
+ */
+public class CascadeDeletionService {
+    private final RoomService roomService;
+    private final ReservationService reservationService;
+    private final UserService userService;
+    private final RoomAssignmentService roomAssignmentService;
+
+    public CascadeDeletionService(RoomService roomService, ReservationService reservationService,
+                                  UserService userService, 
+                                  RoomAssignmentService roomAssignmentService) {
+        this.roomService = roomService;
+        this.reservationService = reservationService;
+        this.userService = userService;
+        this.roomAssignmentService = roomAssignmentService;
+    }
+
+    /**
+     * Deletes a user after cancelling their reservations, freeing the
+     * nights those held, and their pending room type bookings
+     *
+     * @return number of reservations and bookings cancelled
+     * @throws UserException if the user does not exist; nothing is changed
+     */
+    public int deleteUser(int userId) throws UserException {
+        userService.getUserById(userId);
+
+        List<Reservation> cancelled = reservationService.cancelReservationsByUserId(userId);
+        for (Reservation reservation : cancelled) {
+            releaseNights(reservation);
+        }
+        int cancelledBookings = roomAssignmentService.cancelBookingsByUserId(userId);
+        userService.deleteUser(userId);
+        return cancelled.size() + cancelledBookings;
+    }
+
+    /**
+     * Removes a room after cancelling its reservations; the room's
+     * calendar row, and with it every night it held, goes with the room,
+     * and pending room type bookings planned on it are moved elsewhere
+     *
+     * @return number of reservations cancelled
+     * @throws RoomException if the room does not exist; nothing is changed
+     */
+    public int removeRoom(int roomId) throws RoomException {
+        roomService.getRoomById(roomId);
+
+        List<Reservation> cancelled = reservationService.cancelReservationsByRoomId(roomId);
+        roomService.removeRoom(roomId);
+        try {
+            roomAssignmentService.reoptimize(); // Moves pending bookings that held nights on it
+        } catch (ReservationException e) {
+            // Holds are in the way; the bookings wait for the next assignment pass
+        }
+        return cancelled.size();
+    }
+
+    private void releaseNights(Reservation reservation) {
+        try {
+            roomService.releaseNights(reservation);
+        } catch (RoomException e) {
+            // The room was removed before cascades existed; its nights went with it
+        }
+    }
+}
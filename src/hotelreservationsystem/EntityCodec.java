@@ -0,0 +1,311 @@
+package hotelreservationsystem;
+
+import hotelreservationsystem.enums.UserRole;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+/**
+ * Versioned binary wire format for Room, Reservation, User and
+ * TypeBooking.
+ *
+ * Every record starts with a version byte and a type tag, followed by
+ * fixed-width fields and UTF-8 strings prefixed with their byte length
+ * (unsigned 16 bit). Encoding writes straight into the caller's buffer;
+ * strings are encoded char by char so no temporary byte arrays are made.
+ * An unpaired surrogate is encoded on its own in three bytes, as in
+ * WTF-8, so every String round-trips.
+ *
+ * Room:        ver tag | roomId i32 | price f64 | available u8 | roomType str
+ * Reservation: ver tag | reservationId i32 | userId i32 | roomId i32 |
+ *              checkIn i64 | checkOut i64 | totalCost f64
+ * User:        ver tag | userId i32 | role u8 | username str | passwordHash str
+ * TypeBooking: ver tag | reservationId i32 | userId i32 | checkIn i64 |
+ *              checkOut i64 | totalCost f64 | roomType str
+ *
+ * Version 1 user records held the password itself; they are still read,
+ * and the password is hashed on the way in.
+ *
+ * @author Software Re-Engineering Enhancement
+ */
+public final class EntityCodec {
+    public static final byte VERSION = 2;
+    public static final byte TAG_ROOM = 'R';
+    public static final byte TAG_RESERVATION = 'B';
+    public static final byte TAG_USER = 'U';
+    public static final byte TAG_TYPE_BOOKING = 'T';
+
+    private static final byte PLAIN_PASSWORD_VERSION = 1;
+    private static final int HEADER_SIZE = 2;
+    private static final int STRING_PREFIX_SIZE = 2;
+    private static final int MAX_STRING_BYTES = 0xFFFF;
+    /** Reservations have no strings, so all encode to this many bytes */
+    public static final int RESERVATION_SIZE = HEADER_SIZE + 3 * Integer.BYTES
+            + 2 * Long.BYTES + Double.BYTES;
+
+    // Private constructor to prevent instantiation
+    private EntityCodec() {
+        throw new AssertionError("Cannot instantiate utility class");
+    }
+
+    /**
+     * Reads the type tag of the next record without consuming it
+     */
+    public static byte peekTag(ByteBuffer buffer) {
+        return buffer.get(buffer.position() + 1);
+    }
+
+    // ---------------------------------------------------------------- Room
+
+    public static int sizeOf(Room room) {
+        return HEADER_SIZE + Integer.BYTES + Double.BYTES + 1 + sizeOf(room.getRoomType());
+    }
+
+    public static void write(ByteBuffer buffer, Room room) {
+        writeHeader(buffer, TAG_ROOM);
+        buffer.putInt(room.getRoomId());
+        buffer.putDouble(room.getPrice());
+        buffer.put((byte) (room.isAvailable() ? 1 : 0));
+        writeString(buffer, room.getRoomType());
+    }
+
+    public static Room readRoom(ByteBuffer buffer) {
+        readHeader(buffer, TAG_ROOM);
+        int roomId = buffer.getInt();
+        double price = buffer.getDouble();
+        boolean isAvailable = buffer.get() != 0;
+        String roomType = readString(buffer);
+        return new Room(roomId, roomType, price, isAvailable);
+    }
+
+    // --------------------------------------------------------- Reservation
+
+    public static int sizeOf(Reservation reservation) {
+        return RESERVATION_SIZE;
+    }
+
+    public static void write(ByteBuffer buffer, Reservation reservation) {
+        writeHeader(buffer, TAG_RESERVATION);
+        buffer.putInt(reservation.getReservationId());
+        buffer.putInt(reservation.getUserId());
+        buffer.putInt(reservation.getRoomId());
+        buffer.putLong(reservation.getCheckInTime());
+        buffer.putLong(reservation.getCheckOutTime());
+        buffer.putDouble(reservation.getTotalCost());
+    }
+
+    public static Reservation readReservation(ByteBuffer buffer) {
+        readHeader(buffer, TAG_RESERVATION);
+        int reservationId = buffer.getInt();
+        int userId = buffer.getInt();
+        int roomId = buffer.getInt();
+        Date checkInDate = new Date(buffer.getLong());
+        Date checkOutDate = new Date(buffer.getLong());
+        double totalCost = buffer.getDouble();
+        return new Reservation(reservationId, userId, roomId, checkInDate, checkOutDate, totalCost);
+    }
+
+    // ---------------------------------------------------------------- User
+
+    public static int sizeOf(User user) {
+        return HEADER_SIZE + Integer.BYTES + 1
+                + sizeOf(user.getUsername()) + sizeOf(user.getPasswordHash());
+    }
+
+    public static void write(ByteBuffer buffer, User user) {
+        writeHeader(buffer, TAG_USER);
+        buffer.putInt(user.getUserId());
+        buffer.put((byte) user.getRole().ordinal());
+        writeString(buffer, user.getUsername());
+        writeString(buffer, user.getPasswordHash());
+    }
+
+    public static User readUser(ByteBuffer buffer) {
+        byte version = readHeader(buffer, TAG_USER);
+        int userId = buffer.getInt();
+        int roleOrdinal = buffer.get();
+        UserRole[] roles = UserRole.values();
+        if (roleOrdinal < 0 || roleOrdinal >= roles.length) {
+            throw new IllegalArgumentException("Unknown role ordinal: " + roleOrdinal);
+        }
+        String username = readString(buffer);
+        String password = readString(buffer);
+        if (version == PLAIN_PASSWORD_VERSION) {
+            return new User(userId, username, password, roles[roleOrdinal]);
+        }
+        return User.withPasswordHash(userId, username, password, roles[roleOrdinal]);
+    }
+
+    // --------------------------------------------------------- TypeBooking
+
+    public static int sizeOf(TypeBooking booking) {
+        return HEADER_SIZE + 2 * Integer.BYTES + 2 * Long.BYTES + Double.BYTES
+                + sizeOf(booking.getRoomType());
+    }
+
+    public static void write(ByteBuffer buffer, TypeBooking booking) {
+        writeHeader(buffer, TAG_TYPE_BOOKING);
+        buffer.putInt(booking.getReservationId());
+        buffer.putInt(booking.getUserId());
+        buffer.putLong(booking.getCheckInDate().getTime());
+        buffer.putLong(booking.getCheckOutDate().getTime());
+        buffer.putDouble(booking.getTotalCost());
+        writeString(buffer, booking.getRoomType());
+    }
+
+    public static TypeBooking readTypeBooking(ByteBuffer buffer) {
+        readHeader(buffer, TAG_TYPE_BOOKING);
+        int reservationId = buffer.getInt();
+        int userId = buffer.getInt();
+        Date checkInDate = new Date(buffer.getLong());
+        Date checkOutDate = new Date(buffer.getLong());
+        double totalCost = buffer.getDouble();
+        String roomType = readString(buffer);
+        return new TypeBooking(reservationId, userId, roomType, checkInDate, checkOutDate, totalCost);
+    }
+
+    // ------------------------------------------------------------- helpers
+
+    private static void writeHeader(ByteBuffer buffer, byte tag) {
+        buffer.put(VERSION);
+        buffer.put(tag);
+    }
+
+    /**
+     * @return the record's version
+     */
+    private static byte readHeader(ByteBuffer buffer, byte expectedTag) {
+        byte version = buffer.get();
+        if (version < PLAIN_PASSWORD_VERSION || version > VERSION) {
+            throw new IllegalArgumentException("Unsupported record version: " + version);
+        }
+        byte tag = buffer.get();
+        if (tag != expectedTag) {
+            throw new IllegalArgumentException("Unexpected record tag: " + (char) tag);
+        }
+        return version;
+    }
+
+    /**
+     * Encoded size of a string including its length prefix
+     */
+    private static int sizeOf(String value) {
+        return STRING_PREFIX_SIZE + utf8Length(value);
+    }
+
+    private static int utf8Length(String value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    private static void writeString(ByteBuffer buffer, String value) {
+        int length = utf8Length(value);
+        if (length > MAX_STRING_BYTES) {
+            throw new IllegalArgumentException("String too long to encode: " + length + " bytes");
+        }
+        buffer.putShort((short) length);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | (c >> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer.put((byte) (0xF0 | (codePoint >> 18)));
+                buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+            } else {
+                buffer.put((byte) (0xE0 | (c >> 12)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = Short.toUnsignedInt(buffer.getShort());
+        byte[] bytes;
+        int offset;
+        if (buffer.hasArray()) {
+            bytes = buffer.array();
+            offset = buffer.arrayOffset() + buffer.position();
+            buffer.position(buffer.position() + length);
+        } else {
+            bytes = new byte[length];
+            offset = 0;
+            buffer.get(bytes);
+        }
+        if (hasSurrogate(bytes, offset, length)) {
+            return decodeWithSurrogates(bytes, offset, length);
+        }
+        return new String(bytes, offset, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Whether the bytes hold a surrogate encoded on its own (ED A0..BF),
+     * which the standard UTF-8 decoder would replace
+     */
+    private static boolean hasSurrogate(byte[] bytes, int offset, int length) {
+        for (int i = offset; i < offset + length - 1; i++) {
+            if (bytes[i] == (byte) 0xED && (bytes[i + 1] & 0xE0) == 0xA0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Decodes what writeString wrote, unpaired surrogates included
+     */
+    private static String decodeWithSurrogates(byte[] bytes, int offset, int length) {
+        char[] chars = new char[length];
+        int count = 0;
+        int end = offset + length;
+        int i = offset;
+        while (i < end) {
+            int lead = bytes[i] & 0xFF;
+            if (lead < 0x80) {
+                chars[count++] = (char) lead;
+                i += 1;
+            } else if (lead < 0xE0) {
+                chars[count++] = (char) (((lead & 0x1F) << 6) | continuation(bytes, i + 1, end));
+                i += 2;
+            } else if (lead < 0xF0) {
+                chars[count++] = (char) (((lead & 0x0F) << 12)
+                        | (continuation(bytes, i + 1, end) << 6) | continuation(bytes, i + 2, end));
+                i += 3;
+            } else {
+                int codePoint = ((lead & 0x07) << 18) | (continuation(bytes, i + 1, end) << 12)
+                        | (continuation(bytes, i + 2, end) << 6) | continuation(bytes, i + 3, end);
+                count += Character.toChars(codePoint, chars, count);
+                i += 4;
+            }
+        }
+        return new String(chars, 0, count);
+    }
+
+    private static int continuation(byte[] bytes, int index, int end) {
+        if (index >= end || (bytes[index] & 0xC0) != 0x80) {
+            throw new IllegalArgumentException("Malformed string at byte " + index);
+        }
+        return bytes[index] & 0x3F;
+    }
+}
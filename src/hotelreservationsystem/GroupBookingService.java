@@ -0,0 +1,65 @@
+package hotelreservationsystem;
+
+import hotelreservationsystem.constants.AppConstants;
+import hotelreservationsystem.exceptions.ReservationException;
+import hotelreservationsystem.exceptions.RoomException;
+import java.util.List;
+
+/**
+ * Books a block of rooms, e.g. for a conference, as a single unit: either
+ * every reservation in the block is made and its nights held, or none is.
+ *
+ * The services are single-writer (callers serialize on one lock), so the
+ * block needs no per-room locks and cannot deadlock. Its nights are
+ * checked against the calendar in one batch and written only if all are
+ * free; its reservations are then added in one batch. If that second
+ * step is refused, the nights written by the first are released again
+ * before the error is reported.
+ *
+ * Refactoring Technique: Extract Class
+ *
+ * @author Software Re-Engineering Enhancement
+ */
+public class GroupBookingService {
+    private final RoomService roomService;
+    private final ReservationService reservationService;
+
+    public GroupBookingService(RoomService roomService, ReservationService reservationService) {
+        this.roomService = roomService;
+        this.reservationService = reservationService;
+    }
+
+    /**
+     * Books every reservation of the block, or none of them
+     *
+     * @throws ReservationException if any room is missing or taken for its
+     *         dates, or any ID is already in use; nothing is booked
+     */
+    public void bookGroup(List<Reservation> block) throws ReservationException {
+        if (block == null || block.isEmpty()) {
+            throw new ReservationException(AppConstants.ERROR_EMPTY_GROUP_BOOKING);
+        }
+
+        try {
+            roomService.reserveAllNights(block);
+        } catch (RoomException e) {
+            throw new ReservationException(e.getMessage(), e);
+        }
+        try {
+            reservationService.makeReservations(block);
+        } catch (ReservationException e) {
+            releaseNights(block);
+            throw e;
+        }
+    }
+
+    private void releaseNights(List<Reservation> block) {
+        for (Reservation reservation : block) {
+            try {
+                roomService.releaseNights(reservation);
+            } catch (RoomException e) {
+                // Cannot happen: reserveAllNights just found every room
+            }
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package hotelreservationsystem;
+
+import hotelreservationsystem.constants.AppConstants;
+import hotelreservationsystem.exceptions.ReservationException;
+import hotelreservationsystem.exceptions.RoomException;
+import hotelreservationsystem.metrics.TraceStage;
+import hotelreservationsystem.metrics.Tracer;
+import hotelreservationsystem.utils.TimingWheel;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Temporary holds for checkout flows: a room is kept for a guest while
+ * they pay, and given back by itself if they do not finish in time.
+ *
+ * A hold sits between available and booked. Its nights are taken in the
+ * occupancy calendar under the hold's reservation ID, so searches and
+ * bookings already see the room as unavailable, but no reservation
+ * exists until the hold is confirmed. Deadlines are tracked in a
+ * TimingWheel, so placing, confirming and expiring a hold are O(1) and
+ * expiry never sweeps the rooms or the pending holds.
+ *
+ * Expired holds are freed lazily by every call here and, once start has
+ * been called, by a background tick. Like ReservationArchiver, the tick
+ * takes the lock guarding the services only if it is free, and catches up
+ * on the next tick otherwise. Callers must hold that lock themselves.
+ *
+ * @author Software Re-Engineering Enhancement
+ */
+public class HoldService implements AutoCloseable {
+    public static final long DEFAULT_HOLD_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    public static final long TICK_MILLIS = 1000L;
+
+    /**
+     * A held stay and its entry in the timing wheel
+     */
+    private static final class Hold {
+        final Reservation reservation;
+        final int expiry;
+
+        Hold(Reservation reservation, int expiry) {
+            this.reservation = reservation;
+            this.expiry = expiry;
+        }
+    }
+
+    private final RoomService roomService;
+    private final ReservationService reservationService;
+    private final RoomAssignmentService roomAssignmentService;
+    private final Lock serviceLock;
+    private final TimingWheel expiries;
+    private final Map<Integer, Hold> holds;
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * @param roomAssignmentService its pending room type bookings share
+     *        the reservation IDs
+     * @param serviceLock lock guarding every use of the services
+     */
+    public HoldService(RoomService roomService, ReservationService reservationService,
+                       RoomAssignmentService roomAssignmentService, Lock serviceLock) {
+        this.roomService = roomService;
+        this.reservationService = reservationService;
+        this.roomAssignmentService = roomAssignmentService;
+        this.serviceLock = serviceLock;
+        this.expiries = new TimingWheel(TICK_MILLIS, System.currentTimeMillis());
+        this.holds = new HashMap<>();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "hold-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Frees expired holds in the background from now on
+     */
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::runScheduled, TICK_MILLIS, TICK_MILLIS,
+                                         TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Holds the room of a reservation for the default checkout time
+     */
+    public void placeHold(Reservation reservation) throws ReservationException {
+        placeHold(reservation, DEFAULT_HOLD_MILLIS);
+    }
+
+    /**
+     * Holds the room of a reservation, taking its nights, until it is
+     * confirmed or released or the time runs out. The room must be open
+     * for sale and the ID free of reservations, room type bookings and
+     * other holds.
+     * Refactoring Technique: Introduce Assertion
+     */
+    public void placeHold(Reservation reservation, long holdMillis) throws ReservationException {
+        long traceStart = Tracer.start();
+        try {
+            if (reservation == null) {
+                throw new ReservationException("Reservation cannot be null");
+            }
+            if (holdMillis <= 0) {
+                throw new IllegalArgumentException("Hold time must be positive");
+            }
+            long now = System.currentTimeMillis();
+            expire(now);
+            int reservationId = reservation.getReservationId();
+            if (holds.containsKey(reservationId)
+                    || roomAssignmentService.bookingExists(reservationId)) {
+                throw new ReservationException("Reservation with ID " +
+                    reservationId + " already exists");
+            }
+
+            try {
+                if (!roomService.isRoomAvailable(reservation.getRoomId())) {
+                    throw new ReservationException(AppConstants.ERROR_ROOM_NOT_AVAILABLE);
+                }
+                roomService.reserveNights(reservation);
+            } catch (RoomException e) {
+                throw new ReservationException(e.getMessage(), e);
+            }
+            holds.put(reservationId,
+                      new Hold(reservation, expiries.schedule(now + holdMillis, reservationId)));
+        } finally {
+            Tracer.stop(TraceStage.PLACE_HOLD, traceStart);
+        }
+    }
+
+    /**
+     * Turns a hold into a reservation; its nights stay taken
+     * Refactoring Technique: Replace Error Code with Exception
+     *
+     * @throws ReservationException if the hold does not exist or expired
+     */
+    public Reservation confirmHold(int reservationId) throws ReservationException {
+        long traceStart = Tracer.start();
+        try {
+            expire(System.currentTimeMillis());
+            Hold hold = holds.get(reservationId);
+            if (hold == null) {
+                throw new ReservationException(AppConstants.ERROR_HOLD_NOT_FOUND);
+            }
+
+            try {
+                roomService.getRoomById(hold.reservation.getRoomId());
+            } catch (RoomException e) {
+                // The room was removed while held
+                holds.remove(reservationId);
+                expiries.cancel(hold.expiry);
+                throw new ReservationException(e.getMessage(), e);
+            }
+            reservationService.makeReservation(hold.reservation);
+            holds.remove(reservationId);
+            expiries.cancel(hold.expiry);
+            return hold.reservation;
+        } finally {
+            Tracer.stop(TraceStage.CONFIRM_HOLD, traceStart);
+        }
+    }
+
+    /**
+     * Gives up a hold before it expires, freeing its nights
+     * Refactoring Technique: Replace Error Code with Exception
+     *
+     * @throws ReservationException if the hold does not exist or expired
+     */
+    public void releaseHold(int reservationId) throws ReservationException {
+        long traceStart = Tracer.start();
+        try {
+            expire(System.currentTimeMillis());
+            Hold hold = holds.remove(reservationId);
+            if (hold == null) {
+                throw new ReservationException(AppConstants.ERROR_HOLD_NOT_FOUND);
+            }
+
+            expiries.cancel(hold.expiry);
+            releaseNights(hold.reservation);
+        } finally {
+            Tracer.stop(TraceStage.RELEASE_HOLD, traceStart);
+        }
+    }
+
+    /**
+     * Frees every hold whose time has run out
+     *
+     * @return number of holds expired
+     */
+    public int expireHolds() {
+        long traceStart = Tracer.start();
+        try {
+            return expire(System.currentTimeMillis());
+        } finally {
+            Tracer.stop(TraceStage.EXPIRE_HOLDS, traceStart);
+        }
+    }
+
+    public boolean isHeld(int reservationId) {
+        return holds.containsKey(reservationId);
+    }
+
+    public int getHoldCount() {
+        return holds.size();
+    }
+
+    /**
+     * Stops the background tick, waiting for one in progress
+     */
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private int expire(long now) {
+        return expiries.advance(now, 
+                reservationId -> releaseNights(holds.remove(reservationId).reservation));
+    }
+
+    private void runScheduled() {
+        if (!serviceLock.tryLock()) {
+            return; // Busy serving requests; catch up next tick
+        }
+        try {
+            expireHolds();
+        } finally {
+            serviceLock.unlock();
+        }
+    }
+
+    private void releaseNights(Reservation reservation) {
+        try {
+            roomService.releaseNights(reservation);
+        } catch (RoomException e) {
+            // The room was removed while held; its nights went with it
+        }
+    }
+}
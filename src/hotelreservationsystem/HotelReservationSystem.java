@@ -1,14 +1,39 @@
 package hotelreservationsystem;
 
+import hotelreservationsystem.archive.ReservationArchive;
+import hotelreservationsystem.archive.ReservationArchiver;
+import hotelreservationsystem.audit.AuditAction;
+import hotelreservationsystem.audit.AuditLog;
 import hotelreservationsystem.constants.AppConstants;
+import hotelreservationsystem.enums.Permission;
 import hotelreservationsystem.enums.UserRole;
 import hotelreservationsystem.exceptions.ReservationException;
 import hotelreservationsystem.exceptions.RoomException;
 import hotelreservationsystem.exceptions.UserException;
+import hotelreservationsystem.metrics.TraceStage;
+import hotelreservationsystem.metrics.Tracer;
+import hotelreservationsystem.replication.ReplicationLeader;
+import hotelreservationsystem.security.Authorizer;
+import hotelreservationsystem.security.Session;
+import hotelreservationsystem.storage.BTreeReservationRepository;
+import hotelreservationsystem.storage.EntityType;
+import hotelreservationsystem.storage.Repositories;
+import hotelreservationsystem.storage.Repository;
 import hotelreservationsystem.utils.DateUtils;
+import hotelreservationsystem.utils.RequestValidator;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Main class for the Hotel Reservation System
@@ -25,15 +50,52 @@ import java.util.Scanner;
  * @author Refactored by Software Re-Engineering
  */
 public class HotelReservationSystem {
-    private static final RoomService roomService = new RoomService();
-    private static final ReservationService reservationService = new ReservationService();
-    private static final UserService userService = new UserService();
+    // Stores of the type named by the hotel.storage system property
+    private static final Repository<Room> roomStore = 
+        Repositories.fromConfiguration(EntityType.ROOM);
+    private static final Repository<Reservation> reservationStore = 
+        Repositories.fromConfiguration(EntityType.RESERVATION);
+    private static final Repository<User> userStore = 
+        Repositories.fromConfiguration(EntityType.USER);
+    private static final Repository<TypeBooking> typeBookingStore = 
+        Repositories.fromConfiguration(EntityType.TYPE_BOOKING);
+    private static final RoomService roomService = new RoomService(roomStore);
+    private static final ReservationService reservationService = 
+        new ReservationService(reservationStore);
+    private static final UserService userService = new UserService(userStore);
+    private static final RoomAssignmentService roomAssignmentService =
+        new RoomAssignmentService(roomService, reservationService, typeBookingStore);
+    private static final CascadeDeletionService cascadeDeletionService =
+        new CascadeDeletionService(roomService, reservationService, userService, 
+                                   roomAssignmentService);
+    private static final GroupBookingService groupBookingService =
+        new GroupBookingService(roomService, reservationService);
     private static Scanner scanner;
+    private static final Authorizer authorizer = new Authorizer();
     private static User currentUser = null;
+    private static Session currentSession = null;
+    private static ReplicationLeader replicationLeader = null;
+    private static AuditLog auditLog = null;
+    private static ReservationArchive reservationArchive = null;
+    private static ReservationArchiver reservationArchiver = null;
+    private static RoomAssignmentScheduler roomAssignmentScheduler = null;
+    private static HoldService holdService = null;
+    /** Guards the services against the background archiver, assignment pass and hold expiry */
+    private static final ReentrantLock serviceLock = new ReentrantLock();
+    private static final AtomicBoolean storesClosed = new AtomicBoolean();
 
     public static void main(String[] args) {
         scanner = new Scanner(System.in);
+        // Flush persistent stores on Ctrl-C or a kill as well as on exit
+        Runtime.getRuntime().addShutdownHook(new Thread(HotelReservationSystem::closeStores,
+                                                        "store-shutdown"));
+        userService.addMutationListener(authorizer);
+        startAuditLog();
+        startReplication();
         initializeSystem();
+        startArchiver();
+        startRoomAssignmentScheduler();
+        startHoldService();
         
         // Main application loop with authentication
         boolean exitProgram = false;
@@ -56,10 +118,46 @@ public class HotelReservationSystem {
     }
 
     /**
-     * Initialize system with default rooms and users
+     * Initialize system from the seed file named by the hotel.seed.file
+     * system property, falling back to the built-in defaults if it is absent.
+     * A persistent store that already holds data is used as it is.
      * Refactoring Technique: Extract Method
      */
     private static void initializeSystem() {
+        if (userService.getUserCount() > 0) {
+            roomService.restoreNights(reservationService.getAllReservations());
+            int unplaced = roomAssignmentService.restoreAssignments();
+            System.out.println("Restored " + roomService.getAllRooms().size() + " rooms, " + 
+                               userService.getUserCount() + " users, " + 
+                               reservationService.getReservationCount() + 
+                               " reservations and " + 
+                               roomAssignmentService.getPendingBookings().size() + 
+                               " room type bookings from storage");
+            if (unplaced > 0) {
+                System.err.println(unplaced + " room type bookings found no room");
+            }
+            return;
+        }
+        Path seedFile = Paths.get(System.getProperty(AppConstants.SEED_FILE_PROPERTY, 
+                                                     AppConstants.DEFAULT_SEED_FILE));
+        if (!Files.isRegularFile(seedFile)) {
+            loadDefaultData();
+            return;
+        }
+        try {
+            SeedDataLoader.Summary summary = 
+                new SeedDataLoader(roomService, userService).load(seedFile);
+            System.out.println(summary);
+        } catch (IOException | RoomException | UserException e) {
+            System.err.println("Error loading seed data: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Load the built-in default rooms and users
+     * Refactoring Technique: Extract Method
+     */
+    private static void loadDefaultData() {
         try {
             // Initialize default rooms
             roomService.addRoom(new Room(
@@ -91,6 +189,109 @@ public class HotelReservationSystem {
         }
     }
     
+    /**
+     * Open the audit trail in the directory named by the hotel.audit.dir
+     * system property
+     * Refactoring Technique: Extract Method
+     */
+    private static void startAuditLog() {
+        String directory = System.getProperty(AppConstants.AUDIT_DIR_PROPERTY, 
+                                              AppConstants.DEFAULT_AUDIT_DIR);
+        try {
+            auditLog = new AuditLog(Paths.get(directory));
+        } catch (IOException e) {
+            System.err.println("Error opening audit log: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Record an action of the logged-in user in the audit trail
+     * Refactoring Technique: Extract Method
+     */
+    private static void audit(AuditAction action, int targetId, String detail) {
+        if (auditLog != null) {
+            auditLog.record(currentUser.getUserId(), action, targetId, detail);
+        }
+    }
+    
+    /**
+     * Move completed stays to the archive file named by the
+     * hotel.archive.file system property, now and then hourly
+     * Refactoring Technique: Extract Method
+     */
+    private static void startArchiver() {
+        Path file = Paths.get(System.getProperty(AppConstants.ARCHIVE_FILE_PROPERTY, 
+                                                 AppConstants.DEFAULT_ARCHIVE_FILE));
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            reservationArchive = new ReservationArchive(file);
+            reservationArchiver = new ReservationArchiver(reservationService, roomService, 
+                                                          reservationArchive, serviceLock);
+            reservationArchiver.start(ReservationArchiver.DEFAULT_INTERVAL_MINUTES, TimeUnit.MINUTES);
+        } catch (IOException e) {
+            System.err.println("Error opening reservation archive: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Re-plan and confirm room type bookings in the background, now and
+     * then hourly
+     * Refactoring Technique: Extract Method
+     */
+    private static void startRoomAssignmentScheduler() {
+        roomAssignmentScheduler = new RoomAssignmentScheduler(roomAssignmentService, serviceLock);
+        roomAssignmentScheduler.start(RoomAssignmentScheduler.DEFAULT_INTERVAL_MINUTES, 
+                                      TimeUnit.MINUTES);
+    }
+    
+    /**
+     * Hold rooms while guests confirm their bookings, freeing the holds
+     * that run out in the background
+     * Refactoring Technique: Extract Method
+     */
+    private static void startHoldService() {
+        holdService = new HoldService(roomService, reservationService, roomAssignmentService, 
+                                      serviceLock);
+        holdService.start();
+    }
+    
+    /**
+     * Start shipping all mutations to a warm standby when the
+     * hotel.replication.port system property is set; followers must know
+     * the secret in hotel.replication.secret. What the stores already
+     * hold is journaled first, so a follower gets it too.
+     * Refactoring Technique: Extract Method
+     */
+    private static void startReplication() {
+        String port = System.getProperty(AppConstants.REPLICATION_PORT_PROPERTY);
+        if (port == null) {
+            return;
+        }
+        String secret = System.getProperty(AppConstants.REPLICATION_SECRET_PROPERTY);
+        if (secret == null || secret.isEmpty()) {
+            System.err.println("Error starting replication: " + 
+                               AppConstants.REPLICATION_SECRET_PROPERTY + " is not set");
+            return;
+        }
+        try {
+            replicationLeader = new ReplicationLeader(Integer.parseInt(port), 
+                                                      secret.getBytes(StandardCharsets.UTF_8));
+            replicationLeader.journalRestoredState(roomService.getAllRooms(), 
+                                                   userService.getAllUsers(), 
+                                                   reservationService.getAllReservations(), 
+                                                   roomAssignmentService.getPendingBookings());
+            roomService.addMutationListener(replicationLeader);
+            reservationService.addMutationListener(replicationLeader);
+            userService.addMutationListener(replicationLeader);
+            roomAssignmentService.addMutationListener(replicationLeader);
+            System.out.println("Replication leader listening on port " + replicationLeader.getPort());
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Error starting replication: " + e.getMessage());
+        }
+    }
+    
     /**
      * Show authentication menu
      * @return true to continue, false to exit
@@ -138,8 +339,9 @@ public class HotelReservationSystem {
         String password = scanner.nextLine();
         
         currentUser = userService.authenticate(username, password);
+        currentSession = authorizer.openSession(currentUser);
         System.out.println("\n✓ Login successful! Welcome, " + currentUser.getUsername() + "!");
-        System.out.println("Role: " + currentUser.getRole());
+        System.out.println("Role: " + currentSession.getRole());
     }
     
     /**
@@ -180,9 +382,24 @@ public class HotelReservationSystem {
         boolean running = true;
         
         while (running) {
-            displayMenu();
+            if (!currentSession.isActive()) {
+                System.out.println("\nYour account is no longer active.");
+                endSession();
+                return;
+            }
+            serviceLock.lock();
+            try {
+                displayMenu();
+            } finally {
+                serviceLock.unlock();
+            }
             int option = readMenuOption();
-            running = processMenuOption(option);
+            serviceLock.lock();
+            try {
+                running = processMenuOption(option);
+            } finally {
+                serviceLock.unlock();
+            }
         }
     }
 
@@ -195,44 +412,47 @@ public class HotelReservationSystem {
         System.out.println("║      Hotel Reservation System          ║");
         System.out.println("╠════════════════════════════════════════╣");
         System.out.println("║ User: " + String.format("%-32s", currentUser.getUsername()) + "║");
-        System.out.println("║ Role: " + String.format("%-32s", currentUser.getRole()) + "║");
+        System.out.println("║ Role: " + String.format("%-32s", currentSession.getRole()) + "║");
         System.out.println("╚════════════════════════════════════════╝");
         System.out.println("1. View All Rooms");
         
         // Admin/Staff only options - Room Management
-        if (isAdminOrStaff()) {
+        if (currentSession.can(Permission.ADD_ROOM)) {
             System.out.println("2. Add Room (Admin/Staff)");
+        }
+        if (currentSession.can(Permission.REMOVE_ROOM)) {
             System.out.println("3. Remove Room (Admin/Staff)");
         }
         
         // Customer only option - Booking
-        if (currentUser.getRole() == UserRole.CUSTOMER) {
+        if (currentSession.can(Permission.MAKE_RESERVATION)) {
             System.out.println("2. Make Reservation");
         }
         
-        System.out.println("4. Cancel Reservation");
+        if (currentSession.can(Permission.CANCEL_RESERVATION)) {
+            System.out.println("4. Cancel Reservation");
+        }
         System.out.println("5. View Reservations");
         
         // Admin only options - User Management
-        if (currentUser.getRole() == UserRole.ADMIN) {
+        if (currentSession.can(Permission.VIEW_USERS)) {
             System.out.println("6. View All Users (Admin)");
+        }
+        if (currentSession.can(Permission.MANAGE_USERS)) {
             System.out.println("7. Manage Users (Admin)");
         }
         
         System.out.println("8. My Profile");
         System.out.println("9. Logout");
+        
+        // Admin/Staff only option - Block Booking
+        if (currentSession.can(Permission.BOOK_GROUP)) {
+            System.out.println("10. Book Group (Admin/Staff)");
+        }
         System.out.println("========================================");
         System.out.print("Choose an option: ");
     }
     
-    /**
-     * Check if current user is admin or staff
-     */
-    private static boolean isAdminOrStaff() {
-        return currentUser.getRole() == UserRole.ADMIN || 
-               currentUser.getRole() == UserRole.STAFF;
-    }
-
     /**
      * Read menu option from user with error handling
      * Refactoring Technique: Extract Method
@@ -260,49 +480,68 @@ public class HotelReservationSystem {
         try {
             switch (option) {
                 case 1: // View All Rooms
-                    viewAllRooms();
+                    if (currentSession.can(Permission.VIEW_ROOMS)) {
+                        viewAllRooms();
+                    } else {
+                        displayInvalidOptionMessage();
+                    }
                     break;
                 case 2: // Add Room (Admin/Staff) OR Make Reservation (Customer)
-                    if (isAdminOrStaff()) {
+                    if (currentSession.can(Permission.ADD_ROOM)) {
                         addRoom();
-                    } else if (currentUser.getRole() == UserRole.CUSTOMER) {
+                    } else if (currentSession.can(Permission.MAKE_RESERVATION)) {
                         makeReservation();
                     } else {
                         displayInvalidOptionMessage();
                     }
                     break;
                 case 3: // Remove Room (Admin/Staff only)
-                    if (isAdminOrStaff()) {
+                    if (currentSession.can(Permission.REMOVE_ROOM)) {
                         removeRoom();
                     } else {
                         displayInvalidOptionMessage();
                     }
                     break;
                 case 4: // Cancel Reservation
-                    cancelReservation();
+                    if (currentSession.can(Permission.CANCEL_RESERVATION)) {
+                        cancelReservation();
+                    } else {
+                        displayInvalidOptionMessage();
+                    }
                     break;
                 case 5: // View Reservations
                     viewReservations();
                     break;
                 case 6: // View All Users (Admin only)
-                    if (currentUser.getRole() == UserRole.ADMIN) {
+                    if (currentSession.can(Permission.VIEW_USERS)) {
                         viewAllUsers();
                     } else {
                         displayInvalidOptionMessage();
                     }
                     break;
                 case 7: // Manage Users (Admin only)
-                    if (currentUser.getRole() == UserRole.ADMIN) {
+                    if (currentSession.can(Permission.MANAGE_USERS)) {
                         manageUsers();
                     } else {
                         displayInvalidOptionMessage();
                     }
                     break;
                 case 8: // My Profile
-                    viewMyProfile();
+                    if (currentSession.can(Permission.VIEW_PROFILE)) {
+                        viewMyProfile();
+                    } else {
+                        displayInvalidOptionMessage();
+                    }
                     break;
                 case 9: // Logout
                     return logout();
+                case 10: // Book Group (Admin/Staff only)
+                    if (currentSession.can(Permission.BOOK_GROUP)) {
+                        bookGroup();
+                    } else {
+                        displayInvalidOptionMessage();
+                    }
+                    break;
                 default:
                     displayInvalidOptionMessage();
             }
@@ -344,8 +583,14 @@ public class HotelReservationSystem {
             double price = readRoomPrice();
             boolean isAvailable = readRoomAvailability();
 
-            Room room = new Room(roomId, roomType, price, isAvailable);
+            RoomRequest request = new RoomRequest(roomId, roomType, price, isAvailable);
+            long failures = RoomRequest.VALIDATOR.validate(request);
+            if (failures != RequestValidator.VALID) {
+                throw new RoomException(RoomRequest.VALIDATOR.describeAsString(failures));
+            }
+            Room room = request.toRoom();
             roomService.addRoom(room);
+            audit(AuditAction.ROOM_ADDED, roomId, room.getRoomType() + " at " + price);
             System.out.println(AppConstants.SUCCESS_ROOM_ADDED);
             
         } catch (RoomException e) {
@@ -375,12 +620,14 @@ public class HotelReservationSystem {
             
             int roomId = readRoomId();
             
-            System.out.print("Are you sure you want to remove room " + roomId + "? (yes/no): ");
+            System.out.print("Are you sure you want to remove room " + roomId + 
+                             " and cancel its reservations? (yes/no): ");
             String confirm = scanner.nextLine();
             
             if (confirm.equalsIgnoreCase("yes")) {
-                roomService.removeRoom(roomId);
-                System.out.println("✓ Room removed successfully!");
+                int cancelled = cascadeDeletionService.removeRoom(roomId);
+                audit(AuditAction.ROOM_REMOVED, roomId, cancelled + " reservations cancelled");
+                System.out.println("✓ Room removed successfully! Reservations cancelled: " + cancelled);
             } else {
                 System.out.println("Room removal cancelled.");
             }
@@ -448,7 +695,14 @@ public class HotelReservationSystem {
             System.out.println("Booking for: " + currentUser.getUsername() + " (ID: " + currentUser.getUserId() + ")");
             
             int reservationId = readReservationId();
+            verifyReservationIdUnused(reservationId);
+            
+            System.out.println("(Enter Room ID 0 to book any room of a given type)");
             int roomId = readRoomId();
+            if (roomId == 0) {
+                makeRoomTypeReservation(reservationId, userId);
+                return;
+            }
             
             // Verify room is available
             verifyRoomAvailability(roomId);
@@ -456,19 +710,43 @@ public class HotelReservationSystem {
             Date checkInDate = readCheckInDate();
             Date checkOutDate = readCheckOutDate();
             
-            // Validate date range
-            validateDateRange(checkInDate, checkOutDate);
+            // Validate the whole request, reporting every problem at once
+            BookingRequest request = new BookingRequest(
+                reservationId, userId, roomId, checkInDate, checkOutDate
+            );
+            validateBookingRequest(request);
+            
+            // Verify every night of the stay is free
+            verifyRoomAvailability(roomId, checkInDate, checkOutDate);
             
             // Calculate cost
             double totalCost = calculateReservationCost(roomId, checkInDate, checkOutDate);
             
-            // Create and save reservation
-            Reservation reservation = new Reservation(
-                reservationId, userId, roomId, 
-                checkInDate, checkOutDate, totalCost
-            );
-            reservationService.makeReservation(reservation);
-            roomService.markRoomAsOccupied(roomId);
+            // Hold the room while the guest confirms the quote
+            Reservation reservation = request.toReservation(totalCost);
+            long traceStart = Tracer.start();
+            holdService.placeHold(reservation);
+            Tracer.stop(TraceStage.BOOKING_OCCUPY, traceStart);
+            if (!confirmQuote(totalCost)) {
+                holdService.releaseHold(reservationId);
+                System.out.println("Booking not confirmed; the room was released.");
+                return;
+            }
+            traceStart = Tracer.start();
+            try {
+                reservation = holdService.confirmHold(reservationId);
+            } catch (ReservationException e) {
+                // Expired holds are gone already; others would keep the room until they do
+                if (holdService.isHeld(reservationId)) {
+                    holdService.releaseHold(reservationId);
+                }
+                throw e;
+            } finally {
+                Tracer.stop(TraceStage.BOOKING_INSERT, traceStart);
+            }
+            audit(AuditAction.RESERVATION_MADE, reservationId, 
+                  "room " + roomId + ", " + DateUtils.formatDate(checkInDate) + 
+                  " to " + DateUtils.formatDate(checkOutDate));
             
             displayReservationSuccess(reservation);
             
@@ -477,14 +755,173 @@ public class HotelReservationSystem {
         }
     }
 
+    /**
+     * Book a block of rooms for one guest, e.g. a conference, all for the
+     * same dates: every room is booked or none is
+     * Refactoring Technique: Extract Method
+     */
+    private static void bookGroup() {
+        try {
+            System.out.println("\n--- Book Group ---");
+            System.out.print("Enter Guest User ID: ");
+            int userId = scanner.nextInt();
+            scanner.nextLine();
+            userService.getUserById(userId);
+            
+            Date checkInDate = readCheckInDate();
+            Date checkOutDate = readCheckOutDate();
+            validateDateRange(checkInDate, checkOutDate);
+            
+            System.out.print("Enter Number of Rooms: ");
+            int roomCount = scanner.nextInt();
+            scanner.nextLine();
+            
+            List<Reservation> block = new ArrayList<>();
+            for (int i = 0; i < roomCount; i++) {
+                int reservationId = readReservationId();
+                verifyReservationIdUnused(reservationId);
+                int roomId = readRoomId();
+                BookingRequest request = new BookingRequest(
+                    reservationId, userId, roomId, checkInDate, checkOutDate
+                );
+                validateBookingRequest(request);
+                block.add(request.toReservation(
+                    calculateReservationCost(roomId, checkInDate, checkOutDate)));
+            }
+            
+            // One batched check of the calendar; nothing is booked on failure
+            groupBookingService.bookGroup(block);
+            for (Reservation reservation : block) {
+                audit(AuditAction.RESERVATION_MADE, reservation.getReservationId(), 
+                      "group, room " + reservation.getRoomId() + ", " + 
+                      DateUtils.formatDate(checkInDate) + " to " + 
+                      DateUtils.formatDate(checkOutDate));
+            }
+            
+            System.out.println("\n" + AppConstants.SUCCESS_RESERVATION_MADE);
+            System.out.println("Reservation Details:");
+            block.forEach(System.out::println);
+            
+        } catch (ReservationException | RoomException | UserException e) {
+            displayErrorMessage(e);
+        }
+    }
+
+    /**
+     * Book a room type; the concrete room is assigned by the optimizer
+     * Refactoring Technique: Extract Method
+     */
+    private static void makeRoomTypeReservation(int reservationId, int userId) 
+            throws ReservationException, RoomException {
+        String roomType = readRoomType();
+        List<Room> roomsOfType = roomService.findRoomsByType(roomType);
+        if (roomsOfType.isEmpty()) {
+            throw new RoomException(AppConstants.ERROR_ROOM_TYPE_NOT_FOUND);
+        }
+        
+        Date checkInDate = readCheckInDate();
+        Date checkOutDate = readCheckOutDate();
+        validateDateRange(checkInDate, checkOutDate);
+        if (roomService.findAvailableRooms(roomType, checkInDate, checkOutDate).isEmpty()) {
+            throw new RoomException(AppConstants.ERROR_ROOM_TYPE_SOLD_OUT);
+        }
+        
+        // Quote the cheapest room of the type; the guest never pays more
+        long numberOfNights = DateUtils.calculateDaysBetween(checkInDate, checkOutDate);
+        double totalCost = roomsOfType.stream()
+                .mapToDouble(room -> room.calculateCost(numberOfNights))
+                .min()
+                .getAsDouble();
+        
+        TypeBooking booking = new TypeBooking(
+            reservationId, userId, roomType, 
+            checkInDate, checkOutDate, totalCost
+        );
+        roomAssignmentService.bookRoomType(booking);
+        audit(AuditAction.ROOM_TYPE_BOOKED, reservationId, 
+              roomType + ", " + DateUtils.formatDate(checkInDate) + 
+              " to " + DateUtils.formatDate(checkOutDate));
+        
+        System.out.println("\n" + AppConstants.SUCCESS_RESERVATION_MADE);
+        System.out.println("Reservation Details:");
+        System.out.println(booking);
+    }
+
+    /**
+     * Verify no room type booking or hold already uses a reservation ID;
+     * active reservations are checked when the booking is saved
+     * Refactoring Technique: Extract Method
+     * Refactoring Technique: Introduce Assertion
+     */
+    private static void verifyReservationIdUnused(int reservationId) 
+            throws ReservationException {
+        if (roomAssignmentService.bookingExists(reservationId) 
+                || holdService.isHeld(reservationId)) {
+            throw new ReservationException("Reservation with ID " + 
+                reservationId + " already exists");
+        }
+    }
+
+    /**
+     * Show the price of a held room and ask the guest to confirm it
+     * Refactoring Technique: Extract Method
+     */
+    private static boolean confirmQuote(double totalCost) {
+        System.out.println("Room held for " +
+            TimeUnit.MILLISECONDS.toMinutes(HoldService.DEFAULT_HOLD_MILLIS) + " minutes.");
+        System.out.println("Total Cost: $" + String.format("%.2f", totalCost));
+        System.out.print("Confirm booking? (y/n): ");
+        return scanner.nextLine().trim().equalsIgnoreCase("y");
+    }
+
     /**
      * Verify room is available before booking
      * Refactoring Technique: Extract Method
      * Refactoring Technique: Introduce Assertion
      */
     private static void verifyRoomAvailability(int roomId) throws RoomException {
-        if (!roomService.isRoomAvailable(roomId)) {
-            throw new RoomException(AppConstants.ERROR_ROOM_NOT_AVAILABLE);
+        long traceStart = Tracer.start();
+        try {
+            if (!roomService.isRoomAvailable(roomId)) {
+                throw new RoomException(AppConstants.ERROR_ROOM_NOT_AVAILABLE);
+            }
+        } finally {
+            Tracer.stop(TraceStage.BOOKING_VERIFY, traceStart);
+        }
+    }
+
+    /**
+     * Verify room is free for the requested nights
+     * Refactoring Technique: Extract Method
+     * Refactoring Technique: Introduce Assertion
+     */
+    private static void verifyRoomAvailability(int roomId, Date checkInDate, Date checkOutDate) 
+            throws RoomException {
+        long traceStart = Tracer.start();
+        try {
+            if (!roomService.isRoomAvailable(roomId, checkInDate, checkOutDate)) {
+                throw new RoomException(AppConstants.ERROR_ROOM_NOT_AVAILABLE);
+            }
+        } finally {
+            Tracer.stop(TraceStage.BOOKING_VERIFY, traceStart);
+        }
+    }
+
+    /**
+     * Validate a booking request against every rule in one pass
+     * Refactoring Technique: Extract Method
+     * Refactoring Technique: Introduce Assertion
+     */
+    private static void validateBookingRequest(BookingRequest request) 
+            throws ReservationException {
+        long traceStart = Tracer.start();
+        try {
+            long failures = BookingRequest.VALIDATOR.validate(request);
+            if (failures != RequestValidator.VALID) {
+                throw new ReservationException(BookingRequest.VALIDATOR.describeAsString(failures));
+            }
+        } finally {
+            Tracer.stop(TraceStage.BOOKING_VALIDATE, traceStart);
         }
     }
 
@@ -495,8 +932,13 @@ public class HotelReservationSystem {
      */
     private static void validateDateRange(Date checkInDate, Date checkOutDate) 
             throws ReservationException {
-        if (!DateUtils.isValidDateRange(checkInDate, checkOutDate)) {
-            throw new ReservationException(AppConstants.ERROR_INVALID_DATE_RANGE);
+        long traceStart = Tracer.start();
+        try {
+            if (!DateUtils.isValidDateRange(checkInDate, checkOutDate)) {
+                throw new ReservationException(AppConstants.ERROR_INVALID_DATE_RANGE);
+            }
+        } finally {
+            Tracer.stop(TraceStage.BOOKING_VALIDATE_DATES, traceStart);
         }
     }
 
@@ -507,9 +949,14 @@ public class HotelReservationSystem {
      */
     private static double calculateReservationCost(int roomId, Date checkInDate, 
                                                    Date checkOutDate) throws RoomException {
-        Room room = roomService.getRoomById(roomId);
-        long numberOfNights = DateUtils.calculateDaysBetween(checkInDate, checkOutDate);
-        return room.calculateCost(numberOfNights);
+        long traceStart = Tracer.start();
+        try {
+            Room room = roomService.getRoomById(roomId);
+            long numberOfNights = DateUtils.calculateDaysBetween(checkInDate, checkOutDate);
+            return room.calculateCost(numberOfNights);
+        } finally {
+            Tracer.stop(TraceStage.BOOKING_COST, traceStart);
+        }
     }
 
     /**
@@ -530,7 +977,7 @@ public class HotelReservationSystem {
     private static Date readCheckInDate() {
         System.out.print("Enter Check-in Date (yyyy-MM-dd): ");
         String dateStr = scanner.nextLine();
-        return java.sql.Date.valueOf(dateStr);
+        return DateUtils.parseDate(dateStr.trim());
     }
 
     /**
@@ -540,7 +987,7 @@ public class HotelReservationSystem {
     private static Date readCheckOutDate() {
         System.out.print("Enter Check-out Date (yyyy-MM-dd): ");
         String dateStr = scanner.nextLine();
-        return java.sql.Date.valueOf(dateStr);
+        return DateUtils.parseDate(dateStr.trim());
     }
 
     /**
@@ -565,11 +1012,22 @@ public class HotelReservationSystem {
             int reservationId = scanner.nextInt();
             scanner.nextLine();
 
+            // Type-level bookings free the nights held on their planned room
+            if (!reservationService.reservationExists(reservationId) && 
+                    roomAssignmentService.bookingExists(reservationId)) {
+                roomAssignmentService.cancelBooking(reservationId);
+                audit(AuditAction.RESERVATION_CANCELLED, reservationId, "room type booking");
+                System.out.println(AppConstants.SUCCESS_RESERVATION_CANCELED);
+                return;
+            }
+
             Reservation reservation = reservationService.getReservationById(reservationId);
             
-            // Cancel reservation and free the room
+            // Cancel reservation and free its nights
             reservationService.cancelReservation(reservationId);
-            roomService.markRoomAsAvailable(reservation.getRoomId());
+            roomService.releaseNights(reservation);
+            audit(AuditAction.RESERVATION_CANCELLED, reservationId, 
+                  "room " + reservation.getRoomId());
             
             System.out.println(AppConstants.SUCCESS_RESERVATION_CANCELED);
             
@@ -583,10 +1041,12 @@ public class HotelReservationSystem {
      * Refactoring Technique: Extract Method
      */
     private static void viewReservations() {
-        if (isAdminOrStaff()) {
+        if (currentSession.can(Permission.VIEW_ALL_RESERVATIONS)) {
             viewAllReservations();
-        } else {
+        } else if (currentSession.can(Permission.VIEW_OWN_RESERVATIONS)) {
             viewMyReservations();
+        } else {
+            displayInvalidOptionMessage();
         }
     }
     
@@ -614,6 +1074,26 @@ public class HotelReservationSystem {
         System.out.println("\nTotal Reservations: " + reservationService.getReservationCount());
         System.out.println("Total Revenue: $" + 
             String.format("%.2f", reservationService.calculateTotalRevenue()));
+        displayTodaysMovements();
+    }
+    
+    /**
+     * Display today's arrivals and departures for the front desk
+     * Refactoring Technique: Extract Method
+     */
+    private static void displayTodaysMovements() {
+        Date today = new Date();
+        List<Reservation> arrivals = reservationService.getArrivals(today);
+        List<Reservation> departures = reservationService.getDepartures(today);
+        
+        System.out.println("\n--- Today's Arrivals (" + arrivals.size() + ") ---");
+        for (Reservation reservation : arrivals) {
+            System.out.println(reservation);
+        }
+        System.out.println("\n--- Today's Departures (" + departures.size() + ") ---");
+        for (Reservation reservation : departures) {
+            System.out.println(reservation);
+        }
     }
     
     /**
@@ -622,16 +1102,45 @@ public class HotelReservationSystem {
     private static void viewMyReservations() {
         System.out.println("\n--- My Reservations ---");
         List<Reservation> reservations = reservationService.getReservationsByUserId(currentUser.getUserId());
+        List<TypeBooking> pendingBookings = 
+            roomAssignmentService.getPendingBookingsByUserId(currentUser.getUserId());
         
-        if (reservations.isEmpty()) {
+        if (reservations.isEmpty() && pendingBookings.isEmpty()) {
             System.out.println("You have no reservations.");
+            displayPastStays();
             return;
         }
         
         for (Reservation reservation : reservations) {
             System.out.println(reservation);
         }
-        System.out.println("\nTotal: " + reservations.size() + " reservation(s)");
+        for (TypeBooking booking : pendingBookings) {
+            System.out.println(booking);
+        }
+        System.out.println("\nTotal: " + (reservations.size() + pendingBookings.size()) + " reservation(s)");
+        displayPastStays();
+    }
+    
+    /**
+     * Display the logged-in user's completed stays from the archive
+     * Refactoring Technique: Extract Method
+     */
+    private static void displayPastStays() {
+        if (reservationArchiver == null) {
+            return;
+        }
+        try {
+            List<Reservation> pastStays = reservationArchiver.getHistoryByUserId(currentUser.getUserId());
+            if (pastStays.isEmpty()) {
+                return;
+            }
+            System.out.println("\n--- Past Stays ---");
+            for (Reservation reservation : pastStays) {
+                System.out.println(reservation);
+            }
+        } catch (IOException e) {
+            System.err.println("Error reading reservation archive: " + e.getMessage());
+        }
     }
     
     /**
@@ -709,6 +1218,7 @@ public class HotelReservationSystem {
         }
         
         userService.updateUserRole(userId, newRole);
+        audit(AuditAction.USER_ROLE_CHANGED, userId, newRole.name());
         System.out.println("✓ User role updated successfully!");
     }
     
@@ -724,12 +1234,13 @@ public class HotelReservationSystem {
             throw new UserException("Cannot delete your own account!");
         }
         
-        System.out.print("Are you sure? (yes/no): ");
+        System.out.print("Are you sure? The user's reservations will be cancelled. (yes/no): ");
         String confirm = scanner.nextLine();
         
         if (confirm.equalsIgnoreCase("yes")) {
-            userService.deleteUser(userId);
-            System.out.println("✓ User deleted successfully!");
+            int cancelled = cascadeDeletionService.deleteUser(userId);
+            audit(AuditAction.USER_DELETED, userId, cancelled + " bookings cancelled");
+            System.out.println("✓ User deleted successfully! Bookings cancelled: " + cancelled);
         }
     }
     
@@ -742,7 +1253,7 @@ public class HotelReservationSystem {
         System.out.println("╚════════════════════════════════════════╝");
         System.out.println("User ID: " + currentUser.getUserId());
         System.out.println("Username: " + currentUser.getUsername());
-        System.out.println("Role: " + currentUser.getRole());
+        System.out.println("Role: " + currentSession.getRole());
         
         List<Reservation> myReservations = reservationService.getReservationsByUserId(currentUser.getUserId());
         System.out.println("Total Reservations: " + myReservations.size());
@@ -754,9 +1265,19 @@ public class HotelReservationSystem {
     private static boolean logout() {
         System.out.println("\n✓ Logged out successfully!");
         System.out.println("Goodbye, " + currentUser.getUsername() + "!");
-        currentUser = null;
+        endSession();
         return false; // Exit main menu loop
     }
+    
+    /**
+     * Close the authorization session and forget the logged-in user
+     * Refactoring Technique: Extract Method
+     */
+    private static void endSession() {
+        authorizer.closeSession(currentSession);
+        currentSession = null;
+        currentUser = null;
+    }
 
     /**
      * Display exit message
@@ -790,9 +1311,72 @@ public class HotelReservationSystem {
      * Refactoring Technique: Extract Method
      */
     private static void cleanup() {
+        if (Tracer.isEnabled()) {
+            System.out.println("\n--- Stage Latencies ---");
+            System.out.print(Tracer.report());
+            if (reservationStore instanceof BTreeReservationRepository) {
+                System.out.println("\n--- Reservation Buffer Pool ---");
+                System.out.println(((BTreeReservationRepository) reservationStore).getBufferPoolStats());
+            }
+        }
         if (scanner != null) {
             scanner.close();
         }
+        if (roomAssignmentScheduler != null) {
+            roomAssignmentScheduler.close();
+        }
+        if (reservationArchiver != null) {
+            reservationArchiver.close();
+        }
+        if (holdService != null) {
+            holdService.close();
+        }
+        // The background jobs have stopped, so nothing touches the calendar
+        roomService.close();
+        if (reservationArchive != null) {
+            try {
+                reservationArchive.close();
+            } catch (IOException e) {
+                System.err.println("Error closing reservation archive: " + e.getMessage());
+            }
+        }
+        if (auditLog != null) {
+            try {
+                auditLog.close();
+            } catch (IOException e) {
+                System.err.println("Error closing audit log: " + e.getMessage());
+            }
+        }
+        if (replicationLeader != null) {
+            try {
+                replicationLeader.close();
+            } catch (IOException e) {
+                System.err.println("Error stopping replication: " + e.getMessage());
+            }
+        }
+        closeStores();
+    }
+
+    /**
+     * Closes the stores, once, from whichever of cleanup and the shutdown
+     * hook gets there first. serviceLock is not taken: the menu holds it
+     * while waiting for input.
+     */
+    private static void closeStores() {
+        if (storesClosed.compareAndSet(false, true)) {
+            closeStore(roomStore);
+            closeStore(reservationStore);
+            closeStore(userStore);
+            closeStore(typeBookingStore);
+        }
+    }
+
+    private static void closeStore(Repository<?> store) {
+        try {
+            store.close();
+        } catch (UncheckedIOException e) {
+            System.err.println("Error closing storage: " + e.getMessage());
+        }
     }
 }
 
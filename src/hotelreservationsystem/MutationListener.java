@@ -0,0 +1,54 @@
+package hotelreservationsystem;
+
+import hotelreservationsystem.enums.UserRole;
+
+/**
+ * Observer notified after each successful mutation of the services.
+ * All methods default to no-ops so listeners implement only what they need.
+ * 
+ * @author Software Re-Engineering Enhancement
+ */
+public interface MutationListener {
+
+    default void roomAdded(Room room) {
+    }
+
+    default void roomUpdated(Room room) {
+    }
+
+    default void roomRemoved(int roomId) {
+    }
+
+    default void nightsReserved(Reservation reservation) {
+    }
+
+    default void nightsReleased(Reservation reservation) {
+    }
+
+    default void reservationMade(Reservation reservation) {
+    }
+
+    default void reservationUpdated(Reservation reservation) {
+    }
+
+    default void reservationCancelled(int reservationId) {
+    }
+
+    default void reservationArchived(int reservationId) {
+    }
+
+    default void typeBookingAdded(TypeBooking booking) {
+    }
+
+    default void typeBookingRemoved(int reservationId) {
+    }
+
+    default void userRegistered(User user) {
+    }
+
+    default void userRoleChanged(int userId, UserRole newRole) {
+    }
+
+    default void userDeleted(int userId) {
+    }
+}
@@ -127,6 +127,20 @@ public class Reservation {
         this.checkOutDate = new Date(checkOutDate.getTime());
     }
 
+    /**
+     * Check-in time in epoch milliseconds (no defensive copy needed)
+     */
+    public long getCheckInTime() {
+        return checkInDate.getTime();
+    }
+
+    /**
+     * Check-out time in epoch milliseconds (no defensive copy needed)
+     */
+    public long getCheckOutTime() {
+        return checkOutDate.getTime();
+    }
+
     public double getTotalCost() {
         return totalCost;
     }
@@ -167,8 +181,8 @@ public class Reservation {
                 "reservationId=" + reservationId +
                 ", userId=" + userId +
                 ", roomId=" + roomId +
-                ", checkInDate=" + checkInDate +
-                ", checkOutDate=" + checkOutDate +
+                ", checkInDate=" + DateUtils.formatDate(checkInDate) +
+                ", checkOutDate=" + DateUtils.formatDate(checkOutDate) +
                 ", totalCost=" + totalCost +
                 ", nights=" + getNumberOfNights();
     }
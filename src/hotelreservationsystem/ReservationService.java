@@ -2,11 +2,30 @@ package hotelreservationsystem;
 
 import hotelreservationsystem.constants.AppConstants;
 import hotelreservationsystem.exceptions.ReservationException;
+import hotelreservationsystem.export.ReservationExporter;
+import hotelreservationsystem.metrics.TraceStage;
+import hotelreservationsystem.metrics.Tracer;
+import hotelreservationsystem.storage.EntityType;
+import hotelreservationsystem.storage.HashRepository;
+import hotelreservationsystem.storage.IndexedReservationRepository;
+import hotelreservationsystem.storage.Repository;
+import hotelreservationsystem.storage.ReservationRepository;
+import hotelreservationsystem.utils.DateUtils;
 import hotelreservationsystem.utils.InputValidator;
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Date;
+import java.util.Deque;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 
 /**
@@ -19,13 +38,55 @@ import java.util.stream.Collectors;
  * - Introduce Null Object (use Optional)
  * - Separate Query from Modifier
  * 
+ * Active reservations are kept in a ReservationRepository, which also
+ * indexes them by user, room, check-in day and check-out day and keeps
+ * their total cost. Lookups by user or room, the cascades run when a
+ * user or room is deleted, and arrival and departure lists for any date
+ * range therefore cost O(log n + k) in the reservations involved rather
+ * than a scan of all of them. A plain Repository is wrapped in an
+ * IndexedReservationRepository, which keeps those indexes on the heap;
+ * a BTreeReservationRepository keeps them on disk.
+ * 
+ * Cancelled reservations are kept for the cancellation figures of the
+ * occupancy report, up to MAX_CANCELLED_RESERVATIONS; beyond that the
+ * oldest cancellation is dropped, so a long-running system does not grow
+ * without bound.
+ * 
  * @author Refactored by Software Re-Engineering
  */
 public class ReservationService {
-    private final List<Reservation> reservations;
+    /** Most recent cancellations kept for reporting */
+    public static final int MAX_CANCELLED_RESERVATIONS = 100_000;
+
+    private final ReservationRepository reservations;
+    private final Deque<Reservation> cancelledReservations;
+    private final List<MutationListener> listeners;
 
     public ReservationService() {
-        this.reservations = new ArrayList<>();
+        this(new HashRepository<>(EntityType.RESERVATION));
+    }
+
+    /**
+     * Creates the service over a reservation store, which may already
+     * hold reservations (e.g. a file store reopened). A store that is not
+     * a ReservationRepository is indexed on the heap.
+     */
+    public ReservationService(Repository<Reservation> reservations) {
+        this.reservations = reservations instanceof ReservationRepository
+                ? (ReservationRepository) reservations
+                : new IndexedReservationRepository(reservations);
+        this.cancelledReservations = new ArrayDeque<>();
+        this.listeners = new CopyOnWriteArrayList<>();
+    }
+
+    /**
+     * Registers a listener notified after every successful mutation
+     */
+    public void addMutationListener(MutationListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener cannot be null");
+        }
+        listeners.add(listener);
     }
 
     /**
@@ -34,17 +95,53 @@ public class ReservationService {
      * Refactoring Technique: Rename Method (more descriptive)
      */
     public void makeReservation(Reservation reservation) throws ReservationException {
-        if (reservation == null) {
-            throw new ReservationException("Reservation cannot be null");
-        }
+        long traceStart = Tracer.start();
+        try {
+            if (reservation == null) {
+                throw new ReservationException("Reservation cannot be null");
+            }
         
-        // Check for duplicate reservation ID
-        if (findReservationById(reservation.getReservationId()).isPresent()) {
-            throw new ReservationException("Reservation with ID " + 
-                reservation.getReservationId() + " already exists");
-        }
+            // Check for duplicate reservation ID
+            if (reservations.contains(reservation.getReservationId())) {
+                throw new ReservationException("Reservation with ID " + 
+                    reservation.getReservationId() + " already exists");
+            }
         
-        reservations.add(reservation);
+            reservations.save(reservation);
+            listeners.forEach(listener -> listener.reservationMade(reservation));
+        } finally {
+            Tracer.stop(TraceStage.MAKE_RESERVATION, traceStart);
+        }
+    }
+
+    /**
+     * Makes many reservations at once: all of them or none. IDs are
+     * checked against the active reservations and each other before any
+     * is added.
+     * Refactoring Technique: Introduce Assertion
+     */
+    public void makeReservations(Collection<Reservation> batch) throws ReservationException {
+        long traceStart = Tracer.start();
+        try {
+            Set<Integer> reservationIds = new HashSet<>(batch.size() * 2);
+            for (Reservation reservation : batch) {
+                if (reservation == null) {
+                    throw new ReservationException("Reservation cannot be null");
+                }
+                if (reservations.contains(reservation.getReservationId()) 
+                        || !reservationIds.add(reservation.getReservationId())) {
+                    throw new ReservationException("Reservation with ID " + 
+                        reservation.getReservationId() + " already exists");
+                }
+            }
+
+            reservations.saveAll(batch);
+            for (MutationListener listener : listeners) {
+                batch.forEach(listener::reservationMade);
+            }
+        } finally {
+            Tracer.stop(TraceStage.MAKE_RESERVATIONS, traceStart);
+        }
     }
 
     /**
@@ -53,17 +150,169 @@ public class ReservationService {
      * Refactoring Technique: Rename Method (more descriptive)
      */
     public void cancelReservation(int reservationId) throws ReservationException {
-        if (!InputValidator.isValidId(reservationId)) {
-            throw new ReservationException(AppConstants.ERROR_INVALID_RESERVATION_ID);
-        }
+        long traceStart = Tracer.start();
+        try {
+            if (!InputValidator.isValidId(reservationId)) {
+                throw new ReservationException(AppConstants.ERROR_INVALID_RESERVATION_ID);
+            }
         
-        boolean removed = reservations.removeIf(
-            reservation -> reservation.getReservationId() == reservationId
-        );
+            Reservation reservation = findReservationById(reservationId)
+                    .orElseThrow(() -> new ReservationException(
+                        AppConstants.ERROR_RESERVATION_NOT_FOUND));
         
-        if (!removed) {
-            throw new ReservationException(AppConstants.ERROR_RESERVATION_NOT_FOUND);
+            reservations.remove(reservationId);
+            recordCancellation(reservation);
+            listeners.forEach(listener -> listener.reservationCancelled(reservationId));
+        } finally {
+            Tracer.stop(TraceStage.CANCEL_RESERVATION, traceStart);
+        }
+    }
+
+    /**
+     * Returns the reservations whose stay ended on or before the cutoff
+     * Refactoring Technique: Separate Query from Modifier
+     */
+    public List<Reservation> getCompletedReservations(Date cutoff) {
+        long traceStart = Tracer.start();
+        try {
+            long cutoffTime = cutoff.getTime();
+            return reservations.findByCheckOutDay(Integer.MIN_VALUE, DateUtils.toEpochDay(cutoff) + 1)
+                    .stream()
+                    .filter(reservation -> reservation.getCheckOutTime() <= cutoffTime)
+                    .collect(Collectors.toList());
+        } finally {
+            Tracer.stop(TraceStage.GET_COMPLETED_RESERVATIONS, traceStart);
+        }
+    }
+
+    /**
+     * Drops reservations that have been moved to the archive from the hot
+     * set in one pass; IDs no longer present are ignored
+     * 
+     * @return number of reservations removed
+     */
+    public int archiveReservations(Collection<Integer> reservationIds) {
+        long traceStart = Tracer.start();
+        try {
+            List<Integer> archived = new ArrayList<>();
+            for (int reservationId : reservationIds) {
+                if (reservations.remove(reservationId)) {
+                    archived.add(reservationId);
+                }
+            }
+            for (MutationListener listener : listeners) {
+                archived.forEach(listener::reservationArchived);
+            }
+            return archived.size();
+        } finally {
+            Tracer.stop(TraceStage.ARCHIVE_RESERVATIONS, traceStart);
+        }
+    }
+
+    /**
+     * Cancels every active reservation of a user, e.g. when the user is
+     * deleted, in O(k) for the user's k reservations
+     * 
+     * @return the cancelled reservations, whose nights the caller frees
+     */
+    public List<Reservation> cancelReservationsByUserId(int userId) {
+        long traceStart = Tracer.start();
+        try {
+            return cancelAll(reservations.findByUserId(userId));
+        } finally {
+            Tracer.stop(TraceStage.CANCEL_RESERVATIONS_BY_USER_ID, traceStart);
+        }
+    }
+
+    /**
+     * Cancels every active reservation of a room, e.g. when the room is
+     * removed, in O(k) for the room's k reservations
+     * 
+     * @return the cancelled reservations
+     */
+    public List<Reservation> cancelReservationsByRoomId(int roomId) {
+        long traceStart = Tracer.start();
+        try {
+            return cancelAll(reservations.findByRoomId(roomId));
+        } finally {
+            Tracer.stop(TraceStage.CANCEL_RESERVATIONS_BY_ROOM_ID, traceStart);
+        }
+    }
+
+    private List<Reservation> cancelAll(List<Reservation> cancelled) {
+        for (Reservation reservation : cancelled) {
+            reservations.remove(reservation.getReservationId());
+            recordCancellation(reservation);
+        }
+        for (MutationListener listener : listeners) {
+            cancelled.forEach(reservation -> listener.reservationCancelled(reservation.getReservationId()));
         }
+        return cancelled;
+    }
+
+    /**
+     * Keeps a cancellation for reporting, dropping the oldest beyond the cap
+     */
+    private void recordCancellation(Reservation reservation) {
+        if (cancelledReservations.size() == MAX_CANCELLED_RESERVATIONS) {
+            cancelledReservations.removeFirst();
+        }
+        cancelledReservations.addLast(reservation);
+    }
+
+    /**
+     * Gets the reservations checking in on the given day
+     * Refactoring Technique: Extract Method
+     */
+    public List<Reservation> getArrivals(Date date) {
+        return getArrivalsBetween(date, DateUtils.fromEpochDay(DateUtils.toEpochDay(date) + 1));
+    }
+
+    /**
+     * Gets the reservations checking out on the given day
+     * Refactoring Technique: Extract Method
+     */
+    public List<Reservation> getDepartures(Date date) {
+        return getDeparturesBetween(date, DateUtils.fromEpochDay(DateUtils.toEpochDay(date) + 1));
+    }
+
+    /**
+     * Gets the reservations checking in on days in [fromDate, toDate),
+     * ordered by check-in day
+     */
+    public List<Reservation> getArrivalsBetween(Date fromDate, Date toDate) {
+        long traceStart = Tracer.start();
+        try {
+            return findInDayRange(reservations::findByCheckInDay, fromDate, toDate);
+        } finally {
+            Tracer.stop(TraceStage.GET_ARRIVALS_BETWEEN, traceStart);
+        }
+    }
+
+    /**
+     * Gets the reservations checking out on days in [fromDate, toDate),
+     * ordered by check-out day
+     */
+    public List<Reservation> getDeparturesBetween(Date fromDate, Date toDate) {
+        long traceStart = Tracer.start();
+        try {
+            return findInDayRange(reservations::findByCheckOutDay, fromDate, toDate);
+        } finally {
+            Tracer.stop(TraceStage.GET_DEPARTURES_BETWEEN, traceStart);
+        }
+    }
+
+    private static List<Reservation> findInDayRange(
+            BiFunction<Integer, Integer, List<Reservation>> dayIndex, Date fromDate, Date toDate) {
+        if (fromDate == null || toDate == null) {
+            throw new IllegalArgumentException("Dates cannot be null");
+        }
+        int fromDay = DateUtils.toEpochDay(fromDate);
+        int toDay = DateUtils.toEpochDay(toDate);
+        if (toDay <= fromDay) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(dayIndex.apply(fromDay, toDay));
     }
 
     /**
@@ -72,9 +321,7 @@ public class ReservationService {
      * Refactoring Technique: Separate Query from Modifier
      */
     private Optional<Reservation> findReservationById(int reservationId) {
-        return reservations.stream()
-                .filter(reservation -> reservation.getReservationId() == reservationId)
-                .findFirst();
+        return reservations.findById(reservationId);
     }
 
     /**
@@ -82,21 +329,36 @@ public class ReservationService {
      * Refactoring Technique: Replace Error Code with Exception
      */
     public Reservation getReservationById(int reservationId) throws ReservationException {
-        if (!InputValidator.isValidId(reservationId)) {
-            throw new ReservationException(AppConstants.ERROR_INVALID_RESERVATION_ID);
-        }
+        long traceStart = Tracer.start();
+        try {
+            if (!InputValidator.isValidId(reservationId)) {
+                throw new ReservationException(AppConstants.ERROR_INVALID_RESERVATION_ID);
+            }
         
-        return findReservationById(reservationId)
-                .orElseThrow(() -> new ReservationException(
-                    AppConstants.ERROR_RESERVATION_NOT_FOUND));
+            return findReservationById(reservationId)
+                    .orElseThrow(() -> new ReservationException(
+                        AppConstants.ERROR_RESERVATION_NOT_FOUND));
+        } finally {
+            Tracer.stop(TraceStage.GET_RESERVATION_BY_ID, traceStart);
+        }
     }
 
     /**
-     * Returns unmodifiable list of all reservations
+     * Returns an unmodifiable snapshot of all active reservations, in the
+     * order they were made
      * Refactoring Technique: Encapsulate Collection
      */
     public List<Reservation> getAllReservations() {
-        return Collections.unmodifiableList(reservations);
+        return Collections.unmodifiableList(reservations.findAll());
+    }
+
+    /**
+     * Returns a snapshot of the most recent cancelled reservations (kept
+     * for reporting), oldest first
+     * Refactoring Technique: Encapsulate Collection
+     */
+    public List<Reservation> getCancelledReservations() {
+        return List.copyOf(cancelledReservations);
     }
 
     /**
@@ -104,16 +366,16 @@ public class ReservationService {
      * Refactoring Technique: Extract Method
      */
     public List<Reservation> getReservationsByUserId(int userId) {
-        if (!InputValidator.isValidId(userId)) {
-            return Collections.emptyList();
-        }
+        long traceStart = Tracer.start();
+        try {
+            if (!InputValidator.isValidId(userId)) {
+                return Collections.emptyList();
+            }
         
-        return reservations.stream()
-                .filter(reservation -> reservation.getUserId() == userId)
-                .collect(Collectors.collectingAndThen(
-                    Collectors.toList(),
-                    Collections::unmodifiableList
-                ));
+            return Collections.unmodifiableList(reservations.findByUserId(userId));
+        } finally {
+            Tracer.stop(TraceStage.GET_RESERVATIONS_BY_USER_ID, traceStart);
+        }
     }
 
     /**
@@ -121,16 +383,16 @@ public class ReservationService {
      * Refactoring Technique: Extract Method
      */
     public List<Reservation> getReservationsByRoomId(int roomId) {
-        if (!InputValidator.isValidId(roomId)) {
-            return Collections.emptyList();
-        }
+        long traceStart = Tracer.start();
+        try {
+            if (!InputValidator.isValidId(roomId)) {
+                return Collections.emptyList();
+            }
         
-        return reservations.stream()
-                .filter(reservation -> reservation.getRoomId() == roomId)
-                .collect(Collectors.collectingAndThen(
-                    Collectors.toList(),
-                    Collections::unmodifiableList
-                ));
+            return Collections.unmodifiableList(reservations.findByRoomId(roomId));
+        } finally {
+            Tracer.stop(TraceStage.GET_RESERVATIONS_BY_ROOM_ID, traceStart);
+        }
     }
 
     /**
@@ -138,18 +400,20 @@ public class ReservationService {
      * Refactoring Technique: Replace Error Code with Exception
      */
     public void updateReservation(Reservation updatedReservation) throws ReservationException {
-        if (updatedReservation == null) {
-            throw new ReservationException("Reservation cannot be null");
-        }
+        long traceStart = Tracer.start();
+        try {
+            if (updatedReservation == null) {
+                throw new ReservationException("Reservation cannot be null");
+            }
         
-        for (int i = 0; i < reservations.size(); i++) {
-            if (reservations.get(i).getReservationId() == 
-                updatedReservation.getReservationId()) {
-                reservations.set(i, updatedReservation);
-                return;
+            if (!reservations.contains(updatedReservation.getReservationId())) {
+                throw new ReservationException(AppConstants.ERROR_RESERVATION_NOT_FOUND);
             }
+            reservations.save(updatedReservation);
+            listeners.forEach(listener -> listener.reservationUpdated(updatedReservation));
+        } finally {
+            Tracer.stop(TraceStage.UPDATE_RESERVATION, traceStart);
         }
-        throw new ReservationException(AppConstants.ERROR_RESERVATION_NOT_FOUND);
     }
 
     /**
@@ -161,13 +425,35 @@ public class ReservationService {
     }
 
     /**
-     * Calculates total revenue from all reservations
+     * Total revenue of the active reservations, to the cent
      * Refactoring Technique: Extract Method
      */
     public double calculateTotalRevenue() {
-        return reservations.stream()
-                .mapToDouble(Reservation::getTotalCost)
-                .sum();
+        long traceStart = Tracer.start();
+        try {
+            return reservations.getTotalCostCents() / 100.0;
+        } finally {
+            Tracer.stop(TraceStage.CALCULATE_TOTAL_REVENUE, traceStart);
+        }
+    }
+
+    /**
+     * Streams every active reservation to the channel, typically a file
+     * or socket, without building a String per row. Stays the archiver
+     * has moved out are not included; ReservationArchiver.exportHistory
+     * exports those together with these.
+     * Refactoring Technique: Move Method (encoding lives in ReservationExporter)
+     * 
+     * @return number of bytes written
+     */
+    public long exportReservations(WritableByteChannel out, ReservationExporter.Format format) 
+            throws IOException {
+        long traceStart = Tracer.start();
+        try {
+            return new ReservationExporter(format).export(reservations, out);
+        } finally {
+            Tracer.stop(TraceStage.EXPORT_RESERVATIONS, traceStart);
+        }
     }
 
     /**
@@ -176,6 +462,11 @@ public class ReservationService {
      * Refactoring Technique: Separate Query from Modifier
      */
     public boolean reservationExists(int reservationId) {
-        return findReservationById(reservationId).isPresent();
+        long traceStart = Tracer.start();
+        try {
+            return findReservationById(reservationId).isPresent();
+        } finally {
+            Tracer.stop(TraceStage.RESERVATION_EXISTS, traceStart);
+        }
     }
 }
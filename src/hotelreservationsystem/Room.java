@@ -15,7 +15,7 @@ import hotelreservationsystem.utils.InputValidator;
  */
 public class Room {
     private int roomId;
-    private String roomType;
+    private int roomTypeId;
     private double price;
     private boolean isAvailable;
 
@@ -35,7 +35,7 @@ public class Room {
         }
         
         this.roomId = roomId;
-        this.roomType = roomType;
+        this.roomTypeId = RoomTypeRegistry.register(roomType);
         this.price = price;
         this.isAvailable = isAvailable;
     }
@@ -46,7 +46,15 @@ public class Room {
     }
 
     public String getRoomType() {
-        return roomType;
+        return RoomTypeRegistry.nameOf(roomTypeId);
+    }
+
+    /**
+     * Dictionary ordinal of the room type
+     * Refactoring Technique: Replace Data Value with Object
+     */
+    public int getRoomTypeId() {
+        return roomTypeId;
     }
 
     /**
@@ -57,7 +65,7 @@ public class Room {
         if (!InputValidator.isValidString(roomType)) {
             throw new IllegalArgumentException("Room type cannot be null or empty");
         }
-        this.roomType = roomType;
+        this.roomTypeId = RoomTypeRegistry.register(roomType);
     }
 
     public double getPrice() {
@@ -114,7 +122,7 @@ public class Room {
     public String toString() {
         return "Room " +
                 "roomId=" + roomId +
-                ", roomType='" + roomType + '\'' +
+                ", roomType='" + getRoomType() + '\'' +
                 ", price=" + price +
                 ", isAvailable=" + isAvailable;
     }
@@ -0,0 +1,265 @@
+package hotelreservationsystem;
+
+import hotelreservationsystem.utils.DateUtils;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Assigns concrete rooms to type-level bookings.
+ *
+ * Each room type is an independent interval-partitioning problem, so the
+ * types are solved in parallel as fork/join tasks. Within a type, bookings
+ * are swept in check-in order and each one is placed best-fit: on the room
+ * that became free most recently before its check-in, which packs stays
+ * back to back and avoids leaving single-night gaps. Existing reservations
+ * stay pinned to their rooms.
+ *
+ * @author Software Re-Engineering Enhancement
+ */
+public class RoomAssignmentOptimizer {
+    private final ForkJoinPool pool;
+
+    public RoomAssignmentOptimizer() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public RoomAssignmentOptimizer(ForkJoinPool pool) {
+        if (pool == null) {
+            throw new IllegalArgumentException("Pool cannot be null");
+        }
+        this.pool = pool;
+    }
+
+    /**
+     * Computes room assignments for all pending bookings
+     *
+     * @param rooms all rooms of the property
+     * @param reservations reservations already bound to a room
+     * @param pendingBookings bookings waiting for a room
+     * @return the assignment plan
+     */
+    public AssignmentPlan optimize(List<Room> rooms, List<Reservation> reservations,
+                                   List<TypeBooking> pendingBookings) {
+        Map<Integer, List<Room>> roomsByType = new HashMap<>();
+        for (Room room : rooms) {
+            if (!room.isAvailable()) {
+                continue; // Closed for sale
+            }
+            roomsByType.computeIfAbsent(room.getRoomTypeId(),
+                    type -> new ArrayList<>()).add(room);
+        }
+
+        Map<Integer, List<Reservation>> reservationsByRoom = new HashMap<>();
+        for (Reservation reservation : reservations) {
+            reservationsByRoom.computeIfAbsent(reservation.getRoomId(),
+                    roomId -> new ArrayList<>()).add(reservation);
+        }
+
+        Map<Integer, List<TypeBooking>> bookingsByType = new HashMap<>();
+        for (TypeBooking booking : pendingBookings) {
+            bookingsByType.computeIfAbsent(booking.getRoomTypeId(),
+                    type -> new ArrayList<>()).add(booking);
+        }
+
+        List<TypeAssignmentTask> tasks = new ArrayList<>();
+        for (Map.Entry<Integer, List<TypeBooking>> entry : bookingsByType.entrySet()) {
+            tasks.add(new TypeAssignmentTask(
+                    roomsByType.getOrDefault(entry.getKey(), Collections.emptyList()),
+                    reservationsByRoom, entry.getValue()));
+        }
+        pool.submit(() -> ForkJoinTask.invokeAll(tasks)).join();
+
+        AssignmentPlan plan = new AssignmentPlan();
+        for (TypeAssignmentTask task : tasks) {
+            plan.merge(task.join());
+        }
+        return plan;
+    }
+
+    /**
+     * Result of an optimization run
+     */
+    public static final class AssignmentPlan {
+        private final Map<Integer, Integer> roomByReservation = new HashMap<>();
+        private final List<TypeBooking> unassigned = new ArrayList<>();
+        private int singleNightGaps;
+
+        /**
+         * Gets the room assigned to a booking, or -1 if it could not be placed
+         */
+        public int getAssignedRoom(int reservationId) {
+            return roomByReservation.getOrDefault(reservationId, -1);
+        }
+
+        public Map<Integer, Integer> getAssignments() {
+            return Collections.unmodifiableMap(roomByReservation);
+        }
+
+        public List<TypeBooking> getUnassignedBookings() {
+            return Collections.unmodifiableList(unassigned);
+        }
+
+        /**
+         * Number of one-night holes left between consecutive stays
+         */
+        public int getSingleNightGaps() {
+            return singleNightGaps;
+        }
+
+        private void merge(AssignmentPlan other) {
+            roomByReservation.putAll(other.roomByReservation);
+            unassigned.addAll(other.unassigned);
+            singleNightGaps += other.singleNightGaps;
+        }
+    }
+
+    /**
+     * Per-room sweep state
+     */
+    private static final class RoomTimeline {
+        final int roomId;
+        final ArrayDeque<int[]> pinnedStays = new ArrayDeque<>();
+        int freeFrom = Integer.MIN_VALUE;
+
+        RoomTimeline(int roomId) {
+            this.roomId = roomId;
+        }
+
+        int nextPinnedCheckIn() {
+            int[] next = pinnedStays.peekFirst();
+            return next == null ? Integer.MAX_VALUE : next[0];
+        }
+    }
+
+    /**
+     * Solves the assignment for a single room type
+     */
+    private static final class TypeAssignmentTask extends RecursiveTask<AssignmentPlan> {
+        private static final long serialVersionUID = 1L;
+
+        // Never serialized: tasks only run in the pool
+        private final transient List<Room> rooms;
+        private final transient Map<Integer, List<Reservation>> reservationsByRoom;
+        private final transient List<TypeBooking> bookings;
+
+        TypeAssignmentTask(List<Room> rooms, Map<Integer, List<Reservation>> reservationsByRoom,
+                           List<TypeBooking> bookings) {
+            this.rooms = rooms;
+            this.reservationsByRoom = reservationsByRoom;
+            this.bookings = bookings;
+        }
+
+        @Override
+        protected AssignmentPlan compute() {
+            // Pinned stays enter the sweep in check-in order: {checkIn, checkOut, room index}
+            List<RoomTimeline> timelines = new ArrayList<>(rooms.size());
+            PriorityQueue<int[]> pinned = new PriorityQueue<>(Comparator.comparingInt(stay -> stay[0]));
+            for (Room room : rooms) {
+                RoomTimeline timeline = new RoomTimeline(room.getRoomId());
+                List<int[]> stays = new ArrayList<>();
+                for (Reservation reservation : reservationsByRoom.getOrDefault(
+                        room.getRoomId(), Collections.emptyList())) {
+                    stays.add(new int[] {
+                        DateUtils.toEpochDay(reservation.getCheckInDate()),
+                        DateUtils.toEpochDay(reservation.getCheckOutDate()),
+                        timelines.size()
+                    });
+                }
+                stays.sort(Comparator.comparingInt(stay -> stay[0]));
+                timeline.pinnedStays.addAll(stays);
+                pinned.addAll(stays);
+                timelines.add(timeline);
+            }
+
+            // Rooms indexed by the day they become free
+            TreeMap<Integer, LinkedHashSet<RoomTimeline>> byFreeFrom = new TreeMap<>();
+            for (RoomTimeline timeline : timelines) {
+                index(byFreeFrom, timeline);
+            }
+
+            List<int[]> stays = new ArrayList<>(bookings.size());
+            for (int i = 0; i < bookings.size(); i++) {
+                TypeBooking booking = bookings.get(i);
+                stays.add(new int[] {
+                    DateUtils.toEpochDay(booking.getCheckInDate()),
+                    DateUtils.toEpochDay(booking.getCheckOutDate()),
+                    i
+                });
+            }
+            stays.sort(Comparator.<int[]>comparingInt(stay -> stay[0])
+                    .thenComparingInt(stay -> -stay[1]));
+
+            AssignmentPlan plan = new AssignmentPlan();
+            for (int[] stay : stays) {
+                int checkIn = stay[0];
+                int checkOut = stay[1];
+                TypeBooking booking = bookings.get(stay[2]);
+
+                while (!pinned.isEmpty() && pinned.peek()[0] <= checkIn) {
+                    int[] pinnedStay = pinned.poll();
+                    RoomTimeline timeline = timelines.get(pinnedStay[2]);
+                    unindex(byFreeFrom, timeline);
+                    timeline.pinnedStays.pollFirst();
+                    timeline.freeFrom = Math.max(timeline.freeFrom, pinnedStay[1]);
+                    index(byFreeFrom, timeline);
+                }
+
+                RoomTimeline chosen = findBestFit(byFreeFrom, checkIn, checkOut);
+                if (chosen == null) {
+                    plan.unassigned.add(booking);
+                    continue;
+                }
+                unindex(byFreeFrom, chosen);
+                if (checkIn - chosen.freeFrom == 1) {
+                    plan.singleNightGaps++;
+                }
+                chosen.freeFrom = checkOut;
+                index(byFreeFrom, chosen);
+                plan.roomByReservation.put(booking.getReservationId(), chosen.roomId);
+            }
+            return plan;
+        }
+
+        /**
+         * Picks the room freed latest on or before check-in whose next
+         * pinned stay does not start before check-out
+         */
+        private static RoomTimeline findBestFit(TreeMap<Integer, LinkedHashSet<RoomTimeline>> byFreeFrom,
+                                                int checkIn, int checkOut) {
+            for (Map.Entry<Integer, LinkedHashSet<RoomTimeline>> entry
+                    : byFreeFrom.headMap(checkIn, true).descendingMap().entrySet()) {
+                for (RoomTimeline timeline : entry.getValue()) {
+                    if (timeline.nextPinnedCheckIn() >= checkOut) {
+                        return timeline;
+                    }
+                }
+            }
+            return null;
+        }
+
+        private static void index(TreeMap<Integer, LinkedHashSet<RoomTimeline>> byFreeFrom,
+                                  RoomTimeline timeline) {
+            byFreeFrom.computeIfAbsent(timeline.freeFrom, day -> new LinkedHashSet<>()).add(timeline);
+        }
+
+        private static void unindex(TreeMap<Integer, LinkedHashSet<RoomTimeline>> byFreeFrom,
+                                    RoomTimeline timeline) {
+            LinkedHashSet<RoomTimeline> bucket = byFreeFrom.get(timeline.freeFrom);
+            bucket.remove(timeline);
+            if (bucket.isEmpty()) {
+                byFreeFrom.remove(timeline.freeFrom);
+            }
+        }
+    }
+}
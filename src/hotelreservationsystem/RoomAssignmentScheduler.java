@@ -0,0 +1,102 @@
+package hotelreservationsystem;
+
+import hotelreservationsystem.constants.AppConstants;
+import hotelreservationsystem.exceptions.ReservationException;
+import java.util.Date;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Background pass over the type-level bookings of a RoomAssignmentService:
+ * each tick re-optimizes the room assignments of every pending booking,
+ * then confirms the bookings checking in within CONFIRM_LEAD_DAYS as
+ * reservations on the rooms holding their nights.
+ *
+ * The services are not thread-safe, so a tick runs under the lock shared
+ * with the code that serves requests. A tick that finds the lock busy is
+ * skipped instead of queueing behind user requests. A re-optimization
+ * that has to be rolled back leaves every booking on its room, and the
+ * bookings due are still confirmed there.
+ *
+ * @author Software Re-Engineering Enhancement
+ */
+public class RoomAssignmentScheduler implements AutoCloseable {
+    public static final long DEFAULT_INTERVAL_MINUTES = 60;
+    /** Bookings checking in within this many days are confirmed */
+    public static final int CONFIRM_LEAD_DAYS = 1;
+
+    private final RoomAssignmentService roomAssignmentService;
+    private final Lock serviceLock;
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * @param serviceLock lock guarding every use of the services
+     */
+    public RoomAssignmentScheduler(RoomAssignmentService roomAssignmentService, Lock serviceLock) {
+        this.roomAssignmentService = roomAssignmentService;
+        this.serviceLock = serviceLock;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "room-assignment");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Runs the pass now and then at the given interval
+     */
+    public void start(long interval, TimeUnit unit) {
+        scheduler.scheduleWithFixedDelay(this::runScheduled, 0, interval, unit);
+    }
+
+    /**
+     * Re-optimizes and confirms the bookings checking in on or before the
+     * cutoff
+     *
+     * @return number of bookings confirmed
+     */
+    public int runPass(Date cutoff) throws ReservationException {
+        serviceLock.lock();
+        try {
+            try {
+                roomAssignmentService.reoptimize();
+            } catch (ReservationException e) {
+                // Every booking kept its room, so those due are confirmed there
+                System.err.println("Room assignment pass: " + e.getMessage());
+            }
+            return roomAssignmentService.confirmAssignments(cutoff);
+        } finally {
+            serviceLock.unlock();
+        }
+    }
+
+    /**
+     * Stops the background schedule, waiting for a tick in progress
+     */
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runScheduled() {
+        if (!serviceLock.tryLock()) {
+            return; // Busy serving requests; try again next tick
+        }
+        try {
+            runPass(new Date(System.currentTimeMillis()
+                             + CONFIRM_LEAD_DAYS * AppConstants.MILLISECONDS_PER_DAY));
+        } catch (ReservationException | RuntimeException e) {
+            // A failed tick must not cancel the schedule
+            System.err.println("Room assignment pass failed: " + e.getMessage());
+        } finally {
+            serviceLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,359 @@
+package hotelreservationsystem;
+
+import hotelreservationsystem.constants.AppConstants;
+import hotelreservationsystem.exceptions.ReservationException;
+import hotelreservationsystem.exceptions.RoomException;
+import hotelreservationsystem.storage.EntityType;
+import hotelreservationsystem.storage.HashRepository;
+import hotelreservationsystem.storage.Repository;
+import hotelreservationsystem.utils.InputValidator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+/**
+ * Service class for bookings made against a room type.
+ *
+ * Bookings are held as pending until their room is fixed. Every new booking
+ * re-runs the optimizer for its room type to make sure the type still has
+ * capacity; the full nightly re-optimization is done by reoptimize() and
+ * assignments become final reservations through confirmAssignments(),
+ * both run by RoomAssignmentScheduler. Pending bookings are kept in a
+ * Repository, so a persistent store keeps them across restarts.
+ *
+ * A pending booking takes its nights in the occupancy calendar, under its
+ * reservation ID, on the room it is currently planned for, so direct
+ * bookings, group bookings and holds see that capacity as taken. Each
+ * optimizer run moves the nights of the bookings it re-plans. Stays the
+ * optimizer cannot see (holds) are respected by keeping a booking on its
+ * previous room when its planned one is taken. A run is all or nothing:
+ * if a booking holding nights would be left with none, every booking is
+ * put back where it was and the run fails.
+ *
+ * @author Software Re-Engineering Enhancement
+ */
+public class RoomAssignmentService {
+    private final RoomService roomService;
+    private final ReservationService reservationService;
+    private final RoomAssignmentOptimizer optimizer;
+    private final Repository<TypeBooking> pendingBookings;
+    private final Map<Integer, Integer> heldRooms; // Reservation ID -> room holding its nights
+    private final List<MutationListener> listeners;
+
+    public RoomAssignmentService(RoomService roomService, ReservationService reservationService) {
+        this(roomService, reservationService, new HashRepository<>(EntityType.TYPE_BOOKING));
+    }
+
+    /**
+     * Creates the service over a store of pending bookings, which may
+     * already hold bookings (e.g. a file store reopened); restoreAssignments
+     * takes their nights once the calendar is restored
+     */
+    public RoomAssignmentService(RoomService roomService, ReservationService reservationService,
+                                 Repository<TypeBooking> pendingBookings) {
+        this(roomService, reservationService, pendingBookings, new RoomAssignmentOptimizer());
+    }
+
+    public RoomAssignmentService(RoomService roomService, ReservationService reservationService,
+                                 Repository<TypeBooking> pendingBookings,
+                                 RoomAssignmentOptimizer optimizer) {
+        this.roomService = roomService;
+        this.reservationService = reservationService;
+        this.optimizer = optimizer;
+        this.pendingBookings = pendingBookings;
+        this.heldRooms = new HashMap<>();
+        this.listeners = new CopyOnWriteArrayList<>();
+    }
+
+    /**
+     * Registers a listener notified after every booking added or removed
+     */
+    public void addMutationListener(MutationListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener cannot be null");
+        }
+        listeners.add(listener);
+    }
+
+    /**
+     * Books a room type, taking the nights on the room planned for it;
+     * the concrete room is fixed later
+     * Refactoring Technique: Introduce Assertion
+     */
+    public void bookRoomType(TypeBooking booking) throws ReservationException {
+        if (booking == null) {
+            throw new ReservationException("Reservation cannot be null");
+        }
+        if (bookingExists(booking.getReservationId())) {
+            throw new ReservationException("Reservation with ID " +
+                booking.getReservationId() + " already exists");
+        }
+        List<Room> roomsOfType = roomService.findRoomsByType(booking.getRoomType());
+        if (roomsOfType.isEmpty()) {
+            throw new ReservationException(AppConstants.ERROR_ROOM_TYPE_NOT_FOUND);
+        }
+        if (!roomService.isWithinHorizon(booking.getCheckInDate(), booking.getCheckOutDate())) {
+            throw new ReservationException(AppConstants.ERROR_OUTSIDE_CALENDAR);
+        }
+
+        List<TypeBooking> sameType = pendingBookings.stream()
+                .filter(pending -> isSameType(pending, booking))
+                .collect(Collectors.toCollection(ArrayList::new));
+        sameType.add(booking);
+
+        RoomAssignmentOptimizer.AssignmentPlan plan = optimizer.optimize(
+                roomsOfType, reservationService.getAllReservations(), sameType);
+        if (!plan.getUnassignedBookings().isEmpty()) {
+            throw new ReservationException(AppConstants.ERROR_ROOM_TYPE_SOLD_OUT);
+        }
+
+        if (!applyPlan(sameType, plan, booking)) {
+            // A hold the plan did not account for is in the way
+            throw new ReservationException(AppConstants.ERROR_ROOM_TYPE_SOLD_OUT);
+        }
+
+        pendingBookings.save(booking);
+        listeners.forEach(listener -> listener.typeBookingAdded(booking));
+    }
+
+    /**
+     * Cancels a pending type-level booking, freeing its nights
+     * Refactoring Technique: Replace Error Code with Exception
+     */
+    public void cancelBooking(int reservationId) throws ReservationException {
+        if (!InputValidator.isValidId(reservationId)) {
+            throw new ReservationException(AppConstants.ERROR_INVALID_RESERVATION_ID);
+        }
+
+        TypeBooking booking = pendingBookings.findById(reservationId).orElseThrow(
+                () -> new ReservationException(AppConstants.ERROR_RESERVATION_NOT_FOUND));
+        removeBooking(booking);
+        releaseNights(booking);
+    }
+
+    /**
+     * Cancels every pending type-level booking of a user, freeing their
+     * nights
+     *
+     * @return number of bookings cancelled
+     */
+    public int cancelBookingsByUserId(int userId) {
+        int cancelled = 0;
+        for (TypeBooking booking : pendingBookings.findAll()) {
+            if (booking.getUserId() == userId) {
+                removeBooking(booking);
+                releaseNights(booking);
+                cancelled++;
+            }
+        }
+        return cancelled;
+    }
+
+    /**
+     * Re-optimizes room assignments for all pending bookings and moves
+     * their nights to match (run nightly, or whenever the inventory
+     * changes). A booking whose planned room is taken keeps its previous
+     * room if it still can; getPlannedRoom gives the room actually held,
+     * or -1 for a booking whose room was removed and that found no other.
+     *
+     * @return the plan the optimizer proposed
+     * @throws ReservationException if a booking holding nights could not
+     *         keep any; every booking is left where it was
+     */
+    public RoomAssignmentOptimizer.AssignmentPlan reoptimize() throws ReservationException {
+        List<TypeBooking> bookings = pendingBookings.findAll();
+        RoomAssignmentOptimizer.AssignmentPlan plan = optimizer.optimize(roomService.getAllRooms(),
+                reservationService.getAllReservations(), bookings);
+        if (!applyPlan(bookings, plan, null)) {
+            throw new ReservationException(AppConstants.ERROR_ASSIGNMENT_CONFLICT);
+        }
+        return plan;
+    }
+
+    /**
+     * Takes the nights of the bookings the store held at startup, once the
+     * calendar has been restored. A booking already confirmed before a
+     * crash, whose reservation made it to the store, is dropped.
+     *
+     * @return number of bookings left without a room
+     */
+    public int restoreAssignments() {
+        for (TypeBooking booking : pendingBookings.findAll()) {
+            if (reservationService.reservationExists(booking.getReservationId())) {
+                removeBooking(booking);
+            }
+        }
+        List<TypeBooking> bookings = pendingBookings.findAll();
+        // Nothing is held yet, so there is nothing the plan could roll back
+        applyPlan(bookings, optimizer.optimize(roomService.getAllRooms(),
+                reservationService.getAllReservations(), bookings), null);
+        return (int) bookings.stream()
+                .filter(booking -> !heldRooms.containsKey(booking.getReservationId()))
+                .count();
+    }
+
+    /**
+     * Turns pending bookings checking in on or before the cutoff into
+     * reservations on the rooms holding their nights. Run reoptimize
+     * first for the best packing; a booking holding no room is left
+     * pending.
+     *
+     * @param cutoff last check-in date to confirm
+     * @return number of bookings confirmed
+     */
+    public int confirmAssignments(Date cutoff) throws ReservationException {
+        if (cutoff == null) {
+            throw new ReservationException("Cutoff date cannot be null");
+        }
+
+        int confirmed = 0;
+        for (TypeBooking booking : pendingBookings.findAll()) {
+            Integer roomId = heldRooms.get(booking.getReservationId());
+            if (roomId != null && !booking.getCheckInDate().after(cutoff)) {
+                // The nights are already taken under this reservation ID
+                reservationService.makeReservation(booking.toReservation(roomId));
+                heldRooms.remove(booking.getReservationId());
+                removeBooking(booking);
+                confirmed++;
+            }
+        }
+        return confirmed;
+    }
+
+    /**
+     * Gets the room currently holding a booking's nights, or -1 if none
+     */
+    public int getPlannedRoom(int reservationId) {
+        return heldRooms.getOrDefault(reservationId, -1);
+    }
+    /**
+     * Returns unmodifiable list of pending bookings
+     * Refactoring Technique: Encapsulate Collection
+     */
+    public List<TypeBooking> getPendingBookings() {
+        return Collections.unmodifiableList(pendingBookings.findAll());
+    }
+
+    /**
+     * Gets all pending bookings for a specific user
+     */
+    public List<TypeBooking> getPendingBookingsByUserId(int userId) {
+        if (!InputValidator.isValidId(userId)) {
+            return Collections.emptyList();
+        }
+
+        return pendingBookings.stream()
+                .filter(booking -> booking.getUserId() == userId)
+                .collect(Collectors.collectingAndThen(
+                    Collectors.toList(),
+                    Collections::unmodifiableList
+                ));
+    }
+
+    /**
+     * Checks if a reservation ID is taken by a pending or confirmed booking
+     */
+    public boolean bookingExists(int reservationId) {
+        return reservationService.reservationExists(reservationId) ||
+               pendingBookings.contains(reservationId);
+    }
+
+    private void removeBooking(TypeBooking booking) {
+        pendingBookings.remove(booking.getReservationId());
+        listeners.forEach(listener -> listener.typeBookingRemoved(booking.getReservationId()));
+    }
+
+    /**
+     * Moves the nights of the bookings to the rooms the plan gives them,
+     * keeping a booking on its previous room when its planned one is
+     * taken. The added booking, and every booking holding nights on a
+     * room that still exists, must end up holding nights; otherwise all
+     * the bookings are put back on their previous rooms.
+     *
+     * @param added the booking being added, or null
+     * @return false if the plan was rolled back
+     */
+    private boolean applyPlan(List<TypeBooking> bookings, RoomAssignmentOptimizer.AssignmentPlan plan,
+                              TypeBooking added) {
+        Map<Integer, Integer> previous = heldRoomsOf(bookings);
+        bookings.forEach(this::releaseNights);
+        for (TypeBooking booking : bookings) {
+            int roomId = plan.getAssignedRoom(booking.getReservationId());
+            if (roomId > 0 && holdNights(booking, roomId)) {
+                continue;
+            }
+            Integer previousRoomId = previous.get(booking.getReservationId());
+            if (previousRoomId != null && holdNights(booking, previousRoomId)) {
+                continue;
+            }
+            if (booking == added || previousRoomId != null) {
+                restoreHolds(bookings, previous);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Puts the bookings back on the rooms they held before a failed run
+     */
+    private void restoreHolds(List<TypeBooking> bookings, Map<Integer, Integer> previous) {
+        bookings.forEach(this::releaseNights);
+        for (TypeBooking booking : bookings) {
+            Integer roomId = previous.get(booking.getReservationId());
+            if (roomId != null && !holdNights(booking, roomId)) {
+                // Freed above, under the same single writer
+                throw new IllegalStateException("Nights of room " + roomId
+                                                + " taken while re-planning room assignments");
+            }
+        }
+    }
+
+    /**
+     * Rooms the bookings hold nights on, leaving out rooms since removed
+     */
+    private Map<Integer, Integer> heldRoomsOf(List<TypeBooking> bookings) {
+        Map<Integer, Integer> held = new HashMap<>();
+        for (TypeBooking booking : bookings) {
+            Integer roomId = heldRooms.get(booking.getReservationId());
+            if (roomId != null && roomService.roomExists(roomId)) {
+                held.put(booking.getReservationId(), roomId);
+            }
+        }
+        return held;
+    }
+
+    /**
+     * @return false if the room is gone or any night is taken
+     */
+    private boolean holdNights(TypeBooking booking, int roomId) {
+        try {
+            roomService.reserveNights(booking.toReservation(roomId));
+        } catch (RoomException e) {
+            return false;
+        }
+        heldRooms.put(booking.getReservationId(), roomId);
+        return true;
+    }
+
+    private void releaseNights(TypeBooking booking) {
+        Integer roomId = heldRooms.remove(booking.getReservationId());
+        if (roomId == null) {
+            return;
+        }
+        try {
+            roomService.releaseNights(booking.toReservation(roomId));
+        } catch (RoomException e) {
+            // The room was removed; its nights went with it
+        }
+    }
+
+    private static boolean isSameType(TypeBooking first, TypeBooking second) {
+        return first.getRoomTypeId() == second.getRoomTypeId();
+    }
+}
@@ -0,0 +1,265 @@
+package hotelreservationsystem;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Off-heap occupancy calendar: one int cell per room-night holding the
+ * ID of the reservation that occupies it (0 = free).
+ *
+ * Cells live in a single native MemorySegment laid out row by row (one
+ * row per room), so an availability check is a linear scan of a few
+ * contiguous ints and never touches the Java heap. The only on-heap state
+ * is the roomId-to-row map, which grows with the number of rooms but not
+ * with the number of nights or reservations. Rows of removed rooms are
+ * recycled; when all rows are in use the segment is doubled.
+ *
+ * Each row is a ring: a night lives in the cell at its epoch day modulo
+ * the horizon, so advanceTo slides the window forward by clearing only
+ * the nights that fall off the front, which become the new nights at the
+ * end. A stay crosses the end of a row at most once.
+ *
+ * Like the services, this class is not thread-safe.
+ *
+ * @author Software Re-Engineering Enhancement
+ */
+public class RoomCalendar implements AutoCloseable {
+    public static final int DEFAULT_HORIZON_NIGHTS = 730;
+    public static final int FREE = 0;
+
+    private static final int INITIAL_ROWS = 64;
+    private static final long CELL_SIZE = ValueLayout.JAVA_INT.byteSize();
+
+    private int firstNight;
+    private final int nights;
+    private final Map<Integer, Integer> rowByRoom;
+    private final ArrayDeque<Integer> freeRows;
+    private Arena arena;
+    private MemorySegment cells;
+    private int capacity;
+    private int usedRows;
+
+    /**
+     * Creates a calendar covering the given number of nights starting at
+     * firstNight (an epoch day)
+     */
+    public RoomCalendar(int firstNight, int nights) {
+        if (nights <= 0) {
+            throw new IllegalArgumentException("Number of nights must be positive");
+        }
+        this.firstNight = firstNight;
+        this.nights = nights;
+        this.rowByRoom = new HashMap<>();
+        this.freeRows = new ArrayDeque<>();
+        allocate(INITIAL_ROWS);
+    }
+
+    public int getFirstNight() {
+        return firstNight;
+    }
+
+    /**
+     * First epoch day after the bookable horizon
+     */
+    public int getEndNight() {
+        return firstNight + nights;
+    }
+
+    /**
+     * Whether the stay [checkIn, checkOut) lies inside the horizon
+     */
+    public boolean covers(int checkIn, int checkOut) {
+        return checkIn >= firstNight && checkOut <= getEndNight() && checkIn < checkOut;
+    }
+
+    public void addRoom(int roomId) {
+        if (rowByRoom.containsKey(roomId)) {
+            return;
+        }
+        Integer row = freeRows.pollFirst();
+        if (row == null) {
+            if (usedRows == capacity) {
+                grow();
+            }
+            row = usedRows++;
+        }
+        rowByRoom.put(roomId, row);
+    }
+
+    /**
+     * Makes room for the given total number of rooms in one allocation,
+     * so a bulk load does not double the segment repeatedly
+     */
+    public void ensureCapacity(int rooms) {
+        if (rooms > capacity) {
+            resize(rooms);
+        }
+    }
+
+    /**
+     * Slides the window forward so it starts at the given epoch day,
+     * dropping the nights before it; the nights added at the end are free
+     */
+    public void advanceTo(int night) {
+        if (night <= firstNight) {
+            return;
+        }
+        int dropped = (int) Math.min((long) night - firstNight, nights);
+        int start = slot(firstNight);
+        int head = Math.min(dropped, nights - start);
+        for (int row = 0; row < usedRows; row++) {
+            clear(offset(row, start), head);
+            clear(offset(row, 0), dropped - head);
+        }
+        firstNight = night;
+    }
+
+    public void removeRoom(int roomId) {
+        Integer row = rowByRoom.remove(roomId);
+        if (row != null) {
+            cells.asSlice(offset(row, 0), nights * CELL_SIZE).fill((byte) 0);
+            freeRows.addLast(row);
+        }
+    }
+
+    /**
+     * Checks that every night of [checkIn, checkOut) is free
+     */
+    public boolean isFree(int roomId, int checkIn, int checkOut) {
+        int row = rowOf(roomId, checkIn, checkOut);
+        int start = slot(checkIn);
+        int length = checkOut - checkIn;
+        int head = Math.min(length, nights - start);
+        return isFree(offset(row, start), head) && isFree(offset(row, 0), length - head);
+    }
+
+    /**
+     * Gets the reservation occupying a night, or FREE
+     */
+    public int getOccupant(int roomId, int night) {
+        return cells.get(ValueLayout.JAVA_INT, offset(rowOf(roomId, night, night + 1), slot(night)));
+    }
+
+    /**
+     * Marks [checkIn, checkOut) as held by the reservation
+     *
+     * @return false (and changes nothing) if any night is already taken
+     */
+    public boolean book(int roomId, int checkIn, int checkOut, int reservationId) {
+        if (reservationId == FREE) {
+            throw new IllegalArgumentException("Reservation ID must be positive");
+        }
+        if (!isFree(roomId, checkIn, checkOut)) {
+            return false;
+        }
+        fill(roomId, checkIn, checkOut, reservationId);
+        return true;
+    }
+
+    /**
+     * Frees the nights of [checkIn, checkOut) held by the reservation
+     */
+    public void release(int roomId, int checkIn, int checkOut, int reservationId) {
+        int row = rowOf(roomId, checkIn, checkOut);
+        int start = slot(checkIn);
+        int length = checkOut - checkIn;
+        int head = Math.min(length, nights - start);
+        release(offset(row, start), head, reservationId);
+        release(offset(row, 0), length - head, reservationId);
+    }
+
+    /**
+     * Native memory currently reserved for the cells, in bytes
+     */
+    public long getOffHeapBytes() {
+        return cells.byteSize();
+    }
+
+    @Override
+    public void close() {
+        arena.close();
+    }
+
+    private void fill(int roomId, int checkIn, int checkOut, int value) {
+        int row = rowOf(roomId, checkIn, checkOut);
+        int start = slot(checkIn);
+        int length = checkOut - checkIn;
+        int head = Math.min(length, nights - start);
+        fill(offset(row, start), head, value);
+        fill(offset(row, 0), length - head, value);
+    }
+
+    private boolean isFree(long from, int count) {
+        long to = from + count * CELL_SIZE;
+        for (long offset = from; offset < to; offset += CELL_SIZE) {
+            if (cells.get(ValueLayout.JAVA_INT, offset) != FREE) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void release(long from, int count, int reservationId) {
+        long to = from + count * CELL_SIZE;
+        for (long offset = from; offset < to; offset += CELL_SIZE) {
+            if (cells.get(ValueLayout.JAVA_INT, offset) == reservationId) {
+                cells.set(ValueLayout.JAVA_INT, offset, FREE);
+            }
+        }
+    }
+
+    private void fill(long from, int count, int value) {
+        long to = from + count * CELL_SIZE;
+        for (long offset = from; offset < to; offset += CELL_SIZE) {
+            cells.set(ValueLayout.JAVA_INT, offset, value);
+        }
+    }
+
+    private void clear(long from, int count) {
+        cells.asSlice(from, count * CELL_SIZE).fill((byte) 0);
+    }
+
+    private int rowOf(int roomId, int checkIn, int checkOut) {
+        Integer row = rowByRoom.get(roomId);
+        if (row == null) {
+            throw new IllegalArgumentException("Room " + roomId + " is not in the calendar");
+        }
+        if (!covers(checkIn, checkOut)) {
+            throw new IllegalArgumentException("Dates are outside the bookable calendar");
+        }
+        return row;
+    }
+
+    /**
+     * Cell of a night within its room's row
+     */
+    private int slot(int night) {
+        return Math.floorMod(night, nights);
+    }
+
+    private long offset(int row, int slot) {
+        return ((long) row * nights + slot) * CELL_SIZE;
+    }
+
+    private void allocate(int rows) {
+        arena = Arena.ofShared();
+        cells = arena.allocate((long) rows * nights * CELL_SIZE, CELL_SIZE);
+        capacity = rows;
+    }
+
+    private void grow() {
+        resize(capacity * 2);
+    }
+
+    private void resize(int rows) {
+        Arena oldArena = arena;
+        MemorySegment oldCells = cells;
+        allocate(rows);
+        MemorySegment.copy(oldCells, 0, cells, 0, oldCells.byteSize());
+        oldArena.close();
+    }
+}
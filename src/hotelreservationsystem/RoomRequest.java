@@ -0,0 +1,55 @@
+package hotelreservationsystem;
+
+import hotelreservationsystem.constants.AppConstants;
+import hotelreservationsystem.utils.RequestValidator;
+
+/**
+ * Unvalidated input for creating a room, checked as a whole by VALIDATOR
+ * before a Room is built so every problem is reported at once
+ *
+ * Refactoring Technique: Introduce Parameter Object
+ *
+ * @author Software Re-Engineering Enhancement
+ */
+public class RoomRequest {
+    public static final RequestValidator<RoomRequest> VALIDATOR = RequestValidator.<RoomRequest>builder()
+            .requireId(RoomRequest::getRoomId, AppConstants.ERROR_INVALID_ROOM_ID)
+            .requireText(RoomRequest::getRoomType, AppConstants.ERROR_EMPTY_ROOM_TYPE)
+            .requirePrice(RoomRequest::getPrice, AppConstants.ERROR_INVALID_PRICE)
+            .build();
+
+    private final int roomId;
+    private final String roomType;
+    private final double price;
+    private final boolean isAvailable;
+
+    public RoomRequest(int roomId, String roomType, double price, boolean isAvailable) {
+        this.roomId = roomId;
+        this.roomType = roomType;
+        this.price = price;
+        this.isAvailable = isAvailable;
+    }
+
+    public int getRoomId() {
+        return roomId;
+    }
+
+    public String getRoomType() {
+        return roomType;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+
+    public boolean isAvailable() {
+        return isAvailable;
+    }
+
+    /**
+     * Builds the room; call only once VALIDATOR accepts the request
+     */
+    public Room toRoom() {
+        return new Room(roomId, roomType, price, isAvailable);
+    }
+}
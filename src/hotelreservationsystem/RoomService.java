@@ -2,11 +2,25 @@ package hotelreservationsystem;
 
 import hotelreservationsystem.constants.AppConstants;
 import hotelreservationsystem.exceptions.RoomException;
+import hotelreservationsystem.metrics.TraceStage;
+import hotelreservationsystem.metrics.Tracer;
+import hotelreservationsystem.storage.EntityType;
+import hotelreservationsystem.storage.HashRepository;
+import hotelreservationsystem.storage.Repository;
+import hotelreservationsystem.utils.DateUtils;
 import hotelreservationsystem.utils.InputValidator;
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.stream.Collectors;
 
 /**
@@ -19,13 +33,65 @@ import java.util.stream.Collectors;
  * - Introduce Null Object (use Optional)
  * - Separate Query from Modifier
  * 
+ * Rooms are kept in a Repository, in memory unless another store is
+ * passed in. A room changed in place is saved back, since some stores
+ * hand out copies. Nights are booked in an off-heap RoomCalendar, which
+ * advanceCalendar slides forward day by day and close frees.
+ * 
  * @author Refactored by Software Re-Engineering
  */
-public class RoomService {
-    private final List<Room> rooms;
+public class RoomService implements AutoCloseable {
+    private final Repository<Room> rooms;
+    private final RoomCalendar calendar;
+    private final List<MutationListener> listeners;
+    private final AvailabilityCache searchCache;
+    /** Type each room was last saved with; callers change rooms in place */
+    private final Map<Integer, Integer> savedRoomTypeIds;
 
     public RoomService() {
-        this.rooms = new ArrayList<>();
+        this(new HashRepository<>(EntityType.ROOM));
+    }
+
+    /**
+     * Creates the service over a room store, with a calendar starting today
+     */
+    public RoomService(Repository<Room> rooms) {
+        this(rooms, new RoomCalendar(DateUtils.toEpochDay(new Date()), 
+                                     RoomCalendar.DEFAULT_HORIZON_NIGHTS));
+    }
+
+    /**
+     * Creates the service over an existing occupancy calendar
+     */
+    public RoomService(RoomCalendar calendar) {
+        this(new HashRepository<>(EntityType.ROOM), calendar);
+    }
+
+    /**
+     * Creates the service over a room store, which may already hold rooms
+     * (e.g. a file store reopened); they are added to the calendar
+     */
+    public RoomService(Repository<Room> rooms, RoomCalendar calendar) {
+        this.rooms = rooms;
+        this.calendar = calendar;
+        this.listeners = new CopyOnWriteArrayList<>();
+        this.searchCache = new AvailabilityCache();
+        this.savedRoomTypeIds = new HashMap<>();
+        calendar.ensureCapacity(rooms.size());
+        for (Room room : rooms) {
+            calendar.addRoom(room.getRoomId());
+            savedRoomTypeIds.put(room.getRoomId(), room.getRoomTypeId());
+        }
+    }
+
+    /**
+     * Registers a listener notified after every successful mutation
+     */
+    public void addMutationListener(MutationListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener cannot be null");
+        }
+        listeners.add(listener);
     }
 
     /**
@@ -33,16 +99,63 @@ public class RoomService {
      * Refactoring Technique: Introduce Assertion
      */
     public void addRoom(Room room) throws RoomException {
-        if (room == null) {
-            throw new RoomException("Room cannot be null");
-        }
+        long traceStart = Tracer.start();
+        try {
+            if (room == null) {
+                throw new RoomException("Room cannot be null");
+            }
+        
+            // Check for duplicate room ID
+            if (rooms.contains(room.getRoomId())) {
+                throw new RoomException("Room with ID " + room.getRoomId() + " already exists");
+            }
         
-        // Check for duplicate room ID
-        if (findRoomById(room.getRoomId()).isPresent()) {
-            throw new RoomException("Room with ID " + room.getRoomId() + " already exists");
+            rooms.save(room);
+            calendar.addRoom(room.getRoomId());
+            savedRoomTypeIds.put(room.getRoomId(), room.getRoomTypeId());
+            searchCache.invalidateType(room.getRoomTypeId());
+            listeners.forEach(listener -> listener.roomAdded(room));
+        } finally {
+            Tracer.stop(TraceStage.ADD_ROOM, traceStart);
         }
+    }
+
+    /**
+     * Adds many rooms at once, e.g. from a seed file. Duplicates are
+     * detected with one hash set instead of a scan per room, and the
+     * calendar is sized once for the whole batch. Nothing is added if
+     * any room is invalid.
+     * Refactoring Technique: Introduce Assertion
+     */
+    public void addRooms(Collection<Room> newRooms) throws RoomException {
+        long traceStart = Tracer.start();
+        try {
+            Set<Integer> roomIds = new HashSet<>(rooms.size() + newRooms.size());
+            for (Room room : rooms) {
+                roomIds.add(room.getRoomId());
+            }
+            for (Room room : newRooms) {
+                if (room == null) {
+                    throw new RoomException("Room cannot be null");
+                }
+                if (!roomIds.add(room.getRoomId())) {
+                    throw new RoomException("Room with ID " + room.getRoomId() + " already exists");
+                }
+            }
         
-        rooms.add(room);
+            rooms.saveAll(newRooms);
+            calendar.ensureCapacity(rooms.size());
+            for (Room room : newRooms) {
+                calendar.addRoom(room.getRoomId());
+                savedRoomTypeIds.put(room.getRoomId(), room.getRoomTypeId());
+                searchCache.invalidateType(room.getRoomTypeId());
+            }
+            for (MutationListener listener : listeners) {
+                newRooms.forEach(listener::roomAdded);
+            }
+        } finally {
+            Tracer.stop(TraceStage.ADD_ROOMS, traceStart);
+        }
     }
 
     /**
@@ -50,17 +163,34 @@ public class RoomService {
      * Refactoring Technique: Replace Error Code with Exception
      */
     public void updateRoom(Room room) throws RoomException {
-        if (room == null) {
-            throw new RoomException("Room cannot be null");
-        }
+        long traceStart = Tracer.start();
+        try {
+            if (room == null) {
+                throw new RoomException("Room cannot be null");
+            }
         
-        for (int i = 0; i < rooms.size(); i++) {
-            if (rooms.get(i).getRoomId() == room.getRoomId()) {
-                rooms.set(i, room);
-                return;
+            if (!rooms.contains(room.getRoomId())) {
+                throw new RoomException(AppConstants.ERROR_ROOM_NOT_FOUND);
             }
+            saveChangedRoom(room);
+            listeners.forEach(listener -> listener.roomUpdated(room));
+        } finally {
+            Tracer.stop(TraceStage.UPDATE_ROOM, traceStart);
+        }
+    }
+
+    /**
+     * Saves an existing room and drops the searches of its type, and of
+     * the type it was last saved with: the room may be the stored
+     * instance, already changed by the caller
+     */
+    private void saveChangedRoom(Room room) {
+        rooms.save(room);
+        Integer previousTypeId = savedRoomTypeIds.put(room.getRoomId(), room.getRoomTypeId());
+        if (previousTypeId != null && previousTypeId != room.getRoomTypeId()) {
+            searchCache.invalidateType(previousTypeId);
         }
-        throw new RoomException(AppConstants.ERROR_ROOM_NOT_FOUND);
+        searchCache.invalidateType(room.getRoomTypeId());
     }
 
     /**
@@ -69,9 +199,7 @@ public class RoomService {
      * Refactoring Technique: Separate Query from Modifier
      */
     private Optional<Room> findRoomById(int roomId) {
-        return rooms.stream()
-                .filter(room -> room.getRoomId() == roomId)
-                .findFirst();
+        return rooms.findById(roomId);
     }
 
     /**
@@ -79,20 +207,32 @@ public class RoomService {
      * Refactoring Technique: Replace Error Code with Exception
      */
     public Room getRoomById(int roomId) throws RoomException {
-        if (!InputValidator.isValidId(roomId)) {
-            throw new RoomException(AppConstants.ERROR_INVALID_ROOM_ID);
-        }
+        long traceStart = Tracer.start();
+        try {
+            if (!InputValidator.isValidId(roomId)) {
+                throw new RoomException(AppConstants.ERROR_INVALID_ROOM_ID);
+            }
         
-        return findRoomById(roomId)
-                .orElseThrow(() -> new RoomException(AppConstants.ERROR_ROOM_NOT_FOUND));
+            return findRoomById(roomId)
+                    .orElseThrow(() -> new RoomException(AppConstants.ERROR_ROOM_NOT_FOUND));
+        } finally {
+            Tracer.stop(TraceStage.GET_ROOM_BY_ID, traceStart);
+        }
+    }
+
+    /**
+     * Checks if a room exists
+     */
+    public boolean roomExists(int roomId) {
+        return rooms.contains(roomId);
     }
 
     /**
-     * Returns unmodifiable list of all rooms
+     * Returns an unmodifiable snapshot of all rooms
      * Refactoring Technique: Encapsulate Collection
      */
     public List<Room> getAllRooms() {
-        return Collections.unmodifiableList(rooms);
+        return Collections.unmodifiableList(rooms.findAll());
     }
 
     /**
@@ -101,12 +241,17 @@ public class RoomService {
      * Refactoring Technique: Encapsulate Collection
      */
     public List<Room> getAvailableRooms() {
-        return rooms.stream()
-                .filter(Room::isAvailable)
-                .collect(Collectors.collectingAndThen(
-                    Collectors.toList(),
-                    Collections::unmodifiableList
-                ));
+        long traceStart = Tracer.start();
+        try {
+            return rooms.stream()
+                    .filter(Room::isAvailable)
+                    .collect(Collectors.collectingAndThen(
+                        Collectors.toList(),
+                        Collections::unmodifiableList
+                    ));
+        } finally {
+            Tracer.stop(TraceStage.GET_AVAILABLE_ROOMS, traceStart);
+        }
     }
 
     /**
@@ -114,8 +259,232 @@ public class RoomService {
      * Refactoring Technique: Separate Query from Modifier
      */
     public boolean isRoomAvailable(int roomId) throws RoomException {
-        Room room = getRoomById(roomId);
-        return room.isAvailable();
+        long traceStart = Tracer.start();
+        try {
+            Room room = getRoomById(roomId);
+            return room.isAvailable();
+        } finally {
+            Tracer.stop(TraceStage.IS_ROOM_AVAILABLE, traceStart);
+        }
+    }
+
+    /**
+     * Checks if a room is open for sale and free for every night of the stay
+     * Refactoring Technique: Separate Query from Modifier
+     */
+    public boolean isRoomAvailable(int roomId, Date checkInDate, Date checkOutDate) 
+            throws RoomException {
+        long traceStart = Tracer.start();
+        try {
+            Room room = getRoomById(roomId);
+            int checkIn = DateUtils.toEpochDay(checkInDate);
+            int checkOut = DateUtils.toEpochDay(checkOutDate);
+            if (!calendar.covers(checkIn, checkOut)) {
+                throw new RoomException(AppConstants.ERROR_OUTSIDE_CALENDAR);
+            }
+            return room.isAvailable() && calendar.isFree(roomId, checkIn, checkOut);
+        } finally {
+            Tracer.stop(TraceStage.IS_ROOM_AVAILABLE_FOR_DATES, traceStart);
+        }
+    }
+
+    /**
+     * Slides the calendar so it starts on the given day, dropping the
+     * nights before it and opening as many new ones at the end of the
+     * horizon. Does nothing for a day the calendar already starts on or
+     * after.
+     */
+    public void advanceCalendar(Date today) {
+        calendar.advanceTo(DateUtils.toEpochDay(today));
+    }
+
+    /**
+     * Whether the stay lies within the bookable horizon of the calendar
+     */
+    public boolean isWithinHorizon(Date checkInDate, Date checkOutDate) {
+        return calendar.covers(DateUtils.toEpochDay(checkInDate), DateUtils.toEpochDay(checkOutDate));
+    }
+
+    /**
+     * Finds the rooms of a type that are open for sale and free for every
+     * night of the stay. Results are served from a bounded cache that
+     * bookings, cancellations and room changes invalidate.
+     * Refactoring Technique: Separate Query from Modifier
+     */
+    public List<Room> findAvailableRooms(String roomType, Date checkInDate, Date checkOutDate) 
+            throws RoomException {
+        long traceStart = Tracer.start();
+        try {
+            int checkIn = DateUtils.toEpochDay(checkInDate);
+            int checkOut = DateUtils.toEpochDay(checkOutDate);
+            if (!calendar.covers(checkIn, checkOut)) {
+                throw new RoomException(AppConstants.ERROR_OUTSIDE_CALENDAR);
+            }
+            int roomTypeId = InputValidator.isValidString(roomType) 
+                    ? RoomTypeRegistry.lookup(roomType) : RoomTypeRegistry.UNKNOWN_TYPE;
+            if (roomTypeId == RoomTypeRegistry.UNKNOWN_TYPE) {
+                return Collections.emptyList();
+            }
+        
+            List<Room> cached = searchCache.get(roomTypeId, checkIn, checkOut);
+            if (cached != null) {
+                return cached;
+            }
+            List<Room> result = rooms.stream()
+                    .filter(room -> room.getRoomTypeId() == roomTypeId && room.isAvailable())
+                    .filter(room -> calendar.isFree(room.getRoomId(), checkIn, checkOut))
+                    .collect(Collectors.collectingAndThen(
+                        Collectors.toList(),
+                        Collections::unmodifiableList
+                    ));
+            searchCache.put(roomTypeId, checkIn, checkOut, result);
+            return result;
+        } finally {
+            Tracer.stop(TraceStage.FIND_AVAILABLE_ROOMS, traceStart);
+        }
+    }
+
+    /**
+     * Returns hit rate and eviction metrics of the availability search cache
+     */
+    public AvailabilityCache.Stats getSearchCacheStats() {
+        return searchCache.getStats();
+    }
+
+    /**
+     * Books the nights of a reservation in the occupancy calendar
+     * Refactoring Technique: Replace Error Code with Exception
+     */
+    public void reserveNights(Reservation reservation) throws RoomException {
+        long traceStart = Tracer.start();
+        try {
+            Room room = getRoomById(reservation.getRoomId());
+            int checkIn = DateUtils.toEpochDay(reservation.getCheckInDate());
+            int checkOut = DateUtils.toEpochDay(reservation.getCheckOutDate());
+            if (!calendar.covers(checkIn, checkOut)) {
+                throw new RoomException(AppConstants.ERROR_OUTSIDE_CALENDAR);
+            }
+            if (!calendar.book(reservation.getRoomId(), checkIn, checkOut, 
+                               reservation.getReservationId())) {
+                throw new RoomException(AppConstants.ERROR_ROOM_NOT_AVAILABLE);
+            }
+            searchCache.invalidate(room.getRoomTypeId(), checkIn, checkOut);
+            listeners.forEach(listener -> listener.nightsReserved(reservation));
+        } finally {
+            Tracer.stop(TraceStage.RESERVE_NIGHTS, traceStart);
+        }
+    }
+
+    /**
+     * Books the nights of many reservations at once, e.g. a conference
+     * block: all of them or none. Every room must be open for sale, and
+     * every stay is checked against the calendar and against the rest of
+     * the batch before any night is written, so a conflict leaves the
+     * calendar untouched. Each room is looked up once, and stays are
+     * checked in (room, check-in) order, which makes overlaps within the
+     * batch neighbours.
+     * Refactoring Technique: Introduce Assertion
+     */
+    public void reserveAllNights(Collection<Reservation> batch) throws RoomException {
+        long traceStart = Tracer.start();
+        try {
+            Map<Integer, Room> roomsById = new HashMap<>(batch.size() * 2);
+            for (Reservation reservation : batch) {
+                if (reservation == null) {
+                    throw new RoomException("Reservation cannot be null");
+                }
+                if (!roomsById.containsKey(reservation.getRoomId())) {
+                    roomsById.put(reservation.getRoomId(), 
+                                  findRoomById(reservation.getRoomId()).orElse(null));
+                }
+            }
+
+            Reservation[] stays = batch.toArray(new Reservation[0]);
+            Arrays.sort(stays, Comparator.comparingInt(Reservation::getRoomId)
+                                         .thenComparingLong(Reservation::getCheckInTime));
+            int[] checkIns = new int[stays.length];
+            int[] checkOuts = new int[stays.length];
+            for (int i = 0; i < stays.length; i++) {
+                int roomId = stays[i].getRoomId();
+                Room room = roomsById.get(roomId);
+                if (room == null) {
+                    throw new RoomException(AppConstants.ERROR_ROOM_NOT_FOUND + ": " + roomId);
+                }
+                if (!room.isAvailable()) {
+                    throw new RoomException(AppConstants.ERROR_ROOM_NOT_AVAILABLE + ": " + roomId);
+                }
+                checkIns[i] = DateUtils.toEpochDay(stays[i].getCheckInDate());
+                checkOuts[i] = DateUtils.toEpochDay(stays[i].getCheckOutDate());
+                if (!calendar.covers(checkIns[i], checkOuts[i])) {
+                    throw new RoomException(AppConstants.ERROR_OUTSIDE_CALENDAR);
+                }
+                boolean overlapsPrevious = i > 0 && stays[i - 1].getRoomId() == roomId 
+                        && checkOuts[i - 1] > checkIns[i];
+                if (overlapsPrevious || !calendar.isFree(roomId, checkIns[i], checkOuts[i])) {
+                    throw new RoomException(AppConstants.ERROR_ROOM_NOT_AVAILABLE + ": " + roomId);
+                }
+            }
+
+            for (int i = 0; i < stays.length; i++) {
+                if (!calendar.book(stays[i].getRoomId(), checkIns[i], checkOuts[i], 
+                                   stays[i].getReservationId())) {
+                    // Checked free above, under the same single writer
+                    throw new IllegalStateException("Nights of room " + stays[i].getRoomId() 
+                                                    + " taken during a group booking");
+                }
+                searchCache.invalidate(roomsById.get(stays[i].getRoomId()).getRoomTypeId(), 
+                                       checkIns[i], checkOuts[i]);
+            }
+            for (MutationListener listener : listeners) {
+                batch.forEach(listener::nightsReserved);
+            }
+        } finally {
+            Tracer.stop(TraceStage.RESERVE_ALL_NIGHTS, traceStart);
+        }
+    }
+
+    /**
+     * Frees the nights of a reservation in the occupancy calendar
+     * (nights outside the calendar horizon are ignored)
+     */
+    public void releaseNights(Reservation reservation) throws RoomException {
+        long traceStart = Tracer.start();
+        try {
+            Room room = getRoomById(reservation.getRoomId());
+            int checkIn = Math.max(DateUtils.toEpochDay(reservation.getCheckInDate()), 
+                                   calendar.getFirstNight());
+            int checkOut = Math.min(DateUtils.toEpochDay(reservation.getCheckOutDate()), 
+                                    calendar.getEndNight());
+            if (checkIn < checkOut) {
+                calendar.release(reservation.getRoomId(), checkIn, checkOut, 
+                                 reservation.getReservationId());
+                searchCache.invalidate(room.getRoomTypeId(), checkIn, checkOut);
+                listeners.forEach(listener -> listener.nightsReleased(reservation));
+            }
+        } finally {
+            Tracer.stop(TraceStage.RELEASE_NIGHTS, traceStart);
+        }
+    }
+
+    /**
+     * Books the nights of reservations restored from storage, e.g. after
+     * a file store is reopened. Nights outside the calendar horizon or on
+     * rooms that no longer exist are skipped, and listeners are not
+     * notified since nothing new was booked.
+     */
+    public void restoreNights(Iterable<Reservation> restored) {
+        for (Reservation reservation : restored) {
+            Optional<Room> room = findRoomById(reservation.getRoomId());
+            int checkIn = Math.max(DateUtils.toEpochDay(reservation.getCheckInDate()), 
+                                   calendar.getFirstNight());
+            int checkOut = Math.min(DateUtils.toEpochDay(reservation.getCheckOutDate()), 
+                                    calendar.getEndNight());
+            if (room.isPresent() && checkIn < checkOut) {
+                calendar.book(reservation.getRoomId(), checkIn, checkOut, 
+                              reservation.getReservationId());
+                searchCache.invalidate(room.get().getRoomTypeId(), checkIn, checkOut);
+            }
+        }
     }
 
     /**
@@ -123,8 +492,15 @@ public class RoomService {
      * Refactoring Technique: Replace Error Code with Exception
      */
     public void setRoomAvailability(int roomId, boolean isAvailable) throws RoomException {
-        Room room = getRoomById(roomId);
-        room.setAvailable(isAvailable);
+        long traceStart = Tracer.start();
+        try {
+            Room room = getRoomById(roomId);
+            room.setAvailable(isAvailable);
+            saveChangedRoom(room);
+            listeners.forEach(listener -> listener.roomUpdated(room));
+        } finally {
+            Tracer.stop(TraceStage.SET_ROOM_AVAILABILITY, traceStart);
+        }
     }
 
     /**
@@ -132,11 +508,18 @@ public class RoomService {
      * Refactoring Technique: Extract Method (specific use case)
      */
     public void markRoomAsOccupied(int roomId) throws RoomException {
-        Room room = getRoomById(roomId);
-        if (!room.isAvailable()) {
-            throw new RoomException(AppConstants.ERROR_ROOM_NOT_AVAILABLE);
+        long traceStart = Tracer.start();
+        try {
+            Room room = getRoomById(roomId);
+            if (!room.isAvailable()) {
+                throw new RoomException(AppConstants.ERROR_ROOM_NOT_AVAILABLE);
+            }
+            room.markAsOccupied();
+            saveChangedRoom(room);
+            listeners.forEach(listener -> listener.roomUpdated(room));
+        } finally {
+            Tracer.stop(TraceStage.MARK_ROOM_AS_OCCUPIED, traceStart);
         }
-        room.markAsOccupied();
     }
 
     /**
@@ -144,8 +527,15 @@ public class RoomService {
      * Refactoring Technique: Extract Method (specific use case)
      */
     public void markRoomAsAvailable(int roomId) throws RoomException {
-        Room room = getRoomById(roomId);
-        room.markAsAvailable();
+        long traceStart = Tracer.start();
+        try {
+            Room room = getRoomById(roomId);
+            room.markAsAvailable();
+            saveChangedRoom(room);
+            listeners.forEach(listener -> listener.roomUpdated(room));
+        } finally {
+            Tracer.stop(TraceStage.MARK_ROOM_AS_AVAILABLE, traceStart);
+        }
     }
 
     /**
@@ -153,13 +543,24 @@ public class RoomService {
      * Refactoring Technique: Replace Error Code with Exception
      */
     public void removeRoom(int roomId) throws RoomException {
-        if (!InputValidator.isValidId(roomId)) {
-            throw new RoomException(AppConstants.ERROR_INVALID_ROOM_ID);
-        }
+        long traceStart = Tracer.start();
+        try {
+            if (!InputValidator.isValidId(roomId)) {
+                throw new RoomException(AppConstants.ERROR_INVALID_ROOM_ID);
+            }
         
-        boolean removed = rooms.removeIf(room -> room.getRoomId() == roomId);
-        if (!removed) {
-            throw new RoomException(AppConstants.ERROR_ROOM_NOT_FOUND);
+            Room room = findRoomById(roomId)
+                    .orElseThrow(() -> new RoomException(AppConstants.ERROR_ROOM_NOT_FOUND));
+            rooms.remove(roomId);
+            calendar.removeRoom(roomId);
+            Integer savedTypeId = savedRoomTypeIds.remove(roomId);
+            if (savedTypeId != null) {
+                searchCache.invalidateType(savedTypeId);
+            }
+            searchCache.invalidateType(room.getRoomTypeId());
+            listeners.forEach(listener -> listener.roomRemoved(roomId));
+        } finally {
+            Tracer.stop(TraceStage.REMOVE_ROOM, traceStart);
         }
     }
 
@@ -168,25 +569,52 @@ public class RoomService {
      * Refactoring Technique: Extract Method
      */
     public long getAvailableRoomCount() {
-        return rooms.stream()
-                .filter(Room::isAvailable)
-                .count();
+        long traceStart = Tracer.start();
+        try {
+            return rooms.stream()
+                    .filter(Room::isAvailable)
+                    .count();
+        } finally {
+            Tracer.stop(TraceStage.GET_AVAILABLE_ROOM_COUNT, traceStart);
+        }
     }
 
     /**
      * Finds rooms by type
      * Refactoring Technique: Extract Method
+     * 
+     * The type is resolved to its dictionary ordinal once, so each room
+     * is matched with an int comparison.
      */
     public List<Room> findRoomsByType(String roomType) {
-        if (!InputValidator.isValidString(roomType)) {
-            return Collections.emptyList();
-        }
+        long traceStart = Tracer.start();
+        try {
+            if (!InputValidator.isValidString(roomType)) {
+                return Collections.emptyList();
+            }
         
-        return rooms.stream()
-                .filter(room -> room.getRoomType().equalsIgnoreCase(roomType))
-                .collect(Collectors.collectingAndThen(
-                    Collectors.toList(),
-                    Collections::unmodifiableList
-                ));
+            int roomTypeId = RoomTypeRegistry.lookup(roomType);
+            if (roomTypeId == RoomTypeRegistry.UNKNOWN_TYPE) {
+                return Collections.emptyList();
+            }
+        
+            return rooms.stream()
+                    .filter(room -> room.getRoomTypeId() == roomTypeId)
+                    .collect(Collectors.collectingAndThen(
+                        Collectors.toList(),
+                        Collections::unmodifiableList
+                    ));
+        } finally {
+            Tracer.stop(TraceStage.FIND_ROOMS_BY_TYPE, traceStart);
+        }
+    }
+
+    /**
+     * Frees the native memory of the occupancy calendar; the service
+     * cannot be used afterwards
+     */
+    @Override
+    public void close() {
+        calendar.close();
     }
 }
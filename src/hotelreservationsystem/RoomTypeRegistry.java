@@ -0,0 +1,75 @@
+package hotelreservationsystem;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Dictionary of room types.
+ *
+ * Each distinct type (compared case-insensitively, ignoring surrounding
+ * blanks) is registered once and given a small dense ordinal. Rooms store
+ * the ordinal, so filtering by type is an int comparison instead of a
+ * string comparison per room. The spelling used at first registration is
+ * kept as the display name.
+ *
+ * @author Software Re-Engineering Enhancement
+ */
+public final class RoomTypeRegistry {
+    public static final int UNKNOWN_TYPE = -1;
+
+    private static final Map<String, Integer> ORDINALS = new ConcurrentHashMap<>();
+    private static final List<String> NAMES = new CopyOnWriteArrayList<>();
+
+    // Private constructor to prevent instantiation
+    private RoomTypeRegistry() {
+        throw new AssertionError("Cannot instantiate utility class");
+    }
+
+    /**
+     * Returns the ordinal of a room type, registering it if new
+     */
+    public static int register(String roomType) {
+        String key = normalize(roomType);
+        Integer ordinal = ORDINALS.get(key);
+        if (ordinal != null) {
+            return ordinal;
+        }
+        synchronized (RoomTypeRegistry.class) {
+            return ORDINALS.computeIfAbsent(key, newKey -> {
+                NAMES.add(roomType.trim());
+                return NAMES.size() - 1;
+            });
+        }
+    }
+
+    /**
+     * Returns the ordinal of a room type, or UNKNOWN_TYPE if never registered
+     */
+    public static int lookup(String roomType) {
+        if (roomType == null) {
+            return UNKNOWN_TYPE;
+        }
+        return ORDINALS.getOrDefault(normalize(roomType), UNKNOWN_TYPE);
+    }
+
+    /**
+     * Returns the display name of a registered ordinal
+     */
+    public static String nameOf(int ordinal) {
+        return NAMES.get(ordinal);
+    }
+
+    /**
+     * Number of registered room types (ordinals are 0 .. size - 1)
+     */
+    public static int size() {
+        return NAMES.size();
+    }
+
+    private static String normalize(String roomType) {
+        return roomType.trim().toLowerCase(Locale.ROOT);
+    }
+}
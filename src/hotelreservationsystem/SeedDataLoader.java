@@ -0,0 +1,444 @@
+package hotelreservationsystem;
+
+import hotelreservationsystem.constants.AppConstants;
+import hotelreservationsystem.enums.UserRole;
+import hotelreservationsystem.exceptions.RoomException;
+import hotelreservationsystem.exceptions.UserException;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Loads rooms and users from a CSV seed file at startup.
+ *
+ * One record per line, blank lines and lines starting with '#' ignored:
+ *   room,roomId,roomType,price,available
+ *   user,userId,username,password,role
+ *
+ * The file is memory-mapped and cut into chunks on line boundaries, and
+ * the chunks are parsed in parallel with fork/join, which also spreads
+ * the deliberately slow password hashing over the pool. The parsed records
+ * are then handed to the services' bulk insert methods, which check
+ * duplicates with one hash set instead of a scan per record.
+ *
+ * @author Software Re-Engineering Enhancement
+ */
+public class SeedDataLoader {
+    private static final long MIN_CHUNK_BYTES = 1L << 20;
+    private static final String ROOM_RECORD = "room";
+    private static final String USER_RECORD = "user";
+    private static final int FIELD_COUNT = 5;
+    private static final int MAX_EXACT_DIGITS = 15;
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final UserRole[] ROLES = UserRole.values();
+
+    private final RoomService roomService;
+    private final UserService userService;
+    private final ForkJoinPool pool;
+
+    public SeedDataLoader(RoomService roomService, UserService userService) {
+        this(roomService, userService, ForkJoinPool.commonPool());
+    }
+
+    public SeedDataLoader(RoomService roomService, UserService userService, ForkJoinPool pool) {
+        this.roomService = roomService;
+        this.userService = userService;
+        this.pool = pool;
+    }
+
+    /**
+     * Counts and timing of one load
+     */
+    public static final class Summary {
+        private final int roomCount;
+        private final int userCount;
+        private final long parseMillis;
+        private final long insertMillis;
+
+        Summary(int roomCount, int userCount, long parseMillis, long insertMillis) {
+            this.roomCount = roomCount;
+            this.userCount = userCount;
+            this.parseMillis = parseMillis;
+            this.insertMillis = insertMillis;
+        }
+
+        public int getRoomCount() {
+            return roomCount;
+        }
+
+        public int getUserCount() {
+            return userCount;
+        }
+
+        public long getParseMillis() {
+            return parseMillis;
+        }
+
+        public long getInsertMillis() {
+            return insertMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Loaded %d rooms and %d users in %d ms (parse %d ms, insert %d ms)",
+                                 roomCount, userCount, parseMillis + insertMillis,
+                                 parseMillis, insertMillis);
+        }
+    }
+
+    /**
+     * Records parsed from one chunk of the file
+     */
+    private static final class Chunk {
+        final List<Room> rooms = new ArrayList<>();
+        final List<User> users = new ArrayList<>();
+        final int[] commas = new int[FIELD_COUNT - 1];
+        final List<byte[]> typeBytes = new ArrayList<>();
+        final List<String> typeNames = new ArrayList<>();
+        IOException error;
+
+        /**
+         * Room type as a string, decoded once per distinct spelling
+         */
+        String roomType(byte[] line, int from, int to) {
+            for (int i = 0; i < typeBytes.size(); i++) {
+                byte[] known = typeBytes.get(i);
+                if (Arrays.equals(known, 0, known.length, line, from, to)) {
+                    return typeNames.get(i);
+                }
+            }
+            String name = text(line, from, to);
+            typeBytes.add(Arrays.copyOfRange(line, from, to));
+            typeNames.add(name);
+            return name;
+        }
+    }
+
+    /**
+     * Parses the seed file and bulk-inserts its rooms and users
+     *
+     * @throws IOException if the file cannot be read or a record is malformed
+     */
+    public Summary load(Path seedFile) throws IOException, RoomException, UserException {
+        long started = System.nanoTime();
+        List<Chunk> chunks;
+        try (FileChannel channel = FileChannel.open(seedFile, StandardOpenOption.READ)) {
+            long size = channel.size();
+            int chunkCount = (int) Math.max(1, Math.min(size / MIN_CHUNK_BYTES,
+                                                        pool.getParallelism() * 4L));
+            long chunkSize = size / chunkCount + 1;
+            List<ChunkParser> parsers = new ArrayList<>(chunkCount);
+            for (long start = 0; start < size; start += chunkSize) {
+                parsers.add(new ChunkParser(channel, start, Math.min(size, start + chunkSize), size));
+            }
+            pool.submit(() -> ForkJoinTask.invokeAll(parsers)).join();
+            chunks = new ArrayList<>(parsers.size());
+            for (ChunkParser parser : parsers) {
+                Chunk chunk = parser.join();
+                if (chunk.error != null) {
+                    throw chunk.error;
+                }
+                chunks.add(chunk);
+            }
+        }
+
+        List<Room> rooms = new ArrayList<>();
+        List<User> users = new ArrayList<>();
+        for (Chunk chunk : chunks) {
+            rooms.addAll(chunk.rooms);
+            users.addAll(chunk.users);
+        }
+        long parsed = System.nanoTime();
+
+        roomService.addRooms(rooms);
+        userService.addUsers(users);
+        long inserted = System.nanoTime();
+        return new Summary(rooms.size(), users.size(),
+                           (parsed - started) / 1_000_000, (inserted - parsed) / 1_000_000);
+    }
+
+    /**
+     * Parses the lines that start inside [start, end) of the file
+     */
+    private static final class ChunkParser extends RecursiveTask<Chunk> {
+        private static final long serialVersionUID = 1L;
+
+        // Never serialized: tasks only run in the pool
+        private final transient FileChannel channel;
+        private final long start;
+        private final long end;
+        private final long fileSize;
+
+        ChunkParser(FileChannel channel, long start, long end, long fileSize) {
+            this.channel = channel;
+            this.start = start;
+            this.end = end;
+            this.fileSize = fileSize;
+        }
+
+        @Override
+        protected Chunk compute() {
+            Chunk chunk = new Chunk();
+            // Map from one byte early so we can tell whether start is a line start
+            long base = start == 0 ? 0 : start - 1;
+            try {
+                MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, base,
+                        Math.min(fileSize - base, Integer.MAX_VALUE));
+                int limit = (int) (end - base);
+                int position = start == 0 ? 0 : nextLine(bytes, 0);
+                byte[] line = new byte[256];
+                while (position < limit) {
+                    int lineEnd = nextLine(bytes, position) - 1;
+                    int length = lineEnd - position;
+                    if (length > line.length) {
+                        line = new byte[length * 2];
+                    }
+                    bytes.get(position, line, 0, length);
+                    parseLine(line, length, base + position, chunk);
+                    position = lineEnd + 1;
+                }
+            } catch (IOException e) {
+                chunk.error = e;
+            }
+            return chunk;
+        }
+
+        /**
+         * Position just past the next newline (or past the end of the data)
+         */
+        private static int nextLine(MappedByteBuffer bytes, int position) {
+            while (position < bytes.limit() && bytes.get(position) != '\n') {
+                position++;
+            }
+            return position + 1;
+        }
+    }
+
+    /**
+     * Parses one line in place: fields are located by their commas and
+     * numbers are read straight from the bytes, so the only strings made
+     * are usernames, passwords and the first spelling of each room type
+     */
+    private static void parseLine(byte[] line, int length, long offset, Chunk chunk)
+            throws IOException {
+        if (length > 0 && line[length - 1] == '\r') {
+            length--;
+        }
+        if (length == 0 || line[0] == '#') {
+            return;
+        }
+        int[] commas = chunk.commas;
+        int found = 0;
+        for (int i = 0; i < length; i++) {
+            if (line[i] == ',') {
+                if (found == commas.length) {
+                    throw malformed(offset, "expected " + FIELD_COUNT + " fields");
+                }
+                commas[found++] = i;
+            }
+        }
+        if (found != commas.length) {
+            throw malformed(offset, "expected " + FIELD_COUNT + " fields");
+        }
+        try {
+            int id = parseInt(line, commas[0] + 1, commas[1]);
+            if (matches(line, 0, commas[0], ROOM_RECORD)) {
+                chunk.rooms.add(new Room(id, chunk.roomType(line, commas[1] + 1, commas[2]),
+                                         parsePrice(line, commas[2] + 1, commas[3]),
+                                         matches(line, commas[3] + 1, length, "true")));
+            } else if (matches(line, 0, commas[0], USER_RECORD)) {
+                chunk.users.add(new User(id, text(line, commas[1] + 1, commas[2]),
+                                         text(line, commas[2] + 1, commas[3]),
+                                         parseRole(line, commas[3] + 1, length)));
+            } else {
+                throw malformed(offset, "unknown record kind '" + text(line, 0, commas[0]) + "'");
+            }
+        } catch (IllegalArgumentException e) {
+            throw malformed(offset, e.getMessage());
+        }
+    }
+
+    private static String text(byte[] line, int from, int to) {
+        return new String(line, from, to - from, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Case-insensitive ASCII comparison of a field, ignoring surrounding blanks
+     */
+    private static boolean matches(byte[] line, int from, int to, String expected) {
+        from = skipBlanks(line, from, to);
+        to = trimBlanks(line, from, to);
+        if (to - from != expected.length()) {
+            return false;
+        }
+        for (int i = 0; i < expected.length(); i++) {
+            if (Character.toLowerCase(line[from + i]) != Character.toLowerCase(expected.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int parseInt(byte[] line, int from, int to) {
+        from = skipBlanks(line, from, to);
+        to = trimBlanks(line, from, to);
+        boolean negative = from < to && line[from] == '-';
+        int start = negative ? from + 1 : from;
+        if (start == to) {
+            throw new NumberFormatException("Missing number");
+        }
+        long value = 0;
+        for (int i = start; i < to; i++) {
+            int digit = line[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("For input string: \"" + text(line, from, to) + "\"");
+            }
+            value = value * 10 + digit;
+            if (value > Integer.MAX_VALUE + 1L) {
+                throw new NumberFormatException("Number out of range: " + text(line, from, to));
+            }
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Number out of range: " + text(line, from, to));
+        }
+        return (int) value;
+    }
+
+    /**
+     * Plain decimals with up to 15 significant digits are exact as
+     * mantissa / 10^scale; anything else goes through Double.parseDouble
+     */
+    private static double parsePrice(byte[] line, int from, int to) {
+        from = skipBlanks(line, from, to);
+        to = trimBlanks(line, from, to);
+        long mantissa = 0;
+        int digits = 0;
+        int scale = -1;
+        for (int i = from; i < to; i++) {
+            byte c = line[i];
+            if (c == '.' && scale < 0) {
+                scale = 0;
+            } else if (c >= '0' && c <= '9' && digits < MAX_EXACT_DIGITS) {
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if (scale >= 0) {
+                    scale++;
+                }
+            } else {
+                return Double.parseDouble(text(line, from, to));
+            }
+        }
+        if (digits == 0) {
+            throw new NumberFormatException("Missing number");
+        }
+        return mantissa / POWERS_OF_TEN[Math.max(scale, 0)];
+    }
+
+    private static UserRole parseRole(byte[] line, int from, int to) {
+        for (UserRole role : ROLES) {
+            if (matches(line, from, to, role.name())) {
+                return role;
+            }
+        }
+        throw new IllegalArgumentException("Unknown role '" + text(line, from, to) + "'");
+    }
+
+    private static int skipBlanks(byte[] line, int from, int to) {
+        while (from < to && line[from] == ' ') {
+            from++;
+        }
+        return from;
+    }
+
+    private static int trimBlanks(byte[] line, int from, int to) {
+        while (to > from && line[to - 1] == ' ') {
+            to--;
+        }
+        return to;
+    }
+
+    private static IOException malformed(long offset, String reason) {
+        return new IOException("Malformed seed record at byte " + offset + ": " + reason);
+    }
+
+    /**
+     * Writes a synthetic seed file, e.g. for startup measurements and load
+     * tests, holding syntheticRooms(roomCount) and syntheticUsers(userCount)
+     */
+    public static void writeSynthetic(Path seedFile, int roomCount, int userCount)
+            throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(seedFile, StandardCharsets.UTF_8)) {
+            writer.write("# kind,id,type|username,price|password,available|role\n");
+            for (Room room : syntheticRooms(roomCount)) {
+                writer.write(ROOM_RECORD + "," + room.getRoomId() + "," + room.getRoomType() + "," +
+                             room.getPrice() + "," + room.isAvailable() + "\n");
+            }
+            for (int i = 1; i <= userCount; i++) {
+                writer.write(USER_RECORD + "," + i + "," + syntheticUsername(i) + "," +
+                             syntheticPassword(i) + "," + syntheticRole(i).name() + "\n");
+            }
+        }
+    }
+
+    /**
+     * Rooms 1..count cycling through the default types and prices
+     */
+    public static List<Room> syntheticRooms(int count) {
+        String[] types = {
+            AppConstants.ROOM_TYPE_SINGLE, AppConstants.ROOM_TYPE_DOUBLE, AppConstants.ROOM_TYPE_SUITE
+        };
+        double[] prices = {
+            AppConstants.DEFAULT_SINGLE_ROOM_PRICE, AppConstants.DEFAULT_DOUBLE_ROOM_PRICE,
+            AppConstants.DEFAULT_SUITE_ROOM_PRICE
+        };
+        List<Room> rooms = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            int type = (i - 1) % types.length;
+            rooms.add(new Room(i, types[type], prices[type], true));
+        }
+        return rooms;
+    }
+
+    /**
+     * Users 1..count: user N has username "userN" and password "passwordN";
+     * user 1 is an admin and the rest are customers. Their passwords are
+     * hashed in parallel in the common fork/join pool.
+     */
+    public static List<User> syntheticUsers(int count) {
+        return IntStream.rangeClosed(1, count).parallel()
+                .mapToObj(i -> new User(i, syntheticUsername(i), syntheticPassword(i), syntheticRole(i)))
+                .collect(Collectors.toList());
+    }
+
+    private static String syntheticUsername(int userId) {
+        return "user" + userId;
+    }
+
+    private static UserRole syntheticRole(int userId) {
+        return userId == 1 ? UserRole.ADMIN : UserRole.CUSTOMER;
+    }
+
+    /**
+     * Password of synthetic user N; users keep only its hash
+     */
+    private static String syntheticPassword(int userId) {
+        return "password" + userId;
+    }
+}
@@ -0,0 +1,104 @@
+package hotelreservationsystem;
+
+import hotelreservationsystem.constants.AppConstants;
+import hotelreservationsystem.utils.DateUtils;
+import hotelreservationsystem.utils.InputValidator;
+import java.util.Date;
+
+/**
+ * Represents a booking made against a room type rather than a concrete room.
+ * The room is chosen later by the RoomAssignmentOptimizer.
+ *
+ * Refactoring Techniques Applied:
+ * - Encapsulate Field (private fields with validation)
+ * - Introduce Assertion (validation in constructor)
+ *
+ * @author Software Re-Engineering Enhancement
+ */
+public class TypeBooking {
+    private final int reservationId;
+    private final int userId;
+    private final int roomTypeId;
+    private final Date checkInDate;
+    private final Date checkOutDate;
+    private final double totalCost;
+
+    /**
+     * Constructor with validation
+     * Refactoring Technique: Introduce Assertion
+     */
+    public TypeBooking(int reservationId, int userId, String roomType,
+                       Date checkInDate, Date checkOutDate, double totalCost) {
+        if (!InputValidator.isValidId(reservationId)) {
+            throw new IllegalArgumentException(AppConstants.ERROR_INVALID_RESERVATION_ID);
+        }
+        if (!InputValidator.isValidId(userId)) {
+            throw new IllegalArgumentException("User ID must be positive");
+        }
+        if (!InputValidator.isValidString(roomType)) {
+            throw new IllegalArgumentException("Room type cannot be null or empty");
+        }
+        if (!DateUtils.isValidDateRange(checkInDate, checkOutDate)) {
+            throw new IllegalArgumentException(AppConstants.ERROR_INVALID_DATE_RANGE);
+        }
+        if (totalCost < 0) {
+            throw new IllegalArgumentException("Total cost cannot be negative");
+        }
+
+        this.reservationId = reservationId;
+        this.userId = userId;
+        this.roomTypeId = RoomTypeRegistry.register(roomType);
+        this.checkInDate = new Date(checkInDate.getTime()); // Defensive copy
+        this.checkOutDate = new Date(checkOutDate.getTime()); // Defensive copy
+        this.totalCost = totalCost;
+    }
+
+    public int getReservationId() {
+        return reservationId;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public String getRoomType() {
+        return RoomTypeRegistry.nameOf(roomTypeId);
+    }
+
+    public int getRoomTypeId() {
+        return roomTypeId;
+    }
+
+    public Date getCheckInDate() {
+        return new Date(checkInDate.getTime());
+    }
+
+    public Date getCheckOutDate() {
+        return new Date(checkOutDate.getTime());
+    }
+
+    public double getTotalCost() {
+        return totalCost;
+    }
+
+    /**
+     * Converts this booking into a concrete reservation for the assigned room
+     * Refactoring Technique: Replace Constructor with Factory Method
+     */
+    public Reservation toReservation(int roomId) {
+        return new Reservation(reservationId, userId, roomId,
+                checkInDate, checkOutDate, totalCost);
+    }
+
+    @Override
+    public String toString() {
+        return "Reservation " +
+                "reservationId=" + reservationId +
+                ", userId=" + userId +
+                ", roomType='" + getRoomType() + '\'' +
+                ", checkInDate=" + DateUtils.formatDate(checkInDate) +
+                ", checkOutDate=" + DateUtils.formatDate(checkOutDate) +
+                ", totalCost=" + totalCost +
+                ", room=pending assignment";
+    }
+}
@@ -2,6 +2,7 @@ package hotelreservationsystem;
 
 import hotelreservationsystem.enums.UserRole;
 import hotelreservationsystem.utils.InputValidator;
+import hotelreservationsystem.utils.PasswordHasher;
 
 /**
  * Represents a user in the Hotel Reservation System
@@ -12,12 +13,15 @@ import hotelreservationsystem.utils.InputValidator;
  * - Introduce Assertion (validation in setters)
  * - Self Encapsulate Field
  * 
+ * Only a salted hash of the password is kept (see PasswordHasher), so
+ * stored and replicated users never carry it in the clear.
+ * 
  * @author Refactored by Software Re-Engineering
  */
 public class User {
     private int userId;
     private String username;
-    private String password;
+    private String passwordHash;
     private UserRole role;
 
     /**
@@ -25,25 +29,37 @@ public class User {
      * Refactoring Technique: Introduce Assertion
      */
     public User(int userId, String username, String password, UserRole role) {
+        this(userId, username, role, hashValidPassword(password, "Password cannot be null or empty"));
+    }
+
+    private User(int userId, String username, UserRole role, String passwordHash) {
         if (!InputValidator.isValidId(userId)) {
             throw new IllegalArgumentException("User ID must be positive");
         }
         if (!InputValidator.isValidString(username)) {
             throw new IllegalArgumentException("Username cannot be null or empty");
         }
-        if (!InputValidator.isValidString(password)) {
-            throw new IllegalArgumentException("Password cannot be null or empty");
-        }
         if (role == null) {
             throw new IllegalArgumentException("Role cannot be null");
         }
         
         this.userId = userId;
         this.username = username;
-        this.password = password;
+        this.passwordHash = passwordHash;
         this.role = role;
     }
 
+    /**
+     * Recreates a stored user from its password hash, for the persistence
+     * codec only
+     */
+    static User withPasswordHash(int userId, String username, String passwordHash, UserRole role) {
+        if (!InputValidator.isValidString(passwordHash)) {
+            throw new IllegalArgumentException("Password hash cannot be null or empty");
+        }
+        return new User(userId, username, role, passwordHash);
+    }
+
     // Getters only - immutable userId
     public int getUserId() {
         return userId;
@@ -69,7 +85,21 @@ public class User {
      * Refactoring Technique: Encapsulate Field - hide direct password access
      */
     public boolean verifyPassword(String password) {
-        return this.password != null && this.password.equals(password);
+        if (!PasswordHasher.matches(password, passwordHash)) {
+            return false;
+        }
+        if (PasswordHasher.needsRehash(passwordHash)) {
+            // Stored under an older scheme; the known password upgrades it
+            passwordHash = PasswordHasher.hash(password);
+        }
+        return true;
+    }
+
+    /**
+     * Salted password hash, visible to the persistence codec only
+     */
+    String getPasswordHash() {
+        return passwordHash;
     }
 
     /**
@@ -81,10 +111,7 @@ public class User {
         if (!verifyPassword(oldPassword)) {
             throw new IllegalArgumentException("Old password is incorrect");
         }
-        if (!InputValidator.isValidString(newPassword)) {
-            throw new IllegalArgumentException("New password cannot be null or empty");
-        }
-        this.password = newPassword;
+        this.passwordHash = hashValidPassword(newPassword, "New password cannot be null or empty");
     }
 
     public UserRole getRole() {
@@ -102,6 +129,13 @@ public class User {
         this.role = role;
     }
 
+    private static String hashValidPassword(String password, String errorMessage) {
+        if (!InputValidator.isValidString(password)) {
+            throw new IllegalArgumentException(errorMessage);
+        }
+        return PasswordHasher.hash(password);
+    }
+
     /**
      * Display user information (excluding password for security)
      * Refactoring Technique: Hide Method - password not exposed
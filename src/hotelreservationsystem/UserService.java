@@ -1,23 +1,84 @@
 package hotelreservationsystem;
 
+import hotelreservationsystem.constants.AppConstants;
 import hotelreservationsystem.enums.UserRole;
 import hotelreservationsystem.exceptions.UserException;
+import hotelreservationsystem.metrics.TraceStage;
+import hotelreservationsystem.metrics.Tracer;
+import hotelreservationsystem.security.LoginRateLimiter;
+import hotelreservationsystem.storage.EntityType;
+import hotelreservationsystem.storage.HashRepository;
+import hotelreservationsystem.storage.Repository;
 import hotelreservationsystem.utils.InputValidator;
-import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Service class for managing users and authentication
  * 
+ * Failed logins are charged to a LoginRateLimiter per username and per
+ * source; a locked-out attempt is rejected before the user lookup and
+ * password check. Authentication failures are thrown as stackless
+ * exceptions so a burst of bad guesses costs little CPU.
+ * 
+ * Users are kept in a Repository, in memory unless another store is
+ * passed in. A user changed in place is saved back, since some stores
+ * hand out copies. A username index, kept in step by every method that
+ * adds or removes users, makes lookups by username constant time.
+ * 
  * @author Software Re-Engineering Enhancement
  */
 public class UserService {
-    private final List<User> users;
+    private final Repository<User> users;
+    /** User ID of each username in the store */
+    private final Map<String, Integer> userIdsByUsername;
+    private final List<MutationListener> listeners;
+    private final LoginRateLimiter loginRateLimiter;
 
     public UserService() {
-        this.users = new ArrayList<>();
+        this(new LoginRateLimiter());
+    }
+
+    public UserService(LoginRateLimiter loginRateLimiter) {
+        this(new HashRepository<>(EntityType.USER), loginRateLimiter);
+    }
+
+    public UserService(Repository<User> users) {
+        this(users, new LoginRateLimiter());
+    }
+
+    /**
+     * Creates the service over a user store, which may already hold users
+     * (e.g. a file store reopened)
+     */
+    public UserService(Repository<User> users, LoginRateLimiter loginRateLimiter) {
+        if (users == null || loginRateLimiter == null) {
+            throw new IllegalArgumentException("User store and rate limiter cannot be null");
+        }
+        this.users = users;
+        this.userIdsByUsername = new HashMap<>(users.size() * 2);
+        for (User user : users) {
+            userIdsByUsername.put(user.getUsername(), user.getUserId());
+        }
+        this.listeners = new CopyOnWriteArrayList<>();
+        this.loginRateLimiter = loginRateLimiter;
+    }
+
+    /**
+     * Registers a listener notified after every successful mutation
+     */
+    public void addMutationListener(MutationListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener cannot be null");
+        }
+        listeners.add(listener);
     }
 
     /**
@@ -25,91 +86,209 @@ public class UserService {
      */
     public User registerUser(int userId, String username, String password, UserRole role) 
             throws UserException {
-        if (findUserByUsername(username).isPresent()) {
-            throw new UserException("Username already exists");
-        }
+        long traceStart = Tracer.start();
+        try {
+            if (userIdsByUsername.containsKey(username)) {
+                throw new UserException("Username already exists");
+            }
         
-        User user = new User(userId, username, password, role);
-        users.add(user);
-        return user;
+            User user = new User(userId, username, password, role);
+            addUser(user);
+            return user;
+        } finally {
+            Tracer.stop(TraceStage.REGISTER_USER, traceStart);
+        }
     }
 
     /**
-     * Authenticate a user
+     * Adds an already constructed user, e.g. one restored from a replica
+     * or a data file
      */
-    public User authenticate(String username, String password) throws UserException {
-        if (!InputValidator.isValidString(username) || !InputValidator.isValidString(password)) {
-            throw new UserException("Invalid credentials");
+    public void addUser(User user) throws UserException {
+        long traceStart = Tracer.start();
+        try {
+            if (user == null) {
+                throw new UserException("User cannot be null");
+            }
+            if (userIdsByUsername.containsKey(user.getUsername())) {
+                throw new UserException("Username already exists");
+            }
+            if (users.contains(user.getUserId())) {
+                throw new UserException("User with ID " + user.getUserId() + " already exists");
+            }
+
+            users.save(user);
+            userIdsByUsername.put(user.getUsername(), user.getUserId());
+            listeners.forEach(listener -> listener.userRegistered(user));
+        } finally {
+            Tracer.stop(TraceStage.ADD_USER, traceStart);
         }
+    }
 
-        User user = findUserByUsername(username)
-                .orElseThrow(() -> new UserException("User not found"));
+    /**
+     * Adds many users at once, e.g. from a seed file. Duplicates are
+     * checked against the username index and the store, and within the
+     * batch with hash sets. Nothing is added if any user is invalid.
+     */
+    public void addUsers(Collection<User> newUsers) throws UserException {
+        long traceStart = Tracer.start();
+        try {
+            Set<String> usernames = new HashSet<>(newUsers.size() * 2);
+            Set<Integer> userIds = new HashSet<>(newUsers.size() * 2);
+            for (User user : newUsers) {
+                if (user == null) {
+                    throw new UserException("User cannot be null");
+                }
+                if (userIdsByUsername.containsKey(user.getUsername())
+                        || !usernames.add(user.getUsername())) {
+                    throw new UserException("Username already exists: " + user.getUsername());
+                }
+                if (users.contains(user.getUserId()) || !userIds.add(user.getUserId())) {
+                    throw new UserException("User with ID " + user.getUserId() + " already exists");
+                }
+            }
 
-        if (!user.verifyPassword(password)) {
-            throw new UserException("Invalid password");
+            users.saveAll(newUsers);
+            for (User user : newUsers) {
+                userIdsByUsername.put(user.getUsername(), user.getUserId());
+            }
+            for (MutationListener listener : listeners) {
+                newUsers.forEach(listener::userRegistered);
+            }
+        } finally {
+            Tracer.stop(TraceStage.ADD_USERS, traceStart);
         }
+    }
 
-        return user;
+    /**
+     * Authenticate a user whose origin is unknown; only the per-username
+     * limit applies
+     */
+    public User authenticate(String username, String password) throws UserException {
+        return authenticate(username, password, null);
     }
 
     /**
-     * Find user by username
+     * Authenticate a user
+     * 
+     * @param source origin of the attempt (e.g. client address), or null
+     * @throws UserException if the credentials are wrong, or if the
+     *         username or source is locked out after repeated failures
+     */
+    public User authenticate(String username, String password, String source) 
+            throws UserException {
+        long traceStart = Tracer.start();
+        try {
+            if (!InputValidator.isValidString(username) || !InputValidator.isValidString(password)) {
+                throw UserException.withoutStackTrace("Invalid credentials");
+            }
+            if (!loginRateLimiter.tryAcquire(username, source)) {
+                throw UserException.withoutStackTrace(AppConstants.ERROR_TOO_MANY_LOGIN_ATTEMPTS);
+            }
+
+            Optional<User> user = findUserByUsername(username);
+            if (user.isEmpty()) {
+                loginRateLimiter.recordFailure(username, source);
+                throw UserException.withoutStackTrace("User not found");
+            }
+            String storedHash = user.get().getPasswordHash();
+            if (!user.get().verifyPassword(password)) {
+                loginRateLimiter.recordFailure(username, source);
+                throw UserException.withoutStackTrace("Invalid password");
+            }
+            if (!storedHash.equals(user.get().getPasswordHash())) {
+                users.save(user.get()); // Hash upgraded on login
+            }
+
+            return user.get();
+        } finally {
+            Tracer.stop(TraceStage.AUTHENTICATE, traceStart);
+        }
+    }
+
+    /**
+     * Find user by username, through the index
      */
     private Optional<User> findUserByUsername(String username) {
-        return users.stream()
-                .filter(user -> user.getUsername().equals(username))
-                .findFirst();
+        Integer userId = userIdsByUsername.get(username);
+        return userId == null ? Optional.empty() : users.findById(userId);
     }
 
     /**
      * Get user by ID
      */
     public User getUserById(int userId) throws UserException {
-        return users.stream()
-                .filter(user -> user.getUserId() == userId)
-                .findFirst()
-                .orElseThrow(() -> new UserException("User not found"));
+        long traceStart = Tracer.start();
+        try {
+            return users.findById(userId)
+                    .orElseThrow(() -> new UserException("User not found"));
+        } finally {
+            Tracer.stop(TraceStage.GET_USER_BY_ID, traceStart);
+        }
     }
 
     /**
      * Get all users (admin only)
      */
     public List<User> getAllUsers() {
-        return Collections.unmodifiableList(users);
+        return Collections.unmodifiableList(users.findAll());
     }
 
     /**
      * Check if username exists
      */
     public boolean usernameExists(String username) {
-        return findUserByUsername(username).isPresent();
+        long traceStart = Tracer.start();
+        try {
+            return userIdsByUsername.containsKey(username);
+        } finally {
+            Tracer.stop(TraceStage.USERNAME_EXISTS, traceStart);
+        }
     }
 
     /**
      * Get next available user ID
      */
     public int getNextUserId() {
-        return users.stream()
-                .mapToInt(User::getUserId)
-                .max()
-                .orElse(0) + 1;
+        long traceStart = Tracer.start();
+        try {
+            return users.stream()
+                    .mapToInt(User::getUserId)
+                    .max()
+                    .orElse(0) + 1;
+        } finally {
+            Tracer.stop(TraceStage.GET_NEXT_USER_ID, traceStart);
+        }
     }
 
     /**
      * Update user role (admin only)
      */
     public void updateUserRole(int userId, UserRole newRole) throws UserException {
-        User user = getUserById(userId);
-        user.setRole(newRole);
+        long traceStart = Tracer.start();
+        try {
+            User user = getUserById(userId);
+            user.setRole(newRole);
+            users.save(user);
+            listeners.forEach(listener -> listener.userRoleChanged(userId, newRole));
+        } finally {
+            Tracer.stop(TraceStage.UPDATE_USER_ROLE, traceStart);
+        }
     }
 
     /**
      * Delete user (admin only)
      */
     public void deleteUser(int userId) throws UserException {
-        boolean removed = users.removeIf(user -> user.getUserId() == userId);
-        if (!removed) {
-            throw new UserException("User not found");
+        long traceStart = Tracer.start();
+        try {
+            User user = users.findById(userId)
+                    .orElseThrow(() -> new UserException("User not found"));
+            users.remove(userId);
+            userIdsByUsername.remove(user.getUsername());
+            listeners.forEach(listener -> listener.userDeleted(userId));
+        } finally {
+            Tracer.stop(TraceStage.DELETE_USER, traceStart);
         }
     }
 
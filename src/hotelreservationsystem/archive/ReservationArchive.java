@@ -0,0 +1,425 @@
+package hotelreservationsystem.archive;
+
+import hotelreservationsystem.EntityCodec;
+import hotelreservationsystem.Reservation;
+import hotelreservationsystem.utils.DateUtils;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compressed, append-only cold store for completed reservations.
+ *
+ * Each append writes one block: a small header followed by the batch
+ * encoded with EntityCodec and compressed with Deflater. Blocks are never
+ * rewritten, and each append is forced to disk before it returns, since
+ * the caller drops the reservations from the hot set afterwards.
+ *
+ * Block: magic i32 | count i32 | firstNight i32 | endNight i32 |
+ *        rawLength i32 | compressedLength i32 | crc32 i32 |
+ *        userCount i32 | userId i32 * userCount | data
+ *
+ * The checksum covers the user IDs and the data. Blocks written before
+ * the user IDs were stored have the old magic and no user list.
+ *
+ * Two in-memory indexes keep history queries from decompressing the
+ * whole file: each block's night range [firstNight, endNight), and the
+ * blocks holding each user's stays. Opening an existing archive rebuilds
+ * them from the block headers and user lists, without decompressing
+ * (except for old blocks). The stays of the last block are kept as well:
+ * a crash after an append leaves only that block's stays in the hot set,
+ * and they let the archiver skip them.
+ *
+ * Thread-safe: appends and queries are synchronized.
+ *
+ * @author Software Re-Engineering Enhancement
+ */
+public class ReservationArchive implements AutoCloseable {
+    private static final int MAGIC = 0x52415244; // "RARD"
+    /** Blocks without a user list */
+    private static final int MAGIC_WITHOUT_USERS = 0x52415243; // "RARC"
+    private static final int HEADER_SIZE = 7 * Integer.BYTES;
+
+    /**
+     * Location and night range of one block
+     */
+    private static final class Block {
+        final long offset;
+        final int count;
+        final int firstNight;
+        final int endNight;
+        /** Where the user list, if any, and the data start */
+        final long bodyOffset;
+
+        Block(long offset, int count, int firstNight, int endNight, long bodyOffset) {
+            this.offset = offset;
+            this.count = count;
+            this.firstNight = firstNight;
+            this.endNight = endNight;
+            this.bodyOffset = bodyOffset;
+        }
+    }
+
+    private final FileChannel channel;
+    private final List<Block> blocks = new ArrayList<>();
+    private final Map<Integer, List<Integer>> blocksByUser = new HashMap<>();
+    /** Stays of the last block written */
+    private final Set<Long> tailStays = new HashSet<>();
+    private long size;
+    private long reservationCount;
+
+    /**
+     * Opens (or creates) the archive file and rebuilds its indexes
+     *
+     * @throws IOException if the file cannot be opened or is corrupt
+     */
+    public ReservationArchive(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.size = channel.size();
+        rebuildIndexes();
+        if (!blocks.isEmpty()) {
+            read(blocks.get(blocks.size() - 1)).forEach(reservation -> tailStays.add(stayKey(reservation)));
+        }
+    }
+
+    /**
+     * Appends a batch of reservations as one compressed block
+     */
+    public synchronized void append(Collection<Reservation> batch) throws IOException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        ByteBuffer raw = ByteBuffer.allocate(batch.size() * EntityCodec.sizeOf(batch.iterator().next()));
+        int firstNight = Integer.MAX_VALUE;
+        int endNight = Integer.MIN_VALUE;
+        Set<Integer> userIds = new LinkedHashSet<>();
+        for (Reservation reservation : batch) {
+            EntityCodec.write(raw, reservation);
+            firstNight = Math.min(firstNight, DateUtils.toEpochDay(reservation.getCheckInDate()));
+            endNight = Math.max(endNight, DateUtils.toEpochDay(reservation.getCheckOutDate()));
+            userIds.add(reservation.getUserId());
+        }
+        ByteBuffer users = ByteBuffer.allocate(Integer.BYTES * (1 + userIds.size()));
+        users.putInt(userIds.size());
+        userIds.forEach(users::putInt);
+
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        byte[] compressed;
+        try {
+            deflater.setInput(raw.array(), 0, raw.position());
+            deflater.finish();
+            ByteBuffer output = ByteBuffer.allocate(raw.position() + 64);
+            while (!deflater.finished()) {
+                if (!output.hasRemaining()) {
+                    output = ByteBuffer.allocate(output.capacity() * 2).put(output.flip());
+                }
+                deflater.deflate(output);
+            }
+            compressed = new byte[output.position()];
+            output.flip().get(compressed);
+        } finally {
+            deflater.end();
+        }
+        CRC32 crc = new CRC32();
+        crc.update(users.array());
+        crc.update(compressed);
+
+        ByteBuffer block = ByteBuffer.allocate(HEADER_SIZE + users.capacity() + compressed.length);
+        block.putInt(MAGIC).putInt(batch.size()).putInt(firstNight).putInt(endNight)
+             .putInt(raw.position()).putInt(compressed.length).putInt((int) crc.getValue())
+             .put(users.flip())
+             .put(compressed)
+             .flip();
+        long offset = size;
+        while (block.hasRemaining()) {
+            channel.write(block, offset + block.position());
+        }
+        channel.force(false);
+        size += block.capacity();
+        index(new Block(offset, batch.size(), firstNight, endNight, offset + HEADER_SIZE), userIds);
+        tailStays.clear();
+        batch.forEach(reservation -> tailStays.add(stayKey(reservation)));
+    }
+
+    /**
+     * Archived stays of a user, oldest block first
+     */
+    public synchronized List<Reservation> findByUserId(int userId) throws IOException {
+        List<Reservation> result = new ArrayList<>();
+        for (int blockId : blocksByUser.getOrDefault(userId, List.of())) {
+            for (Reservation reservation : read(blocks.get(blockId))) {
+                if (reservation.getUserId() == userId) {
+                    result.add(reservation);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Every archived stay, oldest block first. Blocks are decompressed one
+     * at a time as the iteration reaches them, so memory stays bounded by
+     * one block; blocks appended after this call are left out. A block
+     * that cannot be read ends the iteration with an UncheckedIOException.
+     */
+    public synchronized Iterable<Reservation> getStays() {
+        List<Block> snapshot = List.copyOf(blocks);
+        return () -> new Iterator<>() {
+            private int nextBlock;
+            private Iterator<Reservation> current = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!current.hasNext() && nextBlock < snapshot.size()) {
+                    Block block = snapshot.get(nextBlock++);
+                    try {
+                        synchronized (ReservationArchive.this) {
+                            current = read(block).iterator();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                return current.hasNext();
+            }
+
+            @Override
+            public Reservation next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return current.next();
+            }
+        };
+    }
+
+    /**
+     * Archived stays with at least one night in [fromDate, toDate)
+     */
+    public synchronized List<Reservation> findByDateRange(Date fromDate, Date toDate)
+            throws IOException {
+        int from = DateUtils.toEpochDay(fromDate);
+        int to = DateUtils.toEpochDay(toDate);
+        List<Reservation> result = new ArrayList<>();
+        for (Block block : blocks) {
+            if (block.firstNight >= to || block.endNight <= from) {
+                continue;
+            }
+            for (Reservation reservation : read(block)) {
+                if (DateUtils.toEpochDay(reservation.getCheckInDate()) < to
+                        && DateUtils.toEpochDay(reservation.getCheckOutDate()) > from) {
+                    result.add(reservation);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Whether this stay is in the last block appended: same reservation
+     * ID and check-in night, so a reused ID with another stay does not
+     * match. That block is the only one whose stays a crash can have
+     * left in the hot set.
+     */
+    public synchronized boolean contains(Reservation reservation) {
+        return tailStays.contains(stayKey(reservation));
+    }
+
+    public synchronized long getReservationCount() {
+        return reservationCount;
+    }
+
+    /**
+     * Size of the archive file in bytes
+     */
+    public synchronized long getSizeBytes() {
+        return size;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    private void index(Block block, Collection<Integer> userIds) {
+        int blockId = blocks.size();
+        blocks.add(block);
+        reservationCount += block.count;
+        for (int userId : userIds) {
+            List<Integer> userBlocks = blocksByUser.computeIfAbsent(userId, user -> new ArrayList<>());
+            if (userBlocks.isEmpty() || userBlocks.get(userBlocks.size() - 1) != blockId) {
+                userBlocks.add(blockId);
+            }
+        }
+    }
+
+    private static long stayKey(Reservation reservation) {
+        return (long) reservation.getReservationId() << Integer.SIZE
+                | (DateUtils.toEpochDay(reservation.getCheckInDate()) & 0xFFFFFFFFL);
+    }
+
+    private void rebuildIndexes() throws IOException {
+        long offset = 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (offset < size) {
+            if (size - offset < HEADER_SIZE) {
+                truncateTornTail(offset);
+                return;
+            }
+            header.clear();
+            readFully(header, offset);
+            header.flip();
+            int magic = header.getInt();
+            if (magic != MAGIC && magic != MAGIC_WITHOUT_USERS) {
+                throw new IOException("Corrupt archive block at byte " + offset);
+            }
+            int count = header.getInt();
+            int firstNight = header.getInt();
+            int endNight = header.getInt();
+            header.getInt(); // Raw length
+            int compressedLength = header.getInt();
+            Block block = new Block(offset, count, firstNight, endNight, offset + HEADER_SIZE);
+            long bodyLength = compressedLength;
+            List<Integer> userIds;
+            if (magic == MAGIC) {
+                if (size - offset - HEADER_SIZE < Integer.BYTES) {
+                    truncateTornTail(offset);
+                    return;
+                }
+                userIds = readUserIds(block.bodyOffset, size - block.bodyOffset);
+                if (userIds == null) {
+                    truncateTornTail(offset);
+                    return;
+                }
+                bodyLength += Integer.BYTES * (1L + userIds.size());
+            } else {
+                userIds = null; // Found by decompressing, once the block is known whole
+            }
+            if (size - offset - HEADER_SIZE < bodyLength) {
+                truncateTornTail(offset);
+                return;
+            }
+            offset += HEADER_SIZE + bodyLength;
+            if (userIds == null) {
+                userIds = new ArrayList<>();
+                for (Reservation reservation : read(block)) {
+                    userIds.add(reservation.getUserId());
+                }
+            }
+            index(block, userIds);
+        }
+    }
+
+    /**
+     * Reads a block's user list
+     *
+     * @param available bytes of the file from the list on
+     * @return null if the list is cut short
+     */
+    private List<Integer> readUserIds(long position, long available) throws IOException {
+        ByteBuffer countBuffer = ByteBuffer.allocate(Integer.BYTES);
+        readFully(countBuffer, position);
+        int userCount = countBuffer.getInt(0);
+        if (userCount < 0 || available - Integer.BYTES < (long) userCount * Integer.BYTES) {
+            return null;
+        }
+        ByteBuffer ids = ByteBuffer.allocate(userCount * Integer.BYTES);
+        readFully(ids, position + Integer.BYTES);
+        ids.flip();
+        List<Integer> userIds = new ArrayList<>(userCount);
+        for (int i = 0; i < userCount; i++) {
+            userIds.add(ids.getInt());
+        }
+        return userIds;
+    }
+
+    /**
+     * A block cut short by a crash was never acknowledged to the caller,
+     * so its reservations are still in the hot set: drop the partial block
+     */
+    private void truncateTornTail(long offset) throws IOException {
+        channel.truncate(offset);
+        size = offset;
+    }
+
+    private List<Reservation> read(Block block) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        readFully(header, block.offset);
+        header.flip();
+        boolean hasUsers = header.getInt() == MAGIC;
+        header.position(4 * Integer.BYTES);
+        int rawLength = header.getInt();
+        int compressedLength = header.getInt();
+        int expectedCrc = header.getInt();
+
+        CRC32 crc = new CRC32();
+        long dataOffset = block.bodyOffset;
+        if (hasUsers) {
+            ByteBuffer countBuffer = ByteBuffer.allocate(Integer.BYTES);
+            readFully(countBuffer, dataOffset);
+            ByteBuffer users = ByteBuffer.allocate(Integer.BYTES * (1 + countBuffer.getInt(0)));
+            readFully(users, dataOffset);
+            crc.update(users.array());
+            dataOffset += users.capacity();
+        }
+        ByteBuffer compressed = ByteBuffer.allocate(compressedLength);
+        readFully(compressed, dataOffset);
+        crc.update(compressed.array());
+        if ((int) crc.getValue() != expectedCrc) {
+            throw new IOException("Checksum mismatch in archive block at byte " + block.offset);
+        }
+
+        byte[] raw = new byte[rawLength];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed.array());
+            int inflated = 0;
+            while (inflated < rawLength && !inflater.finished()) {
+                int count = inflater.inflate(raw, inflated, rawLength - inflated);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new DataFormatException("Unexpected end of compressed data");
+                }
+                inflated += count;
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt archive block at byte " + block.offset, e);
+        } finally {
+            inflater.end();
+        }
+
+        ByteBuffer records = ByteBuffer.wrap(raw);
+        List<Reservation> reservations = new ArrayList<>(block.count);
+        for (int i = 0; i < block.count; i++) {
+            reservations.add(EntityCodec.readReservation(records));
+        }
+        return reservations;
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Truncated archive at byte " + position);
+            }
+        }
+    }
+}
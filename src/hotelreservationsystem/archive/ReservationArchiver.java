@@ -0,0 +1,192 @@
+package hotelreservationsystem.archive;
+
+import hotelreservationsystem.Reservation;
+import hotelreservationsystem.ReservationService;
+import hotelreservationsystem.RoomService;
+import hotelreservationsystem.export.ReservationExporter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Background mover of completed stays from the hot reservation list into
+ * a ReservationArchive, so the hot set only holds current and future
+ * bookings.
+ *
+ * ReservationService is not thread-safe, so every touch of it happens
+ * under the lock shared with the code that serves requests. The slow part,
+ * compressing and forcing the block to disk, runs outside the lock, and
+ * reservations are dropped from the hot set only after their block is
+ * durable: a crash in between leaves them in both places rather than in
+ * neither. The next run drops those from the hot set without appending
+ * them again. A tick that finds the lock busy is skipped instead of
+ * queueing behind user requests. Runs are serialized so a stay is never
+ * appended twice. Each tick also slides the room calendar to start today,
+ * so the bookable horizon moves with the days.
+ *
+ * @author Software Re-Engineering Enhancement
+ */
+public class ReservationArchiver implements AutoCloseable {
+    public static final long DEFAULT_INTERVAL_MINUTES = 60;
+
+    private final ReservationService reservationService;
+    private final RoomService roomService;
+    private final ReservationArchive archive;
+    private final Lock serviceLock;
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * @param serviceLock lock guarding every use of the services
+     */
+    public ReservationArchiver(ReservationService reservationService, RoomService roomService,
+                               ReservationArchive archive, Lock serviceLock) {
+        this.reservationService = reservationService;
+        this.roomService = roomService;
+        this.archive = archive;
+        this.serviceLock = serviceLock;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reservation-archiver");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Archives completed stays now and then at the given interval
+     */
+    public void start(long interval, TimeUnit unit) {
+        scheduler.scheduleWithFixedDelay(this::runScheduled, 0, interval, unit);
+    }
+
+    /**
+     * Moves every reservation that checked out on or before the cutoff
+     * into the archive. Must not be called with the service lock held.
+     *
+     * @return number of reservations archived
+     * @throws IOException if the archive block could not be written, in
+     *         which case the hot set is left untouched
+     */
+    public synchronized int archiveCompleted(Date cutoff) throws IOException {
+        serviceLock.lock();
+        List<Reservation> completed;
+        try {
+            completed = reservationService.getCompletedReservations(cutoff);
+        } finally {
+            serviceLock.unlock();
+        }
+        return moveToArchive(completed);
+    }
+
+    /**
+     * Archived stays of a user
+     */
+    public List<Reservation> getHistoryByUserId(int userId) throws IOException {
+        return archive.findByUserId(userId);
+    }
+
+    /**
+     * Archived stays with at least one night in [fromDate, toDate)
+     */
+    public List<Reservation> getHistoryByDateRange(Date fromDate, Date toDate) throws IOException {
+        return archive.findByDateRange(fromDate, toDate);
+    }
+
+    /**
+     * Streams the full reservation history, archived stays followed by
+     * the active reservations, in the exporter's format. Archive runs wait
+     * until the export is done, so no stay is missed or written twice.
+     *
+     * @return number of bytes written
+     */
+    public synchronized long exportHistory(WritableByteChannel out,
+                                           ReservationExporter.Format format) throws IOException {
+        List<Reservation> active;
+        serviceLock.lock();
+        try {
+            active = reservationService.getAllReservations();
+        } finally {
+            serviceLock.unlock();
+        }
+        List<Reservation> unarchived = new ArrayList<>(active.size());
+        for (Reservation reservation : active) {
+            // A crash after archiving can leave the last block's stays in the hot set too
+            if (!archive.contains(reservation)) {
+                unarchived.add(reservation);
+            }
+        }
+        Iterable<Reservation> history = () -> Stream.concat(
+                StreamSupport.stream(archive.getStays().spliterator(), false),
+                unarchived.stream()).iterator();
+        try {
+            return new ReservationExporter(format).export(history, out);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Stops the background schedule, waiting for a tick in progress
+     */
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private synchronized void runScheduled() {
+        if (!serviceLock.tryLock()) {
+            return; // Busy serving requests; try again next tick
+        }
+        Date now = new Date();
+        List<Reservation> completed;
+        try {
+            roomService.advanceCalendar(now);
+            completed = reservationService.getCompletedReservations(now);
+        } finally {
+            serviceLock.unlock();
+        }
+        try {
+            moveToArchive(completed);
+        } catch (IOException e) {
+            System.err.println("Reservation archiving failed: " + e.getMessage());
+        }
+    }
+
+    private int moveToArchive(List<Reservation> completed) throws IOException {
+        if (completed.isEmpty()) {
+            return 0;
+        }
+        // Stays appended before a crash kept them in the hot set are skipped
+        List<Reservation> unarchived = new ArrayList<>(completed.size());
+        for (Reservation reservation : completed) {
+            if (!archive.contains(reservation)) {
+                unarchived.add(reservation);
+            }
+        }
+        archive.append(unarchived);
+
+        List<Integer> ids = new ArrayList<>(completed.size());
+        for (Reservation reservation : completed) {
+            ids.add(reservation.getReservationId());
+        }
+        serviceLock.lock();
+        try {
+            return reservationService.archiveReservations(ids);
+        } finally {
+            serviceLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package hotelreservationsystem.audit;
+
+/**
+ * Actions recorded in the audit trail
+ *
+ * @author Software Re-Engineering Enhancement
+ */
+public enum AuditAction {
+    ROOM_ADDED,
+    ROOM_REMOVED,
+    RESERVATION_MADE,
+    ROOM_TYPE_BOOKED,
+    RESERVATION_CANCELLED,
+    USER_ROLE_CHANGED,
+    USER_DELETED
+}
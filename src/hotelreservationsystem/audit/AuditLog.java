@@ -0,0 +1,305 @@
+package hotelreservationsystem.audit;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous, batched audit trail.
+ *
+ * Producers claim a slot of a bounded, pre-allocated ring with one
+ * compare-and-set, copy the record fields into it and publish it, so
+ * recording costs a few stores and never blocks on I/O. A single writer
+ * thread drains everything published so far, frees the slots and appends
+ * the batch as JSON lines to the current segment through a FileChannel.
+ * Segments (audit-000001.log, audit-000002.log, ...) roll over once they
+ * reach the configured size.
+ *
+ * Backpressure is bounded: when the ring is full a producer waits at most
+ * maxWaitNanos for the writer to catch up, then drops the record and
+ * counts it, so a stalled disk can never stall a booking.
+ *
+ * @author Software Re-Engineering Enhancement
+ */
+public class AuditLog implements AutoCloseable {
+    public static final int DEFAULT_CAPACITY = 1 << 13;
+    public static final long DEFAULT_SEGMENT_BYTES = 16L * 1024 * 1024;
+    public static final long DEFAULT_MAX_WAIT_NANOS = 1_000_000L;
+
+    private static final String SEGMENT_PREFIX = "audit-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+    private static final int SPIN_TRIES = 100;
+    private static final long PARK_NANOS = 100_000L;
+    private static final int MAX_DETAIL_CHARS = 1024;
+
+    /**
+     * Pre-allocated ring slot, overwritten in place by producers
+     */
+    private static final class Entry {
+        long timeMillis;
+        int actorId;
+        AuditAction action;
+        int targetId;
+        String detail;
+        /** Claimed after close began: published only so the writer can pass it */
+        boolean skipped;
+    }
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final long maxWaitNanos;
+    private final Entry[] ring;
+    private final AtomicLongArray published;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong consumed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread writer;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+    private final StringBuilder line = new StringBuilder(160);
+    private FileChannel segment;
+    private int segmentIndex;
+    private volatile boolean running = true;
+
+    public AuditLog(Path directory) throws IOException {
+        this(directory, DEFAULT_CAPACITY, DEFAULT_SEGMENT_BYTES, DEFAULT_MAX_WAIT_NANOS);
+    }
+
+    /**
+     * @param capacity ring size, rounded up to a power of two
+     * @param segmentBytes size at which the current segment rolls over
+     * @param maxWaitNanos longest a producer waits on a full ring before dropping
+     */
+    public AuditLog(Path directory, int capacity, long segmentBytes, long maxWaitNanos)
+            throws IOException {
+        if (capacity <= 0 || segmentBytes <= 0 || maxWaitNanos < 0) {
+            throw new IllegalArgumentException("Invalid audit log configuration");
+        }
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.directory = Files.createDirectories(directory);
+        this.segmentBytes = segmentBytes;
+        this.maxWaitNanos = maxWaitNanos;
+        this.ring = new Entry[size];
+        this.published = new AtomicLongArray(size);
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            ring[i] = new Entry();
+            published.set(i, -1);
+        }
+        this.segmentIndex = Math.max(1, lastSegmentIndex());
+        this.segment = openSegment(segmentIndex);
+        this.writer = new Thread(this::runWriter, "audit-log-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Enqueues an audit record without touching the disk
+     *
+     * @return false if the record was dropped because the log is closed
+     *         or stayed full for longer than the configured wait
+     */
+    public boolean record(int actorId, AuditAction action, int targetId, String detail) {
+        long sequence;
+        long deadline = 0;
+        boolean waiting = false;
+        int tries = 0;
+        while (true) {
+            if (!running) {
+                dropped.incrementAndGet();
+                return false;
+            }
+            sequence = claimed.get();
+            if (sequence - ring.length >= consumed.get()) {
+                // Ring full: bounded wait, then shed the record
+                if (!waiting) {
+                    waiting = true;
+                    deadline = System.nanoTime() + maxWaitNanos;
+                } else if (System.nanoTime() - deadline >= 0) {
+                    dropped.incrementAndGet();
+                    return false;
+                }
+                tries = idle(tries);
+            } else if (claimed.compareAndSet(sequence, sequence + 1)) {
+                break;
+            }
+        }
+
+        // Checked again after claiming: the writer drains every slot claimed before it saw running false
+        boolean accepted = running;
+        Entry entry = ring[(int) sequence & mask];
+        entry.skipped = !accepted;
+        if (accepted) {
+            entry.timeMillis = System.currentTimeMillis();
+            entry.actorId = actorId;
+            entry.action = action;
+            entry.targetId = targetId;
+            entry.detail = detail;
+        }
+        published.set((int) sequence & mask, sequence);
+        if (!accepted) {
+            dropped.incrementAndGet();
+        }
+        return accepted;
+    }
+
+    /**
+     * Number of records the writer has drained from the ring so far
+     */
+    public long getWrittenCount() {
+        return consumed.get();
+    }
+
+    /**
+     * Number of records shed by the backpressure policy
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Stops accepting records, writes everything already enqueued and
+     * closes the current segment
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        segment.force(false);
+        segment.close();
+    }
+
+    private void runWriter() {
+        long next = 0;
+        int tries = 0;
+        while (running || next < claimed.get()) {
+            long batchEnd = next;
+            while (published.get((int) batchEnd & mask) == batchEnd) {
+                Entry entry = ring[(int) batchEnd & mask];
+                batchEnd++;
+                if (entry.skipped) {
+                    continue;
+                }
+                format(entry);
+                entry.detail = null; // Do not keep the string alive in the ring
+                byte[] bytes = line.toString().getBytes(StandardCharsets.UTF_8);
+                if (bytes.length > buffer.remaining()) {
+                    consumed.set(batchEnd - 1);
+                    flush();
+                }
+                buffer.put(bytes);
+            }
+            if (batchEnd == next) {
+                tries = idle(tries);
+                continue;
+            }
+            tries = 0;
+            next = batchEnd;
+            consumed.set(next);
+            flush();
+        }
+    }
+
+    private void format(Entry entry) {
+        line.setLength(0);
+        line.append("{\"time\":\"").append(Instant.ofEpochMilli(entry.timeMillis))
+            .append("\",\"actor\":").append(entry.actorId)
+            .append(",\"action\":\"").append(entry.action)
+            .append("\",\"target\":").append(entry.targetId)
+            .append(",\"detail\":\"");
+        appendEscaped(line, entry.detail);
+        line.append("\"}\n");
+    }
+
+    private static void appendEscaped(StringBuilder out, String text) {
+        if (text == null) {
+            return;
+        }
+        int length = Math.min(text.length(), MAX_DETAIL_CHARS);
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.append('\\').append(c);
+            } else if (c < 0x20) {
+                out.append(String.format("\\u%04x", (int) c));
+            } else {
+                out.append(c);
+            }
+        }
+    }
+
+    /**
+     * Writes the buffered batch, rolling to a new segment when the current
+     * one is full. An I/O failure is reported and the batch discarded so
+     * the writer keeps draining the ring.
+     */
+    private void flush() {
+        buffer.flip();
+        try {
+            if (segment.size() >= segmentBytes) {
+                segment.close();
+                segment = openSegment(++segmentIndex);
+            }
+            while (buffer.hasRemaining()) {
+                segment.write(buffer);
+            }
+        } catch (IOException e) {
+            System.err.println("Audit log write failed: " + e.getMessage());
+        }
+        buffer.clear();
+    }
+
+    private FileChannel openSegment(int index) throws IOException {
+        Path path = directory.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+        return FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Highest existing segment number, so a restart keeps appending
+     */
+    private int lastSegmentIndex() throws IOException {
+        int last = 0;
+        try (DirectoryStream<Path> segments =
+                 Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path path : segments) {
+                String name = path.getFileName().toString();
+                String number = name.substring(SEGMENT_PREFIX.length(),
+                                               name.length() - SEGMENT_SUFFIX.length());
+                try {
+                    last = Math.max(last, Integer.parseInt(number));
+                } catch (NumberFormatException e) {
+                    // Not one of ours
+                }
+            }
+        }
+        return last;
+    }
+
+    /**
+     * Spin briefly, then back off with short parks
+     */
+    private static int idle(int tries) {
+        if (tries < SPIN_TRIES) {
+            Thread.onSpinWait();
+        } else {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+        return tries + 1;
+    }
+}
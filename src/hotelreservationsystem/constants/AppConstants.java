@@ -33,14 +33,39 @@ public final class AppConstants {
     public static final int MENU_VIEW_RESERVATIONS = 5;
     public static final int MENU_EXIT = 6;
     
+    // System Properties
+    public static final String REPLICATION_PORT_PROPERTY = "hotel.replication.port";
+    public static final String REPLICATION_SECRET_PROPERTY = "hotel.replication.secret";
+    public static final String AUDIT_DIR_PROPERTY = "hotel.audit.dir";
+    public static final String DEFAULT_AUDIT_DIR = "audit";
+    public static final String SEED_FILE_PROPERTY = "hotel.seed.file";
+    public static final String DEFAULT_SEED_FILE = "data/seed.csv";
+    public static final String TRACING_PROPERTY = "hotel.tracing";
+    public static final String ARCHIVE_FILE_PROPERTY = "hotel.archive.file";
+    public static final String DEFAULT_ARCHIVE_FILE = "archive/reservations.arc";
+    public static final String STORAGE_PROPERTY = "hotel.storage";
+    public static final String DEFAULT_STORAGE = "hash";
+    public static final String STORAGE_DIR_PROPERTY = "hotel.storage.dir";
+    public static final String DEFAULT_STORAGE_DIR = "store";
+    
     // Error Messages
     public static final String ERROR_ROOM_NOT_FOUND = "Room not found";
     public static final String ERROR_RESERVATION_NOT_FOUND = "Reservation not found";
     public static final String ERROR_ROOM_NOT_AVAILABLE = "Room is not available";
     public static final String ERROR_INVALID_DATE_RANGE = "Check-out date must be after check-in date";
+    public static final String ERROR_INVALID_DATE_FORMAT = "Dates must be valid and in yyyy-MM-dd format";
     public static final String ERROR_INVALID_PRICE = "Price must be greater than zero";
     public static final String ERROR_INVALID_ROOM_ID = "Room ID must be positive";
     public static final String ERROR_INVALID_RESERVATION_ID = "Reservation ID must be positive";
+    public static final String ERROR_INVALID_USER_ID = "User ID must be positive";
+    public static final String ERROR_EMPTY_ROOM_TYPE = "Room type cannot be null or empty";
+    public static final String ERROR_ROOM_TYPE_NOT_FOUND = "No rooms of this type exist";
+    public static final String ERROR_OUTSIDE_CALENDAR = "Dates are outside the bookable calendar";
+    public static final String ERROR_ROOM_TYPE_SOLD_OUT = "No room of this type is free for the selected dates";
+    public static final String ERROR_ASSIGNMENT_CONFLICT = "Room assignments could not be re-planned around held nights";
+    public static final String ERROR_EMPTY_GROUP_BOOKING = "A group booking needs at least one reservation";
+    public static final String ERROR_HOLD_NOT_FOUND = "Hold not found or expired";
+    public static final String ERROR_TOO_MANY_LOGIN_ATTEMPTS = "Too many failed login attempts, try again later";
     
     // Success Messages
     public static final String SUCCESS_ROOM_ADDED = "Room added successfully!";
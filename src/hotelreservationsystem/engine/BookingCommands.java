@@ -0,0 +1,38 @@
+package hotelreservationsystem.engine;
+
+import hotelreservationsystem.Reservation;
+import hotelreservationsystem.Room;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Mutations accepted by a booking engine, and the snapshots it publishes
+ * for readers. A failed command completes its future exceptionally with
+ * the services' exception.
+ *
+ * @author Software Re-Engineering Enhancement
+ */
+public interface BookingCommands extends AutoCloseable {
+
+    CompletableFuture<Void> makeReservation(Reservation reservation);
+
+    CompletableFuture<Void> cancelReservation(int reservationId);
+
+    CompletableFuture<Void> addRoom(Room room);
+
+    CompletableFuture<Void> removeRoom(int roomId);
+
+    CompletableFuture<Void> markRoomAsOccupied(int roomId);
+
+    /**
+     * A recent immutable view of the engine state
+     */
+    EngineSnapshot snapshot();
+
+    /**
+     * Number of commands applied so far
+     */
+    long getProcessedCount();
+
+    @Override
+    void close();
+}
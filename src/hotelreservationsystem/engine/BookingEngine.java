@@ -0,0 +1,252 @@
+package hotelreservationsystem.engine;
+
+import hotelreservationsystem.Reservation;
+import hotelreservationsystem.ReservationService;
+import hotelreservationsystem.Room;
+import hotelreservationsystem.RoomService;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Single-writer booking engine.
+ *
+ * Every mutation is published into a bounded, pre-allocated ring buffer
+ * and applied by one writer thread that owns the RoomService and
+ * ReservationService, so the services are never locked. Producers claim
+ * a sequence number with one atomic increment, fill the slot in place and
+ * publish it; when the ring is full they wait, which bounds memory and
+ * pushes back on callers. The writer drains everything published so far
+ * in one batch before it frees the slots. On close it drains every slot
+ * claimed before it stopped; a slot claimed after that is published as
+ * rejected, with its future already failed. The room service is closed
+ * once the writer has stopped.
+ *
+ * Readers never touch the live services. They read the latest published
+ * EngineSnapshot, which the writer publishes after a batch only when a
+ * reader has asked for a fresher one. The writer mirrors every change
+ * into copy-on-write tables, so publishing costs the chunks changed since
+ * the previous snapshot rather than a copy of everything.
+ *
+ * LockingBookingEngine applies the same commands under a lock, as the
+ * baseline EngineBenchmark measures this engine against.
+ *
+ * @author Software Re-Engineering Enhancement
+ */
+public class BookingEngine implements BookingCommands {
+    public static final int DEFAULT_CAPACITY = 1 << 14;
+
+    private static final int SPIN_TRIES = 200;
+    private static final long PARK_NANOS = 1_000L;
+
+    private enum CommandType {
+        MAKE_RESERVATION, CANCEL_RESERVATION, ADD_ROOM, REMOVE_ROOM, MARK_ROOM_OCCUPIED,
+        /** Claimed after close; its future has already failed */
+        REJECTED
+    }
+
+    /**
+     * Pre-allocated ring slot, overwritten in place by producers
+     */
+    private static final class Command {
+        CommandType type;
+        Reservation reservation;
+        Room room;
+        int id;
+        CompletableFuture<Void> result;
+    }
+
+    private final EngineState state;
+    private final Command[] ring;
+    private final AtomicLongArray published;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong consumed = new AtomicLong();
+    private final AtomicBoolean snapshotRequested = new AtomicBoolean();
+    private final Thread writer;
+    private volatile EngineSnapshot snapshot;
+    private volatile boolean running = true;
+
+    public BookingEngine() {
+        this(new RoomService(), new ReservationService(), DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity ring size, rounded up to a power of two
+     */
+    public BookingEngine(RoomService roomService, ReservationService reservationService,
+                         int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.state = new EngineState(roomService, reservationService);
+        this.ring = new Command[size];
+        this.published = new AtomicLongArray(size);
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            ring[i] = new Command();
+            published.set(i, -1);
+        }
+        this.snapshot = state.publish(0);
+        this.writer = new Thread(this::runWriter, "booking-engine-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public CompletableFuture<Void> makeReservation(Reservation reservation) {
+        return publish(CommandType.MAKE_RESERVATION, reservation, null, 0);
+    }
+
+    @Override
+    public CompletableFuture<Void> cancelReservation(int reservationId) {
+        return publish(CommandType.CANCEL_RESERVATION, null, null, reservationId);
+    }
+
+    @Override
+    public CompletableFuture<Void> addRoom(Room room) {
+        return publish(CommandType.ADD_ROOM, null, room, 0);
+    }
+
+    @Override
+    public CompletableFuture<Void> removeRoom(int roomId) {
+        return publish(CommandType.REMOVE_ROOM, null, null, roomId);
+    }
+
+    @Override
+    public CompletableFuture<Void> markRoomAsOccupied(int roomId) {
+        return publish(CommandType.MARK_ROOM_OCCUPIED, null, null, roomId);
+    }
+
+    /**
+     * Returns the latest published snapshot and asks the writer to
+     * publish a fresh one after its next batch
+     */
+    @Override
+    public EngineSnapshot snapshot() {
+        snapshotRequested.set(true);
+        return snapshot;
+    }
+
+    /**
+     * Number of commands applied so far
+     */
+    @Override
+    public long getProcessedCount() {
+        return consumed.get();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return; // The writer may still be using the room service
+        }
+        state.close();
+    }
+
+    private CompletableFuture<Void> publish(CommandType type, Reservation reservation,
+                                            Room room, int id) {
+        long sequence = claimed.getAndIncrement();
+        // Checked after claiming: the writer drains every slot claimed before it saw running false
+        boolean accepted = running;
+        CompletableFuture<Void> result = accepted ? new CompletableFuture<>()
+                : CompletableFuture.failedFuture(
+                      new IllegalStateException("Booking engine is closed"));
+
+        // Wait until the writer has freed this slot
+        int tries = 0;
+        while (sequence - ring.length >= consumed.get()) {
+            if (!accepted && !writer.isAlive()) {
+                return result; // Nobody left to free it, or to wait for it
+            }
+            tries = idle(tries);
+        }
+
+        Command command = ring[(int) sequence & mask];
+        command.type = accepted ? type : CommandType.REJECTED;
+        command.reservation = reservation;
+        command.room = room;
+        command.id = id;
+        command.result = result;
+        published.set((int) sequence & mask, sequence);
+        return result;
+    }
+
+    private void runWriter() {
+        long next = 0;
+        int tries = 0;
+        while (running || next < claimed.get()) {
+            if (snapshotRequested.getAndSet(false) && snapshot.getSequence() != next) {
+                snapshot = state.publish(next);
+            }
+
+            long batchEnd = next;
+            while (published.get((int) batchEnd & mask) == batchEnd) {
+                apply(ring[(int) batchEnd & mask]);
+                batchEnd++;
+            }
+            if (batchEnd == next) {
+                tries = idle(tries);
+                continue;
+            }
+            tries = 0;
+            next = batchEnd;
+            consumed.set(next);
+        }
+    }
+
+    private void apply(Command command) {
+        CompletableFuture<Void> result = command.result;
+        try {
+            switch (command.type) {
+                case MAKE_RESERVATION:
+                    state.makeReservation(command.reservation);
+                    break;
+                case CANCEL_RESERVATION:
+                    state.cancelReservation(command.id);
+                    break;
+                case ADD_ROOM:
+                    state.addRoom(command.room);
+                    break;
+                case REMOVE_ROOM:
+                    state.removeRoom(command.id);
+                    break;
+                case MARK_ROOM_OCCUPIED:
+                    state.markRoomAsOccupied(command.id);
+                    break;
+                case REJECTED:
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown command " + command.type);
+            }
+            result.complete(null);
+        } catch (Exception e) {
+            result.completeExceptionally(e);
+        } finally {
+            // Drop references so the slot does not keep objects alive
+            command.reservation = null;
+            command.room = null;
+            command.result = null;
+        }
+    }
+
+    /**
+     * Spin briefly, then back off with short parks
+     */
+    private static int idle(int tries) {
+        if (tries < SPIN_TRIES) {
+            Thread.onSpinWait();
+        } else {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+        return tries + 1;
+    }
+}
@@ -0,0 +1,155 @@
+package hotelreservationsystem.engine;
+
+import hotelreservationsystem.Reservation;
+import hotelreservationsystem.Room;
+import hotelreservationsystem.SeedDataLoader;
+import hotelreservationsystem.constants.AppConstants;
+import hotelreservationsystem.metrics.ConcurrentLatencyHistogram;
+import hotelreservationsystem.metrics.LatencyHistogram;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Compares the single-writer BookingEngine with the LockingBookingEngine
+ * baseline under the same workload.
+ *
+ * Writer threads each book a random stay on one of their own rooms and
+ * cancel it again, so they never conflict and the state stays small;
+ * every command is timed from the call until its future completes.
+ * Reader threads meanwhile take snapshots and walk the rooms, which under
+ * the lock competes with the writers. The first run of each mode is a
+ * warm-up.
+ *
+ * @author Software Re-Engineering Enhancement
+ */
+public class EngineBenchmark {
+    private static final int STAY_WINDOW_NIGHTS = 300;
+    private static final int MAX_STAY_NIGHTS = 4;
+
+    private final int writers;
+    private final int readers;
+    private final int roomCount;
+
+    public EngineBenchmark(int writers, int readers, int roomCount) {
+        if (writers <= 0 || readers < 0 || roomCount < writers) {
+            throw new IllegalArgumentException("Need at least one room per writer");
+        }
+        this.writers = writers;
+        this.readers = readers;
+        this.roomCount = roomCount;
+    }
+
+    /**
+     * Runs the workload against a fresh engine and reports its throughput
+     * and command latencies
+     */
+    public String run(String name, Supplier<BookingCommands> engines, Duration duration)
+            throws InterruptedException {
+        ConcurrentLatencyHistogram latency = new ConcurrentLatencyHistogram();
+        LongAdder failures = new LongAdder();
+        LongAdder snapshots = new LongAdder();
+        LongAdder availableRooms = new LongAdder(); // Keeps the readers' walks observable
+        AtomicInteger nextReservationId = new AtomicInteger(1);
+        long firstCheckIn = System.currentTimeMillis() + AppConstants.MILLISECONDS_PER_DAY;
+
+        try (BookingCommands engine = engines.get()) {
+            for (Room room : SeedDataLoader.syntheticRooms(roomCount)) {
+                engine.addRoom(room).join();
+            }
+            long deadline = System.nanoTime() + duration.toNanos();
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < writers; i++) {
+                int writer = i;
+                threads.add(new Thread(() -> {
+                    Random random = new Random(writer);
+                    while (System.nanoTime() - deadline < 0) {
+                        int roomId = 1 + writer + writers * random.nextInt(roomCount / writers);
+                        long checkIn = firstCheckIn + random.nextInt(STAY_WINDOW_NIGHTS)
+                                       * AppConstants.MILLISECONDS_PER_DAY;
+                        long checkOut = checkIn + (1 + random.nextInt(MAX_STAY_NIGHTS))
+                                        * AppConstants.MILLISECONDS_PER_DAY;
+                        int reservationId = nextReservationId.getAndIncrement();
+                        Reservation reservation = new Reservation(reservationId, 1, roomId,
+                                new Date(checkIn), new Date(checkOut), 100.0);
+                        if (timed(latency, failures, () -> engine.makeReservation(reservation).join())) {
+                            timed(latency, failures, () -> engine.cancelReservation(reservationId).join());
+                        }
+                    }
+                }, "benchmark-writer-" + i));
+            }
+            for (int i = 0; i < readers; i++) {
+                threads.add(new Thread(() -> {
+                    while (System.nanoTime() - deadline < 0) {
+                        int available = 0;
+                        for (Room room : engine.snapshot().getRooms()) {
+                            available += room.isAvailable() ? 1 : 0;
+                        }
+                        availableRooms.add(available);
+                        snapshots.increment();
+                    }
+                }, "benchmark-reader-" + i));
+            }
+            threads.forEach(Thread::start);
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        }
+
+        LatencyHistogram histogram = latency.snapshot();
+        double seconds = duration.toNanos() / 1e9;
+        return String.format("%-8s %12.0f cmd/s %10.0f snapshots/s  p50 %8.1f  p99 %8.1f  "
+                             + "p99.9 %8.1f  max %9.1f us  %d failed%n", name,
+                             histogram.getCount() / seconds, snapshots.sum() / seconds,
+                             histogram.getValueAtPercentile(50) / 1e3,
+                             histogram.getValueAtPercentile(99) / 1e3,
+                             histogram.getValueAtPercentile(99.9) / 1e3,
+                             histogram.getMaxNanos() / 1e3, failures.sum());
+    }
+
+    /**
+     * @return whether the command succeeded
+     */
+    private static boolean timed(ConcurrentLatencyHistogram latency, LongAdder failures,
+                                 Runnable command) {
+        long start = System.nanoTime();
+        try {
+            command.run();
+            return true;
+        } catch (CompletionException e) {
+            failures.increment();
+            return false;
+        } finally {
+            latency.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Usage: EngineBenchmark [writers] [readers] [seconds] [rooms]
+     */
+    public static void main(String[] args) throws Exception {
+        int writers = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int readers = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int roomCount = args.length > 3 ? Integer.parseInt(args[3]) : 1_000;
+
+        EngineBenchmark benchmark = new EngineBenchmark(writers, readers, roomCount);
+        System.out.printf("%d writers, %d readers, %d rooms, %d s per run%n",
+                          writers, readers, roomCount, seconds);
+        Duration duration = Duration.ofSeconds(seconds);
+        for (int run = 0; run < 2; run++) {
+            String ring = benchmark.run("ring", BookingEngine::new, duration);
+            String locking = benchmark.run("locking", LockingBookingEngine::new, duration);
+            if (run > 0) { // The first run warms up both
+                System.out.print(ring);
+                System.out.print(locking);
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package hotelreservationsystem.engine;
+
+import hotelreservationsystem.Reservation;
+import hotelreservationsystem.Room;
+import java.util.List;
+
+/**
+ * Immutable view of the booking engine state, published by the writer
+ * thread for readers.
+ *
+ * The lists are unmodifiable and hold copies of the rooms and
+ * reservations, in no particular order. Consecutive snapshots share the
+ * copies that did not change between them, so the entities must not be
+ * modified.
+ *
+ * @author Software Re-Engineering Enhancement
+ */
+public final class EngineSnapshot {
+    private final long sequence;
+    private final List<Room> rooms;
+    private final List<Reservation> reservations;
+
+    EngineSnapshot(long sequence, List<Room> rooms, List<Reservation> reservations) {
+        this.sequence = sequence;
+        this.rooms = rooms;
+        this.reservations = reservations;
+    }
+
+    /**
+     * Number of commands applied when this snapshot was taken
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    public List<Room> getRooms() {
+        return rooms;
+    }
+
+    public List<Reservation> getReservations() {
+        return reservations;
+    }
+}
@@ -0,0 +1,103 @@
+package hotelreservationsystem.engine;
+
+import hotelreservationsystem.Reservation;
+import hotelreservationsystem.ReservationService;
+import hotelreservationsystem.Room;
+import hotelreservationsystem.RoomService;
+import hotelreservationsystem.constants.AppConstants;
+import hotelreservationsystem.exceptions.ReservationException;
+import hotelreservationsystem.exceptions.RoomException;
+
+/**
+ * The services an engine owns, plus versioned tables mirroring them for
+ * snapshots.
+ *
+ * Each command is applied to the services, then the entity it changed is
+ * copied into its table, so snapshots never share an object the services
+ * or the caller can still modify. Publishing a snapshot copies only what
+ * changed since the previous one (see VersionedTable).
+ *
+ * Not thread-safe: the engine applies commands from one thread at a time.
+ *
+ * @author Software Re-Engineering Enhancement
+ */
+final class EngineState {
+    private final RoomService roomService;
+    private final ReservationService reservationService;
+    private final VersionedTable<Room> rooms = new VersionedTable<>();
+    private final VersionedTable<Reservation> reservations = new VersionedTable<>();
+
+    EngineState(RoomService roomService, ReservationService reservationService) {
+        this.roomService = roomService;
+        this.reservationService = reservationService;
+        for (Room room : roomService.getAllRooms()) {
+            rooms.put(room.getRoomId(), copy(room));
+        }
+        for (Reservation reservation : reservationService.getAllReservations()) {
+            reservations.put(reservation.getReservationId(), copy(reservation));
+        }
+    }
+
+    /**
+     * Books the reservation and its calendar nights, if the room is open
+     * for sale
+     */
+    void makeReservation(Reservation reservation) throws ReservationException, RoomException {
+        if (!roomService.isRoomAvailable(reservation.getRoomId())) {
+            throw new RoomException(AppConstants.ERROR_ROOM_NOT_AVAILABLE);
+        }
+        roomService.reserveNights(reservation);
+        try {
+            reservationService.makeReservation(reservation);
+        } catch (ReservationException | RuntimeException e) {
+            roomService.releaseNights(reservation);
+            throw e;
+        }
+        reservations.put(reservation.getReservationId(), copy(reservation));
+    }
+
+    void cancelReservation(int reservationId) throws ReservationException, RoomException {
+        Reservation reservation = reservationService.getReservationById(reservationId);
+        reservationService.cancelReservation(reservationId);
+        roomService.releaseNights(reservation);
+        reservations.remove(reservationId);
+    }
+
+    void addRoom(Room room) throws RoomException {
+        roomService.addRoom(room);
+        rooms.put(room.getRoomId(), copy(room));
+    }
+
+    void removeRoom(int roomId) throws RoomException {
+        roomService.removeRoom(roomId);
+        rooms.remove(roomId);
+    }
+
+    void markRoomAsOccupied(int roomId) throws RoomException {
+        roomService.markRoomAsOccupied(roomId);
+        rooms.put(roomId, copy(roomService.getRoomById(roomId)));
+    }
+
+    /**
+     * Publishes the current state
+     *
+     * @param sequence number of commands applied so far
+     */
+    EngineSnapshot publish(long sequence) {
+        return new EngineSnapshot(sequence, rooms.publish(), reservations.publish());
+    }
+
+    void close() {
+        roomService.close();
+    }
+
+    private static Room copy(Room room) {
+        return new Room(room.getRoomId(), room.getRoomType(), room.getPrice(), room.isAvailable());
+    }
+
+    private static Reservation copy(Reservation reservation) {
+        return new Reservation(reservation.getReservationId(), reservation.getUserId(),
+                               reservation.getRoomId(), reservation.getCheckInDate(),
+                               reservation.getCheckOutDate(), reservation.getTotalCost());
+    }
+}
@@ -0,0 +1,113 @@
+package hotelreservationsystem.engine;
+
+import hotelreservationsystem.Reservation;
+import hotelreservationsystem.ReservationService;
+import hotelreservationsystem.Room;
+import hotelreservationsystem.RoomService;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Lock-based baseline for BookingEngine: the same commands applied to the
+ * same services, but on the calling thread under one lock. Futures are
+ * already complete when returned.
+ *
+ * Snapshots are published under the lock on every call to snapshot(), so
+ * readers contend with writers here, which is what the single-writer
+ * engine avoids. EngineBenchmark compares the two.
+ *
+ * @author Software Re-Engineering Enhancement
+ */
+public class LockingBookingEngine implements BookingCommands {
+    private final EngineState state;
+    private final ReentrantLock lock = new ReentrantLock();
+    private long processed;
+    private boolean closed;
+
+    public LockingBookingEngine() {
+        this(new RoomService(), new ReservationService());
+    }
+
+    public LockingBookingEngine(RoomService roomService, ReservationService reservationService) {
+        this.state = new EngineState(roomService, reservationService);
+    }
+
+    @Override
+    public CompletableFuture<Void> makeReservation(Reservation reservation) {
+        return apply(() -> state.makeReservation(reservation));
+    }
+
+    @Override
+    public CompletableFuture<Void> cancelReservation(int reservationId) {
+        return apply(() -> state.cancelReservation(reservationId));
+    }
+
+    @Override
+    public CompletableFuture<Void> addRoom(Room room) {
+        return apply(() -> state.addRoom(room));
+    }
+
+    @Override
+    public CompletableFuture<Void> removeRoom(int roomId) {
+        return apply(() -> state.removeRoom(roomId));
+    }
+
+    @Override
+    public CompletableFuture<Void> markRoomAsOccupied(int roomId) {
+        return apply(() -> state.markRoomAsOccupied(roomId));
+    }
+
+    @Override
+    public EngineSnapshot snapshot() {
+        lock.lock();
+        try {
+            return state.publish(processed);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long getProcessedCount() {
+        lock.lock();
+        try {
+            return processed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (!closed) {
+                closed = true;
+                state.close();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private interface Command {
+        void run() throws Exception;
+    }
+
+    private CompletableFuture<Void> apply(Command command) {
+        lock.lock();
+        try {
+            if (closed) {
+                return CompletableFuture.failedFuture(
+                        new IllegalStateException("Booking engine is closed"));
+            }
+            processed++;
+            command.run();
+            return CompletableFuture.completedFuture(null);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
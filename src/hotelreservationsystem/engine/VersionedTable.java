@@ -0,0 +1,129 @@
+package hotelreservationsystem.engine;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Entities by ID in fixed-size chunks, copied on write so that published
+ * versions can be shared with readers while the writer goes on changing
+ * the table.
+ *
+ * Entries are kept dense: a removal moves the last entry into the gap.
+ * Publishing copies the chunk pointers, one per CHUNK_SIZE entries, and
+ * forgets which chunks the writer owns; the next write to a chunk copies
+ * it first. A version therefore costs O(n / CHUNK_SIZE) plus one chunk
+ * copy per chunk changed since the previous version, not O(n).
+ *
+ * Only the writer thread may call put, remove and publish.
+ *
+ * @param <T> entity type; entries must not be modified once put
+ * @author Software Re-Engineering Enhancement
+ */
+final class VersionedTable<T> {
+    static final int CHUNK_SHIFT = 6;
+    static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final Map<Integer, Integer> indexById = new HashMap<>();
+    private int[] ids = new int[CHUNK_SIZE];
+    private Object[][] chunks = new Object[1][];
+    /** Chunks copied since the last publish, safe to write in place */
+    private final BitSet owned = new BitSet();
+    private int size;
+
+    /**
+     * Adds or replaces the entity with this ID
+     */
+    void put(int id, T entity) {
+        Integer index = indexById.get(id);
+        if (index == null) {
+            index = size++;
+            indexById.put(id, index);
+            if (index == ids.length) {
+                ids = Arrays.copyOf(ids, ids.length * 2);
+            }
+            ids[index] = id;
+        }
+        set(index, entity);
+    }
+
+    /**
+     * Removes the entity with this ID, if present
+     */
+    void remove(int id) {
+        Integer index = indexById.remove(id);
+        if (index == null) {
+            return;
+        }
+        int last = --size;
+        if (index != last) {
+            // Keep the entries dense: the last one fills the gap
+            int movedId = ids[last];
+            ids[index] = movedId;
+            indexById.put(movedId, index);
+            set(index, get(last));
+        }
+        set(last, null);
+    }
+
+    /**
+     * Current contents, as an immutable list sharing unchanged chunks with
+     * the table
+     */
+    Version<T> publish() {
+        owned.clear();
+        return new Version<>(chunks.clone(), size);
+    }
+
+    int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T get(int index) {
+        return (T) chunks[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+    }
+
+    private void set(int index, T entity) {
+        int chunk = index >>> CHUNK_SHIFT;
+        if (chunk == chunks.length) {
+            chunks = Arrays.copyOf(chunks, chunks.length * 2);
+        }
+        if (!owned.get(chunk)) {
+            chunks[chunk] = chunks[chunk] == null ? new Object[CHUNK_SIZE] : chunks[chunk].clone();
+            owned.set(chunk);
+        }
+        chunks[chunk][index & CHUNK_MASK] = entity;
+    }
+
+    /**
+     * Immutable list over the chunks of one published version
+     */
+    static final class Version<T> extends AbstractList<T> implements RandomAccess {
+        private final Object[][] chunks;
+        private final int size;
+
+        Version(Object[][] chunks, int size) {
+            this.chunks = chunks;
+            this.size = size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index " + index + ", size " + size);
+            }
+            return (T) chunks[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package hotelreservationsystem.enums;
+
+/**
+ * Actions a user may be authorized to perform. Each permission owns one
+ * bit, so a role's permissions fit in an int and a check is a single AND.
+ * Refactoring Technique: Replace Type Code with Class/Enum
+ * 
+ * @author Software Re-Engineering Enhancement
+ */
+public enum Permission {
+    VIEW_ROOMS,
+    ADD_ROOM,
+    REMOVE_ROOM,
+    MAKE_RESERVATION,
+    CANCEL_RESERVATION,
+    VIEW_OWN_RESERVATIONS,
+    VIEW_ALL_RESERVATIONS,
+    VIEW_USERS,
+    MANAGE_USERS,
+    VIEW_PROFILE,
+    BOOK_GROUP;
+    
+    private final int mask = 1 << ordinal();
+    
+    /**
+     * The bit of this permission in a permission mask
+     */
+    public int mask() {
+        return mask;
+    }
+    
+    /**
+     * Combines permissions into a mask
+     */
+    public static int maskOf(Permission... permissions) {
+        int mask = 0;
+        for (Permission permission : permissions) {
+            mask |= permission.mask;
+        }
+        return mask;
+    }
+}
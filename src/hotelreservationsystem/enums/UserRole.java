@@ -4,23 +4,48 @@ package hotelreservationsystem.enums;
  * Enumeration for user roles in the system
  * Refactoring Technique: Replace Type Code with Class/Enum
  * 
+ * Each role carries its permissions as a bitmask computed once, when the
+ * enum is initialized.
+ * 
  * @author Refactored by Software Re-Engineering
  */
 public enum UserRole {
-    CUSTOMER("Customer"),
-    ADMIN("Admin"),
-    STAFF("Staff");
+    CUSTOMER("Customer", Permission.maskOf(
+        Permission.VIEW_ROOMS, Permission.MAKE_RESERVATION, Permission.CANCEL_RESERVATION,
+        Permission.VIEW_OWN_RESERVATIONS, Permission.VIEW_PROFILE)),
+    ADMIN("Admin", Permission.maskOf(
+        Permission.VIEW_ROOMS, Permission.ADD_ROOM, Permission.REMOVE_ROOM,
+        Permission.CANCEL_RESERVATION, Permission.VIEW_ALL_RESERVATIONS,
+        Permission.VIEW_USERS, Permission.MANAGE_USERS, Permission.VIEW_PROFILE,
+        Permission.BOOK_GROUP)),
+    STAFF("Staff", Permission.maskOf(
+        Permission.VIEW_ROOMS, Permission.ADD_ROOM, Permission.REMOVE_ROOM,
+        Permission.CANCEL_RESERVATION, Permission.VIEW_ALL_RESERVATIONS, Permission.VIEW_PROFILE,
+        Permission.BOOK_GROUP));
     
     private final String displayName;
+    private final int permissions;
     
-    UserRole(String displayName) {
+    UserRole(String displayName, int permissions) {
         this.displayName = displayName;
+        this.permissions = permissions;
     }
     
     public String getDisplayName() {
         return displayName;
     }
     
+    /**
+     * Bitmask of the permissions granted to this role
+     */
+    public int getPermissions() {
+        return permissions;
+    }
+    
+    public boolean hasPermission(Permission permission) {
+        return (permissions & permission.mask()) != 0;
+    }
+    
     @Override
     public String toString() {
         return displayName;
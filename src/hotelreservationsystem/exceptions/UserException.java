@@ -14,4 +14,16 @@ public class UserException extends Exception {
     public UserException(String message, Throwable cause) {
         super(message, cause);
     }
+    
+    /**
+     * Exception without a stack trace, cheap enough to throw on hot
+     * rejection paths such as failed logins
+     */
+    public static UserException withoutStackTrace(String message) {
+        return new UserException(message, null, false);
+    }
+    
+    private UserException(String message, Throwable cause, boolean writableStackTrace) {
+        super(message, cause, false, writableStackTrace);
+    }
 }
@@ -0,0 +1,309 @@
+package hotelreservationsystem.export;
+
+import hotelreservationsystem.Reservation;
+import hotelreservationsystem.constants.AppConstants;
+import hotelreservationsystem.utils.DateUtils;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.zone.ZoneRules;
+import java.util.Arrays;
+
+/**
+ * Streams reservations as CSV or JSON to any byte channel.
+ *
+ * Each row is encoded as ASCII straight into a small scratch array:
+ * integers digit by digit, dates with DateUtils' epoch-day formatter and
+ * costs as cents, so no String is built per row. Rows are batched in a
+ * direct ByteBuffer and written when it fills, which the channel can hand
+ * to the OS without another copy.
+ *
+ * For dumps that several consumers pull, write the file once with
+ * exportToFile and serve it with sendFile, which uses
+ * FileChannel.transferTo so the bytes go from the page cache to the
+ * socket without passing through the heap.
+ *
+ * Columns: reservationId, userId, roomId, checkInDate, checkOutDate,
+ * nights, totalCost. Dates are yyyy-MM-dd in the system time zone.
+ *
+ * Not thread-safe: the buffers are reused across calls, so use one
+ * exporter per concurrent export.
+ *
+ * @author Software Re-Engineering Enhancement
+ */
+public class ReservationExporter {
+
+    /**
+     * Output encoding
+     */
+    public enum Format {
+        /** Header line, then one comma-separated line per reservation */
+        CSV,
+        /** A JSON array with one object per line */
+        JSON
+    }
+
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+    private static final byte[] CSV_HEADER = ascii(
+        "reservationId,userId,roomId,checkInDate,checkOutDate,nights,totalCost\n");
+    private static final byte[] JSON_OPEN = ascii("[\n");
+    private static final byte[] JSON_CLOSE = ascii("\n]\n");
+    private static final byte[] JSON_CLOSE_EMPTY = ascii("]\n");
+    private static final byte[] JSON_SEPARATOR = ascii(",\n");
+    private static final byte[] JSON_RESERVATION_ID = ascii("{\"reservationId\":");
+    private static final byte[] JSON_USER_ID = ascii(",\"userId\":");
+    private static final byte[] JSON_ROOM_ID = ascii(",\"roomId\":");
+    private static final byte[] JSON_CHECK_IN = ascii(",\"checkInDate\":\"");
+    private static final byte[] JSON_CHECK_OUT = ascii("\",\"checkOutDate\":\"");
+    private static final byte[] JSON_NIGHTS = ascii("\",\"nights\":");
+    private static final byte[] JSON_TOTAL_COST = ascii(",\"totalCost\":");
+    private static final int MAX_ROW_BYTES = 256;
+    private static final byte[] DIGIT_PAIRS = new byte[200];
+    private static final int DATE_CACHE_SIZE = 1024; // Power of two
+    private static final long MILLIS_PER_SECOND = 1000L;
+
+    static {
+        for (int i = 0; i < 100; i++) {
+            DIGIT_PAIRS[i << 1] = (byte) ('0' + i / 10);
+            DIGIT_PAIRS[(i << 1) + 1] = (byte) ('0' + i % 10);
+        }
+    }
+
+    private final Format format;
+    private final ByteBuffer buffer;
+    private final byte[] row = new byte[MAX_ROW_BYTES];
+    private final int[] cachedDays = new int[DATE_CACHE_SIZE];
+    private final byte[] cachedDates = new byte[DATE_CACHE_SIZE * DateUtils.ISO_DATE_LENGTH];
+
+    public ReservationExporter(Format format) {
+        this(format, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param bufferSize size of the direct buffer rows are batched in
+     */
+    public ReservationExporter(Format format, int bufferSize) {
+        if (format == null || bufferSize < MAX_ROW_BYTES) {
+            throw new IllegalArgumentException("Invalid exporter configuration");
+        }
+        this.format = format;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        Arrays.fill(cachedDays, Integer.MIN_VALUE);
+    }
+
+    /**
+     * Writes the reservations to the channel, which is left open
+     *
+     * @return number of bytes written
+     */
+    public long export(Iterable<Reservation> reservations, WritableByteChannel out)
+            throws IOException {
+        ZoneRules zone = ZoneId.systemDefault().getRules();
+        long written = 0;
+        boolean first = true;
+        buffer.clear();
+        if (format == Format.CSV) {
+            buffer.put(CSV_HEADER);
+        } else {
+            buffer.put(JSON_OPEN);
+        }
+        for (Reservation reservation : reservations) {
+            int length = format == Format.CSV
+                    ? encodeCsv(reservation, zone)
+                    : encodeJson(reservation, zone, first);
+            first = false;
+            if (buffer.remaining() < length) {
+                written += drain(out);
+            }
+            buffer.put(row, 0, length);
+        }
+        if (format == Format.JSON) {
+            buffer.put(first ? JSON_CLOSE_EMPTY : JSON_CLOSE);
+        }
+        return written + drain(out);
+    }
+
+    /**
+     * Writes the reservations to a file, replacing any previous content,
+     * and forces it to disk
+     *
+     * @return number of bytes written
+     */
+    public long exportToFile(Iterable<Reservation> reservations, Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long written = export(reservations, channel);
+            channel.force(false);
+            return written;
+        }
+    }
+
+    /**
+     * Sends a previously exported file to a channel, typically a socket,
+     * with FileChannel.transferTo
+     *
+     * @return number of bytes sent
+     */
+    public static long sendFile(Path file, WritableByteChannel out) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                position += channel.transferTo(position, size - position, out);
+            }
+            return size;
+        }
+    }
+
+    private long drain(WritableByteChannel out) throws IOException {
+        buffer.flip();
+        long count = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        buffer.clear();
+        return count;
+    }
+
+    private int encodeCsv(Reservation reservation, ZoneRules zone) {
+        int position = putInt(reservation.getReservationId(), 0);
+        row[position++] = ',';
+        position = putInt(reservation.getUserId(), position);
+        row[position++] = ',';
+        position = putInt(reservation.getRoomId(), position);
+        row[position++] = ',';
+        position = putDate(epochDay(reservation.getCheckInTime(), zone), position);
+        row[position++] = ',';
+        position = putDate(epochDay(reservation.getCheckOutTime(), zone), position);
+        row[position++] = ',';
+        position = putLong(reservation.getNumberOfNights(), position);
+        row[position++] = ',';
+        position = putCents(reservation.getTotalCost(), position);
+        row[position++] = '\n';
+        return position;
+    }
+
+    private int encodeJson(Reservation reservation, ZoneRules zone, boolean first) {
+        int position = first ? 0 : put(JSON_SEPARATOR, 0);
+        position = put(JSON_RESERVATION_ID, position);
+        position = putInt(reservation.getReservationId(), position);
+        position = put(JSON_USER_ID, position);
+        position = putInt(reservation.getUserId(), position);
+        position = put(JSON_ROOM_ID, position);
+        position = putInt(reservation.getRoomId(), position);
+        position = put(JSON_CHECK_IN, position);
+        position = putDate(epochDay(reservation.getCheckInTime(), zone), position);
+        position = put(JSON_CHECK_OUT, position);
+        position = putDate(epochDay(reservation.getCheckOutTime(), zone), position);
+        position = put(JSON_NIGHTS, position);
+        position = putLong(reservation.getNumberOfNights(), position);
+        position = put(JSON_TOTAL_COST, position);
+        position = putCents(reservation.getTotalCost(), position);
+        row[position++] = '}';
+        return position;
+    }
+
+    private int put(byte[] bytes, int position) {
+        System.arraycopy(bytes, 0, row, position, bytes.length);
+        return position + bytes.length;
+    }
+
+    /**
+     * Writes a non-negative value in decimal, two digits per step from a
+     * lookup table; int division is much cheaper than long, so values
+     * that fit take this path
+     */
+    private int putInt(int value, int position) {
+        int end = position + digitCount(value);
+        int i = end;
+        while (value >= 100) {
+            int pair = (value % 100) << 1;
+            value /= 100;
+            row[--i] = DIGIT_PAIRS[pair + 1];
+            row[--i] = DIGIT_PAIRS[pair];
+        }
+        if (value >= 10) {
+            row[--i] = DIGIT_PAIRS[(value << 1) + 1];
+            row[--i] = DIGIT_PAIRS[value << 1];
+        } else {
+            row[--i] = (byte) ('0' + value);
+        }
+        return end;
+    }
+
+    private static int digitCount(int value) {
+        int digits = 1;
+        for (int bound = 10; digits < 10 && value >= bound; bound *= 10) {
+            digits++;
+        }
+        return digits;
+    }
+
+    /**
+     * Writes a non-negative value in decimal
+     */
+    private int putLong(long value, int position) {
+        if (value <= Integer.MAX_VALUE) {
+            return putInt((int) value, position);
+        }
+        int digits = 1;
+        for (long rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        int end = position + digits;
+        for (int i = end - 1; i >= position; i--) {
+            row[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        return end;
+    }
+
+    /**
+     * Writes an epoch day as yyyy-MM-dd. Stays cluster on a few hundred
+     * distinct days, so formatted days are kept in a small direct-mapped
+     * cache and most dates are a 10-byte copy.
+     */
+    private int putDate(int epochDay, int position) {
+        int slot = epochDay & (DATE_CACHE_SIZE - 1);
+        int cached = slot * DateUtils.ISO_DATE_LENGTH;
+        if (cachedDays[slot] != epochDay) {
+            DateUtils.formatEpochDay(epochDay, cachedDates, cached);
+            cachedDays[slot] = epochDay;
+        }
+        System.arraycopy(cachedDates, cached, row, position, DateUtils.ISO_DATE_LENGTH);
+        return position + DateUtils.ISO_DATE_LENGTH;
+    }
+
+    /**
+     * Writes an amount rounded to the cent, e.g. 1234.50
+     */
+    private int putCents(double amount, int position) {
+        long cents = Math.round(amount * 100);
+        position = putLong(cents / 100, position);
+        row[position] = '.';
+        row[position + 1] = (byte) ('0' + cents / 10 % 10);
+        row[position + 2] = (byte) ('0' + cents % 10);
+        return position + 3;
+    }
+
+    /**
+     * Epoch day of an instant in the given zone, without the Date copy
+     * and ZonedDateTime that DateUtils.toEpochDay(Date) goes through
+     */
+    private static int epochDay(long epochMillis, ZoneRules zone) {
+        long offsetMillis = zone.getOffset(Instant.ofEpochMilli(epochMillis)).getTotalSeconds()
+                * MILLIS_PER_SECOND;
+        return (int) Math.floorDiv(epochMillis + offsetMillis, AppConstants.MILLISECONDS_PER_DAY);
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,440 @@
+package hotelreservationsystem.loadtest;
+
+import hotelreservationsystem.Reservation;
+import hotelreservationsystem.ReservationService;
+import hotelreservationsystem.Room;
+import hotelreservationsystem.RoomService;
+import hotelreservationsystem.RoomTypeRegistry;
+import hotelreservationsystem.SeedDataLoader;
+import hotelreservationsystem.UserService;
+import hotelreservationsystem.constants.AppConstants;
+import hotelreservationsystem.metrics.LatencyHistogram;
+import hotelreservationsystem.storage.BTreeReservationRepository;
+import hotelreservationsystem.storage.EntityType;
+import hotelreservationsystem.storage.Repositories;
+import hotelreservationsystem.storage.Repository;
+import hotelreservationsystem.storage.StorageType;
+import hotelreservationsystem.utils.DateUtils;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Month;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Open-loop workload driver for sizing hardware.
+ *
+ * Simulates N clients, each on its own virtual thread, issuing a weighted
+ * mix of searches, bookings, cancellations, logins and reservation
+ * listings against the services at a fixed total arrival rate. Check-in
+ * dates are skewed: a configurable share of requests target hot days
+ * (Friday and Saturday arrivals and the Christmas to New Year period).
+ *
+ * Every operation has an intended start time on a fixed schedule and its
+ * latency is measured from that time, not from when it actually started.
+ * A stalled system therefore shows up as queueing delay for all the
+ * requests that should have been issued meanwhile instead of being hidden
+ * (coordinated omission). Raw service times are reported alongside.
+ *
+ * The services are not thread-safe, so the driver guards them with a
+ * read/write lock: searches, logins and listings share the read lock,
+ * bookings and cancellations take the write lock.
+ *
+ * Logins assume the users follow the SeedDataLoader.syntheticUsers
+ * scheme (user N has username "userN" and password "passwordN").
+ *
+ * The services store their entities in the storage type named by the
+ * hotel.storage system property, so each store can be sized under the
+ * same workload; file stores go to a fresh temporary directory. With the
+ * btree store the page cache hit rate is printed after the run.
+ *
+ * @author Software Re-Engineering Enhancement
+ */
+public class LoadGenerator {
+    private static final int SEARCH_WINDOW_DAYS = 180;
+    private static final int MAX_STAY_NIGHTS = 4;
+
+    /**
+     * Simulated client operations, in WorkloadMix weight order
+     */
+    public enum Operation {
+        SEARCH, BOOK, CANCEL, LOGIN, LIST
+    }
+
+    private final RoomService roomService;
+    private final ReservationService reservationService;
+    private final UserService userService;
+    private final int clients;
+    private final double ratePerSecond;
+    private final WorkloadMix mix;
+    private final double hotspotShare;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicInteger nextReservationId = new AtomicInteger();
+
+    /**
+     * @param clients number of concurrent simulated clients
+     * @param ratePerSecond total intended arrival rate across all clients
+     * @param hotspotShare share (0..1) of requests whose check-in is a hot day
+     */
+    public LoadGenerator(RoomService roomService, ReservationService reservationService,
+                         UserService userService, int clients, double ratePerSecond,
+                         WorkloadMix mix, double hotspotShare) {
+        if (clients <= 0 || ratePerSecond <= 0) {
+            throw new IllegalArgumentException("Clients and rate must be positive");
+        }
+        if (hotspotShare < 0 || hotspotShare > 1) {
+            throw new IllegalArgumentException("Hotspot share must be between 0 and 1");
+        }
+        this.roomService = roomService;
+        this.reservationService = reservationService;
+        this.userService = userService;
+        this.clients = clients;
+        this.ratePerSecond = ratePerSecond;
+        this.mix = mix;
+        this.hotspotShare = hotspotShare;
+    }
+
+    /**
+     * Drives the workload for the given duration and reports the results
+     */
+    public Report run(Duration duration) throws InterruptedException {
+        int firstNight = DateUtils.toEpochDay(new Date()) + 1;
+        int[] hotNights = hotNights(firstNight);
+        int userCount = userService.getUserCount();
+        List<String> roomTypes = new ArrayList<>();
+        for (int type = 0; type < RoomTypeRegistry.size(); type++) {
+            roomTypes.add(RoomTypeRegistry.nameOf(type));
+        }
+        nextReservationId.set(reservationService.getAllReservations().stream()
+                .mapToInt(Reservation::getReservationId).max().orElse(0));
+
+        long intervalNanos = (long) (clients * 1_000_000_000L / ratePerSecond);
+        long start = System.nanoTime() + Duration.ofMillis(100).toNanos();
+        long end = start + duration.toNanos();
+
+        List<Future<Client>> results = new ArrayList<>(clients);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                Client client = new Client(i, userCount, roomTypes, firstNight, hotNights);
+                long firstIntended = start + intervalNanos * i / clients;
+                results.add(executor.submit(() -> client.run(firstIntended, intervalNanos, end)));
+            }
+        }
+
+        Report report = new Report(duration);
+        for (Future<Client> result : results) {
+            try {
+                report.add(result.get());
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Client failed", e.getCause());
+            }
+        }
+        return report;
+    }
+
+    /**
+     * One simulated client with its own random stream and histograms
+     */
+    private final class Client {
+        private final Random random;
+        private final int userId;
+        private final int userCount;
+        private final List<String> roomTypes;
+        private final int firstNight;
+        private final int[] hotNights;
+        private final ArrayDeque<Reservation> bookings = new ArrayDeque<>();
+        private final Map<Operation, LatencyHistogram> latencies = new EnumMap<>(Operation.class);
+        private final Map<Operation, LatencyHistogram> serviceTimes = new EnumMap<>(Operation.class);
+        private final Map<Operation, long[]> errors = new EnumMap<>(Operation.class);
+
+        Client(int index, int userCount, List<String> roomTypes, int firstNight, int[] hotNights) {
+            this.random = new Random(index * 7919L + 17);
+            this.userCount = userCount;
+            this.userId = userCount == 0 ? index + 1 : 1 + random.nextInt(userCount);
+            this.roomTypes = roomTypes;
+            this.firstNight = firstNight;
+            this.hotNights = hotNights;
+            for (Operation operation : Operation.values()) {
+                latencies.put(operation, new LatencyHistogram());
+                serviceTimes.put(operation, new LatencyHistogram());
+                errors.put(operation, new long[1]);
+            }
+        }
+
+        Client run(long intended, long intervalNanos, long end) {
+            while (intended < end) {
+                long wait = intended - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                    continue;
+                }
+                Operation operation = mix.next(random);
+                long started = System.nanoTime();
+                boolean succeeded;
+                try {
+                    succeeded = execute(operation);
+                } catch (Exception e) {
+                    succeeded = false;
+                }
+                long finished = System.nanoTime();
+                latencies.get(operation).record(finished - intended);
+                serviceTimes.get(operation).record(finished - started);
+                if (!succeeded) {
+                    errors.get(operation)[0]++;
+                }
+                intended += intervalNanos;
+            }
+            return this;
+        }
+
+        private boolean execute(Operation operation) throws Exception {
+            switch (operation) {
+                case SEARCH: {
+                    int checkIn = pickCheckIn();
+                    lock.readLock().lock();
+                    try {
+                        roomService.findAvailableRooms(pickRoomType(), DateUtils.fromEpochDay(checkIn),
+                                DateUtils.fromEpochDay(checkIn + pickStay()));
+                    } finally {
+                        lock.readLock().unlock();
+                    }
+                    return true;
+                }
+                case BOOK:
+                    return book();
+                case CANCEL:
+                    return cancel();
+                case LOGIN: {
+                    int id = userCount == 0 ? 1 : 1 + random.nextInt(userCount);
+                    lock.readLock().lock();
+                    try {
+                        userService.authenticate("user" + id, "password" + id);
+                    } finally {
+                        lock.readLock().unlock();
+                    }
+                    return true;
+                }
+                case LIST:
+                    lock.readLock().lock();
+                    try {
+                        reservationService.getReservationsByUserId(userId);
+                    } finally {
+                        lock.readLock().unlock();
+                    }
+                    return true;
+                default:
+                    throw new IllegalStateException("Unknown operation " + operation);
+            }
+        }
+
+        private boolean book() throws Exception {
+            int checkIn = pickCheckIn();
+            Date checkInDate = DateUtils.fromEpochDay(checkIn);
+            Date checkOutDate = DateUtils.fromEpochDay(checkIn + pickStay());
+            lock.writeLock().lock();
+            try {
+                List<Room> free = roomService.findAvailableRooms(pickRoomType(), checkInDate,
+                                                                 checkOutDate);
+                if (free.isEmpty()) {
+                    return false;
+                }
+                Room room = free.get(random.nextInt(free.size()));
+                Reservation reservation = new Reservation(nextReservationId.incrementAndGet(),
+                        userId, room.getRoomId(), checkInDate, checkOutDate,
+                        room.calculateCost(DateUtils.calculateDaysBetween(checkInDate, checkOutDate)));
+                roomService.reserveNights(reservation);
+                try {
+                    reservationService.makeReservation(reservation);
+                } catch (Exception e) {
+                    roomService.releaseNights(reservation);
+                    throw e;
+                }
+                bookings.add(reservation);
+                return true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private boolean cancel() throws Exception {
+            Reservation reservation = bookings.poll();
+            if (reservation == null) {
+                return true; // Nothing of ours to cancel yet
+            }
+            lock.writeLock().lock();
+            try {
+                reservationService.cancelReservation(reservation.getReservationId());
+                roomService.releaseNights(reservation);
+                return true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private int pickCheckIn() {
+            if (hotNights.length > 0 && random.nextDouble() < hotspotShare) {
+                return hotNights[random.nextInt(hotNights.length)];
+            }
+            return firstNight + random.nextInt(SEARCH_WINDOW_DAYS);
+        }
+
+        private int pickStay() {
+            return 1 + random.nextInt(MAX_STAY_NIGHTS);
+        }
+
+        private String pickRoomType() {
+            return roomTypes.isEmpty() ? AppConstants.ROOM_TYPE_SINGLE
+                                       : roomTypes.get(random.nextInt(roomTypes.size()));
+        }
+    }
+
+    /**
+     * Friday and Saturday arrivals and 20 December to 2 January within the
+     * search window
+     */
+    private static int[] hotNights(int firstNight) {
+        List<Integer> nights = new ArrayList<>();
+        for (int night = firstNight; night < firstNight + SEARCH_WINDOW_DAYS; night++) {
+            LocalDate date = LocalDate.ofEpochDay(night);
+            boolean weekend = date.getDayOfWeek() == DayOfWeek.FRIDAY
+                    || date.getDayOfWeek() == DayOfWeek.SATURDAY;
+            boolean holidays = (date.getMonth() == Month.DECEMBER && date.getDayOfMonth() >= 20)
+                    || (date.getMonth() == Month.JANUARY && date.getDayOfMonth() <= 2);
+            if (weekend || holidays) {
+                nights.add(night);
+            }
+        }
+        return nights.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Merged per-operation results of a run
+     */
+    public static final class Report {
+        private final Duration duration;
+        private final Map<Operation, LatencyHistogram> latencies = new EnumMap<>(Operation.class);
+        private final Map<Operation, LatencyHistogram> serviceTimes = new EnumMap<>(Operation.class);
+        private final Map<Operation, Long> errors = new EnumMap<>(Operation.class);
+        private final LatencyHistogram overall = new LatencyHistogram();
+
+        Report(Duration duration) {
+            this.duration = duration;
+            for (Operation operation : Operation.values()) {
+                latencies.put(operation, new LatencyHistogram());
+                serviceTimes.put(operation, new LatencyHistogram());
+                errors.put(operation, 0L);
+            }
+        }
+
+        void add(Client client) {
+            for (Operation operation : Operation.values()) {
+                latencies.get(operation).merge(client.latencies.get(operation));
+                serviceTimes.get(operation).merge(client.serviceTimes.get(operation));
+                errors.merge(operation, client.errors.get(operation)[0], Long::sum);
+                overall.merge(client.latencies.get(operation));
+            }
+        }
+
+        /**
+         * Latencies measured from each request's intended start time
+         */
+        public LatencyHistogram getLatency(Operation operation) {
+            return latencies.get(operation);
+        }
+
+        /**
+         * Latencies measured from each request's actual start time
+         */
+        public LatencyHistogram getServiceTime(Operation operation) {
+            return serviceTimes.get(operation);
+        }
+
+        public long getErrors(Operation operation) {
+            return errors.get(operation);
+        }
+
+        public double getThroughput() {
+            return overall.getCount() / (duration.toNanos() / 1e9);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder();
+            text.append(String.format("Throughput: %.0f ops/s over %d s%n",
+                                      getThroughput(), duration.getSeconds()));
+            text.append(String.format("%-8s %9s %7s %10s %10s %10s %10s %12s%n", "op", "count",
+                                      "errors", "p50 us", "p99 us", "p99.9 us", "max us",
+                                      "svc p99 us"));
+            for (Operation operation : Operation.values()) {
+                appendRow(text, operation.name(), latencies.get(operation),
+                          errors.get(operation), serviceTimes.get(operation));
+            }
+            long totalErrors = errors.values().stream().mapToLong(Long::longValue).sum();
+            appendRow(text, "ALL", overall, totalErrors, null);
+            return text.toString();
+        }
+
+        private static void appendRow(StringBuilder text, String name, LatencyHistogram latency,
+                                      long errorCount, LatencyHistogram serviceTime) {
+            text.append(String.format("%-8s %9d %7d %10.1f %10.1f %10.1f %10.1f %12s%n", name,
+                    latency.getCount(), errorCount,
+                    latency.getValueAtPercentile(50) / 1e3,
+                    latency.getValueAtPercentile(99) / 1e3,
+                    latency.getValueAtPercentile(99.9) / 1e3,
+                    latency.getMaxNanos() / 1e3,
+                    serviceTime == null ? "-"
+                        : String.format("%.1f", serviceTime.getValueAtPercentile(99) / 1e3)));
+        }
+    }
+
+    /**
+     * Usage: LoadGenerator [clients] [ops/s] [seconds] [rooms] [users] [hotspotShare]
+     */
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        double rate = args.length > 1 ? Double.parseDouble(args[1]) : 10_000;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int roomCount = args.length > 3 ? Integer.parseInt(args[3]) : 1_000;
+        int userCount = args.length > 4 ? Integer.parseInt(args[4]) : 1_000;
+        double hotspotShare = args.length > 5 ? Double.parseDouble(args[5]) : 0.5;
+
+        StorageType storage = Repositories.configuredType();
+        Path storageDirectory = Files.createTempDirectory("loadgen-store");
+        RoomService roomService = new RoomService(
+                Repositories.create(EntityType.ROOM, storage, storageDirectory));
+        Repository<Reservation> reservationStore =
+                Repositories.create(EntityType.RESERVATION, storage, storageDirectory);
+        ReservationService reservationService = new ReservationService(reservationStore);
+        UserService userService = new UserService(
+                Repositories.create(EntityType.USER, storage, storageDirectory));
+        roomService.addRooms(SeedDataLoader.syntheticRooms(roomCount));
+        userService.addUsers(SeedDataLoader.syntheticUsers(userCount));
+
+        LoadGenerator generator = new LoadGenerator(roomService, reservationService, userService,
+                clients, rate, WorkloadMix.DEFAULT, hotspotShare);
+        System.out.printf("%d clients, %.0f ops/s target, %d rooms, %d users, %.0f%% hot dates, "
+                          + "%s storage%n", clients, rate, roomCount, userCount, 
+                          hotspotShare * 100, storage);
+        System.out.print(generator.run(Duration.ofSeconds(seconds)));
+        if (reservationStore instanceof BTreeReservationRepository) {
+            System.out.println("Reservation buffer pool: "
+                    + ((BTreeReservationRepository) reservationStore).getBufferPoolStats());
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package hotelreservationsystem.loadtest;
+
+import java.util.Random;
+
+/**
+ * Relative weights of the simulated client operations
+ *
+ * @author Software Re-Engineering Enhancement
+ */
+public final class WorkloadMix {
+    /** Search-heavy mix typical of a booking website */
+    public static final WorkloadMix DEFAULT = new WorkloadMix(70, 10, 3, 7, 10);
+
+    private static final LoadGenerator.Operation[] OPERATIONS = LoadGenerator.Operation.values();
+
+    private final int[] cumulativeWeights;
+
+    /**
+     * @param search weight of availability searches
+     * @param book weight of bookings
+     * @param cancel weight of cancellations of the client's own bookings
+     * @param login weight of authentications
+     * @param list weight of "my reservations" listings
+     */
+    public WorkloadMix(int search, int book, int cancel, int login, int list) {
+        int[] weights = {search, book, cancel, login, list};
+        cumulativeWeights = new int[weights.length];
+        int total = 0;
+        for (int i = 0; i < weights.length; i++) {
+            if (weights[i] < 0) {
+                throw new IllegalArgumentException("Weights cannot be negative");
+            }
+            total += weights[i];
+            cumulativeWeights[i] = total;
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("At least one weight must be positive");
+        }
+    }
+
+    /**
+     * Draws the next operation according to the weights
+     */
+    LoadGenerator.Operation next(Random random) {
+        int draw = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (draw < cumulativeWeights[i]) {
+                return OPERATIONS[i];
+            }
+        }
+        throw new IllegalStateException("Unreachable");
+    }
+}
@@ -0,0 +1,40 @@
+package hotelreservationsystem.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free variant of LatencyHistogram that many threads can record
+ * into at once. Each record is one atomic bucket increment plus striped
+ * sum and max updates; readers take a snapshot.
+ *
+ * @author Software Re-Engineering Enhancement
+ */
+public class ConcurrentLatencyHistogram {
+    private final AtomicLongArray counts = new AtomicLongArray(LatencyHistogram.BUCKET_COUNT);
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Records one latency; negative values are clamped to zero
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(LatencyHistogram.indexOf(value));
+        totalNanos.add(value);
+        maxNanos.accumulate(value);
+    }
+
+    /**
+     * Copies the current counts; values recorded while copying may or may
+     * not be included
+     */
+    public LatencyHistogram snapshot() {
+        long[] copy = new long[LatencyHistogram.BUCKET_COUNT];
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = counts.get(i);
+        }
+        return LatencyHistogram.of(copy, totalNanos.sum(), maxNanos.get());
+    }
+}
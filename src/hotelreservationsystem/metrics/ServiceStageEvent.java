@@ -0,0 +1,28 @@
+package hotelreservationsystem.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event emitted for every traced stage while a recording has it enabled
+ *
+ * @author Software Re-Engineering Enhancement
+ */
+@Name("hotelreservationsystem.ServiceStage")
+@Label("Service Stage")
+@Category("Hotel Reservation System")
+@Description("Latency of one traced service method or booking step")
+@StackTrace(false)
+class ServiceStageEvent extends Event {
+    @Label("Stage")
+    String stage;
+
+    @Label("Latency")
+    @Timespan(Timespan.NANOSECONDS)
+    long latency;
+}
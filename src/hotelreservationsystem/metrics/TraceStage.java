@@ -0,0 +1,81 @@
+package hotelreservationsystem.metrics;
+
+/**
+ * Traced stages: the public service methods plus the steps of the
+ * interactive booking flow
+ *
+ * @author Software Re-Engineering Enhancement
+ */
+public enum TraceStage {
+    // RoomService
+    ADD_ROOM("RoomService.addRoom"),
+    ADD_ROOMS("RoomService.addRooms"),
+    UPDATE_ROOM("RoomService.updateRoom"),
+    GET_ROOM_BY_ID("RoomService.getRoomById"),
+    GET_AVAILABLE_ROOMS("RoomService.getAvailableRooms"),
+    IS_ROOM_AVAILABLE("RoomService.isRoomAvailable"),
+    IS_ROOM_AVAILABLE_FOR_DATES("RoomService.isRoomAvailable(dates)"),
+    FIND_AVAILABLE_ROOMS("RoomService.findAvailableRooms"),
+    RESERVE_NIGHTS("RoomService.reserveNights"),
+    RESERVE_ALL_NIGHTS("RoomService.reserveAllNights"),
+    RELEASE_NIGHTS("RoomService.releaseNights"),
+    SET_ROOM_AVAILABILITY("RoomService.setRoomAvailability"),
+    MARK_ROOM_AS_OCCUPIED("RoomService.markRoomAsOccupied"),
+    MARK_ROOM_AS_AVAILABLE("RoomService.markRoomAsAvailable"),
+    REMOVE_ROOM("RoomService.removeRoom"),
+    GET_AVAILABLE_ROOM_COUNT("RoomService.getAvailableRoomCount"),
+    FIND_ROOMS_BY_TYPE("RoomService.findRoomsByType"),
+
+    // ReservationService
+    MAKE_RESERVATION("ReservationService.makeReservation"),
+    MAKE_RESERVATIONS("ReservationService.makeReservations"),
+    CANCEL_RESERVATION("ReservationService.cancelReservation"),
+    GET_RESERVATION_BY_ID("ReservationService.getReservationById"),
+    GET_RESERVATIONS_BY_USER_ID("ReservationService.getReservationsByUserId"),
+    GET_RESERVATIONS_BY_ROOM_ID("ReservationService.getReservationsByRoomId"),
+    UPDATE_RESERVATION("ReservationService.updateReservation"),
+    CALCULATE_TOTAL_REVENUE("ReservationService.calculateTotalRevenue"),
+    RESERVATION_EXISTS("ReservationService.reservationExists"),
+    GET_COMPLETED_RESERVATIONS("ReservationService.getCompletedReservations"),
+    ARCHIVE_RESERVATIONS("ReservationService.archiveReservations"),
+    GET_ARRIVALS_BETWEEN("ReservationService.getArrivalsBetween"),
+    GET_DEPARTURES_BETWEEN("ReservationService.getDeparturesBetween"),
+    EXPORT_RESERVATIONS("ReservationService.exportReservations"),
+    CANCEL_RESERVATIONS_BY_USER_ID("ReservationService.cancelReservationsByUserId"),
+    CANCEL_RESERVATIONS_BY_ROOM_ID("ReservationService.cancelReservationsByRoomId"),
+
+    // HoldService
+    PLACE_HOLD("HoldService.placeHold"),
+    CONFIRM_HOLD("HoldService.confirmHold"),
+    RELEASE_HOLD("HoldService.releaseHold"),
+    EXPIRE_HOLDS("HoldService.expireHolds"),
+
+    // UserService
+    REGISTER_USER("UserService.registerUser"),
+    ADD_USER("UserService.addUser"),
+    ADD_USERS("UserService.addUsers"),
+    AUTHENTICATE("UserService.authenticate"),
+    GET_USER_BY_ID("UserService.getUserById"),
+    USERNAME_EXISTS("UserService.usernameExists"),
+    GET_NEXT_USER_ID("UserService.getNextUserId"),
+    UPDATE_USER_ROLE("UserService.updateUserRole"),
+    DELETE_USER("UserService.deleteUser"),
+
+    // HotelReservationSystem.makeReservation flow
+    BOOKING_VERIFY("booking: verify room"),
+    BOOKING_VALIDATE_DATES("booking: validate dates"),
+    BOOKING_VALIDATE("booking: validate request"),
+    BOOKING_COST("booking: calculate cost"),
+    BOOKING_INSERT("booking: insert reservation"),
+    BOOKING_OCCUPY("booking: occupy nights");
+
+    private final String label;
+
+    TraceStage(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+}
@@ -0,0 +1,89 @@
+package hotelreservationsystem.metrics;
+
+import hotelreservationsystem.constants.AppConstants;
+
+/**
+ * Latency tracing hooks for the service layer.
+ *
+ * Traced code brackets a stage with start() and stop(). When tracing is
+ * on (-Dhotel.tracing=true) each stop records the elapsed time into the
+ * stage's lock-free histogram and emits a ServiceStageEvent to any JFR
+ * recording that enables it. The switch is a static final flag, so when
+ * tracing is off the JIT folds both hooks away and no clock is read.
+ *
+ * @author Software Re-Engineering Enhancement
+ */
+public final class Tracer {
+    private static final boolean ENABLED = Boolean.getBoolean(AppConstants.TRACING_PROPERTY);
+    private static final TraceStage[] STAGES = TraceStage.values();
+    private static final ConcurrentLatencyHistogram[] HISTOGRAMS =
+        new ConcurrentLatencyHistogram[ENABLED ? STAGES.length : 0];
+
+    static {
+        for (int i = 0; i < HISTOGRAMS.length; i++) {
+            HISTOGRAMS[i] = new ConcurrentLatencyHistogram();
+        }
+    }
+
+    // Private constructor to prevent instantiation
+    private Tracer() {
+        throw new AssertionError("Cannot instantiate utility class");
+    }
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Start of a stage; pass the result to stop()
+     */
+    public static long start() {
+        return ENABLED ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * End of a stage started at startNanos
+     */
+    public static void stop(TraceStage stage, long startNanos) {
+        if (!ENABLED) {
+            return;
+        }
+        long elapsed = System.nanoTime() - startNanos;
+        HISTOGRAMS[stage.ordinal()].record(elapsed);
+        ServiceStageEvent event = new ServiceStageEvent();
+        if (event.isEnabled()) {
+            event.stage = stage.getLabel();
+            event.latency = elapsed;
+            event.commit();
+        }
+    }
+
+    /**
+     * Latencies recorded so far for a stage (empty when tracing is off)
+     */
+    public static LatencyHistogram snapshot(TraceStage stage) {
+        return ENABLED ? HISTOGRAMS[stage.ordinal()].snapshot() : new LatencyHistogram();
+    }
+
+    /**
+     * Table of every stage that has been hit, in microseconds
+     */
+    public static String report() {
+        StringBuilder text = new StringBuilder();
+        text.append(String.format("%-45s %9s %10s %10s %10s %10s%n", "stage", "count",
+                                  "p50 us", "p99 us", "p99.9 us", "max us"));
+        for (TraceStage stage : STAGES) {
+            LatencyHistogram histogram = snapshot(stage);
+            if (histogram.getCount() == 0) {
+                continue;
+            }
+            text.append(String.format("%-45s %9d %10.1f %10.1f %10.1f %10.1f%n", stage.getLabel(),
+                    histogram.getCount(),
+                    histogram.getValueAtPercentile(50) / 1e3,
+                    histogram.getValueAtPercentile(99) / 1e3,
+                    histogram.getValueAtPercentile(99.9) / 1e3,
+                    histogram.getMaxNanos() / 1e3));
+        }
+        return text.toString();
+    }
+}
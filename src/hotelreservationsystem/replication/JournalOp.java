@@ -0,0 +1,44 @@
+package hotelreservationsystem.replication;
+
+/**
+ * Operation codes of the replication journal
+ *
+ * @author Software Re-Engineering Enhancement
+ */
+public enum JournalOp {
+    ROOM_ADDED,
+    ROOM_UPDATED,
+    ROOM_REMOVED,
+    NIGHTS_RESERVED,
+    NIGHTS_RELEASED,
+    RESERVATION_MADE,
+    RESERVATION_UPDATED,
+    RESERVATION_CANCELLED,
+    USER_REGISTERED,
+    USER_ROLE_CHANGED,
+    USER_DELETED,
+    /** Sent while idle so the follower can tell it is caught up */
+    HEARTBEAT,
+    RESERVATION_ARCHIVED,
+    /** Nights of a stay restored from storage or a snapshot, booked unchecked */
+    NIGHTS_RESTORED,
+    /** Starts a snapshot: the follower drops its state and takes the leader's */
+    SNAPSHOT_BEGIN,
+    /** Ends a snapshot at the sequence it carries */
+    SNAPSHOT_END,
+    TYPE_BOOKING_ADDED,
+    TYPE_BOOKING_REMOVED;
+
+    private static final JournalOp[] VALUES = values();
+
+    public byte code() {
+        return (byte) ordinal();
+    }
+
+    public static JournalOp fromCode(byte code) {
+        if (code < 0 || code >= VALUES.length) {
+            throw new IllegalArgumentException("Unknown journal op: " + code);
+        }
+        return VALUES[code];
+    }
+}
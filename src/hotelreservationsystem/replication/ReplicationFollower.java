@@ -0,0 +1,469 @@
+package hotelreservationsystem.replication;
+
+import hotelreservationsystem.EntityCodec;
+import hotelreservationsystem.Reservation;
+import hotelreservationsystem.ReservationService;
+import hotelreservationsystem.Room;
+import hotelreservationsystem.RoomService;
+import hotelreservationsystem.TypeBooking;
+import hotelreservationsystem.UserService;
+import hotelreservationsystem.constants.AppConstants;
+import hotelreservationsystem.enums.UserRole;
+import hotelreservationsystem.exceptions.RoomException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Warm standby fed by a ReplicationLeader.
+ *
+ * A receiver thread reads journal frames, applies each received batch to
+ * the follower's own services under a write lock and acknowledges the
+ * last applied sequence. Read-only availability queries take the read
+ * lock, so they never see a half-applied batch.
+ *
+ * On connect the follower proves it holds the shared secret and resumes
+ * from its last applied sequence if the leader is the same run that fed
+ * it; otherwise the leader sends a snapshot, which is built into fresh
+ * services and swapped in whole. The sequence never moves past a frame
+ * that could not be applied or does not follow the last one: the
+ * follower drops the connection and resyncs from a snapshot instead. A
+ * snapshot that cannot be applied stops the follower.
+ *
+ * Run standalone against a leader with:
+ *   java -Dhotel.replication.secret=... hotelreservationsystem.replication.ReplicationFollower host port
+ *
+ * @author Software Re-Engineering Enhancement
+ */
+public class ReplicationFollower implements AutoCloseable {
+    private static final long RECONNECT_DELAY_MILLIS = 1_000L;
+
+    /**
+     * The services a follower replicates into
+     */
+    private static final class ReplicaState implements AutoCloseable {
+        final RoomService roomService = new RoomService();
+        final ReservationService reservationService = new ReservationService();
+        final UserService userService = new UserService();
+        /** Type-level bookings still waiting for a room; their nights are in the calendar */
+        final Map<Integer, TypeBooking> pendingBookings = new LinkedHashMap<>();
+
+        @Override
+        public void close() {
+            roomService.close();
+        }
+    }
+
+    /**
+     * The stream can no longer be applied on top of the follower's state
+     */
+    private static final class OutOfSyncException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        OutOfSyncException(String message) {
+            super(message);
+        }
+    }
+
+    private final InetSocketAddress leaderAddress;
+    private final byte[] secret;
+    private final ReadWriteLock lock;
+    private final Thread receiver;
+    /** Replaced whole by a snapshot, under the write lock */
+    private ReplicaState state;
+    /** Being built from a snapshot; only the receiver touches it */
+    private ReplicaState snapshot;
+    /** Epoch of the leader run the state came from; valid while synced */
+    private long leaderEpoch;
+    private boolean synced;
+    private volatile long lastAppliedSequence;
+    private volatile long lastAppliedLeaderTime;
+    private volatile boolean running = true;
+    private volatile SocketChannel channel;
+
+    /**
+     * @param secret shared with the leader
+     */
+    public ReplicationFollower(String host, int port, byte[] secret) {
+        if (secret == null || secret.length == 0) {
+            throw new IllegalArgumentException("Replication secret cannot be empty");
+        }
+        this.leaderAddress = new InetSocketAddress(host, port);
+        this.secret = secret.clone();
+        this.state = new ReplicaState();
+        this.lock = new ReentrantReadWriteLock();
+        this.receiver = new Thread(this::runReceiver, "replication-follower");
+        this.receiver.setDaemon(true);
+        this.receiver.start();
+    }
+
+    public long getLastAppliedSequence() {
+        return lastAppliedSequence;
+    }
+
+    /**
+     * Milliseconds the replica is behind the leader: age of the last applied
+     * mutation, or of the last heartbeat once caught up
+     */
+    public long getLagMillis() {
+        long leaderTime = lastAppliedLeaderTime;
+        return leaderTime == 0 ? 0 : Math.max(0, System.currentTimeMillis() - leaderTime);
+    }
+
+    /**
+     * False once the follower has stopped, after close or a snapshot it
+     * could not apply
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Read-only availability query against the replicated state
+     */
+    public boolean isRoomAvailable(int roomId, Date checkInDate, Date checkOutDate)
+            throws RoomException {
+        lock.readLock().lock();
+        try {
+            return state.roomService.isRoomAvailable(roomId, checkInDate, checkOutDate);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Room> findRoomsByType(String roomType) {
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(state.roomService.findRoomsByType(roomType));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Reservation> getReservationsByUserId(int userId) {
+        lock.readLock().lock();
+        try {
+            return state.reservationService.getReservationsByUserId(userId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getRoomCount() {
+        lock.readLock().lock();
+        try {
+            return state.roomService.getAllRooms().size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getReservationCount() {
+        lock.readLock().lock();
+        try {
+            return state.reservationService.getReservationCount();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getPendingBookingCount() {
+        lock.readLock().lock();
+        try {
+            return state.pendingBookings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getUserCount() {
+        lock.readLock().lock();
+        try {
+            return state.userService.getUserCount();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Stops the follower and frees the replicated state; queries fail
+     * afterwards
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        SocketChannel current = channel;
+        if (current != null) {
+            current.close();
+        }
+        receiver.interrupt();
+        try {
+            receiver.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return; // The receiver may still be applying frames
+        }
+        lock.writeLock().lock();
+        try {
+            state.close();
+            discardSnapshot();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void runReceiver() {
+        while (running) {
+            try (SocketChannel leader = SocketChannel.open(leaderAddress)) {
+                channel = leader;
+                long epoch = handshake(leader);
+                receive(leader, epoch);
+            } catch (OutOfSyncException e) {
+                if (running) {
+                    // Reconnect at once and start over from a snapshot
+                    System.err.println("Replication out of sync, resyncing: " + e.getMessage());
+                    synced = false;
+                    discardSnapshot();
+                }
+            } catch (IOException e) {
+                discardSnapshot();
+                if (running) {
+                    System.err.println("Replication leader unreachable: " + e.getMessage());
+                    try {
+                        Thread.sleep(RECONNECT_DELAY_MILLIS);
+                    } catch (InterruptedException interrupted) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Answers the leader's challenge and asks to resume where the state
+     * left off, or for a snapshot if it came from another leader run
+     *
+     * @return the leader's epoch
+     */
+    private long handshake(SocketChannel leader) throws IOException {
+        ByteBuffer hello = ByteBuffer.allocate(ReplicationLeader.NONCE_SIZE + Long.BYTES);
+        while (hello.hasRemaining()) {
+            if (leader.read(hello) < 0) {
+                throw new IOException("Leader closed the connection during handshake");
+            }
+        }
+        byte[] nonce = new byte[ReplicationLeader.NONCE_SIZE];
+        hello.get(0, nonce);
+        long epoch = hello.getLong(ReplicationLeader.NONCE_SIZE);
+        long resume = synced && epoch == leaderEpoch ? lastAppliedSequence : 0;
+        ByteBuffer reply = ByteBuffer.allocate(ReplicationLeader.MAC_SIZE + Long.BYTES);
+        reply.put(ReplicationLeader.sign(secret, nonce)).putLong(resume).flip();
+        write(leader, reply);
+        return epoch;
+    }
+
+    private void receive(SocketChannel leader, long epoch) throws IOException {
+        ByteBuffer input = ByteBuffer.allocateDirect(ReplicationLeader.BATCH_BYTES);
+        ByteBuffer ack = ByteBuffer.allocate(Long.BYTES);
+        while (running) {
+            if (leader.read(input) < 0) {
+                throw new IOException("Leader closed the connection");
+            }
+            input.flip();
+            boolean applied = false;
+            lock.writeLock().lock();
+            try {
+                while (input.remaining() >= Integer.BYTES
+                        && input.remaining() >= Integer.BYTES + input.getInt(input.position())) {
+                    int length = input.getInt();
+                    int frameEnd = input.position() + length;
+                    applied |= apply(input, epoch);
+                    input.position(frameEnd);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            input.compact();
+            if (!input.hasRemaining()) {
+                input = grow(input);
+            }
+            if (applied) {
+                ack.clear();
+                ack.putLong(lastAppliedSequence).flip();
+                write(leader, ack);
+            }
+        }
+    }
+
+    /**
+     * Applies one frame, to the snapshot being built if there is one
+     *
+     * @return true if it advanced the applied sequence
+     * @throws OutOfSyncException if it does not follow the last applied
+     *         frame or cannot be applied
+     */
+    private boolean apply(ByteBuffer frame, long epoch) throws OutOfSyncException {
+        long sequence = frame.getLong();
+        long leaderTime = frame.getLong();
+        JournalOp op = JournalOp.fromCode(frame.get());
+        switch (op) {
+            case HEARTBEAT:
+                if (sequence == lastAppliedSequence) {
+                    lastAppliedLeaderTime = leaderTime;
+                }
+                return false;
+            case SNAPSHOT_BEGIN:
+                discardSnapshot();
+                snapshot = new ReplicaState();
+                return false;
+            case SNAPSHOT_END:
+                if (snapshot == null) {
+                    throw new OutOfSyncException("Snapshot end #" + sequence + " without a beginning");
+                }
+                state.close(); // Under the write lock, so no query is using it
+                state = snapshot;
+                snapshot = null;
+                leaderEpoch = epoch;
+                synced = true;
+                lastAppliedSequence = sequence;
+                lastAppliedLeaderTime = leaderTime;
+                return true;
+            default:
+                break;
+        }
+        if (snapshot != null) {
+            try {
+                apply(snapshot, op, frame);
+            } catch (Exception e) {
+                running = false;
+                throw new OutOfSyncException("Replication stopped: could not apply snapshot " + op +
+                                             ": " + e.getMessage());
+            }
+            return false;
+        }
+        if (!synced || sequence != lastAppliedSequence + 1) {
+            throw new OutOfSyncException("Expected #" + (lastAppliedSequence + 1) + ", got " + op +
+                                         " #" + sequence);
+        }
+        try {
+            apply(state, op, frame);
+        } catch (Exception e) {
+            throw new OutOfSyncException("Could not apply " + op + " #" + sequence + ": " +
+                                         e.getMessage());
+        }
+        lastAppliedSequence = sequence;
+        lastAppliedLeaderTime = leaderTime;
+        return true;
+    }
+
+    private void discardSnapshot() {
+        if (snapshot != null) {
+            snapshot.close();
+            snapshot = null;
+        }
+    }
+
+    private static void apply(ReplicaState target, JournalOp op, ByteBuffer frame) throws Exception {
+        switch (op) {
+            case ROOM_ADDED:
+                target.roomService.addRoom(EntityCodec.readRoom(frame));
+                break;
+            case ROOM_UPDATED:
+                target.roomService.updateRoom(EntityCodec.readRoom(frame));
+                break;
+            case ROOM_REMOVED:
+                target.roomService.removeRoom(frame.getInt());
+                break;
+            case NIGHTS_RESERVED:
+                target.roomService.reserveNights(EntityCodec.readReservation(frame));
+                break;
+            case NIGHTS_RELEASED:
+                target.roomService.releaseNights(EntityCodec.readReservation(frame));
+                break;
+            case NIGHTS_RESTORED:
+                target.roomService.restoreNights(List.of(EntityCodec.readReservation(frame)));
+                break;
+            case RESERVATION_MADE:
+                target.reservationService.makeReservation(EntityCodec.readReservation(frame));
+                break;
+            case RESERVATION_UPDATED:
+                target.reservationService.updateReservation(EntityCodec.readReservation(frame));
+                break;
+            case RESERVATION_CANCELLED:
+                target.reservationService.cancelReservation(frame.getInt());
+                break;
+            case RESERVATION_ARCHIVED:
+                target.reservationService.archiveReservations(List.of(frame.getInt()));
+                break;
+            case TYPE_BOOKING_ADDED:
+                TypeBooking booking = EntityCodec.readTypeBooking(frame);
+                target.pendingBookings.put(booking.getReservationId(), booking);
+                break;
+            case TYPE_BOOKING_REMOVED:
+                int reservationId = frame.getInt();
+                if (target.pendingBookings.remove(reservationId) == null) {
+                    throw new IllegalStateException("No pending booking " + reservationId);
+                }
+                break;
+            case USER_REGISTERED:
+                target.userService.addUser(EntityCodec.readUser(frame));
+                break;
+            case USER_ROLE_CHANGED:
+                int userId = frame.getInt();
+                target.userService.updateUserRole(userId, UserRole.values()[frame.get()]);
+                break;
+            case USER_DELETED:
+                target.userService.deleteUser(frame.getInt());
+                break;
+            default:
+                throw new IllegalStateException("Unhandled journal op " + op);
+        }
+    }
+
+    /**
+     * A single frame larger than the buffer: double it, keeping the data
+     */
+    private static ByteBuffer grow(ByteBuffer input) {
+        ByteBuffer larger = ByteBuffer.allocateDirect(input.capacity() * 2);
+        input.flip();
+        larger.put(input);
+        return larger;
+    }
+
+    private static void write(SocketChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Connects to a leader and reports replication progress every second
+     */
+    public static void main(String[] args) throws Exception {
+        String secret = System.getProperty(AppConstants.REPLICATION_SECRET_PROPERTY);
+        if (args.length != 2 || secret == null || secret.isEmpty()) {
+            System.err.println("Usage: java -D" + AppConstants.REPLICATION_SECRET_PROPERTY +
+                               "=<secret> ReplicationFollower <leader-host> <leader-port>");
+            return;
+        }
+        try (ReplicationFollower follower = new ReplicationFollower(
+                 args[0], Integer.parseInt(args[1]), secret.getBytes(StandardCharsets.UTF_8))) {
+            while (follower.isRunning()) {
+                Thread.sleep(RECONNECT_DELAY_MILLIS);
+                System.out.println("Applied #" + follower.getLastAppliedSequence() +
+                                   ", lag " + follower.getLagMillis() + " ms, rooms " +
+                                   follower.getRoomCount() + ", reservations " +
+                                   follower.getReservationCount());
+            }
+        }
+    }
+}
@@ -0,0 +1,584 @@
+package hotelreservationsystem.replication;
+
+import hotelreservationsystem.EntityCodec;
+import hotelreservationsystem.MutationListener;
+import hotelreservationsystem.Reservation;
+import hotelreservationsystem.Room;
+import hotelreservationsystem.TypeBooking;
+import hotelreservationsystem.User;
+import hotelreservationsystem.enums.UserRole;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Ships the services' mutation stream to a warm standby.
+ *
+ * Registered as a MutationListener on the services, the leader
+ * encodes every mutation into a journal frame as it happens. A sender
+ * thread accepts one follower at a time over TCP, authenticates it,
+ * resumes from the sequence the follower reports, and writes frames in
+ * batches of up to BATCH_BYTES per socket write. The follower
+ * acknowledges the last applied sequence; the difference is the
+ * replication lag. While idle the leader sends heartbeats so the
+ * follower's time lag stays meaningful.
+ *
+ * Only the last MAX_JOURNAL_FRAMES frames are kept. Alongside them the
+ * leader keeps the latest record of every live room, user, reservation,
+ * pending type-level booking and booked stay, which grows with the services' state rather than
+ * with their history. A follower that is new, was fed by an earlier run
+ * of the leader, or is further behind than the journal reaches gets
+ * that state as a snapshot, then the journal from the snapshot on. The
+ * snapshot is captured by copying payload references under the journal
+ * lock; the frames are built and sent outside it, so a large snapshot
+ * does not hold up the services appending mutations.
+ * State restored from a persistent store is journaled with
+ * journalRestoredState, since it never went through the listeners.
+ *
+ * On connect the leader sends a random nonce and its epoch, random per
+ * run; the follower answers with the HMAC-SHA256 of the nonce under the
+ * shared secret and the sequence to resume from. A peer without the
+ * secret is dropped before any frame is sent. Frames are not encrypted,
+ * and users travel with their salted password hashes, so the link
+ * belongs on a trusted network.
+ *
+ * Hello: nonce (16 bytes) | epoch i64; reply: hmac (32 bytes) | resume i64
+ * Frame: length i32 | sequence i64 | leaderTimeMillis i64 | op u8 | payload
+ *
+ * @author Software Re-Engineering Enhancement
+ */
+public class ReplicationLeader implements MutationListener, AutoCloseable {
+    /** Frames kept for followers to resume from */
+    public static final int MAX_JOURNAL_FRAMES = 1 << 16;
+
+    static final int FRAME_HEADER_SIZE = Long.BYTES + Long.BYTES + 1;
+    static final int BATCH_BYTES = 64 * 1024;
+    static final int NONCE_SIZE = 16;
+    static final int MAC_SIZE = 32;
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+    private static final long HEARTBEAT_MILLIS = 500L;
+    private static final byte[] NO_PAYLOAD = new byte[0];
+
+    private final byte[] secret;
+    private final long epoch;
+    private final SecureRandom random;
+    /** Frame of sequence s at s % MAX_JOURNAL_FRAMES; guards all journal state */
+    private final byte[][] journal;
+    private long lastSequence;
+    // Latest payload per live entity, by ID, for snapshots
+    private final Map<Integer, byte[]> rooms;
+    private final Map<Integer, byte[]> users;
+    private final Map<Integer, byte[]> userRoles;
+    private final Map<Integer, byte[]> reservations;
+    private final Map<Integer, byte[]> stays;
+    private final Map<Integer, byte[]> typeBookings;
+    private final ServerSocketChannel server;
+    private final Thread sender;
+    private volatile long acknowledgedSequence;
+    private volatile boolean running = true;
+
+    /**
+     * Starts listening for a follower on the given port (0 = any free port)
+     *
+     * @param secret shared with the followers allowed to connect
+     */
+    public ReplicationLeader(int port, byte[] secret) throws IOException {
+        if (secret == null || secret.length == 0) {
+            throw new IllegalArgumentException("Replication secret cannot be empty");
+        }
+        this.secret = secret.clone();
+        this.random = new SecureRandom();
+        this.epoch = random.nextLong();
+        this.journal = new byte[MAX_JOURNAL_FRAMES][];
+        this.rooms = new LinkedHashMap<>();
+        this.users = new LinkedHashMap<>();
+        this.userRoles = new LinkedHashMap<>();
+        this.reservations = new LinkedHashMap<>();
+        this.stays = new LinkedHashMap<>();
+        this.typeBookings = new LinkedHashMap<>();
+        this.server = ServerSocketChannel.open();
+        this.server.bind(new InetSocketAddress(port));
+        this.sender = new Thread(this::runSender, "replication-leader");
+        this.sender.setDaemon(true);
+        this.sender.start();
+    }
+
+    public int getPort() {
+        return server.socket().getLocalPort();
+    }
+
+    /**
+     * Sequence number of the last journal frame
+     */
+    public long getLastSequence() {
+        synchronized (journal) {
+            return lastSequence;
+        }
+    }
+
+    /**
+     * Number of frames the follower has not yet acknowledged
+     */
+    public long getReplicationLag() {
+        return getLastSequence() - acknowledgedSequence;
+    }
+
+    /**
+     * Journals state that did not go through the listeners, such as
+     * what a persistent store held at startup. Call it before registering
+     * the leader with the services.
+     */
+    public void journalRestoredState(Collection<Room> restoredRooms, Collection<User> restoredUsers,
+                                     Collection<Reservation> restoredReservations,
+                                     Collection<TypeBooking> restoredTypeBookings) {
+        restoredRooms.forEach(this::roomAdded);
+        restoredUsers.forEach(this::userRegistered);
+        for (Reservation reservation : restoredReservations) {
+            reservationMade(reservation);
+            appendReservation(JournalOp.NIGHTS_RESTORED, reservation);
+        }
+        // Their nights are journaled as they are taken again
+        restoredTypeBookings.forEach(this::typeBookingAdded);
+    }
+
+    @Override
+    public void roomAdded(Room room) {
+        append(JournalOp.ROOM_ADDED, room.getRoomId(), EntityCodec.sizeOf(room),
+               buffer -> EntityCodec.write(buffer, room));
+    }
+
+    @Override
+    public void roomUpdated(Room room) {
+        append(JournalOp.ROOM_UPDATED, room.getRoomId(), EntityCodec.sizeOf(room),
+               buffer -> EntityCodec.write(buffer, room));
+    }
+
+    @Override
+    public void roomRemoved(int roomId) {
+        append(JournalOp.ROOM_REMOVED, roomId, Integer.BYTES, buffer -> buffer.putInt(roomId));
+    }
+
+    @Override
+    public void nightsReserved(Reservation reservation) {
+        appendReservation(JournalOp.NIGHTS_RESERVED, reservation);
+    }
+
+    @Override
+    public void nightsReleased(Reservation reservation) {
+        appendReservation(JournalOp.NIGHTS_RELEASED, reservation);
+    }
+
+    @Override
+    public void reservationMade(Reservation reservation) {
+        appendReservation(JournalOp.RESERVATION_MADE, reservation);
+    }
+
+    @Override
+    public void reservationUpdated(Reservation reservation) {
+        appendReservation(JournalOp.RESERVATION_UPDATED, reservation);
+    }
+
+    @Override
+    public void reservationCancelled(int reservationId) {
+        append(JournalOp.RESERVATION_CANCELLED, reservationId, Integer.BYTES,
+               buffer -> buffer.putInt(reservationId));
+    }
+
+    @Override
+    public void reservationArchived(int reservationId) {
+        append(JournalOp.RESERVATION_ARCHIVED, reservationId, Integer.BYTES,
+               buffer -> buffer.putInt(reservationId));
+    }
+
+    @Override
+    public void typeBookingAdded(TypeBooking booking) {
+        append(JournalOp.TYPE_BOOKING_ADDED, booking.getReservationId(), EntityCodec.sizeOf(booking),
+               buffer -> EntityCodec.write(buffer, booking));
+    }
+
+    @Override
+    public void typeBookingRemoved(int reservationId) {
+        append(JournalOp.TYPE_BOOKING_REMOVED, reservationId, Integer.BYTES,
+               buffer -> buffer.putInt(reservationId));
+    }
+
+    @Override
+    public void userRegistered(User user) {
+        append(JournalOp.USER_REGISTERED, user.getUserId(), EntityCodec.sizeOf(user),
+               buffer -> EntityCodec.write(buffer, user));
+    }
+
+    @Override
+    public void userRoleChanged(int userId, UserRole newRole) {
+        append(JournalOp.USER_ROLE_CHANGED, userId, Integer.BYTES + 1, buffer -> {
+            buffer.putInt(userId);
+            buffer.put((byte) newRole.ordinal());
+        });
+    }
+
+    @Override
+    public void userDeleted(int userId) {
+        append(JournalOp.USER_DELETED, userId, Integer.BYTES, buffer -> buffer.putInt(userId));
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        server.close();
+        synchronized (journal) {
+            journal.notifyAll();
+        }
+    }
+
+    /**
+     * HMAC of a handshake nonce under the shared secret
+     */
+    static byte[] sign(byte[] secret, byte[] nonce) {
+        try {
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(new SecretKeySpec(secret, MAC_ALGORITHM));
+            return mac.doFinal(nonce);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(MAC_ALGORITHM + " is required of every JVM", e);
+        }
+    }
+
+    private void appendReservation(JournalOp op, Reservation reservation) {
+        append(op, reservation.getReservationId(), EntityCodec.sizeOf(reservation),
+               buffer -> EntityCodec.write(buffer, reservation));
+    }
+
+    private interface PayloadWriter {
+        void write(ByteBuffer buffer);
+    }
+
+    /**
+     * @param id the room, reservation, booking or user the mutation is about
+     */
+    private void append(JournalOp op, int id, int payloadSize, PayloadWriter payload) {
+        ByteBuffer frame = ByteBuffer.allocate(Integer.BYTES + FRAME_HEADER_SIZE + payloadSize);
+        frame.putInt(FRAME_HEADER_SIZE + payloadSize);
+        frame.position(frame.position() + Long.BYTES); // Sequence, filled in below
+        frame.putLong(System.currentTimeMillis());
+        frame.put(op.code());
+        int payloadStart = frame.position();
+        payload.write(frame);
+        byte[] payloadBytes = Arrays.copyOfRange(frame.array(), payloadStart, frame.capacity());
+        synchronized (journal) {
+            lastSequence++;
+            frame.putLong(Integer.BYTES, lastSequence);
+            journal[slot(lastSequence)] = frame.array();
+            retain(op, id, payloadBytes);
+            journal.notifyAll();
+        }
+    }
+
+    /**
+     * Keeps the latest payload of each live entity for snapshots
+     */
+    private void retain(JournalOp op, int id, byte[] payload) {
+        switch (op) {
+            case ROOM_ADDED:
+            case ROOM_UPDATED:
+                rooms.put(id, payload);
+                break;
+            case ROOM_REMOVED:
+                rooms.remove(id);
+                break;
+            case NIGHTS_RESERVED:
+            case NIGHTS_RESTORED:
+                stays.put(id, payload);
+                break;
+            case NIGHTS_RELEASED:
+                stays.remove(id);
+                break;
+            case RESERVATION_MADE:
+            case RESERVATION_UPDATED:
+                reservations.put(id, payload);
+                break;
+            case RESERVATION_CANCELLED:
+                reservations.remove(id);
+                break;
+            case RESERVATION_ARCHIVED:
+                // Archived stays have ended, so a snapshot leaves their nights out
+                reservations.remove(id);
+                stays.remove(id);
+                break;
+            case TYPE_BOOKING_ADDED:
+                typeBookings.put(id, payload);
+                break;
+            case TYPE_BOOKING_REMOVED:
+                typeBookings.remove(id);
+                break;
+            case USER_REGISTERED:
+                users.put(id, payload);
+                userRoles.remove(id);
+                break;
+            case USER_ROLE_CHANGED:
+                userRoles.put(id, payload);
+                break;
+            case USER_DELETED:
+                users.remove(id);
+                userRoles.remove(id);
+                break;
+            default:
+                throw new IllegalStateException("Unhandled journal op " + op);
+        }
+    }
+
+    private long firstSequence() {
+        return Math.max(1, lastSequence - MAX_JOURNAL_FRAMES + 1);
+    }
+
+    private static int slot(long sequence) {
+        return (int) (sequence % MAX_JOURNAL_FRAMES);
+    }
+
+    /**
+     * Retained payloads as of one sequence. Payload arrays are never
+     * changed once retained, so copying the references is enough.
+     */
+    private static final class SnapshotState {
+        final long sequence;
+        final List<byte[]> rooms;
+        final List<byte[]> users;
+        final List<byte[]> userRoles;
+        final List<byte[]> reservations;
+        final List<byte[]> stays;
+        final List<byte[]> typeBookings;
+
+        SnapshotState(long sequence, Collection<byte[]> rooms, Collection<byte[]> users,
+                      Collection<byte[]> userRoles, Collection<byte[]> reservations,
+                      Collection<byte[]> stays, Collection<byte[]> typeBookings) {
+            this.sequence = sequence;
+            this.rooms = new ArrayList<>(rooms);
+            this.users = new ArrayList<>(users);
+            this.userRoles = new ArrayList<>(userRoles);
+            this.reservations = new ArrayList<>(reservations);
+            this.stays = new ArrayList<>(stays);
+            this.typeBookings = new ArrayList<>(typeBookings);
+        }
+    }
+
+    /**
+     * Captures the current state for a snapshot; the caller holds the
+     * journal lock
+     */
+    private SnapshotState captureSnapshot() {
+        return new SnapshotState(lastSequence, rooms.values(), users.values(), userRoles.values(),
+                                 reservations.values(), stays.values(), typeBookings.values());
+    }
+
+    /**
+     * Writes frames rebuilding a captured state, stamped with its sequence,
+     * in batches of up to BATCH_BYTES
+     */
+    private static void sendSnapshot(SocketChannel follower, ByteBuffer batch, SnapshotState state)
+            throws IOException {
+        long now = System.currentTimeMillis();
+        long sequence = state.sequence;
+        batch.clear();
+        put(follower, batch, JournalOp.SNAPSHOT_BEGIN, sequence, now, NO_PAYLOAD);
+        for (byte[] payload : state.rooms) {
+            put(follower, batch, JournalOp.ROOM_ADDED, sequence, now, payload);
+        }
+        for (byte[] payload : state.users) {
+            put(follower, batch, JournalOp.USER_REGISTERED, sequence, now, payload);
+        }
+        for (byte[] payload : state.userRoles) {
+            put(follower, batch, JournalOp.USER_ROLE_CHANGED, sequence, now, payload);
+        }
+        for (byte[] payload : state.reservations) {
+            put(follower, batch, JournalOp.RESERVATION_MADE, sequence, now, payload);
+        }
+        for (byte[] payload : state.stays) {
+            put(follower, batch, JournalOp.NIGHTS_RESTORED, sequence, now, payload);
+        }
+        for (byte[] payload : state.typeBookings) {
+            put(follower, batch, JournalOp.TYPE_BOOKING_ADDED, sequence, now, payload);
+        }
+        put(follower, batch, JournalOp.SNAPSHOT_END, sequence, now, NO_PAYLOAD);
+        write(follower, batch.flip());
+    }
+
+    /**
+     * Frames a payload straight into the batch, writing the batch out
+     * first when it is full
+     */
+    private static void put(SocketChannel follower, ByteBuffer batch, JournalOp op, long sequence,
+                            long leaderTime, byte[] payload) throws IOException {
+        int length = Integer.BYTES + FRAME_HEADER_SIZE + payload.length;
+        if (length > batch.remaining()) {
+            write(follower, batch.flip());
+            batch.clear();
+        }
+        if (length > batch.capacity()) {
+            write(follower, ByteBuffer.wrap(frame(op, sequence, leaderTime, payload))); // Oversized frame
+            return;
+        }
+        batch.putInt(FRAME_HEADER_SIZE + payload.length)
+             .putLong(sequence)
+             .putLong(leaderTime)
+             .put(op.code())
+             .put(payload);
+    }
+
+    private static byte[] frame(JournalOp op, long sequence, long leaderTime, byte[] payload) {
+        return ByteBuffer.allocate(Integer.BYTES + FRAME_HEADER_SIZE + payload.length)
+                         .putInt(FRAME_HEADER_SIZE + payload.length)
+                         .putLong(sequence)
+                         .putLong(leaderTime)
+                         .put(op.code())
+                         .put(payload)
+                         .array();
+    }
+
+    private void runSender() {
+        while (running) {
+            try (SocketChannel follower = server.accept()) {
+                long resumeSequence = handshake(follower);
+                acknowledgedSequence = resumeSequence;
+                Thread acknowledgements = startAcknowledgementReader(follower);
+                try {
+                    stream(follower, resumeSequence);
+                } finally {
+                    acknowledgements.interrupt();
+                }
+            } catch (IOException | InterruptedException e) {
+                if (running) {
+                    System.err.println("Replication follower disconnected: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Challenges the follower to prove it holds the secret
+     *
+     * @return the sequence it resumes from, 0 for a snapshot
+     */
+    private long handshake(SocketChannel follower) throws IOException {
+        byte[] nonce = new byte[NONCE_SIZE];
+        random.nextBytes(nonce);
+        ByteBuffer hello = ByteBuffer.allocate(NONCE_SIZE + Long.BYTES).put(nonce).putLong(epoch).flip();
+        while (hello.hasRemaining()) {
+            follower.write(hello);
+        }
+        ByteBuffer reply = ByteBuffer.allocate(MAC_SIZE + Long.BYTES);
+        while (reply.hasRemaining()) {
+            if (follower.read(reply) < 0) {
+                throw new IOException("Follower closed during handshake");
+            }
+        }
+        byte[] mac = new byte[MAC_SIZE];
+        reply.get(0, mac);
+        if (!MessageDigest.isEqual(mac, sign(secret, nonce))) {
+            throw new IOException("Follower failed authentication");
+        }
+        return reply.getLong(MAC_SIZE);
+    }
+
+    private void stream(SocketChannel follower, long resumeSequence)
+            throws IOException, InterruptedException {
+        ByteBuffer batch = ByteBuffer.allocateDirect(BATCH_BYTES);
+        List<byte[]> frames = new ArrayList<>();
+        long next; // Sequence of the next frame to send
+        synchronized (journal) {
+            boolean resumable = resumeSequence > 0 && resumeSequence + 1 >= firstSequence()
+                    && resumeSequence <= lastSequence;
+            // Anything else starts from a snapshot, which also resets the follower
+            next = resumable ? resumeSequence + 1 : 0;
+        }
+        while (running) {
+            frames.clear();
+            SnapshotState snapshot = null;
+            synchronized (journal) {
+                if (next > lastSequence) {
+                    journal.wait(HEARTBEAT_MILLIS);
+                }
+                if (next < firstSequence()) {
+                    // Only references are copied here; framing and sending happen outside the lock
+                    snapshot = captureSnapshot();
+                    next = lastSequence + 1;
+                } else if (next > lastSequence) {
+                    frames.add(frame(JournalOp.HEARTBEAT, lastSequence, System.currentTimeMillis(),
+                                     NO_PAYLOAD));
+                } else {
+                    int bytes = 0;
+                    while (next <= lastSequence && bytes < BATCH_BYTES) {
+                        byte[] frame = journal[slot(next)];
+                        frames.add(frame);
+                        bytes += frame.length;
+                        next++;
+                    }
+                }
+            }
+            if (snapshot != null) {
+                sendSnapshot(follower, batch, snapshot);
+            } else {
+                send(follower, batch, frames);
+            }
+        }
+    }
+
+    /**
+     * Writes the frames in batches of up to BATCH_BYTES
+     */
+    private static void send(SocketChannel follower, ByteBuffer batch, List<byte[]> frames)
+            throws IOException {
+        batch.clear();
+        for (byte[] frame : frames) {
+            if (frame.length > batch.remaining()) {
+                write(follower, batch.flip());
+                batch.clear();
+            }
+            if (frame.length > batch.capacity()) {
+                write(follower, ByteBuffer.wrap(frame)); // Oversized frame
+            } else {
+                batch.put(frame);
+            }
+        }
+        write(follower, batch.flip());
+    }
+
+    private static void write(SocketChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private Thread startAcknowledgementReader(SocketChannel follower) {
+        Thread reader = new Thread(() -> {
+            ByteBuffer ack = ByteBuffer.allocate(Long.BYTES);
+            try {
+                while (running) {
+                    ack.clear();
+                    while (ack.hasRemaining()) {
+                        if (follower.read(ack) < 0) {
+                            return;
+                        }
+                    }
+                    acknowledgedSequence = ack.getLong(0);
+                }
+            } catch (IOException e) {
+                // Connection closed; the sender notices on its next write
+            }
+        }, "replication-leader-acks");
+        reader.setDaemon(true);
+        reader.start();
+        return reader;
+    }
+}
@@ -0,0 +1,341 @@
+package hotelreservationsystem.reports;
+
+import hotelreservationsystem.Reservation;
+import hotelreservationsystem.ReservationService;
+import hotelreservationsystem.Room;
+import hotelreservationsystem.RoomService;
+import hotelreservationsystem.archive.ReservationArchive;
+import hotelreservationsystem.constants.AppConstants;
+import hotelreservationsystem.utils.DateUtils;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Batch job producing nightly occupancy, ADR, RevPAR and cancellation
+ * figures per room type.
+ *
+ * Reservations are split into index ranges and counted in parallel with
+ * fork/join; each leaf fills its own per-type, per-night arrays which are
+ * then summed, so no locking is needed and the work scales with cores.
+ *
+ * Stays the archiver has moved out of the hot set are read back from the
+ * archive for the nights they cover, so past nights are not reported as
+ * empty.
+ *
+ * @author Software Re-Engineering Enhancement
+ */
+public class OccupancyReportGenerator {
+    private static final int SEQUENTIAL_THRESHOLD = 8_192;
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+    private static final String CSV_HEADER =
+        "date,room_type,rooms,sold,occupancy,adr,revpar,revenue,cancellations\n";
+
+    private final RoomService roomService;
+    private final ReservationService reservationService;
+    private final ReservationArchive archive;
+    private final ForkJoinPool pool;
+
+    public OccupancyReportGenerator(RoomService roomService, ReservationService reservationService) {
+        this(roomService, reservationService, null, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param archive stays moved out of the hot set, or null if nothing is
+     *                archived
+     */
+    public OccupancyReportGenerator(RoomService roomService, ReservationService reservationService,
+                                    ReservationArchive archive, ForkJoinPool pool) {
+        this.roomService = roomService;
+        this.reservationService = reservationService;
+        this.archive = archive;
+        this.pool = pool;
+    }
+
+    /**
+     * Builds the report for the nights from startDate (inclusive) to
+     * endDate (exclusive)
+     *
+     * @throws IOException if the archive cannot be read
+     */
+    public OccupancyReport generate(Date startDate, Date endDate) throws IOException {
+        if (!DateUtils.isValidDateRange(startDate, endDate)) {
+            throw new IllegalArgumentException(AppConstants.ERROR_INVALID_DATE_RANGE);
+        }
+        int firstNight = DateUtils.toEpochDay(startDate);
+        int nights = DateUtils.toEpochDay(endDate) - firstNight;
+
+        // Dense type ordinals so the accumulators can be plain arrays
+        Map<Integer, Integer> typeIndex = new HashMap<>();
+        List<String> typeNames = new ArrayList<>();
+        Map<Integer, Integer> typeByRoom = new HashMap<>();
+        List<Integer> roomCounts = new ArrayList<>();
+        for (Room room : roomService.getAllRooms()) {
+            Integer type = typeIndex.get(room.getRoomTypeId());
+            if (type == null) {
+                type = typeNames.size();
+                typeIndex.put(room.getRoomTypeId(), type);
+                typeNames.add(room.getRoomType());
+                roomCounts.add(0);
+            }
+            typeByRoom.put(room.getRoomId(), type);
+            roomCounts.set(type, roomCounts.get(type) + 1);
+        }
+
+        ReportScope scope = new ReportScope(typeByRoom, typeNames.size(), firstNight, nights);
+        // One snapshot, so its size cannot change under the tasks
+        List<Reservation> active = reservationService.getAllReservations();
+        Tally sold = pool.invoke(new TallyTask(scope, active, false, 0, active.size()));
+        if (archive != null) {
+            List<Reservation> archived = new ArrayList<>();
+            for (Reservation reservation : archive.findByDateRange(startDate, endDate)) {
+                // A crash after archiving can leave the last block's stays in the hot set too
+                if (!archive.contains(reservation)
+                        || !reservationService.reservationExists(reservation.getReservationId())) {
+                    archived.add(reservation);
+                }
+            }
+            sold.merge(pool.invoke(new TallyTask(scope, archived, false, 0, archived.size())));
+        }
+        List<Reservation> cancellations = reservationService.getCancelledReservations();
+        Tally cancelled = pool.invoke(new TallyTask(
+                scope, cancellations, true, 0, cancellations.size()));
+
+        int[] rooms = roomCounts.stream().mapToInt(Integer::intValue).toArray();
+        return new OccupancyReport(typeNames, rooms, firstNight,
+                sold.roomNights, sold.revenue, cancelled.roomNights);
+    }
+
+    /**
+     * Writes the report as CSV through a buffered file channel
+     */
+    public void writeCsv(OccupancyReport report, Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+            put(channel, buffer, CSV_HEADER);
+
+            StringBuilder line = new StringBuilder(96);
+            for (int night = 0; night < report.getNights(); night++) {
+                String date = report.getDate(night).toString();
+                for (int type = 0; type < report.getRoomTypes().size(); type++) {
+                    line.setLength(0);
+                    line.append(date).append(',')
+                        .append(report.getRoomTypes().get(type)).append(',')
+                        .append(report.getRoomCount(type)).append(',')
+                        .append(report.getRoomsSold(type, night)).append(',')
+                        .append(String.format(Locale.ROOT, "%.4f,%.2f,%.2f,%.2f,",
+                            report.getOccupancy(type, night),
+                            report.getAverageDailyRate(type, night),
+                            report.getRevPar(type, night),
+                            report.getRevenue(type, night)))
+                        .append(report.getCancellations(type, night)).append('\n');
+                    put(channel, buffer, line);
+                }
+            }
+            drain(channel, buffer);
+        }
+    }
+
+    private static void put(FileChannel channel, ByteBuffer buffer, CharSequence text)
+            throws IOException {
+        byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+        if (buffer.remaining() < bytes.length) {
+            drain(channel, buffer);
+        }
+        buffer.put(bytes);
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Immutable inputs shared by all tally tasks
+     */
+    private static final class ReportScope {
+        final Map<Integer, Integer> typeByRoom;
+        final int typeCount;
+        final int firstNight;
+        final int nights;
+
+        ReportScope(Map<Integer, Integer> typeByRoom, int typeCount, int firstNight, int nights) {
+            this.typeByRoom = typeByRoom;
+            this.typeCount = typeCount;
+            this.firstNight = firstNight;
+            this.nights = nights;
+        }
+    }
+
+    /**
+     * Per-type, per-night counters produced by one task
+     */
+    private static final class Tally {
+        final int[][] roomNights;
+        final double[][] revenue;
+
+        Tally(int typeCount, int nights) {
+            this.roomNights = new int[typeCount][nights];
+            this.revenue = new double[typeCount][nights];
+        }
+
+        Tally merge(Tally other) {
+            for (int type = 0; type < roomNights.length; type++) {
+                for (int night = 0; night < roomNights[type].length; night++) {
+                    roomNights[type][night] += other.roomNights[type][night];
+                    revenue[type][night] += other.revenue[type][night];
+                }
+            }
+            return this;
+        }
+    }
+
+    /**
+     * Counts room-nights and pro-rated revenue over a slice of reservations
+     */
+    private static final class TallyTask extends RecursiveTask<Tally> {
+        private static final long serialVersionUID = 1L;
+
+        // Never serialized: tasks only run in the pool
+        private final transient ReportScope scope;
+        private final transient List<Reservation> reservations;
+        private final boolean cancelled;
+        private final int from;
+        private final int to;
+
+        TallyTask(ReportScope scope, List<Reservation> reservations, boolean cancelled,
+                  int from, int to) {
+            this.scope = scope;
+            this.reservations = reservations;
+            this.cancelled = cancelled;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Tally compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                return computeSequentially();
+            }
+            int middle = (from + to) >>> 1;
+            TallyTask left = new TallyTask(scope, reservations, cancelled, from, middle);
+            TallyTask right = new TallyTask(scope, reservations, cancelled, middle, to);
+            left.fork();
+            return right.compute().merge(left.join());
+        }
+
+        private Tally computeSequentially() {
+            Tally tally = new Tally(scope.typeCount, scope.nights);
+            for (int i = from; i < to; i++) {
+                Reservation reservation = reservations.get(i);
+                Integer type = scope.typeByRoom.get(reservation.getRoomId());
+                if (type == null) {
+                    continue; // Room has since been removed
+                }
+                int checkIn = DateUtils.toEpochDay(reservation.getCheckInDate());
+                int checkOut = DateUtils.toEpochDay(reservation.getCheckOutDate());
+                if (cancelled) {
+                    // A cancellation is reported on its intended arrival night
+                    int night = checkIn - scope.firstNight;
+                    if (night >= 0 && night < scope.nights) {
+                        tally.roomNights[type][night]++;
+                    }
+                    continue;
+                }
+                double nightlyRate = reservation.getTotalCost() / (checkOut - checkIn);
+                int start = Math.max(checkIn, scope.firstNight) - scope.firstNight;
+                int end = Math.min(checkOut, scope.firstNight + scope.nights) - scope.firstNight;
+                for (int night = start; night < end; night++) {
+                    tally.roomNights[type][night]++;
+                    tally.revenue[type][night] += nightlyRate;
+                }
+            }
+            return tally;
+        }
+    }
+
+    /**
+     * Result of a report run
+     */
+    public static final class OccupancyReport {
+        private final List<String> roomTypes;
+        private final int[] roomCounts;
+        private final int firstNight;
+        private final int[][] roomsSold;
+        private final double[][] revenue;
+        private final int[][] cancellations;
+
+        OccupancyReport(List<String> roomTypes, int[] roomCounts, int firstNight,
+                        int[][] roomsSold, double[][] revenue, int[][] cancellations) {
+            this.roomTypes = roomTypes;
+            this.roomCounts = roomCounts;
+            this.firstNight = firstNight;
+            this.roomsSold = roomsSold;
+            this.revenue = revenue;
+            this.cancellations = cancellations;
+        }
+
+        public List<String> getRoomTypes() {
+            return Collections.unmodifiableList(roomTypes);
+        }
+
+        public int getNights() {
+            return roomsSold.length == 0 ? 0 : roomsSold[0].length;
+        }
+
+        public LocalDate getDate(int night) {
+            return LocalDate.ofEpochDay(firstNight + night);
+        }
+
+        public int getRoomCount(int type) {
+            return roomCounts[type];
+        }
+
+        public int getRoomsSold(int type, int night) {
+            return roomsSold[type][night];
+        }
+
+        public double getRevenue(int type, int night) {
+            return revenue[type][night];
+        }
+
+        public int getCancellations(int type, int night) {
+            return cancellations[type][night];
+        }
+
+        public double getOccupancy(int type, int night) {
+            return roomCounts[type] == 0 ? 0 : (double) roomsSold[type][night] / roomCounts[type];
+        }
+
+        /**
+         * Average daily rate: revenue per room sold
+         */
+        public double getAverageDailyRate(int type, int night) {
+            return roomsSold[type][night] == 0 ? 0 : revenue[type][night] / roomsSold[type][night];
+        }
+
+        /**
+         * Revenue per available room
+         */
+        public double getRevPar(int type, int night) {
+            return roomCounts[type] == 0 ? 0 : revenue[type][night] / roomCounts[type];
+        }
+    }
+}
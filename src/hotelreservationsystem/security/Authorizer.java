@@ -0,0 +1,62 @@
+package hotelreservationsystem.security;
+
+import hotelreservationsystem.MutationListener;
+import hotelreservationsystem.User;
+import hotelreservationsystem.enums.UserRole;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Central authorization component: opens sessions for authenticated users
+ * and, registered as a listener on UserService, pushes role changes and
+ * deletions into every open session of the affected user, so they take
+ * effect on that user's very next check.
+ * 
+ * Thread-safe.
+ * 
+ * @author Software Re-Engineering Enhancement
+ */
+public class Authorizer implements MutationListener {
+    private final Map<Integer, List<Session>> sessionsByUser = new ConcurrentHashMap<>();
+
+    /**
+     * Opens a session carrying the user's current permissions
+     */
+    public Session openSession(User user) {
+        if (user == null) {
+            throw new IllegalArgumentException("User cannot be null");
+        }
+        Session session = new Session(user);
+        sessionsByUser.computeIfAbsent(user.getUserId(), id -> new CopyOnWriteArrayList<>())
+                      .add(session);
+        return session;
+    }
+
+    /**
+     * Ends a session, e.g. on logout
+     */
+    public void closeSession(Session session) {
+        session.revoke();
+        sessionsByUser.computeIfPresent(session.getUserId(), (id, sessions) -> {
+            sessions.remove(session);
+            return sessions.isEmpty() ? null : sessions;
+        });
+    }
+
+    @Override
+    public void userRoleChanged(int userId, UserRole newRole) {
+        for (Session session : sessionsByUser.getOrDefault(userId, List.of())) {
+            session.changeRole(newRole);
+        }
+    }
+
+    @Override
+    public void userDeleted(int userId) {
+        List<Session> sessions = sessionsByUser.remove(userId);
+        if (sessions != null) {
+            sessions.forEach(Session::revoke);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package hotelreservationsystem.security;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Brute-force guard for logins: token buckets of failed attempts, one per
+ * username and one per source (e.g. client address).
+ *
+ * Each failed attempt takes a token from the username's and the source's
+ * bucket; tokens trickle back at a fixed rate. A key whose bucket is empty
+ * is locked out until a token returns, and tryAcquire rejects it before
+ * any user lookup or password check, with a couple of array reads. Only
+ * failures are charged, so real users logging in are never throttled by
+ * their own successes.
+ *
+ * Buckets live in fixed-size hashed tables of packed longs, so memory is
+ * bounded no matter how many distinct keys an attack uses and nothing
+ * needs evicting: an idle bucket simply refills to full. Each key maps to
+ * two slots and is limited by the fuller of them, so one colliding key
+ * cannot lock out another unless both of its slots are drained. Slots
+ * come from a hash seeded randomly per table, so an attacker cannot
+ * choose usernames that collide with a victim's.
+ *
+ * Thread-safe and lock-free.
+ *
+ * @author Software Re-Engineering Enhancement
+ */
+public class LoginRateLimiter {
+    public static final int DEFAULT_TABLE_SLOTS = 1 << 18;
+    /** Failures allowed in a burst per username, then one per minute */
+    public static final int DEFAULT_USER_CAPACITY = 5;
+    public static final long DEFAULT_USER_REFILL_MILLIS = 60_000L;
+    /** Failures allowed in a burst per source, then one every five seconds */
+    public static final int DEFAULT_SOURCE_CAPACITY = 20;
+    public static final long DEFAULT_SOURCE_REFILL_MILLIS = 5_000L;
+
+    private final BucketTable users;
+    private final BucketTable sources;
+
+    public LoginRateLimiter() {
+        this(DEFAULT_TABLE_SLOTS, DEFAULT_USER_CAPACITY, DEFAULT_USER_REFILL_MILLIS,
+             DEFAULT_SOURCE_CAPACITY, DEFAULT_SOURCE_REFILL_MILLIS);
+    }
+
+    /**
+     * @param tableSlots buckets per table, rounded up to a power of two;
+     *        each costs 8 bytes
+     * @param userCapacity failed attempts a username may burst
+     * @param userRefillMillis time for a username to earn back one attempt
+     * @param sourceCapacity failed attempts a source may burst
+     * @param sourceRefillMillis time for a source to earn back one attempt
+     */
+    public LoginRateLimiter(int tableSlots, int userCapacity, long userRefillMillis,
+                            int sourceCapacity, long sourceRefillMillis) {
+        this.users = new BucketTable(tableSlots, userCapacity, userRefillMillis);
+        this.sources = new BucketTable(tableSlots, sourceCapacity, sourceRefillMillis);
+    }
+
+    /**
+     * Cheap pre-check, made before any password work
+     *
+     * @param source origin of the attempt, or null if unknown
+     * @return false if the username or the source is locked out
+     */
+    public boolean tryAcquire(String username, String source) {
+        long now = System.currentTimeMillis();
+        return users.hasToken(username, now) && (source == null || sources.hasToken(source, now));
+    }
+
+    /**
+     * Charges a failed attempt to the username and the source
+     *
+     * @param source origin of the attempt, or null if unknown
+     */
+    public void recordFailure(String username, String source) {
+        long now = System.currentTimeMillis();
+        users.take(username, now);
+        if (source != null) {
+            sources.take(source, now);
+        }
+    }
+
+    /**
+     * Fixed-size table of token buckets. A slot packs the time of its last
+     * update (high bits, milliseconds) and its tokens in 1/1024ths (low
+     * bits); an untouched slot reads as last updated at the epoch, and so
+     * as full.
+     */
+    private static final class BucketTable {
+        private static final int TOKEN_BITS = 20;
+        private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+        private static final long ONE_TOKEN = 1024;
+        private static final int MAX_CAPACITY = (int) (TOKEN_MASK / ONE_TOKEN);
+        private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+        private final AtomicLongArray slots;
+        private final int mask;
+        private final long capacity;
+        private final long refillMillis;
+        private final long seed = ThreadLocalRandom.current().nextLong();
+
+        BucketTable(int slotCount, int capacity, long refillMillis) {
+            if (slotCount <= 0 || capacity <= 0 || capacity > MAX_CAPACITY || refillMillis <= 0) {
+                throw new IllegalArgumentException("Invalid rate limiter configuration");
+            }
+            int size = slotCount == 1 ? 1 : Integer.highestOneBit(slotCount - 1) << 1;
+            this.slots = new AtomicLongArray(size);
+            this.mask = size - 1;
+            this.capacity = capacity * ONE_TOKEN;
+            this.refillMillis = refillMillis;
+        }
+
+        boolean hasToken(String key, long now) {
+            long hash = hash(key);
+            return tokens(slots.get((int) hash & mask), now) >= ONE_TOKEN
+                    || tokens(slots.get((int) (hash >>> 32) & mask), now) >= ONE_TOKEN;
+        }
+
+        void take(String key, long now) {
+            long hash = hash(key);
+            take((int) hash & mask, now);
+            take((int) (hash >>> 32) & mask, now);
+        }
+
+        private void take(int slot, long now) {
+            while (true) {
+                long state = slots.get(slot);
+                long tokens = Math.max(0, tokens(state, now) - ONE_TOKEN);
+                if (slots.compareAndSet(slot, state, now << TOKEN_BITS | tokens)) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Tokens in the bucket at the given time, after refilling for the
+         * time elapsed since its last update
+         */
+        private long tokens(long state, long now) {
+            long elapsed = now - (state >>> TOKEN_BITS);
+            long tokens = state & TOKEN_MASK;
+            if (elapsed <= 0) {
+                return tokens;
+            }
+            if (elapsed >= refillMillis * (capacity / ONE_TOKEN)) {
+                return capacity;
+            }
+            return Math.min(capacity, tokens + elapsed * ONE_TOKEN / refillMillis);
+        }
+
+        /**
+         * Seeded 64-bit hash of the key; its halves pick the two slots
+         */
+        private long hash(String key) {
+            long hash = seed;
+            for (int i = 0, length = key.length(); i < length; i++) {
+                hash = (hash ^ key.charAt(i)) * HASH_MULTIPLIER;
+            }
+            hash ^= hash >>> 29;
+            hash *= HASH_MULTIPLIER;
+            return hash ^ (hash >>> 32);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package hotelreservationsystem.security;
+
+import hotelreservationsystem.User;
+import hotelreservationsystem.enums.Permission;
+import hotelreservationsystem.enums.UserRole;
+
+/**
+ * A logged-in user's authorization state. The role's permission mask is
+ * cached here so every check on the request path is a single AND; the
+ * Authorizer that opened the session rewrites it the moment the user's
+ * role changes, and revokes it if the user is deleted.
+ * 
+ * @author Software Re-Engineering Enhancement
+ */
+public class Session {
+    private final User user;
+    private volatile UserRole role;
+    private volatile int permissions;
+    private volatile boolean active = true;
+
+    Session(User user) {
+        this.user = user;
+        this.role = user.getRole();
+        this.permissions = role.getPermissions();
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public int getUserId() {
+        return user.getUserId();
+    }
+
+    public UserRole getRole() {
+        return role;
+    }
+
+    /**
+     * Whether the session's user currently holds the permission
+     */
+    public boolean can(Permission permission) {
+        return (permissions & permission.mask()) != 0;
+    }
+
+    /**
+     * False once the session is closed or its user deleted
+     */
+    public boolean isActive() {
+        return active;
+    }
+
+    void changeRole(UserRole newRole) {
+        role = newRole;
+        permissions = newRole.getPermissions();
+    }
+
+    void revoke() {
+        permissions = 0;
+        active = false;
+    }
+}
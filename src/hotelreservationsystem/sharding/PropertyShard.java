@@ -0,0 +1,94 @@
+package hotelreservationsystem.sharding;
+
+import hotelreservationsystem.CascadeDeletionService;
+import hotelreservationsystem.ReservationService;
+import hotelreservationsystem.RoomAssignmentService;
+import hotelreservationsystem.RoomService;
+import hotelreservationsystem.UserService;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One property (hotel) with its own RoomService, ReservationService and
+ * pending room type bookings. Rooms are removed through a
+ * CascadeDeletionService, so their reservations and bookings go with
+ * them; the UserService it is given is shared by every property.
+ *
+ * All operations on a shard run on the shard's single writer thread, so
+ * the services need no locking and shards never contend with each other.
+ * Closing the shard closes its room service once the writer has drained.
+ *
+ * @author Software Re-Engineering Enhancement
+ */
+public class PropertyShard implements AutoCloseable {
+    private final int propertyId;
+    private final RoomService roomService;
+    private final ReservationService reservationService;
+    private final CascadeDeletionService cascadeDeletionService;
+    private final ExecutorService writer;
+
+    public PropertyShard(int propertyId, UserService userService) {
+        this(propertyId, new RoomService(), new ReservationService(), userService);
+    }
+
+    public PropertyShard(int propertyId, RoomService roomService,
+                         ReservationService reservationService, UserService userService) {
+        this.propertyId = propertyId;
+        this.roomService = roomService;
+        this.reservationService = reservationService;
+        this.cascadeDeletionService = new CascadeDeletionService(
+                roomService, reservationService, userService,
+                new RoomAssignmentService(roomService, reservationService));
+        this.writer = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "property-" + propertyId + "-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public int getPropertyId() {
+        return propertyId;
+    }
+
+    /**
+     * Queues an operation on the writer thread
+     */
+    public <T> CompletableFuture<T> submit(ShardOperation<T> operation) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            writer.execute(() -> {
+                try {
+                    result.complete(operation.apply(roomService, reservationService));
+                } catch (Exception e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    /**
+     * Removes a room with its reservations on the writer thread
+     *
+     * @return future of the number of reservations cancelled
+     */
+    public CompletableFuture<Integer> removeRoom(int roomId) {
+        return submit((rooms, reservations) -> cascadeDeletionService.removeRoom(roomId));
+    }
+
+    @Override
+    public void close() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        roomService.close();
+    }
+}
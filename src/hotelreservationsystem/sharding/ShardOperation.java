@@ -0,0 +1,20 @@
+package hotelreservationsystem.sharding;
+
+import hotelreservationsystem.ReservationService;
+import hotelreservationsystem.RoomService;
+
+/**
+ * Unit of work executed on a property's writer thread
+ *
+ * @param <T> result type
+ * @author Software Re-Engineering Enhancement
+ */
+@FunctionalInterface
+public interface ShardOperation<T> {
+
+    /**
+     * Runs against the shard's services; may throw the services' checked
+     * exceptions, which complete the returned future exceptionally
+     */
+    T apply(RoomService roomService, ReservationService reservationService) throws Exception;
+}
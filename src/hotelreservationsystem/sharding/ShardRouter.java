@@ -0,0 +1,154 @@
+package hotelreservationsystem.sharding;
+
+import hotelreservationsystem.Reservation;
+import hotelreservationsystem.Room;
+import hotelreservationsystem.UserService;
+import hotelreservationsystem.constants.AppConstants;
+import hotelreservationsystem.exceptions.RoomException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Routes calls to the shard owning a property and fans cross-property
+ * queries out to every shard in parallel.
+ *
+ * Routing is a lookup in a concurrent map; there is no global lock, so
+ * throughput grows with the number of shards. User accounts are not
+ * sharded: a guest's account spans all properties and stays in the
+ * shared UserService.
+ *
+ * @author Software Re-Engineering Enhancement
+ */
+public class ShardRouter implements AutoCloseable {
+    private final Map<Integer, PropertyShard> shards;
+    private final UserService userService;
+
+    public ShardRouter() {
+        this(new UserService());
+    }
+
+    /**
+     * @param userService accounts shared by every property
+     */
+    public ShardRouter(UserService userService) {
+        this.shards = new ConcurrentHashMap<>();
+        this.userService = userService;
+    }
+
+    /**
+     * Registers a new property with its own services and writer thread
+     */
+    public PropertyShard addProperty(int propertyId) {
+        PropertyShard shard = new PropertyShard(propertyId, userService);
+        if (shards.putIfAbsent(propertyId, shard) != null) {
+            shard.close();
+            throw new IllegalArgumentException("Property " + propertyId + " already exists");
+        }
+        return shard;
+    }
+
+    /**
+     * Gets the shard owning a property
+     */
+    public PropertyShard shardFor(int propertyId) {
+        PropertyShard shard = shards.get(propertyId);
+        if (shard == null) {
+            throw new IllegalArgumentException("Unknown property " + propertyId);
+        }
+        return shard;
+    }
+
+    public Collection<PropertyShard> getShards() {
+        return Collections.unmodifiableCollection(shards.values());
+    }
+
+    /**
+     * Runs an operation on the shard owning a property
+     */
+    public <T> CompletableFuture<T> submit(int propertyId, ShardOperation<T> operation) {
+        return shardFor(propertyId).submit(operation);
+    }
+
+    public CompletableFuture<Void> addRoom(int propertyId, Room room) {
+        return submit(propertyId, (rooms, reservations) -> {
+            rooms.addRoom(room);
+            return null;
+        });
+    }
+
+    /**
+     * Removes a room, cancelling its reservations and moving the pending
+     * bookings planned on it
+     *
+     * @return future of the number of reservations cancelled
+     */
+    public CompletableFuture<Integer> removeRoom(int propertyId, int roomId) {
+        return shardFor(propertyId).removeRoom(roomId);
+    }
+
+    /**
+     * Books a reservation and its calendar nights in one writer-thread step,
+     * if the room is open for sale and free for the stay
+     */
+    public CompletableFuture<Void> makeReservation(int propertyId, Reservation reservation) {
+        return submit(propertyId, (rooms, reservations) -> {
+            if (!rooms.isRoomAvailable(reservation.getRoomId(), reservation.getCheckInDate(),
+                                       reservation.getCheckOutDate())) {
+                throw new RoomException(AppConstants.ERROR_ROOM_NOT_AVAILABLE);
+            }
+            rooms.reserveNights(reservation);
+            try {
+                reservations.makeReservation(reservation);
+            } catch (Exception e) {
+                rooms.releaseNights(reservation);
+                throw e;
+            }
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> cancelReservation(int propertyId, int reservationId) {
+        return submit(propertyId, (rooms, reservations) -> {
+            Reservation reservation = reservations.getReservationById(reservationId);
+            reservations.cancelReservation(reservationId);
+            rooms.releaseNights(reservation);
+            return null;
+        });
+    }
+
+    /**
+     * Gets a user's reservations across all properties
+     */
+    public CompletableFuture<List<Reservation>> getReservationsByUserId(int userId) {
+        return broadcast((rooms, reservations) -> reservations.getReservationsByUserId(userId));
+    }
+
+    /**
+     * Runs a query on every shard in parallel and concatenates the results.
+     * The operation must return a copy, not a live view of a service list.
+     */
+    public <T> CompletableFuture<List<T>> broadcast(ShardOperation<List<T>> operation) {
+        List<CompletableFuture<List<T>>> parts = new ArrayList<>();
+        for (PropertyShard shard : shards.values()) {
+            parts.add(shard.submit(operation));
+        }
+        return CompletableFuture.allOf(parts.toArray(new CompletableFuture<?>[0]))
+                .thenApply(done -> {
+                    List<T> merged = new ArrayList<>();
+                    for (CompletableFuture<List<T>> part : parts) {
+                        merged.addAll(part.join());
+                    }
+                    return Collections.unmodifiableList(merged);
+                });
+    }
+
+    @Override
+    public void close() {
+        shards.values().forEach(PropertyShard::close);
+    }
+}
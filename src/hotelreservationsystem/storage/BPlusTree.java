@@ -0,0 +1,494 @@
+package hotelreservationsystem.storage;
+
+import java.nio.ByteBuffer;
+
+/**
+ * B+tree of long keys to fixed-size values, kept in the pages of a
+ * BufferPool.
+ *
+ * Inner pages hold separator keys and child page IDs; leaf pages hold the
+ * entries in key order and are chained left to right, so a range scan is
+ * one descent followed by a walk along the leaves. Lookups, inserts and
+ * removals touch one page per level, O(log n) in all. A value size of
+ * zero makes the tree a sorted set of keys, which is how secondary
+ * indexes use it: the indexed field in the high half of the key and the
+ * entity ID in the low half.
+ *
+ * Removal does not merge underfull pages; space freed in one is reused by
+ * later inserts into the same key range. A page left empty is unlinked
+ * from its parent, and a leaf from the leaf chain, and goes back to the
+ * FreePageList shared by the trees of the file, so a tree whose keys keep
+ * moving forward (save order, dates) does not grow without bound and scans
+ * never walk empty leaves. A root left with a single child is replaced by
+ * it, so the tree also gets shallower again.
+ *
+ * Page layout: type i8 | pad | count i32 | link i64 | entries. A leaf's
+ * link is the next leaf (0 for none) and its entries are key i64 | value;
+ * an inner page's link is its leftmost child and its entries are
+ * key i64 | child i64, each child holding the keys from its separator up
+ * to the next one.
+ *
+ * Not thread-safe.
+ *
+ * @author Software Re-Engineering Enhancement
+ */
+final class BPlusTree {
+    private static final byte LEAF = 1;
+    private static final byte INNER = 2;
+    private static final int TYPE = 0;
+    private static final int COUNT = 4;
+    private static final int LINK = 8;
+    private static final int HEADER_SIZE = 16;
+    private static final long NO_PAGE = 0; // Page 0 is never a tree page
+    private static final int LEFTMOST_CHILD = -1;
+
+    // Outcomes of a removal below a page
+    private static final int ABSENT = 0;
+    private static final int REMOVED = 1;
+    /** The page was left empty and must be dropped by its parent */
+    private static final int EMPTIED = 2;
+
+    /**
+     * Receives the entries of a range scan
+     */
+    interface Visitor {
+        /**
+         * @param page the leaf holding the entry; valid only during the call
+         * @param valueOffset where the entry's value starts in the page
+         * @return false to stop the scan
+         */
+        boolean visit(long key, ByteBuffer page, int valueOffset);
+    }
+
+    /**
+     * Separator and new right-hand page produced by a split
+     */
+    private static final class Split {
+        final long separator;
+        final long pageId;
+
+        Split(long separator, long pageId) {
+            this.separator = separator;
+            this.pageId = pageId;
+        }
+    }
+
+    private final BufferPool pool;
+    private final FreePageList pages;
+    private final int valueSize;
+    private final int leafEntrySize;
+    private final int leafCapacity;
+    private final int innerCapacity;
+    private long root;
+
+    /**
+     * Opens the tree rooted at the given page
+     */
+    BPlusTree(BufferPool pool, FreePageList pages, int valueSize, long root) {
+        this.pool = pool;
+        this.pages = pages;
+        this.valueSize = valueSize;
+        this.leafEntrySize = Long.BYTES + valueSize;
+        this.leafCapacity = (pool.getPageSize() - HEADER_SIZE) / leafEntrySize;
+        this.innerCapacity = (pool.getPageSize() - HEADER_SIZE) / (2 * Long.BYTES);
+        if (leafCapacity < 2 || innerCapacity < 2) {
+            throw new IllegalArgumentException("Page size too small for the tree");
+        }
+        this.root = root;
+    }
+
+    /**
+     * Creates an empty tree in a new page
+     */
+    static BPlusTree create(BufferPool pool, FreePageList pages, int valueSize) {
+        long pageId = pages.allocate();
+        ByteBuffer page = pool.pinNew(pageId);
+        page.put(TYPE, LEAF);
+        pool.unpin(pageId, true);
+        return new BPlusTree(pool, pages, valueSize, pageId);
+    }
+
+    /**
+     * Page holding the root; it changes when the root splits or collapses
+     */
+    long getRoot() {
+        return root;
+    }
+
+    /**
+     * Copies the value of the key into the buffer at its position
+     *
+     * @return false if the key is absent
+     */
+    boolean get(long key, ByteBuffer value) {
+        long pageId = findLeaf(key);
+        ByteBuffer page = pool.pin(pageId);
+        try {
+            int index = search(page, key, HEADER_SIZE, leafEntrySize);
+            if (index < 0) {
+                return false;
+            }
+            value.put(value.position(), page, valueOffset(index), valueSize);
+            return true;
+        } finally {
+            pool.unpin(pageId, false);
+        }
+    }
+
+    boolean contains(long key) {
+        long pageId = findLeaf(key);
+        ByteBuffer page = pool.pin(pageId);
+        try {
+            return search(page, key, HEADER_SIZE, leafEntrySize) >= 0;
+        } finally {
+            pool.unpin(pageId, false);
+        }
+    }
+
+    /**
+     * Adds the key, or replaces its value
+     *
+     * @param value buffer whose next valueSize bytes are the value
+     */
+    void put(long key, ByteBuffer value) {
+        Split split = insert(root, key, value);
+        if (split != null) {
+            long newRoot = pages.allocate();
+            ByteBuffer page = pool.pinNew(newRoot);
+            page.put(TYPE, INNER);
+            page.putInt(COUNT, 1);
+            page.putLong(LINK, root);
+            page.putLong(HEADER_SIZE, split.separator);
+            page.putLong(HEADER_SIZE + Long.BYTES, split.pageId);
+            pool.unpin(newRoot, true);
+            root = newRoot;
+        }
+    }
+
+    /**
+     * @return false if the key is absent
+     */
+    boolean remove(long key) {
+        if (remove(root, key, NO_PAGE) == ABSENT) {
+            return false;
+        }
+        collapseRoot();
+        return true;
+    }
+
+    /**
+     * Visits the entries with keys in [fromKey, toKey), in key order
+     */
+    void scan(long fromKey, long toKey, Visitor visitor) {
+        long pageId = findLeaf(fromKey);
+        while (pageId != NO_PAGE) {
+            ByteBuffer page = pool.pin(pageId);
+            long nextId;
+            try {
+                int count = page.getInt(COUNT);
+                int index = search(page, fromKey, HEADER_SIZE, leafEntrySize);
+                for (int i = index < 0 ? -index - 1 : index; i < count; i++) {
+                    long key = page.getLong(HEADER_SIZE + i * leafEntrySize);
+                    if (key >= toKey || !visitor.visit(key, page, valueOffset(i))) {
+                        return;
+                    }
+                }
+                nextId = page.getLong(LINK);
+            } finally {
+                pool.unpin(pageId, false);
+            }
+            pageId = nextId;
+        }
+    }
+
+    private long findLeaf(long key) {
+        long pageId = root;
+        while (true) {
+            ByteBuffer page = pool.pin(pageId);
+            long childId;
+            try {
+                if (page.get(TYPE) == LEAF) {
+                    return pageId;
+                }
+                childId = child(page, key);
+            } finally {
+                pool.unpin(pageId, false);
+            }
+            pageId = childId;
+        }
+    }
+
+    /**
+     * Inserts below the page, which stays pinned while its child is
+     * updated, so a split can be recorded in it
+     *
+     * @return the split of this page, or null if it did not split
+     */
+    private Split insert(long pageId, long key, ByteBuffer value) {
+        ByteBuffer page = pool.pin(pageId);
+        boolean changed = true;
+        try {
+            if (page.get(TYPE) == LEAF) {
+                return insertIntoLeaf(page, key, value);
+            }
+            Split childSplit = insert(child(page, key), key, value);
+            changed = childSplit != null;
+            return changed ? insertIntoInner(page, childSplit) : null;
+        } finally {
+            pool.unpin(pageId, changed);
+        }
+    }
+
+    /**
+     * Removes below the page, which stays pinned while its child is
+     * updated, so an emptied child can be dropped from it
+     *
+     * @param leftSubtree root of the subtree just left of this page's,
+     *        whose rightmost leaf links to this page's leftmost leaf;
+     *        NO_PAGE at the left edge of the tree
+     * @return ABSENT, REMOVED, or EMPTIED if this page is left empty
+     */
+    private int remove(long pageId, long key, long leftSubtree) {
+        ByteBuffer page = pool.pin(pageId);
+        boolean changed = false;
+        try {
+            int count = page.getInt(COUNT);
+            if (page.get(TYPE) == LEAF) {
+                int index = search(page, key, HEADER_SIZE, leafEntrySize);
+                if (index < 0) {
+                    return ABSENT;
+                }
+                int offset = HEADER_SIZE + index * leafEntrySize;
+                page.put(offset, page, offset + leafEntrySize, (count - index - 1) * leafEntrySize);
+                page.putInt(COUNT, count - 1);
+                changed = true;
+                if (count > 1 || pageId == root) {
+                    return REMOVED;
+                }
+                unlinkLeaf(leftSubtree, page.getLong(LINK));
+                return EMPTIED;
+            }
+
+            int entry = childEntry(page, key);
+            long childLeft = entry == LEFTMOST_CHILD ? leftSubtree : childAt(page, entry - 1);
+            long childId = childAt(page, entry);
+            int result = remove(childId, key, childLeft);
+            if (result != EMPTIED) {
+                return result;
+            }
+            pages.free(childId);
+            changed = true;
+            if (count == 0) {
+                // The only child is gone
+                if (pageId != root) {
+                    return EMPTIED;
+                }
+                page.put(TYPE, LEAF);
+                page.putLong(LINK, NO_PAGE);
+                return REMOVED;
+            }
+            removeChild(page, count, entry);
+            return REMOVED;
+        } finally {
+            pool.unpin(pageId, changed);
+        }
+    }
+
+    /**
+     * Points the leaf before an emptied one at the leaf after it
+     *
+     * @param leftSubtree subtree holding the leaf before, or NO_PAGE
+     */
+    private void unlinkLeaf(long leftSubtree, long nextLeaf) {
+        if (leftSubtree == NO_PAGE) {
+            return; // The emptied leaf was the first; nothing links to it
+        }
+        long pageId = leftSubtree;
+        while (true) {
+            ByteBuffer page = pool.pin(pageId);
+            long childId;
+            boolean changed = false;
+            try {
+                if (page.get(TYPE) == LEAF) {
+                    page.putLong(LINK, nextLeaf);
+                    changed = true;
+                    return;
+                }
+                childId = childAt(page, page.getInt(COUNT) - 1);
+            } finally {
+                pool.unpin(pageId, changed);
+            }
+            pageId = childId;
+        }
+    }
+
+    /**
+     * Drops a child from an inner page holding more than one. Keys that
+     * went to it go to the child before it, or for the leftmost child to
+     * the one after it.
+     */
+    private static void removeChild(ByteBuffer page, int count, int entry) {
+        int entrySize = 2 * Long.BYTES;
+        if (entry == LEFTMOST_CHILD) {
+            page.putLong(LINK, page.getLong(HEADER_SIZE + Long.BYTES));
+            entry = 0;
+        }
+        int offset = HEADER_SIZE + entry * entrySize;
+        page.put(offset, page, offset + entrySize, (count - entry - 1) * entrySize);
+        page.putInt(COUNT, count - 1);
+    }
+
+    /**
+     * Replaces an inner root holding a single child by that child
+     */
+    private void collapseRoot() {
+        while (true) {
+            ByteBuffer page = pool.pin(root);
+            long onlyChild;
+            try {
+                if (page.get(TYPE) == LEAF || page.getInt(COUNT) > 0) {
+                    return;
+                }
+                onlyChild = page.getLong(LINK);
+            } finally {
+                pool.unpin(root, false);
+            }
+            pages.free(root);
+            root = onlyChild;
+        }
+    }
+
+    private Split insertIntoLeaf(ByteBuffer page, long key, ByteBuffer value) {
+        int index = search(page, key, HEADER_SIZE, leafEntrySize);
+        if (index >= 0) {
+            page.put(valueOffset(index), value, value.position(), valueSize);
+            return null;
+        }
+        index = -index - 1;
+        int count = page.getInt(COUNT);
+        if (count < leafCapacity) {
+            insertLeafEntry(page, count, index, key, value);
+            return null;
+        }
+
+        long rightId = pages.allocate();
+        ByteBuffer right = pool.pinNew(rightId);
+        try {
+            int leftCount = (count + 1) / 2;
+            int moved = count - leftCount;
+            right.put(TYPE, LEAF);
+            right.putInt(COUNT, moved);
+            right.putLong(LINK, page.getLong(LINK));
+            right.put(HEADER_SIZE, page, HEADER_SIZE + leftCount * leafEntrySize,
+                      moved * leafEntrySize);
+            page.putInt(COUNT, leftCount);
+            page.putLong(LINK, rightId);
+            if (index <= leftCount) {
+                insertLeafEntry(page, leftCount, index, key, value);
+            } else {
+                insertLeafEntry(right, moved, index - leftCount, key, value);
+            }
+            return new Split(right.getLong(HEADER_SIZE), rightId);
+        } finally {
+            pool.unpin(rightId, true);
+        }
+    }
+
+    private void insertLeafEntry(ByteBuffer page, int count, int index, long key, ByteBuffer value) {
+        int offset = HEADER_SIZE + index * leafEntrySize;
+        page.put(offset + leafEntrySize, page, offset, (count - index) * leafEntrySize);
+        page.putLong(offset, key);
+        page.put(offset + Long.BYTES, value, value.position(), valueSize);
+        page.putInt(COUNT, count + 1);
+    }
+
+    private Split insertIntoInner(ByteBuffer page, Split childSplit) {
+        int entrySize = 2 * Long.BYTES;
+        int count = page.getInt(COUNT);
+        int index = -search(page, childSplit.separator, HEADER_SIZE, entrySize) - 1;
+        if (count < innerCapacity) {
+            insertInnerEntry(page, count, index, childSplit);
+            return null;
+        }
+
+        // The middle separator moves up; its child becomes the right page's leftmost
+        long rightId = pages.allocate();
+        ByteBuffer right = pool.pinNew(rightId);
+        try {
+            int leftCount = count / 2;
+            int middle = HEADER_SIZE + leftCount * entrySize;
+            long separator = page.getLong(middle);
+            int moved = count - leftCount - 1;
+            right.put(TYPE, INNER);
+            right.putInt(COUNT, moved);
+            right.putLong(LINK, page.getLong(middle + Long.BYTES));
+            right.put(HEADER_SIZE, page, middle + entrySize, moved * entrySize);
+            page.putInt(COUNT, leftCount);
+            if (childSplit.separator < separator) {
+                insertInnerEntry(page, leftCount, index, childSplit);
+            } else {
+                insertInnerEntry(right, moved, index - leftCount - 1, childSplit);
+            }
+            return new Split(separator, rightId);
+        } finally {
+            pool.unpin(rightId, true);
+        }
+    }
+
+    private static void insertInnerEntry(ByteBuffer page, int count, int index, Split split) {
+        int entrySize = 2 * Long.BYTES;
+        int offset = HEADER_SIZE + index * entrySize;
+        page.put(offset + entrySize, page, offset, (count - index) * entrySize);
+        page.putLong(offset, split.separator);
+        page.putLong(offset + Long.BYTES, split.pageId);
+        page.putInt(COUNT, count + 1);
+    }
+
+    /**
+     * Child of an inner page whose range holds the key
+     */
+    private static long child(ByteBuffer page, long key) {
+        return childAt(page, childEntry(page, key));
+    }
+
+    /**
+     * Entry of an inner page whose child's range holds the key, or
+     * LEFTMOST_CHILD
+     */
+    private static int childEntry(ByteBuffer page, long key) {
+        int index = search(page, key, HEADER_SIZE, 2 * Long.BYTES);
+        // Exact match: the separator's own child; otherwise the one before the insertion point
+        return index >= 0 ? index : -index - 2;
+    }
+
+    private static long childAt(ByteBuffer page, int entry) {
+        return entry == LEFTMOST_CHILD ? page.getLong(LINK)
+                : page.getLong(HEADER_SIZE + entry * 2 * Long.BYTES + Long.BYTES);
+    }
+
+    private int valueOffset(int index) {
+        return HEADER_SIZE + index * leafEntrySize + Long.BYTES;
+    }
+
+    /**
+     * Binary search over the page's entry keys
+     *
+     * @return index of the key, or -(insertion point) - 1 like Arrays.binarySearch
+     */
+    private static int search(ByteBuffer page, long key, int start, int entrySize) {
+        int low = 0;
+        int high = page.getInt(COUNT) - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midKey = page.getLong(start + mid * entrySize);
+            if (midKey < key) {
+                low = mid + 1;
+            } else if (midKey > key) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+}
@@ -0,0 +1,456 @@
+package hotelreservationsystem.storage;
+
+import hotelreservationsystem.EntityCodec;
+import hotelreservationsystem.Reservation;
+import hotelreservationsystem.utils.DateUtils;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+
+/**
+ * Reservation store kept in B+trees in a single page file, for more
+ * reservations than fit in memory.
+ *
+ * The primary tree maps reservation ID to the reservation encoded with
+ * EntityCodec. Secondary trees hold (user ID, reservation ID),
+ * (room ID, reservation ID), (check-in day, reservation ID) and
+ * (check-out day, reservation ID), so every ReservationRepository query
+ * is one O(log n) descent plus a walk over the matches, and arrival and
+ * departure reports are range scans. One more tree records the order
+ * reservations were first saved, which iteration follows. Results by
+ * user and by room come in reservation ID order.
+ *
+ * Pages are read and written through a BufferPool of fixed size, so
+ * memory use is bounded however many reservations are stored; its hit
+ * rate shows how much of the working set fits. Total cost and the count
+ * are kept in the first page with the tree roots and the head of the
+ * list of pages the trees have freed.
+ *
+ * Changed pages reach the file when evicted and all of them at a
+ * checkpoint: on flush, on close, and whenever the change log has grown
+ * past CHECKPOINT_LOG_BYTES. Each change is appended to a ChangeLog
+ * (file.log) before it is applied, and each page overwritten since the
+ * last checkpoint is first saved in a PageJournal (file.journal). A
+ * store not closed cleanly is recovered on open: the journal puts the
+ * file back the way it was at the last checkpoint, and the log replays
+ * the changes made since, so a crash of the process loses nothing, as
+ * with FileRepository. I/O failures after opening are thrown as
+ * UncheckedIOException.
+ *
+ * Methods are synchronized because even reads move pages in and out of
+ * the pool.
+ *
+ * @author Software Re-Engineering Enhancement
+ */
+public final class BTreeReservationRepository implements ReservationRepository {
+    public static final int PAGE_SIZE = 4096;
+    /** 4 MB of pages */
+    public static final int DEFAULT_CACHE_PAGES = 1024;
+    /** Change log size that triggers a checkpoint */
+    public static final long CHECKPOINT_LOG_BYTES = 4 << 20;
+
+    private static final int MAGIC = 0x48525342;
+    private static final int VERSION = 2;
+    private static final long META_PAGE = 0;
+    private static final int META_MAGIC = 0;
+    private static final int META_VERSION = 4;
+    private static final int META_PAGE_SIZE = 8;
+    private static final int META_GENERATION = 16;
+    private static final int META_SIZE = 24;
+    private static final int META_NEXT_SEQUENCE = 32;
+    private static final int META_TOTAL_COST = 40;
+    private static final int META_ROOTS = 48;
+    /** Zero in files written before pages were freed: an empty list */
+    private static final int META_FREE_PAGES = 96;
+    private static final int ITERATOR_BATCH = 256;
+
+    // Tree slots in the meta page
+    private static final int PRIMARY = 0;
+    private static final int ORDER = 1;
+    private static final int BY_USER = 2;
+    private static final int BY_ROOM = 3;
+    private static final int BY_CHECK_IN = 4;
+    private static final int BY_CHECK_OUT = 5;
+    private static final int TREE_COUNT = 6;
+
+    // Primary values: save sequence i64 | reservation
+    private static final int RECORD_OFFSET = Long.BYTES;
+    private static final int RECORD_SIZE = RECORD_OFFSET + EntityCodec.RESERVATION_SIZE;
+    private static final ByteBuffer NO_VALUE = ByteBuffer.allocate(0);
+
+    private final Path file;
+    private final FileChannel channel;
+    private final PageJournal journal;
+    private final ChangeLog log;
+    private final BufferPool pool;
+    private FreePageList freePages;
+    private final BPlusTree[] trees;
+    private final ByteBuffer record;
+    private final ByteBuffer entity;
+    private final ByteBuffer reservationId;
+    private long generation;
+    private int size;
+    private long nextSequence;
+    private long totalCostCents;
+
+    /**
+     * Opens (or creates) the store with the default cache size
+     *
+     * @throws IOException if the file cannot be opened or recovered, or is
+     *         not a store
+     */
+    public BTreeReservationRepository(Path file) throws IOException {
+        this(file, DEFAULT_CACHE_PAGES);
+    }
+
+    /**
+     * @param cachePages pages the buffer pool holds
+     */
+    public BTreeReservationRepository(Path file, int cachePages) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                        StandardOpenOption.WRITE);
+        this.record = ByteBuffer.allocate(RECORD_SIZE);
+        this.entity = ByteBuffer.allocate(EntityCodec.RESERVATION_SIZE);
+        this.reservationId = ByteBuffer.allocate(Integer.BYTES);
+        this.trees = new BPlusTree[TREE_COUNT];
+        PageJournal pageJournal = null;
+        ChangeLog changeLog = null;
+        try {
+            this.journal = pageJournal = new PageJournal(sibling(file, ".journal"), channel, PAGE_SIZE);
+            this.log = changeLog = new ChangeLog(sibling(file, ".log"));
+            pageJournal.rollBack();
+            this.pool = new BufferPool(channel, pageJournal, PAGE_SIZE, cachePages);
+            pageJournal.checkpoint(pool.getPageCount());
+            if (pool.getPageCount() == 0) {
+                create();
+            } else {
+                open();
+            }
+        } catch (IOException | RuntimeException e) {
+            if (changeLog != null) {
+                changeLog.close();
+            }
+            if (pageJournal != null) {
+                pageJournal.close();
+            }
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public synchronized void save(Reservation reservation) {
+        EntityCodec.write(entity.clear(), reservation);
+        log.saved(reservation.getReservationId(), entity.flip());
+        apply(reservation);
+        checkpointIfDue();
+    }
+
+    @Override
+    public synchronized Optional<Reservation> findById(int id) {
+        return trees[PRIMARY].get(id, record.clear()) ? Optional.of(decode(record)) : Optional.empty();
+    }
+
+    @Override
+    public synchronized boolean contains(int id) {
+        return trees[PRIMARY].contains(id);
+    }
+
+    @Override
+    public synchronized boolean remove(int id) {
+        if (!trees[PRIMARY].contains(id)) {
+            return false;
+        }
+        log.removed(id);
+        delete(id);
+        checkpointIfDue();
+        return true;
+    }
+
+    @Override
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Iterates in the order reservations were first saved, reading a
+     * batch at a time
+     */
+    @Override
+    public Iterator<Reservation> iterator() {
+        return new Iterator<Reservation>() {
+            private List<Reservation> batch = new ArrayList<>();
+            private int index;
+            private long cursor; // Next save sequence to read
+
+            @Override
+            public boolean hasNext() {
+                if (index == batch.size()) {
+                    batch = readBatch();
+                    index = 0;
+                }
+                return index < batch.size();
+            }
+
+            @Override
+            public Reservation next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return batch.get(index++);
+            }
+
+            private List<Reservation> readBatch() {
+                synchronized (BTreeReservationRepository.this) {
+                    List<Integer> ids = new ArrayList<>(ITERATOR_BATCH);
+                    trees[ORDER].scan(cursor, Long.MAX_VALUE, (sequence, page, offset) -> {
+                        ids.add(page.getInt(offset));
+                        cursor = sequence + 1;
+                        return ids.size() < ITERATOR_BATCH;
+                    });
+                    return load(ids);
+                }
+            }
+        };
+    }
+
+    @Override
+    public synchronized List<Reservation> findByUserId(int userId) {
+        return load(idsInRange(BY_USER, userId, userId + 1L));
+    }
+
+    @Override
+    public synchronized List<Reservation> findByRoomId(int roomId) {
+        return load(idsInRange(BY_ROOM, roomId, roomId + 1L));
+    }
+
+    @Override
+    public synchronized List<Reservation> findByCheckInDay(int fromDay, int toDay) {
+        return load(idsInRange(BY_CHECK_IN, fromDay, toDay));
+    }
+
+    @Override
+    public synchronized List<Reservation> findByCheckOutDay(int fromDay, int toDay) {
+        return load(idsInRange(BY_CHECK_OUT, fromDay, toDay));
+    }
+
+    @Override
+    public synchronized long getTotalCostCents() {
+        return totalCostCents;
+    }
+
+    /**
+     * Hit rate and I/O metrics of the page cache
+     */
+    public synchronized BufferPool.Stats getBufferPoolStats() {
+        return pool.getStats();
+    }
+
+    /**
+     * Writes every change to the file and forces it to disk, emptying the
+     * change log and the page journal
+     */
+    public synchronized void flush() {
+        checkpoint();
+    }
+
+    /**
+     * Flushes and closes the files; does nothing if already closed
+     */
+    @Override
+    public synchronized void close() {
+        if (!channel.isOpen()) {
+            return;
+        }
+        try {
+            checkpoint();
+        } finally {
+            try {
+                log.close();
+                journal.close();
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private void create() {
+        long metaPage = pool.allocate();
+        pool.pinNew(metaPage);
+        pool.unpin(metaPage, true);
+        freePages = new FreePageList(pool, 0);
+        trees[PRIMARY] = BPlusTree.create(pool, freePages, RECORD_SIZE);
+        trees[ORDER] = BPlusTree.create(pool, freePages, Integer.BYTES);
+        for (int tree = BY_USER; tree < TREE_COUNT; tree++) {
+            trees[tree] = BPlusTree.create(pool, freePages, 0);
+        }
+        checkpoint();
+    }
+
+    private void open() throws IOException {
+        ByteBuffer meta = pool.pin(META_PAGE);
+        try {
+            if (meta.getInt(META_MAGIC) != MAGIC || meta.getInt(META_VERSION) != VERSION
+                    || meta.getInt(META_PAGE_SIZE) != PAGE_SIZE) {
+                throw new IOException(file + " is not a reservation store");
+            }
+            generation = meta.getLong(META_GENERATION);
+            size = (int) meta.getLong(META_SIZE);
+            nextSequence = meta.getLong(META_NEXT_SEQUENCE);
+            totalCostCents = meta.getLong(META_TOTAL_COST);
+            freePages = new FreePageList(pool, meta.getLong(META_FREE_PAGES));
+            for (int tree = 0; tree < TREE_COUNT; tree++) {
+                int valueSize = tree == PRIMARY ? RECORD_SIZE : tree == ORDER ? Integer.BYTES : 0;
+                trees[tree] = new BPlusTree(pool, freePages, valueSize,
+                                            meta.getLong(META_ROOTS + tree * Long.BYTES));
+            }
+        } finally {
+            pool.unpin(META_PAGE, false);
+        }
+        log.replay(generation, new ChangeLog.Visitor() {
+            @Override
+            public void saved(int id, ByteBuffer entity) {
+                apply(EntityCodec.readReservation(entity));
+            }
+
+            @Override
+            public void removed(int id) {
+                if (trees[PRIMARY].contains(id)) {
+                    delete(id);
+                }
+            }
+        });
+        // Also restarts a log left behind by a checkpoint cut short
+        checkpoint();
+    }
+
+    /**
+     * Makes the file as it stands the new recovery point: the meta page
+     * of the next generation and every changed page are forced to disk,
+     * then the journal and the log, no longer needed, are emptied
+     */
+    private void checkpoint() {
+        generation++;
+        writeMeta();
+        pool.flush();
+        journal.checkpoint(pool.getPageCount());
+        log.reset(generation);
+    }
+
+    private void checkpointIfDue() {
+        if (log.size() >= CHECKPOINT_LOG_BYTES) {
+            checkpoint();
+        }
+    }
+
+    private void apply(Reservation reservation) {
+        int id = reservation.getReservationId();
+        long sequence;
+        if (trees[PRIMARY].get(id, record.clear())) {
+            sequence = record.getLong(0);
+            unindex(decode(record));
+        } else {
+            sequence = nextSequence++;
+            trees[ORDER].put(sequence, reservationId.putInt(0, id));
+            size++;
+        }
+        record.clear().putLong(sequence);
+        EntityCodec.write(record, reservation);
+        trees[PRIMARY].put(id, record.flip());
+        index(reservation);
+    }
+
+    private void delete(int id) {
+        trees[PRIMARY].get(id, record.clear());
+        trees[PRIMARY].remove(id);
+        trees[ORDER].remove(record.getLong(0));
+        unindex(decode(record));
+        size--;
+    }
+
+    private void writeMeta() {
+        ByteBuffer meta = pool.pin(META_PAGE);
+        try {
+            meta.putInt(META_MAGIC, MAGIC);
+            meta.putInt(META_VERSION, VERSION);
+            meta.putInt(META_PAGE_SIZE, PAGE_SIZE);
+            meta.putLong(META_GENERATION, generation);
+            meta.putLong(META_SIZE, size);
+            meta.putLong(META_NEXT_SEQUENCE, nextSequence);
+            meta.putLong(META_TOTAL_COST, totalCostCents);
+            for (int tree = 0; tree < TREE_COUNT; tree++) {
+                meta.putLong(META_ROOTS + tree * Long.BYTES, trees[tree].getRoot());
+            }
+            meta.putLong(META_FREE_PAGES, freePages.getHead());
+        } finally {
+            pool.unpin(META_PAGE, true);
+        }
+    }
+
+    private void index(Reservation reservation) {
+        int id = reservation.getReservationId();
+        trees[BY_USER].put(key(reservation.getUserId(), id), NO_VALUE);
+        trees[BY_ROOM].put(key(reservation.getRoomId(), id), NO_VALUE);
+        trees[BY_CHECK_IN].put(key(DateUtils.toEpochDay(reservation.getCheckInDate()), id), NO_VALUE);
+        trees[BY_CHECK_OUT].put(key(DateUtils.toEpochDay(reservation.getCheckOutDate()), id), NO_VALUE);
+        totalCostCents += toCents(reservation.getTotalCost());
+    }
+
+    private void unindex(Reservation reservation) {
+        int id = reservation.getReservationId();
+        trees[BY_USER].remove(key(reservation.getUserId(), id));
+        trees[BY_ROOM].remove(key(reservation.getRoomId(), id));
+        trees[BY_CHECK_IN].remove(key(DateUtils.toEpochDay(reservation.getCheckInDate()), id));
+        trees[BY_CHECK_OUT].remove(key(DateUtils.toEpochDay(reservation.getCheckOutDate()), id));
+        totalCostCents -= toCents(reservation.getTotalCost());
+    }
+
+    /**
+     * Reservation IDs in a secondary tree whose indexed field is in
+     * [from, to)
+     */
+    private List<Integer> idsInRange(int tree, long from, long to) {
+        List<Integer> ids = new ArrayList<>();
+        if (from < to) {
+            trees[tree].scan(from << 32, to << 32, (key, page, offset) -> ids.add((int) key));
+        }
+        return ids;
+    }
+
+    private List<Reservation> load(List<Integer> ids) {
+        List<Reservation> reservations = new ArrayList<>(ids.size());
+        for (int id : ids) {
+            findById(id).ifPresent(reservations::add);
+        }
+        return reservations;
+    }
+
+    private static Path sibling(Path file, String suffix) {
+        return file.resolveSibling(file.getFileName() + suffix);
+    }
+
+    private static Reservation decode(ByteBuffer record) {
+        return EntityCodec.readReservation(record.position(RECORD_OFFSET));
+    }
+
+    /**
+     * Secondary key ordering by field, then reservation ID (IDs are positive)
+     */
+    private static long key(int field, int reservationId) {
+        return ((long) field << 32) | reservationId;
+    }
+
+    private static long toCents(double amount) {
+        return Math.round(amount * 100);
+    }
+}
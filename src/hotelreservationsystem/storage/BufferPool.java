@@ -0,0 +1,315 @@
+package hotelreservationsystem.storage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fixed-size cache of the pages of a file, read and written through a
+ * FileChannel.
+ *
+ * Pages live in frames carved out of one direct buffer, so the cache
+ * costs a fixed amount of memory, outside the heap, however large the
+ * file grows. A page is pinned while in use and cannot be evicted until
+ * it is unpinned. When a frame is needed the clock algorithm picks an
+ * unpinned page not used since the hand last passed it, writing it back
+ * first if it was changed. Everything changed is written back on flush.
+ * With a PageJournal, a page's original image is saved in it before the
+ * page is first overwritten.
+ *
+ * Callers read and write pages with absolute gets and puts only. Not
+ * thread-safe.
+ *
+ * @author Software Re-Engineering Enhancement
+ */
+public class BufferPool {
+    /** Fewest frames a pool may have: enough pins for a B+tree insert */
+    public static final int MIN_FRAMES = 16;
+
+    private static final long NO_PAGE = -1;
+
+    /**
+     * Point-in-time buffer pool metrics
+     */
+    public static final class Stats {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final long pageWrites;
+        private final long pageCount;
+
+        Stats(long hits, long misses, long evictions, long pageWrites, long pageCount) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.pageWrites = pageWrites;
+            this.pageCount = pageCount;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        /**
+         * Pins that had to read the page from the file
+         */
+        public long getMisses() {
+            return misses;
+        }
+
+        /**
+         * Pages dropped from the pool to make room for others
+         */
+        public long getEvictions() {
+            return evictions;
+        }
+
+        /**
+         * Changed pages written back to the file
+         */
+        public long getPageWrites() {
+            return pageWrites;
+        }
+
+        /**
+         * Pages in the file
+         */
+        public long getPageCount() {
+            return pageCount;
+        }
+
+        public double getHitRate() {
+            long pins = hits + misses;
+            return pins == 0 ? 0.0 : (double) hits / pins;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Hits: %d | Misses: %d | Hit rate: %.1f%% | Evictions: %d | " +
+                                 "Page writes: %d | Pages: %d",
+                                 hits, misses, getHitRate() * 100, evictions, pageWrites, pageCount);
+        }
+    }
+
+    private final FileChannel channel;
+    private final PageJournal journal;
+    private final int pageSize;
+    private final ByteBuffer[] frames;
+    private final long[] pageIds;
+    private final int[] pins;
+    private final boolean[] dirty;
+    private final boolean[] referenced;
+    private final Map<Long, Integer> frameOf;
+    private int hand;
+    private long pageCount;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long pageWrites;
+
+    /**
+     * @param channel file of whole pages, open for reading and writing
+     * @param frameCount pages held in memory at once
+     */
+    public BufferPool(FileChannel channel, int pageSize, int frameCount) throws IOException {
+        this(channel, null, pageSize, frameCount);
+    }
+
+    /**
+     * @param journal where pages are saved before being overwritten, or null
+     */
+    BufferPool(FileChannel channel, PageJournal journal, int pageSize, int frameCount)
+            throws IOException {
+        if (pageSize <= 0 || frameCount < MIN_FRAMES) {
+            throw new IllegalArgumentException("Invalid buffer pool configuration");
+        }
+        this.channel = channel;
+        this.journal = journal;
+        this.pageSize = pageSize;
+        this.frames = new ByteBuffer[frameCount];
+        ByteBuffer memory = ByteBuffer.allocateDirect(Math.multiplyExact(pageSize, frameCount));
+        for (int frame = 0; frame < frameCount; frame++) {
+            frames[frame] = memory.slice(frame * pageSize, pageSize);
+        }
+        this.pageIds = new long[frameCount];
+        Arrays.fill(pageIds, NO_PAGE);
+        this.pins = new int[frameCount];
+        this.dirty = new boolean[frameCount];
+        this.referenced = new boolean[frameCount];
+        this.frameOf = new HashMap<>(frameCount * 2);
+        this.pageCount = channel.size() / pageSize;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public long getPageCount() {
+        return pageCount;
+    }
+
+    /**
+     * Adds a page at the end of the file
+     *
+     * @return its ID, for pinNew
+     */
+    public long allocate() {
+        return pageCount++;
+    }
+
+    /**
+     * Pins a page, reading it from the file if it is not cached
+     *
+     * @throws IllegalStateException if every frame is pinned
+     */
+    public ByteBuffer pin(long pageId) {
+        if (pageId < 0 || pageId >= pageCount) {
+            throw new IllegalArgumentException("No page " + pageId);
+        }
+        Integer cached = frameOf.get(pageId);
+        if (cached != null) {
+            hits++;
+            return use(cached);
+        }
+        misses++;
+        int frame = claimFrame(pageId);
+        ByteBuffer buffer = frames[frame].clear();
+        try {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, pageId * pageSize + buffer.position()) < 0) {
+                    // Allocated but never written back: still blank
+                    while (buffer.hasRemaining()) {
+                        buffer.put((byte) 0);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            frameOf.remove(pageId);
+            pageIds[frame] = NO_PAGE;
+            throw new UncheckedIOException(e);
+        }
+        return use(frame);
+    }
+
+    /**
+     * Pins a page to be written from scratch, zeroed, without reading the
+     * file: one freshly allocated, or a freed one being reused
+     */
+    public ByteBuffer pinNew(long pageId) {
+        if (pageId < 0 || pageId >= pageCount) {
+            throw new IllegalArgumentException("No page " + pageId);
+        }
+        Integer cached = frameOf.get(pageId);
+        if (cached != null && pins[cached] > 0) {
+            throw new IllegalStateException("Page " + pageId + " is in use");
+        }
+        int frame = cached != null ? cached : claimFrame(pageId);
+        ByteBuffer buffer = frames[frame];
+        for (int offset = 0; offset < pageSize; offset += Long.BYTES) {
+            buffer.putLong(offset, 0L);
+        }
+        dirty[frame] = true;
+        return use(frame);
+    }
+
+    /**
+     * Releases a pin
+     *
+     * @param changed whether the page was written to while pinned
+     */
+    public void unpin(long pageId, boolean changed) {
+        Integer frame = frameOf.get(pageId);
+        if (frame == null || pins[frame] == 0) {
+            throw new IllegalStateException("Page " + pageId + " is not pinned");
+        }
+        pins[frame]--;
+        dirty[frame] |= changed;
+    }
+
+    /**
+     * Writes every changed page back and forces the file to disk
+     */
+    public void flush() {
+        List<Integer> changed = new ArrayList<>();
+        List<Long> changedPages = new ArrayList<>();
+        for (int frame = 0; frame < frames.length; frame++) {
+            if (dirty[frame]) {
+                changed.add(frame);
+                changedPages.add(pageIds[frame]);
+            }
+        }
+        if (journal != null) {
+            journal.save(changedPages); // One force for all of them
+        }
+        for (int frame : changed) {
+            writeBack(frame);
+        }
+        try {
+            channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public Stats getStats() {
+        return new Stats(hits, misses, evictions, pageWrites, pageCount);
+    }
+
+    private ByteBuffer use(int frame) {
+        pins[frame]++;
+        referenced[frame] = true;
+        return frames[frame];
+    }
+
+    /**
+     * Finds a frame for the page with the clock algorithm, evicting the
+     * page in it
+     */
+    private int claimFrame(long pageId) {
+        for (int step = 0; step < 2 * frames.length; step++) {
+            int frame = hand;
+            hand = (hand + 1) % frames.length;
+            if (pins[frame] > 0) {
+                continue;
+            }
+            if (referenced[frame]) {
+                referenced[frame] = false; // Second chance
+                continue;
+            }
+            if (pageIds[frame] != NO_PAGE) {
+                if (dirty[frame]) {
+                    writeBack(frame);
+                }
+                frameOf.remove(pageIds[frame]);
+                evictions++;
+            }
+            pageIds[frame] = pageId;
+            frameOf.put(pageId, frame);
+            return frame;
+        }
+        throw new IllegalStateException("Every page in the buffer pool is pinned");
+    }
+
+    private void writeBack(int frame) {
+        if (journal != null) {
+            journal.save(pageIds[frame]);
+        }
+        ByteBuffer buffer = frames[frame].clear();
+        long position = pageIds[frame] * pageSize;
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, position + buffer.position());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        dirty[frame] = false;
+        pageWrites++;
+    }
+}
@@ -0,0 +1,161 @@
+package hotelreservationsystem.storage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Redo log of the changes made to a store since its last checkpoint, to
+ * be replayed over the checkpoint after a crash.
+ *
+ * Changes are appended before they are applied. Like FileRepository's
+ * log they reach the OS as they are made but are not forced, so a crash
+ * of the process loses nothing while a power failure may lose the latest
+ * changes; a record torn by it is ignored on replay. The header carries
+ * the generation of the checkpoint the changes follow, so a log left over
+ * from an older checkpoint is never replayed over a newer one.
+ *
+ * Header: magic i32 | generation i64. Records: id i32 | length i32 |
+ * entity, where length -1 is a removal with no entity.
+ *
+ * @author Software Re-Engineering Enhancement
+ */
+final class ChangeLog implements AutoCloseable {
+    private static final int MAGIC = 0x4852434C;
+    private static final int FILE_HEADER_SIZE = Integer.BYTES + Long.BYTES;
+    private static final int HEADER_SIZE = 2 * Integer.BYTES;
+    private static final int REMOVAL = -1;
+
+    /**
+     * Receives the changes of a replay, in the order they were made
+     */
+    interface Visitor {
+        void saved(int id, ByteBuffer entity);
+
+        void removed(int id);
+    }
+
+    private final Path file;
+    private final FileChannel channel;
+    private final ByteBuffer header;
+    private long size;
+
+    /**
+     * Opens (or creates) the log file
+     */
+    ChangeLog(Path file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                        StandardOpenOption.WRITE);
+        this.header = ByteBuffer.allocate(HEADER_SIZE);
+        this.size = channel.size();
+    }
+
+    /**
+     * Bytes in the log, header included
+     */
+    long size() {
+        return size;
+    }
+
+    /**
+     * Replays the changes made since the checkpoint of the given
+     * generation, up to the first torn record
+     *
+     * @return the number of changes replayed; 0 if the log follows
+     *         another checkpoint
+     * @throws IOException if a record is corrupt
+     */
+    int replay(long generation, Visitor visitor) throws IOException {
+        if (size < FILE_HEADER_SIZE) {
+            return 0;
+        }
+        ByteBuffer fileHeader = ByteBuffer.allocate(FILE_HEADER_SIZE);
+        readFully(fileHeader, 0);
+        if (fileHeader.getInt(0) != MAGIC || fileHeader.getLong(Integer.BYTES) != generation) {
+            return 0;
+        }
+        int changes = 0;
+        long offset = FILE_HEADER_SIZE;
+        while (size - offset >= HEADER_SIZE) {
+            readFully(header.clear(), offset);
+            int id = header.getInt(0);
+            int length = header.getInt(Integer.BYTES);
+            if (length == REMOVAL) {
+                visitor.removed(id);
+            } else if (length < 0) {
+                throw new IOException("Corrupt record in " + file + " at byte " + offset);
+            } else if (size - offset - HEADER_SIZE < length) {
+                break;
+            } else {
+                ByteBuffer entity = ByteBuffer.allocate(length);
+                readFully(entity, offset + HEADER_SIZE);
+                visitor.saved(id, entity.flip());
+            }
+            offset += HEADER_SIZE + Math.max(length, 0);
+            changes++;
+        }
+        return changes;
+    }
+
+    /**
+     * Appends a save
+     *
+     * @param entity buffer whose remaining bytes are the encoded entity
+     */
+    void saved(int id, ByteBuffer entity) {
+        header.clear().putInt(id).putInt(entity.remaining());
+        append(header.flip());
+        append(entity);
+    }
+
+    void removed(int id) {
+        header.clear().putInt(id).putInt(REMOVAL);
+        append(header.flip());
+    }
+
+    /**
+     * Empties the log and starts it after the checkpoint of the given
+     * generation
+     */
+    void reset(long generation) {
+        try {
+            channel.truncate(0);
+            size = 0;
+            append(ByteBuffer.allocate(FILE_HEADER_SIZE).putInt(MAGIC).putLong(generation).flip());
+            channel.force(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void append(ByteBuffer buffer) {
+        try {
+            while (buffer.hasRemaining()) {
+                size += channel.write(buffer, size);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Truncated record in " + file + " at byte " + position);
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package hotelreservationsystem.storage;
+
+import hotelreservationsystem.EntityCodec;
+import hotelreservationsystem.Reservation;
+import hotelreservationsystem.Room;
+import hotelreservationsystem.TypeBooking;
+import hotelreservationsystem.User;
+import java.nio.ByteBuffer;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * What a repository needs to know about an entity: its ID and how
+ * EntityCodec encodes it. One constant per entity the services store.
+ *
+ * @param <T> the entity type
+ * @author Software Re-Engineering Enhancement
+ */
+public final class EntityType<T> {
+    public static final EntityType<Room> ROOM = new EntityType<>("rooms", 
+            Room::getRoomId, EntityCodec::sizeOf, EntityCodec::write, EntityCodec::readRoom);
+    public static final EntityType<Reservation> RESERVATION = new EntityType<>("reservations", 
+            Reservation::getReservationId, EntityCodec::sizeOf, EntityCodec::write, 
+            EntityCodec::readReservation);
+    public static final EntityType<User> USER = new EntityType<>("users", 
+            User::getUserId, EntityCodec::sizeOf, EntityCodec::write, EntityCodec::readUser);
+    public static final EntityType<TypeBooking> TYPE_BOOKING = new EntityType<>("type-bookings",
+            TypeBooking::getReservationId, EntityCodec::sizeOf, EntityCodec::write,
+            EntityCodec::readTypeBooking);
+
+    private final String name;
+    private final ToIntFunction<T> id;
+    private final ToIntFunction<T> encodedSize;
+    private final BiConsumer<ByteBuffer, T> writer;
+    private final Function<ByteBuffer, T> reader;
+
+    private EntityType(String name, ToIntFunction<T> id, ToIntFunction<T> encodedSize,
+                       BiConsumer<ByteBuffer, T> writer, Function<ByteBuffer, T> reader) {
+        this.name = name;
+        this.id = id;
+        this.encodedSize = encodedSize;
+        this.writer = writer;
+        this.reader = reader;
+    }
+
+    /**
+     * Short plural name, used e.g. for file names
+     */
+    public String getName() {
+        return name;
+    }
+
+    public int idOf(T entity) {
+        return id.applyAsInt(entity);
+    }
+
+    public int encodedSizeOf(T entity) {
+        return encodedSize.applyAsInt(entity);
+    }
+
+    public void write(ByteBuffer buffer, T entity) {
+        writer.accept(buffer, entity);
+    }
+
+    public T read(ByteBuffer buffer) {
+        return reader.apply(buffer);
+    }
+}
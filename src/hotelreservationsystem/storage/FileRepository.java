@@ -0,0 +1,279 @@
+package hotelreservationsystem.storage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Repository backed by an append-only log file, so its contents survive
+ * a restart.
+ *
+ * Every save appends the entity encoded with EntityCodec, and every
+ * removal appends a tombstone; the only heap state is the map from ID to
+ * the offset of the entity's latest record, rebuilt by replaying the log
+ * on open. Reads are one positional read and a decode. Once superseded
+ * records outweigh live ones the log is rewritten with only the live
+ * records and swapped in with an atomic rename.
+ *
+ * Records: id i32 | length i32 | entity, where length -1 is a tombstone
+ * with no entity.
+ *
+ * Changes reach the OS as they are made and are forced to disk on close,
+ * so a crash of the process loses nothing while a power failure may lose
+ * the latest changes. A record torn by such a failure is dropped on
+ * open. I/O failures are thrown as UncheckedIOException.
+ *
+ * @param <T> the entity type
+ * @author Software Re-Engineering Enhancement
+ */
+public class FileRepository<T> implements Repository<T> {
+    /** Garbage below this size is never worth a rewrite */
+    public static final long COMPACT_MIN_BYTES = 1 << 20;
+
+    private static final int HEADER_SIZE = 2 * Integer.BYTES;
+    private static final int TOMBSTONE = -1;
+
+    private final EntityType<T> type;
+    private final Path file;
+    private final Map<Integer, Long> offsets;
+    private FileChannel channel;
+    private long size;
+    private long liveBytes;
+    private ByteBuffer scratch;
+
+    /**
+     * Opens (or creates) the log file and replays it
+     *
+     * @throws IOException if the file cannot be opened or read
+     */
+    public FileRepository(EntityType<T> type, Path file) throws IOException {
+        this.type = type;
+        this.file = file;
+        this.offsets = new LinkedHashMap<>();
+        this.scratch = ByteBuffer.allocate(256);
+        this.channel = open(file);
+        this.size = channel.size();
+        replay();
+    }
+
+    @Override
+    public void save(T entity) {
+        int length = type.encodedSizeOf(entity);
+        if (scratch.capacity() < HEADER_SIZE + length) {
+            scratch = ByteBuffer.allocate(Math.max(HEADER_SIZE + length, scratch.capacity() * 2));
+        }
+        scratch.clear();
+        scratch.putInt(type.idOf(entity)).putInt(length);
+        type.write(scratch, entity);
+        scratch.flip();
+
+        long offset = append(scratch);
+        Long previous = offsets.put(type.idOf(entity), offset);
+        if (previous != null) {
+            liveBytes -= recordSize(previous);
+        }
+        liveBytes += HEADER_SIZE + length;
+        compactIfWorthwhile();
+    }
+
+    @Override
+    public Optional<T> findById(int id) {
+        Long offset = offsets.get(id);
+        return offset == null ? Optional.empty() : Optional.of(read(offset));
+    }
+
+    @Override
+    public boolean contains(int id) {
+        return offsets.containsKey(id);
+    }
+
+    @Override
+    public boolean remove(int id) {
+        Long offset = offsets.get(id);
+        if (offset == null) {
+            return false;
+        }
+        long recordSize = recordSize(offset);
+        ByteBuffer tombstone = ByteBuffer.allocate(HEADER_SIZE).putInt(id).putInt(TOMBSTONE).flip();
+        append(tombstone);
+        offsets.remove(id);
+        liveBytes -= recordSize;
+        compactIfWorthwhile();
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return offsets.size();
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        Iterator<Long> records = offsets.values().iterator();
+        return new Iterator<T>() {
+            @Override
+            public boolean hasNext() {
+                return records.hasNext();
+            }
+
+            @Override
+            public T next() {
+                return read(records.next());
+            }
+        };
+    }
+
+    /**
+     * Size of the log file in bytes
+     */
+    public long getSizeBytes() {
+        return size;
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.force(false);
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private long append(ByteBuffer record) {
+        long offset = size;
+        try {
+            while (record.hasRemaining()) {
+                channel.write(record, offset + record.position());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        size += record.limit();
+        return offset;
+    }
+
+    private T read(long offset) {
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            readFully(header, offset);
+            ByteBuffer entity = ByteBuffer.allocate(header.getInt(Integer.BYTES));
+            readFully(entity, offset + HEADER_SIZE);
+            return type.read(entity.flip());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private long recordSize(long offset) {
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            readFully(header, offset);
+            return HEADER_SIZE + header.getInt(Integer.BYTES);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void replay() throws IOException {
+        long offset = 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (offset < size) {
+            if (size - offset < HEADER_SIZE) {
+                truncateTornTail(offset);
+                return;
+            }
+            header.clear();
+            readFully(header, offset);
+            int id = header.getInt(0);
+            int length = header.getInt(Integer.BYTES);
+            if (length == TOMBSTONE) {
+                Long previous = offsets.remove(id);
+                if (previous != null) {
+                    liveBytes -= recordSize(previous);
+                }
+                offset += HEADER_SIZE;
+                continue;
+            }
+            if (length < 0) {
+                throw new IOException("Corrupt record in " + file + " at byte " + offset);
+            }
+            if (size - offset - HEADER_SIZE < length) {
+                truncateTornTail(offset);
+                return;
+            }
+            Long previous = offsets.put(id, offset);
+            if (previous != null) {
+                liveBytes -= recordSize(previous);
+            }
+            liveBytes += HEADER_SIZE + length;
+            offset += HEADER_SIZE + length;
+        }
+    }
+
+    private void truncateTornTail(long offset) throws IOException {
+        channel.truncate(offset);
+        size = offset;
+    }
+
+    /**
+     * Rewrites the log with only the live records, in the order they were
+     * first saved, once the garbage is both large and the bigger part of
+     * the file
+     */
+    private void compactIfWorthwhile() {
+        long garbage = size - liveBytes;
+        if (garbage < COMPACT_MIN_BYTES || garbage < liveBytes) {
+            return;
+        }
+        Path compacted = file.resolveSibling(file.getFileName() + ".compact");
+        try {
+            Map<Integer, Long> newOffsets = new LinkedHashMap<>();
+            long newSize = 0;
+            try (FileChannel target = FileChannel.open(compacted, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                for (Map.Entry<Integer, Long> entry : offsets.entrySet()) {
+                    long recordSize = recordSize(entry.getValue());
+                    long copied = 0;
+                    while (copied < recordSize) {
+                        copied += channel.transferTo(entry.getValue() + copied, recordSize - copied,
+                                                     target);
+                    }
+                    newOffsets.put(entry.getKey(), newSize);
+                    newSize += recordSize;
+                }
+                target.force(false);
+            }
+            channel.close();
+            Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING,
+                       StandardCopyOption.ATOMIC_MOVE);
+            channel = open(file);
+            offsets.putAll(newOffsets);
+            size = newSize;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Truncated record in " + file + " at byte " + position);
+            }
+        }
+    }
+
+    private static FileChannel open(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                StandardOpenOption.WRITE);
+    }
+}
@@ -0,0 +1,69 @@
+package hotelreservationsystem.storage;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Pages of a BufferPool file given up by the B+trees, kept for reuse.
+ *
+ * The list is a chain threaded through the free pages themselves, each
+ * holding the ID of the next one, so it costs no space of its own; only
+ * its head has to be stored, with the tree roots. Pages are reused last
+ * freed first, and the file grows only when the list is empty.
+ *
+ * Free page layout: type i8 (0) | pad | next i64 at offset 8 (0 for none)
+ *
+ * Not thread-safe.
+ *
+ * @author Software Re-Engineering Enhancement
+ */
+final class FreePageList {
+    private static final int NEXT = 8;
+    private static final long NO_PAGE = 0; // Page 0 is never freed
+
+    private final BufferPool pool;
+    private long head;
+
+    /**
+     * @param head first free page, or 0 for none
+     */
+    FreePageList(BufferPool pool, long head) {
+        this.pool = pool;
+        this.head = head;
+    }
+
+    /**
+     * First free page, to be stored so the list can be reopened
+     */
+    long getHead() {
+        return head;
+    }
+
+    /**
+     * Takes a free page, or adds one at the end of the file
+     *
+     * @return its ID, for BufferPool.pinNew
+     */
+    long allocate() {
+        if (head == NO_PAGE) {
+            return pool.allocate();
+        }
+        long pageId = head;
+        ByteBuffer page = pool.pin(pageId);
+        try {
+            head = page.getLong(NEXT);
+        } finally {
+            pool.unpin(pageId, false);
+        }
+        return pageId;
+    }
+
+    /**
+     * Gives a page back; nothing may refer to it any more
+     */
+    void free(long pageId) {
+        ByteBuffer page = pool.pinNew(pageId);
+        page.putLong(NEXT, head);
+        pool.unpin(pageId, true);
+        head = pageId;
+    }
+}
@@ -0,0 +1,54 @@
+package hotelreservationsystem.storage;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Repository over an insertion-ordered hash map: O(1) lookups, saves and
+ * removals, with entities kept as live objects on the heap
+ *
+ * @param <T> the entity type
+ * @author Software Re-Engineering Enhancement
+ */
+public class HashRepository<T> implements Repository<T> {
+    private final EntityType<T> type;
+    private final Map<Integer, T> entities;
+
+    public HashRepository(EntityType<T> type) {
+        this.type = type;
+        this.entities = new LinkedHashMap<>();
+    }
+
+    @Override
+    public void save(T entity) {
+        entities.put(type.idOf(entity), entity);
+    }
+
+    @Override
+    public Optional<T> findById(int id) {
+        return Optional.ofNullable(entities.get(id));
+    }
+
+    @Override
+    public boolean contains(int id) {
+        return entities.containsKey(id);
+    }
+
+    @Override
+    public boolean remove(int id) {
+        return entities.remove(id) != null;
+    }
+
+    @Override
+    public int size() {
+        return entities.size();
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return Collections.unmodifiableCollection(entities.values()).iterator();
+    }
+}
@@ -0,0 +1,209 @@
+package hotelreservationsystem.storage;
+
+import hotelreservationsystem.Reservation;
+import hotelreservationsystem.utils.DateUtils;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Keeps the indexes behind the ReservationRepository queries on the
+ * heap, over any Repository of reservations.
+ *
+ * Reservations are grouped by user and by room, in the order they were
+ * saved, so those lookups cost O(k) in the reservations involved rather
+ * than a scan of all of them. They are also indexed by check-in and
+ * check-out day in sorted maps keyed on (epoch day, reservation ID), so
+ * arrivals and departures for any date range cost O(log n + k). The day
+ * indexes are concurrent skip lists so they can be read while a writer
+ * is updating them. Total cost is kept as a running sum in cents.
+ *
+ * The indexes hold every reservation, whatever the wrapped store; they
+ * are built from it on construction. The keys and cost each reservation
+ * was indexed under are recorded with it, so a reservation changed in
+ * place by its caller before being saved again is still unindexed under
+ * its old values.
+ *
+ * @author Software Re-Engineering Enhancement
+ */
+public class IndexedReservationRepository implements ReservationRepository {
+    /**
+     * Keys and cost a reservation was indexed under
+     */
+    private static final class IndexEntry {
+        final int userId;
+        final int roomId;
+        final long checkInKey;
+        final long checkOutKey;
+        final long costCents;
+
+        IndexEntry(Reservation reservation) {
+            this.userId = reservation.getUserId();
+            this.roomId = reservation.getRoomId();
+            this.checkInKey = checkInKey(reservation);
+            this.checkOutKey = checkOutKey(reservation);
+            this.costCents = toCents(reservation.getTotalCost());
+        }
+    }
+
+    private final Repository<Reservation> reservations;
+    private final Map<Integer, Map<Integer, Reservation>> reservationsByUser;
+    private final Map<Integer, Map<Integer, Reservation>> reservationsByRoom;
+    private final ConcurrentSkipListMap<Long, Reservation> checkInIndex;
+    private final ConcurrentSkipListMap<Long, Reservation> checkOutIndex;
+    private final Map<Integer, IndexEntry> indexEntries;
+    private long totalCostCents;
+
+    /**
+     * Indexes the reservations already in the store
+     */
+    public IndexedReservationRepository(Repository<Reservation> reservations) {
+        this.reservations = reservations;
+        this.reservationsByUser = new HashMap<>();
+        this.reservationsByRoom = new HashMap<>();
+        this.checkInIndex = new ConcurrentSkipListMap<>();
+        this.checkOutIndex = new ConcurrentSkipListMap<>();
+        this.indexEntries = new HashMap<>();
+        for (Reservation reservation : reservations) {
+            index(reservation);
+        }
+    }
+
+    @Override
+    public void save(Reservation reservation) {
+        unindex(reservation.getReservationId());
+        reservations.save(reservation);
+        index(reservation);
+    }
+
+    @Override
+    public Optional<Reservation> findById(int id) {
+        return reservations.findById(id);
+    }
+
+    @Override
+    public boolean contains(int id) {
+        return reservations.contains(id);
+    }
+
+    @Override
+    public boolean remove(int id) {
+        if (!reservations.remove(id)) {
+            return false;
+        }
+        unindex(id);
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return reservations.size();
+    }
+
+    @Override
+    public Iterator<Reservation> iterator() {
+        return reservations.iterator();
+    }
+
+    @Override
+    public List<Reservation> findByUserId(int userId) {
+        return groupSnapshot(reservationsByUser.get(userId));
+    }
+
+    @Override
+    public List<Reservation> findByRoomId(int roomId) {
+        return groupSnapshot(reservationsByRoom.get(roomId));
+    }
+
+    @Override
+    public List<Reservation> findByCheckInDay(int fromDay, int toDay) {
+        return findInDayRange(checkInIndex, fromDay, toDay);
+    }
+
+    @Override
+    public List<Reservation> findByCheckOutDay(int fromDay, int toDay) {
+        return findInDayRange(checkOutIndex, fromDay, toDay);
+    }
+
+    @Override
+    public long getTotalCostCents() {
+        return totalCostCents;
+    }
+
+    @Override
+    public void close() {
+        reservations.close();
+    }
+
+    private static List<Reservation> findInDayRange(ConcurrentSkipListMap<Long, Reservation> dayIndex,
+                                                    int fromDay, int toDay) {
+        if (toDay <= fromDay) {
+            return Collections.emptyList();
+        }
+        return new ArrayList<>(dayIndex.subMap(dayKey(fromDay, 0), dayKey(toDay, 0)).values());
+    }
+
+    private void index(Reservation reservation) {
+        IndexEntry entry = new IndexEntry(reservation);
+        indexEntries.put(reservation.getReservationId(), entry);
+        checkInIndex.put(entry.checkInKey, reservation);
+        checkOutIndex.put(entry.checkOutKey, reservation);
+        reservationsByUser.computeIfAbsent(entry.userId, id -> new LinkedHashMap<>())
+                          .put(reservation.getReservationId(), reservation);
+        reservationsByRoom.computeIfAbsent(entry.roomId, id -> new LinkedHashMap<>())
+                          .put(reservation.getReservationId(), reservation);
+        totalCostCents += entry.costCents;
+    }
+
+    private void unindex(int reservationId) {
+        IndexEntry entry = indexEntries.remove(reservationId);
+        if (entry == null) {
+            return;
+        }
+        checkInIndex.remove(entry.checkInKey);
+        checkOutIndex.remove(entry.checkOutKey);
+        removeFromGroup(reservationsByUser, entry.userId, reservationId);
+        removeFromGroup(reservationsByRoom, entry.roomId, reservationId);
+        totalCostCents -= entry.costCents;
+    }
+
+    private static void removeFromGroup(Map<Integer, Map<Integer, Reservation>> groups, int key,
+                                        int reservationId) {
+        Map<Integer, Reservation> group = groups.get(key);
+        if (group != null) {
+            group.remove(reservationId);
+            if (group.isEmpty()) {
+                groups.remove(key);
+            }
+        }
+    }
+
+    private static List<Reservation> groupSnapshot(Map<Integer, Reservation> group) {
+        return group == null ? Collections.emptyList() : new ArrayList<>(group.values());
+    }
+
+    private static long toCents(double amount) {
+        return Math.round(amount * 100);
+    }
+
+    private static long checkInKey(Reservation reservation) {
+        return dayKey(DateUtils.toEpochDay(reservation.getCheckInDate()), reservation.getReservationId());
+    }
+
+    private static long checkOutKey(Reservation reservation) {
+        return dayKey(DateUtils.toEpochDay(reservation.getCheckOutDate()), reservation.getReservationId());
+    }
+
+    /**
+     * Sort key ordering by day, then reservation ID (IDs are positive)
+     */
+    private static long dayKey(int epochDay, int reservationId) {
+        return ((long) epochDay << 32) | reservationId;
+    }
+}
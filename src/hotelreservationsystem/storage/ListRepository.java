@@ -0,0 +1,75 @@
+package hotelreservationsystem.storage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository over a plain list, as the services stored their entities
+ * before the storage SPI. Every lookup is a linear scan; kept as the
+ * reference the other stores are compared against.
+ *
+ * @param <T> the entity type
+ * @author Software Re-Engineering Enhancement
+ */
+public class ListRepository<T> implements Repository<T> {
+    private final EntityType<T> type;
+    private final List<T> entities;
+
+    public ListRepository(EntityType<T> type) {
+        this.type = type;
+        this.entities = new ArrayList<>();
+    }
+
+    @Override
+    public void save(T entity) {
+        int index = indexOf(type.idOf(entity));
+        if (index < 0) {
+            entities.add(entity);
+        } else {
+            entities.set(index, entity);
+        }
+    }
+
+    @Override
+    public Optional<T> findById(int id) {
+        int index = indexOf(id);
+        return index < 0 ? Optional.empty() : Optional.of(entities.get(index));
+    }
+
+    @Override
+    public boolean contains(int id) {
+        return indexOf(id) >= 0;
+    }
+
+    @Override
+    public boolean remove(int id) {
+        int index = indexOf(id);
+        if (index < 0) {
+            return false;
+        }
+        entities.remove(index);
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return entities.size();
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return Collections.unmodifiableList(entities).iterator();
+    }
+
+    private int indexOf(int id) {
+        for (int i = 0; i < entities.size(); i++) {
+            if (type.idOf(entities.get(i)) == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,161 @@
+package hotelreservationsystem.storage;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Repository that keeps entities encoded with EntityCodec in native
+ * memory, so stored entities cost no heap and add nothing to GC work.
+ *
+ * Records are appended to a single MemorySegment, each as its length
+ * followed by the encoded entity; the only heap state is the map from ID
+ * to record offset. Saving over an entity or removing it leaves its old
+ * record as garbage. When the segment is full, the live records are
+ * copied into a fresh segment twice their size, which drops the garbage
+ * and grows the store in one pass.
+ *
+ * @param <T> the entity type
+ * @author Software Re-Engineering Enhancement
+ */
+public class OffHeapRepository<T> implements Repository<T> {
+    public static final long DEFAULT_INITIAL_BYTES = 1 << 16;
+
+    private static final long LENGTH_SIZE = ValueLayout.JAVA_INT_UNALIGNED.byteSize();
+
+    private final EntityType<T> type;
+    private final Map<Integer, Long> offsets;
+    private Arena arena;
+    private MemorySegment records;
+    private long end;
+    private long liveBytes;
+    private ByteBuffer scratch;
+
+    public OffHeapRepository(EntityType<T> type) {
+        this(type, DEFAULT_INITIAL_BYTES);
+    }
+
+    public OffHeapRepository(EntityType<T> type, long initialBytes) {
+        if (initialBytes <= 0) {
+            throw new IllegalArgumentException("Initial size must be positive");
+        }
+        this.type = type;
+        this.offsets = new LinkedHashMap<>();
+        this.arena = Arena.ofShared();
+        this.records = arena.allocate(initialBytes);
+        this.scratch = ByteBuffer.allocate(256);
+    }
+
+    @Override
+    public void save(T entity) {
+        int length = type.encodedSizeOf(entity);
+        if (scratch.capacity() < length) {
+            scratch = ByteBuffer.allocate(Math.max(length, scratch.capacity() * 2));
+        }
+        scratch.clear();
+        type.write(scratch, entity);
+
+        long recordSize = LENGTH_SIZE + length;
+        if (end + recordSize > records.byteSize()) {
+            compact(recordSize);
+        }
+        records.set(ValueLayout.JAVA_INT_UNALIGNED, end, length);
+        MemorySegment.copy(scratch.array(), 0, records, ValueLayout.JAVA_BYTE, end + LENGTH_SIZE,
+                           length);
+        Long previous = offsets.put(type.idOf(entity), end);
+        if (previous != null) {
+            liveBytes -= recordSize(previous);
+        }
+        liveBytes += recordSize;
+        end += recordSize;
+    }
+
+    @Override
+    public Optional<T> findById(int id) {
+        Long offset = offsets.get(id);
+        return offset == null ? Optional.empty() : Optional.of(read(offset));
+    }
+
+    @Override
+    public boolean contains(int id) {
+        return offsets.containsKey(id);
+    }
+
+    @Override
+    public boolean remove(int id) {
+        Long offset = offsets.remove(id);
+        if (offset == null) {
+            return false;
+        }
+        liveBytes -= recordSize(offset);
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return offsets.size();
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        Iterator<Long> records = offsets.values().iterator();
+        return new Iterator<T>() {
+            @Override
+            public boolean hasNext() {
+                return records.hasNext();
+            }
+
+            @Override
+            public T next() {
+                return read(records.next());
+            }
+        };
+    }
+
+    /**
+     * Native memory reserved for the records, in bytes
+     */
+    public long getOffHeapBytes() {
+        return records.byteSize();
+    }
+
+    @Override
+    public void close() {
+        arena.close();
+    }
+
+    private T read(long offset) {
+        int length = records.get(ValueLayout.JAVA_INT_UNALIGNED, offset);
+        return type.read(records.asSlice(offset + LENGTH_SIZE, length).asByteBuffer());
+    }
+
+    private long recordSize(long offset) {
+        return LENGTH_SIZE + records.get(ValueLayout.JAVA_INT_UNALIGNED, offset);
+    }
+
+    /**
+     * Copies the live records to a new segment with room for at least
+     * the given number of extra bytes
+     */
+    private void compact(long extraBytes) {
+        long capacity = Math.max(2 * (liveBytes + extraBytes), records.byteSize());
+        Arena newArena = Arena.ofShared();
+        MemorySegment newRecords = newArena.allocate(capacity);
+        long newEnd = 0;
+        for (Map.Entry<Integer, Long> entry : offsets.entrySet()) {
+            long recordSize = recordSize(entry.getValue());
+            MemorySegment.copy(records, entry.getValue(), newRecords, newEnd, recordSize);
+            entry.setValue(newEnd);
+            newEnd += recordSize;
+        }
+        arena.close();
+        arena = newArena;
+        records = newRecords;
+        end = newEnd;
+    }
+}
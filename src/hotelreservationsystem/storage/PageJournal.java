@@ -0,0 +1,179 @@
+package hotelreservationsystem.storage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Rollback journal for a page file: keeps the original image of every
+ * page overwritten since the last checkpoint, so the file can be put back
+ * the way it was at that checkpoint after a crash.
+ *
+ * A page's image is appended and forced to disk before the page is first
+ * overwritten, so whatever state a crash leaves the page file in, the
+ * journal holds every page needed to undo it. Pages added after the
+ * checkpoint need no image; rolling back cuts them off. A checkpoint
+ * empties the journal once the page file itself is on disk.
+ *
+ * Journal: magic i32 | checkpoint page count i64, then
+ * page ID i64 | page image, one per page.
+ *
+ * @author Software Re-Engineering Enhancement
+ */
+final class PageJournal implements AutoCloseable {
+    private static final int MAGIC = 0x48524A4C;
+    private static final int HEADER_SIZE = Integer.BYTES + Long.BYTES;
+
+    private final Path file;
+    private final FileChannel journal;
+    private final FileChannel data;
+    private final int pageSize;
+    private final ByteBuffer image;
+    private final BitSet saved;
+    private long checkpointPages;
+    private long size;
+
+    /**
+     * Opens (or creates) the journal of a page file
+     */
+    PageJournal(Path file, FileChannel data, int pageSize) throws IOException {
+        this.file = file;
+        this.journal = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                        StandardOpenOption.WRITE);
+        this.data = data;
+        this.pageSize = pageSize;
+        this.image = ByteBuffer.allocate(Long.BYTES + pageSize);
+        this.saved = new BitSet();
+        this.size = journal.size();
+    }
+
+    /**
+     * Puts back every page saved in the journal and cuts off pages added
+     * since the checkpoint, undoing all writes made after it. A record
+     * torn by the crash is ignored: its page was not overwritten yet.
+     *
+     * @return false if the journal was empty
+     * @throws IOException if the journal is not one
+     */
+    boolean rollBack() throws IOException {
+        if (size < HEADER_SIZE) {
+            reset();
+            return false;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        readFully(journal, header, 0);
+        if (header.getInt(0) != MAGIC) {
+            throw new IOException(file + " is not a page journal");
+        }
+        long pages = header.getLong(Integer.BYTES);
+        for (long offset = HEADER_SIZE; offset + image.capacity() <= size;
+                offset += image.capacity()) {
+            readFully(journal, image.clear(), offset);
+            long pageId = image.getLong(0);
+            ByteBuffer page = image.position(Long.BYTES);
+            while (page.hasRemaining()) {
+                data.write(page, pageId * pageSize + page.position() - Long.BYTES);
+            }
+        }
+        if (data.size() > pages * pageSize) {
+            data.truncate(pages * pageSize);
+        }
+        data.force(true);
+        reset();
+        return true;
+    }
+
+    /**
+     * Marks the page file, now on disk, as the new checkpoint and empties
+     * the journal
+     */
+    void checkpoint(long pageCount) {
+        try {
+            reset();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        saved.clear();
+        checkpointPages = pageCount;
+    }
+
+    /**
+     * Saves the current image of a page about to be overwritten, unless
+     * it was saved already or is new since the checkpoint
+     */
+    void save(long pageId) {
+        save(Collections.singletonList(pageId));
+    }
+
+    /**
+     * Saves the current images of pages about to be overwritten, with a
+     * single force to disk
+     */
+    void save(Collection<Long> pageIds) {
+        try {
+            boolean appended = false;
+            for (long pageId : pageIds) {
+                if (pageId >= checkpointPages || saved.get((int) pageId)) {
+                    continue;
+                }
+                if (size == 0) {
+                    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                            .putInt(MAGIC).putLong(checkpointPages).flip();
+                    append(header);
+                }
+                image.clear().putLong(pageId);
+                readFully(data, image, pageId * pageSize - Long.BYTES);
+                append(image.flip());
+                saved.set((int) pageId);
+                appended = true;
+            }
+            if (appended) {
+                journal.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            journal.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void append(ByteBuffer buffer) throws IOException {
+        long offset = size;
+        while (buffer.hasRemaining()) {
+            journal.write(buffer, offset + buffer.position());
+        }
+        size += buffer.limit();
+    }
+
+    private void reset() throws IOException {
+        journal.truncate(0);
+        journal.force(true);
+        size = 0;
+    }
+
+    /**
+     * Reads until the buffer is full, treating its position as relative
+     * to the given file position
+     */
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position)
+            throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of file at byte " + position);
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package hotelreservationsystem.storage;
+
+import hotelreservationsystem.constants.AppConstants;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+
+/**
+ * Creates repositories of the storage type chosen by configuration.
+ *
+ * The type comes from the hotel.storage system property (list, hash,
+ * off-heap, file or btree; hash by default). File and B-tree stores are
+ * kept in the directory named by hotel.storage.dir, one file per entity
+ * type.
+ *
+ * @author Software Re-Engineering Enhancement
+ */
+public final class Repositories {
+
+    // Private constructor to prevent instantiation
+    private Repositories() {
+        throw new AssertionError("Cannot instantiate utility class");
+    }
+
+    /**
+     * Storage type named by the hotel.storage system property
+     *
+     * @throws IllegalArgumentException if the property names no storage type
+     */
+    public static StorageType configuredType() {
+        String name = System.getProperty(AppConstants.STORAGE_PROPERTY, 
+                                         AppConstants.DEFAULT_STORAGE);
+        try {
+            return StorageType.valueOf(name.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown storage type: " + name, e);
+        }
+    }
+
+    /**
+     * Creates a repository of the configured storage type
+     *
+     * @throws UncheckedIOException if a file or B-tree store cannot be opened
+     */
+    public static <T> Repository<T> fromConfiguration(EntityType<T> type) {
+        Path directory = Paths.get(System.getProperty(AppConstants.STORAGE_DIR_PROPERTY, 
+                                                      AppConstants.DEFAULT_STORAGE_DIR));
+        return create(type, configuredType(), directory);
+    }
+
+    /**
+     * Creates a repository of the given storage type
+     *
+     * @param directory where a file or B-tree store keeps its file; unused
+     *        otherwise
+     * @throws UncheckedIOException if a file or B-tree store cannot be opened
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Repository<T> create(EntityType<T> type, StorageType storage, 
+                                           Path directory) {
+        switch (storage) {
+            case LIST:
+                return new ListRepository<>(type);
+            case HASH:
+                return new HashRepository<>(type);
+            case OFF_HEAP:
+                return new OffHeapRepository<>(type);
+            case FILE:
+                try {
+                    Files.createDirectories(directory);
+                    return new FileRepository<>(type, directory.resolve(type.getName() + ".db"));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            case BTREE:
+                if (type != EntityType.RESERVATION) {
+                    return create(type, StorageType.FILE, directory);
+                }
+                try {
+                    Files.createDirectories(directory);
+                    return (Repository<T>) new BTreeReservationRepository(
+                            directory.resolve(type.getName() + ".btree"));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            default:
+                throw new IllegalArgumentException("Unknown storage type: " + storage);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package hotelreservationsystem.storage;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Storage for one kind of entity, keyed by its ID.
+ *
+ * The services keep their entities in a Repository rather than in a
+ * collection of their own, so how entities are stored is chosen by
+ * configuration (see Repositories) without touching the services.
+ * Entities come back in the order they were first saved; saving an
+ * entity again replaces it in place.
+ *
+ * Stores that keep entities serialized (OFF_HEAP and FILE) hand out a
+ * fresh copy on every read, so a caller that changes an entity must save
+ * it again for the change to stick.
+ *
+ * Not thread-safe, like the services.
+ *
+ * @param <T> the entity type
+ * @author Software Re-Engineering Enhancement
+ */
+public interface Repository<T> extends Iterable<T>, AutoCloseable {
+
+    /**
+     * Adds the entity, or replaces the stored one with the same ID
+     */
+    void save(T entity);
+
+    default void saveAll(Collection<? extends T> entities) {
+        for (T entity : entities) {
+            save(entity);
+        }
+    }
+
+    Optional<T> findById(int id);
+
+    boolean contains(int id);
+
+    /**
+     * @return false if no entity has the ID
+     */
+    boolean remove(int id);
+
+    int size();
+
+    /**
+     * Snapshot of every entity, in the order they were first saved
+     */
+    default List<T> findAll() {
+        List<T> all = new ArrayList<>(size());
+        forEach(all::add);
+        return all;
+    }
+
+    default Stream<T> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Releases the memory or file behind the store
+     */
+    @Override
+    default void close() {
+    }
+}
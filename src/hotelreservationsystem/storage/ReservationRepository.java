@@ -0,0 +1,40 @@
+package hotelreservationsystem.storage;
+
+import hotelreservationsystem.Reservation;
+import java.util.List;
+
+/**
+ * Reservation store that also answers the queries ReservationService
+ * makes besides lookups by ID, so a store can keep its own indexes for
+ * them.
+ *
+ * ReservationService wraps any other Repository of reservations in an
+ * IndexedReservationRepository, which keeps the indexes on the heap;
+ * BTreeReservationRepository keeps them in its file instead. Days are
+ * epoch days, as in DateUtils.
+ *
+ * @author Software Re-Engineering Enhancement
+ */
+public interface ReservationRepository extends Repository<Reservation> {
+
+    List<Reservation> findByUserId(int userId);
+
+    List<Reservation> findByRoomId(int roomId);
+
+    /**
+     * Reservations checking in on days in [fromDay, toDay), ordered by
+     * check-in day, then ID
+     */
+    List<Reservation> findByCheckInDay(int fromDay, int toDay);
+
+    /**
+     * Reservations checking out on days in [fromDay, toDay), ordered by
+     * check-out day, then ID
+     */
+    List<Reservation> findByCheckOutDay(int fromDay, int toDay);
+
+    /**
+     * Sum of the total costs of the stored reservations, in cents
+     */
+    long getTotalCostCents();
+}
@@ -0,0 +1,22 @@
+package hotelreservationsystem.storage;
+
+/**
+ * The interchangeable Repository implementations
+ *
+ * @author Software Re-Engineering Enhancement
+ */
+public enum StorageType {
+    /** Array list scanned on every lookup; the original behaviour, kept for reference */
+    LIST,
+    /** Insertion-ordered hash map; O(1) lookups */
+    HASH,
+    /** Encoded records in native memory, indexed by ID; entities cost no heap while stored */
+    OFF_HEAP,
+    /** Append-only log file indexed by ID; contents survive restarts */
+    FILE,
+    /**
+     * Page file of B+trees with a bounded page cache, for more reservations
+     * than fit in memory; rooms and users, which are few, use FILE
+     */
+    BTREE
+}
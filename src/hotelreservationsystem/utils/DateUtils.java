@@ -1,6 +1,9 @@
 package hotelreservationsystem.utils;
 
 import hotelreservationsystem.constants.AppConstants;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.Date;
 
 /**
@@ -11,6 +14,12 @@ import java.util.Date;
  */
 public final class DateUtils {
     
+    /** Length of a yyyy-MM-dd date */
+    public static final int ISO_DATE_LENGTH = 10;
+    
+    private static final int DAYS_PER_400_YEARS = 146_097;
+    private static final int DAYS_0000_TO_1970 = 719_468; // From 0000-03-01
+    
     // Private constructor to prevent instantiation
     private DateUtils() {
         throw new AssertionError("Cannot instantiate utility class");
@@ -47,4 +56,184 @@ public final class DateUtils {
         }
         return checkOutDate.after(checkInDate);
     }
+
+    /**
+     * Converts a date to its calendar day number (days since 1970-01-01)
+     * in the system time zone
+     * Refactoring Technique: Extract Method
+     * 
+     * @param date the date to convert
+     * @return epoch day of the date
+     */
+    public static int toEpochDay(Date date) {
+        if (date == null) {
+            throw new IllegalArgumentException("Date cannot be null");
+        }
+        return (int) Instant.ofEpochMilli(date.getTime())
+                .atZone(ZoneId.systemDefault())
+                .toLocalDate()
+                .toEpochDay();
+    }
+
+    /**
+     * Converts a calendar day number back to a date at the start of that
+     * day in the system time zone
+     * Refactoring Technique: Extract Method
+     * 
+     * @param epochDay days since 1970-01-01
+     * @return the date at midnight of that day
+     */
+    public static Date fromEpochDay(int epochDay) {
+        return Date.from(LocalDate.ofEpochDay(epochDay)
+                .atStartOfDay(ZoneId.systemDefault())
+                .toInstant());
+    }
+
+    /**
+     * Parses a yyyy-MM-dd date into a Date at the start of that day in
+     * the system time zone
+     * 
+     * @throws IllegalArgumentException if the text is not a valid date
+     */
+    public static Date parseDate(String text) {
+        if (text == null || text.length() != ISO_DATE_LENGTH) {
+            throw new IllegalArgumentException(AppConstants.ERROR_INVALID_DATE_FORMAT);
+        }
+        return fromEpochDay(parseEpochDay(text, 0));
+    }
+
+    /**
+     * Formats a date as yyyy-MM-dd in the system time zone
+     */
+    public static String formatDate(Date date) {
+        return formatEpochDay(toEpochDay(date), new StringBuilder(ISO_DATE_LENGTH)).toString();
+    }
+
+    /**
+     * Parses the yyyy-MM-dd date starting at offset straight into an
+     * epoch day, without allocating
+     * Refactoring Technique: Substitute Algorithm
+     * 
+     * @throws IllegalArgumentException if the characters are not a valid date
+     */
+    public static int parseEpochDay(CharSequence text, int offset) {
+        if (offset < 0 || offset > text.length() - ISO_DATE_LENGTH
+                || text.charAt(offset + 4) != '-' || text.charAt(offset + 7) != '-') {
+            throw new IllegalArgumentException(AppConstants.ERROR_INVALID_DATE_FORMAT);
+        }
+        int year = digit(text.charAt(offset)) * 1000 + digit(text.charAt(offset + 1)) * 100
+                 + digit(text.charAt(offset + 2)) * 10 + digit(text.charAt(offset + 3));
+        int month = digit(text.charAt(offset + 5)) * 10 + digit(text.charAt(offset + 6));
+        int day = digit(text.charAt(offset + 8)) * 10 + digit(text.charAt(offset + 9));
+        return toEpochDay(year, month, day);
+    }
+
+    /**
+     * Parses the ASCII yyyy-MM-dd date starting at offset straight into
+     * an epoch day, without allocating
+     * 
+     * @throws IllegalArgumentException if the bytes are not a valid date
+     */
+    public static int parseEpochDay(byte[] bytes, int offset) {
+        if (offset < 0 || offset > bytes.length - ISO_DATE_LENGTH
+                || bytes[offset + 4] != '-' || bytes[offset + 7] != '-') {
+            throw new IllegalArgumentException(AppConstants.ERROR_INVALID_DATE_FORMAT);
+        }
+        int year = digit(bytes[offset]) * 1000 + digit(bytes[offset + 1]) * 100
+                 + digit(bytes[offset + 2]) * 10 + digit(bytes[offset + 3]);
+        int month = digit(bytes[offset + 5]) * 10 + digit(bytes[offset + 6]);
+        int day = digit(bytes[offset + 8]) * 10 + digit(bytes[offset + 9]);
+        return toEpochDay(year, month, day);
+    }
+
+    /**
+     * Appends an epoch day as yyyy-MM-dd to a caller-owned buffer
+     * 
+     * @return the buffer, for chaining
+     */
+    public static StringBuilder formatEpochDay(int epochDay, StringBuilder buffer) {
+        int civil = toCivil(epochDay);
+        int year = civil >>> 9;
+        int month = (civil >>> 5) & 0xF;
+        int day = civil & 0x1F;
+        return buffer.append((char) ('0' + year / 1000)).append((char) ('0' + year / 100 % 10))
+                .append((char) ('0' + year / 10 % 10)).append((char) ('0' + year % 10))
+                .append('-').append((char) ('0' + month / 10)).append((char) ('0' + month % 10))
+                .append('-').append((char) ('0' + day / 10)).append((char) ('0' + day % 10));
+    }
+
+    /**
+     * Writes an epoch day as ASCII yyyy-MM-dd into a caller-owned buffer
+     * 
+     * @return the offset just past the written date
+     */
+    public static int formatEpochDay(int epochDay, byte[] buffer, int offset) {
+        int civil = toCivil(epochDay);
+        int year = civil >>> 9;
+        int month = (civil >>> 5) & 0xF;
+        int day = civil & 0x1F;
+        buffer[offset] = (byte) ('0' + year / 1000);
+        buffer[offset + 1] = (byte) ('0' + year / 100 % 10);
+        buffer[offset + 2] = (byte) ('0' + year / 10 % 10);
+        buffer[offset + 3] = (byte) ('0' + year % 10);
+        buffer[offset + 4] = '-';
+        buffer[offset + 5] = (byte) ('0' + month / 10);
+        buffer[offset + 6] = (byte) ('0' + month % 10);
+        buffer[offset + 7] = '-';
+        buffer[offset + 8] = (byte) ('0' + day / 10);
+        buffer[offset + 9] = (byte) ('0' + day % 10);
+        return offset + ISO_DATE_LENGTH;
+    }
+
+    private static int digit(int c) {
+        int value = c - '0';
+        if (value < 0 || value > 9) {
+            throw new IllegalArgumentException(AppConstants.ERROR_INVALID_DATE_FORMAT);
+        }
+        return value;
+    }
+
+    /**
+     * Days since 1970-01-01 of a proleptic Gregorian date, computed from
+     * March-based years so February's length only matters for validation
+     */
+    private static int toEpochDay(int year, int month, int day) {
+        if (month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+            throw new IllegalArgumentException(AppConstants.ERROR_INVALID_DATE_FORMAT);
+        }
+        int y = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(y, 400);
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * DAYS_PER_400_YEARS + dayOfEra - DAYS_0000_TO_1970;
+    }
+
+    /**
+     * Inverse of toEpochDay for years 0000-9999, packed as
+     * year << 9 | month << 5 | day so no object is needed
+     */
+    private static int toCivil(int epochDay) {
+        int z = epochDay + DAYS_0000_TO_1970;
+        int era = Math.floorDiv(z, DAYS_PER_400_YEARS);
+        int dayOfEra = z - era * DAYS_PER_400_YEARS;
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int monthIndex = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * monthIndex + 2) / 5 + 1;
+        int month = monthIndex < 10 ? monthIndex + 3 : monthIndex - 9;
+        int year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        if (year < 0 || year > 9999) {
+            throw new IllegalArgumentException("Date is outside years 0000-9999");
+        }
+        return year << 9 | month << 5 | day;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        if (month == 2) {
+            boolean leap = (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+            return leap ? 29 : 28;
+        }
+        return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+    }
 }
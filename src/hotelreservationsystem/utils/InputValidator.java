@@ -4,6 +4,10 @@ package hotelreservationsystem.utils;
  * Utility class for input validation
  * Refactoring Technique: Extract Class
  * 
+ * Every check is allocation-free: these run in each entity constructor
+ * and setter and in authentication, so they must not create garbage.
+ * RequestValidator composes them into validators for whole requests.
+ * 
  * @author Refactored by Software Re-Engineering
  */
 public final class InputValidator {
@@ -32,8 +36,18 @@ public final class InputValidator {
     /**
      * Validates that a string is not null or empty
      * Refactoring Technique: Extract Method
+     * Refactoring Technique: Substitute Algorithm (scan instead of trim,
+     * which copied every padded string)
      */
     public static boolean isValidString(String str) {
-        return str != null && !str.trim().isEmpty();
+        if (str == null) {
+            return false;
+        }
+        for (int i = 0, length = str.length(); i < length; i++) {
+            if (str.charAt(i) > ' ') { // Same whitespace rule as String.trim
+                return true;
+            }
+        }
+        return false;
     }
 }
@@ -0,0 +1,136 @@
+package hotelreservationsystem.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.security.spec.InvalidKeySpecException;
+import java.util.Base64;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+/**
+ * Salted password hashes, so users are stored and replicated without
+ * their passwords.
+ *
+ * A hash is "pbkdf2-sha256$iterations$salt$key", salt and key in Base64:
+ * PBKDF2 with HMAC-SHA256 over the password, a random 16-byte salt and
+ * the iteration count. The salt makes equal passwords hash differently,
+ * so a leaked store cannot be matched against a precomputed table, and
+ * the iterations make each guess expensive. The count is stored with
+ * the hash, so raising ITERATIONS leaves existing hashes verifiable.
+ *
+ * Hashes in the earlier "salt$digest" form, one SHA-256 round, are still
+ * verified; needsRehash() tells the caller to replace them.
+ *
+ * @author Software Re-Engineering Enhancement
+ */
+public final class PasswordHasher {
+    /** Iterations for new hashes, as recommended for PBKDF2-HMAC-SHA256 */
+    public static final int ITERATIONS = 600_000;
+
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final String PREFIX = "pbkdf2-sha256";
+    private static final String LEGACY_ALGORITHM = "SHA-256";
+    private static final int SALT_BYTES = 16;
+    private static final int KEY_BITS = 256;
+    private static final char SEPARATOR = '$';
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    // Private constructor to prevent instantiation
+    private PasswordHasher() {
+        throw new AssertionError("Cannot instantiate utility class");
+    }
+
+    /**
+     * Hashes a password with a fresh random salt
+     */
+    public static String hash(String password) {
+        return hash(password, ITERATIONS);
+    }
+
+    /**
+     * Hashes a password with a fresh random salt and the given work factor
+     */
+    public static String hash(String password, int iterations) {
+        if (iterations < 1) {
+            throw new IllegalArgumentException("Iterations must be positive");
+        }
+        byte[] salt = new byte[SALT_BYTES];
+        RANDOM.nextBytes(salt);
+        Base64.Encoder encoder = Base64.getEncoder();
+        return PREFIX + SEPARATOR + iterations + SEPARATOR + encoder.encodeToString(salt)
+               + SEPARATOR + encoder.encodeToString(deriveKey(password, salt, iterations));
+    }
+
+    /**
+     * Checks a password against a hash made by hash(), in time independent
+     * of where they differ
+     *
+     * @return false also if the hash is malformed
+     */
+    public static boolean matches(String password, String hash) {
+        if (password == null || hash == null) {
+            return false;
+        }
+        String[] parts = hash.split("\\" + SEPARATOR, -1);
+        try {
+            Base64.Decoder decoder = Base64.getDecoder();
+            if (parts.length == 4 && parts[0].equals(PREFIX)) {
+                int iterations = Integer.parseInt(parts[1]);
+                if (iterations < 1) {
+                    return false;
+                }
+                byte[] salt = decoder.decode(parts[2]);
+                byte[] expected = decoder.decode(parts[3]);
+                return MessageDigest.isEqual(expected, deriveKey(password, salt, iterations));
+            }
+            if (parts.length == 2) {
+                byte[] salt = decoder.decode(parts[0]);
+                byte[] expected = decoder.decode(parts[1]);
+                return MessageDigest.isEqual(expected, legacyDigest(salt, password));
+            }
+            return false;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Whether a hash should be replaced by a fresh one the next time its
+     * password is known: it uses the old scheme or fewer iterations than
+     * ITERATIONS
+     */
+    public static boolean needsRehash(String hash) {
+        String[] parts = hash.split("\\" + SEPARATOR, -1);
+        if (parts.length != 4 || !parts[0].equals(PREFIX)) {
+            return true;
+        }
+        try {
+            return Integer.parseInt(parts[1]) < ITERATIONS;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    private static byte[] deriveKey(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, KEY_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
+            throw new IllegalStateException(ALGORITHM + " is required of every JVM", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    private static byte[] legacyDigest(byte[] salt, String password) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance(LEGACY_ALGORITHM);
+            digest.update(salt);
+            return digest.digest(password.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(LEGACY_ALGORITHM + " is required of every JVM", e);
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package hotelreservationsystem.utils;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Hierarchical timing wheel for large numbers of timeouts.
+ *
+ * Time is cut into ticks. Four wheels of 64 slots each cover 64 ticks,
+ * 64^2, 64^3 and 64^4 ticks ahead; a timeout goes into the finest wheel
+ * whose span reaches its deadline. Advancing one tick fires the current
+ * slot of the finest wheel, and each time a wheel completes a turn the
+ * next slot of the coarser wheel is redistributed into the finer ones.
+ * Scheduling and cancelling are O(1), and each timeout moves between
+ * wheels at most three times before it fires, so expiry never scans the
+ * pending timeouts. Deadlines past the coarsest wheel are parked at its
+ * far end and rescheduled when they come due there.
+ *
+ * Timeouts are stored in parallel primitive arrays linked into circular
+ * lists, one per slot, so millions of them cost about 20 bytes each and
+ * no objects. A handle is only valid until its timeout fires or is
+ * cancelled, after which it may be reused.
+ *
+ * Not thread-safe.
+ *
+ * @author Software Re-Engineering Enhancement
+ */
+public final class TimingWheel {
+    public static final int DEFAULT_INITIAL_CAPACITY = 1024;
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    private static final long MAX_DELTA = (1L << (SLOT_BITS * LEVELS)) - 1;
+    private static final int HEADS = SLOTS * LEVELS; // Entries [0, HEADS) head the slot lists
+    private static final int FREE = -1;
+
+    private final long tickMillis;
+    private final long originMillis;
+    private long currentTick; // Next tick to fire
+    private long[] deadlines; // In ticks
+    private int[] payloads;
+    private int[] next;
+    private int[] prev;
+    private int freeHead;
+    private int size;
+
+    /**
+     * @param tickMillis resolution; timeouts fire on the first tick at or
+     *        after their deadline
+     * @param startMillis time the wheel starts at
+     */
+    public TimingWheel(long tickMillis, long startMillis) {
+        this(tickMillis, startMillis, DEFAULT_INITIAL_CAPACITY);
+    }
+
+    /**
+     * @param initialCapacity timeouts held before the arrays grow
+     */
+    public TimingWheel(long tickMillis, long startMillis, int initialCapacity) {
+        if (tickMillis <= 0 || initialCapacity <= 0) {
+            throw new IllegalArgumentException("Invalid timing wheel configuration");
+        }
+        this.tickMillis = tickMillis;
+        this.originMillis = startMillis;
+        int capacity = HEADS + initialCapacity;
+        this.deadlines = new long[capacity];
+        this.payloads = new int[capacity];
+        this.next = new int[capacity];
+        this.prev = new int[capacity];
+        for (int head = 0; head < HEADS; head++) {
+            next[head] = head;
+            prev[head] = head;
+        }
+        this.freeHead = FREE;
+        linkFree(HEADS, capacity);
+    }
+
+    /**
+     * Schedules a timeout
+     *
+     * @param payload value handed to the expiry callback
+     * @return handle for cancel
+     */
+    public int schedule(long deadlineMillis, int payload) {
+        if (freeHead == FREE) {
+            grow();
+        }
+        int entry = freeHead;
+        freeHead = next[entry];
+        deadlines[entry] = Math.max(toTick(deadlineMillis + tickMillis - 1), currentTick);
+        payloads[entry] = payload;
+        place(entry);
+        size++;
+        return entry;
+    }
+
+    /**
+     * Cancels a pending timeout
+     *
+     * @return false if the handle does not name a pending timeout
+     */
+    public boolean cancel(int handle) {
+        if (handle < HEADS || handle >= next.length || prev[handle] == FREE) {
+            return false;
+        }
+        unlink(handle);
+        release(handle);
+        return true;
+    }
+
+    /**
+     * Fires every timeout due at or before the given time, in deadline
+     * order (by tick). The callback must not schedule or cancel.
+     *
+     * @return number of timeouts fired
+     */
+    public int advance(long nowMillis, IntConsumer expired) {
+        long nowTick = toTick(nowMillis);
+        int fired = 0;
+        while (currentTick <= nowTick) {
+            if (size == 0) {
+                currentTick = nowTick + 1;
+                break;
+            }
+            int slot = (int) (currentTick & SLOT_MASK);
+            for (int level = 1; slot == 0 && level < LEVELS; level++) {
+                slot = (int) ((currentTick >>> (SLOT_BITS * level)) & SLOT_MASK);
+                cascade(level * SLOTS + slot);
+            }
+            fired += fire((int) (currentTick & SLOT_MASK), expired);
+            currentTick++;
+        }
+        return fired;
+    }
+
+    /**
+     * Number of pending timeouts
+     */
+    public int size() {
+        return size;
+    }
+
+    private int fire(int head, IntConsumer expired) {
+        int fired = 0;
+        int entry = next[head];
+        while (entry != head) {
+            int following = next[entry];
+            unlink(entry);
+            if (deadlines[entry] > currentTick) {
+                place(entry); // Parked beyond the coarsest wheel
+            } else {
+                int payload = payloads[entry];
+                release(entry);
+                expired.accept(payload);
+                fired++;
+            }
+            entry = following;
+        }
+        return fired;
+    }
+
+    /**
+     * Moves every timeout of a coarse slot down into the finer wheels
+     */
+    private void cascade(int head) {
+        int entry = next[head];
+        while (entry != head) {
+            int following = next[entry];
+            unlink(entry);
+            place(entry);
+            entry = following;
+        }
+    }
+
+    private void place(int entry) {
+        long deadline = Math.min(deadlines[entry], currentTick + MAX_DELTA);
+        long delta = deadline - currentTick;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        int head = level * SLOTS + (int) ((deadline >>> (SLOT_BITS * level)) & SLOT_MASK);
+        int last = prev[head];
+        next[last] = entry;
+        prev[entry] = last;
+        next[entry] = head;
+        prev[head] = entry;
+    }
+
+    private void unlink(int entry) {
+        next[prev[entry]] = next[entry];
+        prev[next[entry]] = prev[entry];
+    }
+
+    private void release(int entry) {
+        prev[entry] = FREE;
+        next[entry] = freeHead;
+        freeHead = entry;
+        size--;
+    }
+
+    private void grow() {
+        int oldCapacity = next.length;
+        int capacity = oldCapacity + Math.max(oldCapacity - HEADS, 1);
+        deadlines = Arrays.copyOf(deadlines, capacity);
+        payloads = Arrays.copyOf(payloads, capacity);
+        next = Arrays.copyOf(next, capacity);
+        prev = Arrays.copyOf(prev, capacity);
+        linkFree(oldCapacity, capacity);
+    }
+
+    private void linkFree(int from, int to) {
+        for (int entry = to - 1; entry >= from; entry--) {
+            prev[entry] = FREE;
+            next[entry] = freeHead;
+            freeHead = entry;
+        }
+    }
+
+    private long toTick(long millis) {
+        return Math.floorDiv(millis - originMillis, tickMillis);
+    }
+}
@@ -0,0 +1,221 @@
+package hotelreservationsystem;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import hotelreservationsystem.enums.UserRole;
+import hotelreservationsystem.utils.PasswordHasher;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.Date;
+import org.junit.Test;
+
+/**
+ * Round trips of every record type through EntityCodec, in heap and
+ * direct buffers
+ *
+ * @author Software Re-Engineering Enhancement
+ */
+public class EntityCodecTest {
+    private static final String[] AWKWARD_STRINGS = {
+        "a", "Suite", "café", "中文", "😀 emoji",
+        "lone high \ud800", "\udc00 lone low", "low then high \udc00\ud800", "end\ud83d"
+    };
+
+    @Test
+    public void roomRoundTrips() {
+        for (ByteBuffer buffer : buffers()) {
+            for (String roomType : AWKWARD_STRINGS) {
+                Room room = new Room(42, roomType, 149.5, false);
+                Room copy = EntityCodec.readRoom(encode(buffer, EntityCodec.sizeOf(room),
+                                                        () -> EntityCodec.write(buffer, room)));
+                assertEquals(room.getRoomId(), copy.getRoomId());
+                assertEquals(roomType, copy.getRoomType());
+                assertEquals(room.getPrice(), copy.getPrice(), 0.0);
+                assertEquals(room.isAvailable(), copy.isAvailable());
+                assertFalse(buffer.hasRemaining());
+            }
+        }
+    }
+
+    @Test
+    public void reservationRoundTrips() {
+        for (ByteBuffer buffer : buffers()) {
+            Reservation reservation = new Reservation(7, 3, 42, new Date(1_700_000_000_000L),
+                                                      new Date(1_700_259_200_000L), 299.99);
+            assertEquals(EntityCodec.RESERVATION_SIZE, EntityCodec.sizeOf(reservation));
+            Reservation copy = EntityCodec.readReservation(
+                    encode(buffer, EntityCodec.RESERVATION_SIZE,
+                           () -> EntityCodec.write(buffer, reservation)));
+            assertEquals(reservation.getReservationId(), copy.getReservationId());
+            assertEquals(reservation.getUserId(), copy.getUserId());
+            assertEquals(reservation.getRoomId(), copy.getRoomId());
+            assertEquals(reservation.getCheckInTime(), copy.getCheckInTime());
+            assertEquals(reservation.getCheckOutTime(), copy.getCheckOutTime());
+            assertEquals(reservation.getTotalCost(), copy.getTotalCost(), 0.0);
+        }
+    }
+
+    @Test
+    public void typeBookingRoundTrips() {
+        for (ByteBuffer buffer : buffers()) {
+            for (String roomType : AWKWARD_STRINGS) {
+                TypeBooking booking = new TypeBooking(7, 3, roomType, new Date(1_700_000_000_000L),
+                                                      new Date(1_700_259_200_000L), 299.99);
+                TypeBooking copy = EntityCodec.readTypeBooking(
+                        encode(buffer, EntityCodec.sizeOf(booking),
+                               () -> EntityCodec.write(buffer, booking)));
+                assertEquals(booking.getReservationId(), copy.getReservationId());
+                assertEquals(booking.getUserId(), copy.getUserId());
+                assertEquals(roomType, copy.getRoomType());
+                assertEquals(booking.getCheckInDate(), copy.getCheckInDate());
+                assertEquals(booking.getCheckOutDate(), copy.getCheckOutDate());
+                assertEquals(booking.getTotalCost(), copy.getTotalCost(), 0.0);
+            }
+        }
+    }
+
+    @Test
+    public void userRoundTripsWithUsablePassword() {
+        for (ByteBuffer buffer : buffers()) {
+            for (String username : AWKWARD_STRINGS) {
+                User user = new User(9, username, "s3cret", UserRole.ADMIN);
+                User copy = EntityCodec.readUser(encode(buffer, EntityCodec.sizeOf(user),
+                                                        () -> EntityCodec.write(buffer, user)));
+                assertEquals(user.getUserId(), copy.getUserId());
+                assertEquals(username, copy.getUsername());
+                assertEquals(UserRole.ADMIN, copy.getRole());
+                assertTrue(copy.verifyPassword("s3cret"));
+                assertFalse(copy.verifyPassword("S3cret"));
+            }
+        }
+    }
+
+    @Test
+    public void userRecordDoesNotHoldThePassword() {
+        User user = new User(1, "alice", "correct horse battery", UserRole.CUSTOMER);
+        ByteBuffer buffer = ByteBuffer.allocate(EntityCodec.sizeOf(user));
+        EntityCodec.write(buffer, user);
+        String record = new String(buffer.array(), StandardCharsets.ISO_8859_1);
+        assertFalse(record.contains("correct horse battery"));
+    }
+
+    @Test
+    public void equalPasswordsAreSaltedDifferently() {
+        ByteBuffer first = encodeUser(new User(1, "alice", "same", UserRole.CUSTOMER));
+        ByteBuffer second = encodeUser(new User(1, "alice", "same", UserRole.CUSTOMER));
+        assertFalse(first.equals(second));
+    }
+
+    @Test
+    public void versionOneUserRecordIsReadAndItsPasswordHashed() {
+        byte[] username = "bob".getBytes(StandardCharsets.UTF_8);
+        byte[] password = "hunter2".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        buffer.put((byte) 1).put(EntityCodec.TAG_USER).putInt(5).put((byte) UserRole.CUSTOMER.ordinal());
+        buffer.putShort((short) username.length).put(username);
+        buffer.putShort((short) password.length).put(password);
+        User user = EntityCodec.readUser(buffer.flip());
+        assertEquals("bob", user.getUsername());
+        assertTrue(user.verifyPassword("hunter2"));
+
+        ByteBuffer rewritten = encodeUser(user);
+        assertEquals(EntityCodec.VERSION, rewritten.get(0));
+        assertTrue(EntityCodec.readUser(rewritten).verifyPassword("hunter2"));
+    }
+
+    @Test
+    public void singleRoundHashIsVerifiedAndUpgraded() throws Exception {
+        byte[] salt = new byte[16];
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        digest.update(salt);
+        byte[] expected = digest.digest("hunter2".getBytes(StandardCharsets.UTF_8));
+        Base64.Encoder encoder = Base64.getEncoder();
+        String legacyHash = encoder.encodeToString(salt) + '$' + encoder.encodeToString(expected);
+        byte[] username = "bob".getBytes(StandardCharsets.UTF_8);
+        byte[] hash = legacyHash.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(128);
+        buffer.put(EntityCodec.VERSION).put(EntityCodec.TAG_USER).putInt(5)
+              .put((byte) UserRole.CUSTOMER.ordinal());
+        buffer.putShort((short) username.length).put(username);
+        buffer.putShort((short) hash.length).put(hash);
+        User user = EntityCodec.readUser(buffer.flip());
+        assertFalse(user.verifyPassword("hunter3"));
+        assertTrue(user.verifyPassword("hunter2"));
+
+        String rewritten = new String(encodeUser(user).array(), StandardCharsets.ISO_8859_1);
+        assertFalse(rewritten.contains(legacyHash));
+        assertTrue(rewritten.contains("pbkdf2-sha256$" + PasswordHasher.ITERATIONS + "$"));
+        assertTrue(EntityCodec.readUser(encodeUser(user)).verifyPassword("hunter2"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownVersionIsRejected() {
+        ByteBuffer buffer = encodeUser(new User(1, "alice", "pw", UserRole.CUSTOMER));
+        buffer.put(0, (byte) (EntityCodec.VERSION + 1));
+        EntityCodec.readUser(buffer);
+    }
+
+    @Test
+    public void recordsFollowEachOtherInOneBuffer() {
+        Room room = new Room(1, "Double", 120.0, true);
+        User user = new User(2, "\ud800carol", "pw", UserRole.CUSTOMER);
+        ByteBuffer buffer = ByteBuffer.allocate(EntityCodec.sizeOf(room) + EntityCodec.sizeOf(user));
+        EntityCodec.write(buffer, room);
+        EntityCodec.write(buffer, user);
+        buffer.flip();
+        assertEquals(EntityCodec.TAG_ROOM, EntityCodec.peekTag(buffer));
+        assertEquals("Double", EntityCodec.readRoom(buffer).getRoomType());
+        assertEquals(EntityCodec.TAG_USER, EntityCodec.peekTag(buffer));
+        assertEquals("\ud800carol", EntityCodec.readUser(buffer).getUsername());
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    public void sizeOfMatchesBytesWritten() {
+        for (String value : AWKWARD_STRINGS) {
+            Room room = new Room(1, value, 1.0, true);
+            ByteBuffer buffer = ByteBuffer.allocate(EntityCodec.sizeOf(room) + 8);
+            EntityCodec.write(buffer, room);
+            assertEquals(EntityCodec.sizeOf(room), buffer.position());
+        }
+        assertArrayEquals(new byte[] {(byte) 0xED, (byte) 0xA0, (byte) 0x80},
+                          stringBytes(new Room(1, "\ud800", 1.0, true)));
+    }
+
+    private static ByteBuffer[] buffers() {
+        return new ByteBuffer[] {ByteBuffer.allocate(512), ByteBuffer.allocateDirect(512)};
+    }
+
+    /**
+     * Runs the write into the cleared buffer and returns it flipped for reading
+     */
+    private static ByteBuffer encode(ByteBuffer buffer, int expectedSize, Runnable write) {
+        buffer.clear();
+        write.run();
+        assertEquals(expectedSize, buffer.position());
+        return buffer.flip();
+    }
+
+    private static ByteBuffer encodeUser(User user) {
+        ByteBuffer buffer = ByteBuffer.allocate(EntityCodec.sizeOf(user));
+        EntityCodec.write(buffer, user);
+        return buffer.flip();
+    }
+
+    /**
+     * Encoded bytes of a room's type, without the length prefix
+     */
+    private static byte[] stringBytes(Room room) {
+        ByteBuffer buffer = ByteBuffer.allocate(EntityCodec.sizeOf(room));
+        EntityCodec.write(buffer, room);
+        int start = 2 + Integer.BYTES + Double.BYTES + 1 + 2;
+        byte[] bytes = new byte[buffer.position() - start];
+        buffer.get(start, bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,103 @@
+package hotelreservationsystem;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import hotelreservationsystem.exceptions.ReservationException;
+import hotelreservationsystem.utils.DateUtils;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * GroupBookingService books a block whole or not at all, including when
+ * the reservations are refused after the nights were already taken
+ *
+ * @author Software Re-Engineering Enhancement
+ */
+public class GroupBookingServiceTest {
+    private static final int FIRST_NIGHT = 20_000;
+    private static final int ROOMS = 5;
+
+    private RoomService roomService;
+    private ReservationService reservationService;
+    private GroupBookingService groupBookingService;
+
+    @Before
+    public void createServices() throws Exception {
+        roomService = new RoomService(new RoomCalendar(FIRST_NIGHT, 60));
+        reservationService = new ReservationService();
+        groupBookingService = new GroupBookingService(roomService, reservationService);
+        for (int roomId = 1; roomId <= ROOMS; roomId++) {
+            roomService.addRoom(new Room(roomId, "Suite", 100.0, true));
+        }
+    }
+
+    @Test
+    public void blockIsBookedWhole() throws Exception {
+        groupBookingService.bookGroup(block(1, 1, 2, 3));
+        assertEquals(3, reservationService.getAllReservations().size());
+        for (int roomId = 1; roomId <= 3; roomId++) {
+            assertFalse(isFree(roomId));
+        }
+        assertTrue(isFree(4));
+    }
+
+    @Test
+    public void refusedReservationsReleaseEveryNight() throws Exception {
+        reservationService.makeReservation(stay(3, 5, FIRST_NIGHT + 30));
+        try {
+            // Every night is free, but reservation ID 3 is already in use
+            groupBookingService.bookGroup(block(1, 1, 2, 3, 4));
+            fail("A block reusing a reservation ID must be refused");
+        } catch (ReservationException e) {
+            // Expected
+        }
+        assertEquals(1, reservationService.getAllReservations().size());
+        for (int roomId = 1; roomId <= 4; roomId++) {
+            assertTrue("Nights of room " + roomId + " were not released", isFree(roomId));
+        }
+        groupBookingService.bookGroup(block(10, 1, 2, 3, 4));
+        assertEquals(5, reservationService.getAllReservations().size());
+    }
+
+    @Test
+    public void takenNightLeavesCalendarAndReservationsUntouched() throws Exception {
+        groupBookingService.bookGroup(block(1, 4));
+        try {
+            groupBookingService.bookGroup(block(10, 1, 2, 3, 4));
+            fail("A block overlapping a booked room must be refused");
+        } catch (ReservationException e) {
+            // Expected
+        }
+        assertEquals(1, reservationService.getAllReservations().size());
+        for (int roomId = 1; roomId <= 3; roomId++) {
+            assertTrue(isFree(roomId));
+        }
+    }
+
+    /**
+     * Three nights from FIRST_NIGHT + 1 in each room, with consecutive
+     * reservation IDs from firstId
+     */
+    private static List<Reservation> block(int firstId, int... roomIds) {
+        Reservation[] block = new Reservation[roomIds.length];
+        for (int i = 0; i < roomIds.length; i++) {
+            block[i] = stay(firstId + i, roomIds[i], FIRST_NIGHT + 1);
+        }
+        return Arrays.asList(block);
+    }
+
+    private static Reservation stay(int reservationId, int roomId, int checkIn) {
+        return new Reservation(reservationId, 1, roomId, DateUtils.fromEpochDay(checkIn),
+                               DateUtils.fromEpochDay(checkIn + 3), 300.0);
+    }
+
+    private boolean isFree(int roomId) throws Exception {
+        return roomService.isRoomAvailable(roomId, DateUtils.fromEpochDay(FIRST_NIGHT + 1),
+                                           DateUtils.fromEpochDay(FIRST_NIGHT + 4));
+    }
+}
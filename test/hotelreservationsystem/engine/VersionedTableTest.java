@@ -0,0 +1,77 @@
+package hotelreservationsystem.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * VersionedTable against a HashMap, checking that every published version
+ * keeps the contents it was published with while the table changes
+ *
+ * @author Software Re-Engineering Enhancement
+ */
+public class VersionedTableTest {
+
+    @Test
+    public void versionsMatchTheModelAndNeverChangeAfterwards() {
+        Random random = new Random(1);
+        VersionedTable<String> table = new VersionedTable<>();
+        Map<Integer, String> model = new HashMap<>();
+        List<VersionedTable.Version<String>> versions = new ArrayList<>();
+        List<Map<Integer, String>> expected = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            int id = random.nextInt(2_000);
+            if (random.nextInt(3) == 0) {
+                table.remove(id);
+                model.remove(id);
+            } else {
+                String value = id + "@" + i;
+                table.put(id, value);
+                model.put(id, value);
+            }
+            assertEquals(model.size(), table.size());
+            if (i % 1_000 == 0) {
+                versions.add(table.publish());
+                expected.add(new HashMap<>(model));
+            }
+        }
+        for (int v = 0; v < versions.size(); v++) {
+            assertEquals(new HashSet<>(expected.get(v).values()), new HashSet<>(versions.get(v)));
+            assertEquals(expected.get(v).size(), versions.get(v).size());
+        }
+    }
+
+    @Test
+    public void unchangedEntriesAreSharedBetweenVersions() {
+        VersionedTable<String> table = new VersionedTable<>();
+        int count = 10 * VersionedTable.CHUNK_SIZE;
+        for (int id = 0; id < count; id++) {
+            table.put(id, "room " + id);
+        }
+        VersionedTable.Version<String> first = table.publish();
+        table.put(count / 2, "changed");
+        table.remove(0);
+        VersionedTable.Version<String> second = table.publish();
+
+        assertEquals(count, first.size());
+        assertEquals(count - 1, second.size());
+        assertEquals("room 0", first.get(0));
+        assertEquals("room " + (count / 2), first.get(count / 2));
+        assertEquals("changed", second.get(count / 2));
+        assertSame(first.get(VersionedTable.CHUNK_SIZE * 3), second.get(VersionedTable.CHUNK_SIZE * 3));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void versionsAreReadOnly() {
+        VersionedTable<String> table = new VersionedTable<>();
+        table.put(1, "room");
+        table.publish().set(0, "other");
+    }
+}
@@ -0,0 +1,176 @@
+package hotelreservationsystem.export;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import hotelreservationsystem.Reservation;
+import hotelreservationsystem.utils.DateUtils;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * ReservationExporter output byte for byte: fixed rows against literal
+ * CSV and JSON, and many random rows, through a buffer small enough to
+ * drain every few rows, against the same rows built with Strings
+ *
+ * @author Software Re-Engineering Enhancement
+ */
+public class ReservationExporterTest {
+    private static final int SMALLEST_BUFFER = 256;
+    private static final String CSV_HEADER =
+        "reservationId,userId,roomId,checkInDate,checkOutDate,nights,totalCost\n";
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void csvRowsMatchLiteralText() throws IOException {
+        assertEquals(CSV_HEADER
+                     + "1,9,10,2024-02-28,2024-03-01,2,0.00\n"
+                     + "99,100,12345,1999-12-31,2000-01-01,1,1234.50\n"
+                     + "2147483647,7,3,2024-07-01,2024-07-15,14,100000000.01\n",
+                     export(ReservationExporter.Format.CSV, fixedRows(), SMALLEST_BUFFER));
+    }
+
+    @Test
+    public void jsonRowsMatchLiteralText() throws IOException {
+        assertEquals("[\n"
+                     + "{\"reservationId\":1,\"userId\":9,\"roomId\":10,\"checkInDate\":\"2024-02-28\","
+                     + "\"checkOutDate\":\"2024-03-01\",\"nights\":2,\"totalCost\":0.00},\n"
+                     + "{\"reservationId\":99,\"userId\":100,\"roomId\":12345,\"checkInDate\":\"1999-12-31\","
+                     + "\"checkOutDate\":\"2000-01-01\",\"nights\":1,\"totalCost\":1234.50},\n"
+                     + "{\"reservationId\":2147483647,\"userId\":7,\"roomId\":3,\"checkInDate\":\"2024-07-01\","
+                     + "\"checkOutDate\":\"2024-07-15\",\"nights\":14,\"totalCost\":100000000.01}\n"
+                     + "]\n",
+                     export(ReservationExporter.Format.JSON, fixedRows(), SMALLEST_BUFFER));
+    }
+
+    @Test
+    public void emptyExportsAreWellFormed() throws IOException {
+        assertEquals(CSV_HEADER, export(ReservationExporter.Format.CSV, List.of(), SMALLEST_BUFFER));
+        assertEquals("[\n]\n", export(ReservationExporter.Format.JSON, List.of(), SMALLEST_BUFFER));
+    }
+
+    @Test
+    public void randomRowsMatchStringEncodingInEveryBufferSize() throws IOException {
+        TimeZone original = TimeZone.getDefault();
+        try {
+            for (String zone : new String[] {"UTC", "America/New_York", "Asia/Kolkata"}) {
+                TimeZone.setDefault(TimeZone.getTimeZone(zone));
+                List<Reservation> rows = randomRows(new Random(zone.hashCode()), 5_000);
+                for (ReservationExporter.Format format : ReservationExporter.Format.values()) {
+                    String expected = reference(format, rows);
+                    assertEquals(expected, export(format, rows, SMALLEST_BUFFER));
+                    assertEquals(expected, export(format, rows, ReservationExporter.DEFAULT_BUFFER_SIZE));
+                }
+            }
+        } finally {
+            TimeZone.setDefault(original);
+        }
+    }
+
+    @Test
+    public void exportedFileIsSentUnchanged() throws IOException {
+        List<Reservation> rows = randomRows(new Random(3), 20_000);
+        Path file = folder.newFile().toPath();
+        ReservationExporter exporter = new ReservationExporter(ReservationExporter.Format.CSV);
+        long written = exporter.exportToFile(rows, file);
+        byte[] expected = reference(ReservationExporter.Format.CSV, rows)
+                .getBytes(StandardCharsets.US_ASCII);
+        assertEquals(expected.length, written);
+        assertArrayEquals(expected, Files.readAllBytes(file));
+
+        Path copy = folder.newFile().toPath();
+        try (FileChannel out = FileChannel.open(copy, StandardOpenOption.WRITE)) {
+            assertEquals(written, ReservationExporter.sendFile(file, out));
+        }
+        assertArrayEquals(expected, Files.readAllBytes(copy));
+    }
+
+    private static List<Reservation> fixedRows() {
+        return List.of(
+            stay(1, 9, 10, "2024-02-28", "2024-03-01", 0.0),
+            stay(99, 100, 12345, "1999-12-31", "2000-01-01", 1234.5),
+            stay(Integer.MAX_VALUE, 7, 3, "2024-07-01", "2024-07-15", 100_000_000.01));
+    }
+
+    /**
+     * Rows with IDs of every length and stays spread over ten years, so
+     * the exporter's cache of formatted days keeps being overwritten
+     */
+    private static List<Reservation> randomRows(Random random, int count) {
+        int firstDay = DateUtils.parseEpochDay("2020-01-01", 0);
+        List<Reservation> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int checkIn = firstDay + random.nextInt(3_650);
+            rows.add(new Reservation(1 + random.nextInt(Integer.MAX_VALUE >> random.nextInt(31)),
+                                     1 + random.nextInt(1_000), 1 + random.nextInt(100_000),
+                                     DateUtils.fromEpochDay(checkIn),
+                                     DateUtils.fromEpochDay(checkIn + 1 + random.nextInt(30)),
+                                     random.nextInt(10_000_000) / 100.0));
+        }
+        return rows;
+    }
+
+    private static Reservation stay(int reservationId, int userId, int roomId,
+                                    String checkIn, String checkOut, double totalCost) {
+        return new Reservation(reservationId, userId, roomId, DateUtils.parseDate(checkIn),
+                               DateUtils.parseDate(checkOut), totalCost);
+    }
+
+    private static String export(ReservationExporter.Format format, List<Reservation> rows,
+                                 int bufferSize) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long written = new ReservationExporter(format, bufferSize)
+                .export(rows, Channels.newChannel(out));
+        assertEquals(out.size(), written);
+        return out.toString(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * The same output built the ordinary way, with Strings
+     */
+    private static String reference(ReservationExporter.Format format, List<Reservation> rows) {
+        StringBuilder text = new StringBuilder(format == ReservationExporter.Format.CSV
+                                               ? CSV_HEADER : "[\n");
+        for (int i = 0; i < rows.size(); i++) {
+            Reservation r = rows.get(i);
+            long cents = Math.round(r.getTotalCost() * 100);
+            String cost = String.format(Locale.ROOT, "%d.%02d", cents / 100, cents % 100);
+            if (format == ReservationExporter.Format.CSV) {
+                text.append(String.join(",", String.valueOf(r.getReservationId()),
+                        String.valueOf(r.getUserId()), String.valueOf(r.getRoomId()),
+                        DateUtils.formatDate(r.getCheckInDate()),
+                        DateUtils.formatDate(r.getCheckOutDate()),
+                        String.valueOf(r.getNumberOfNights()), cost)).append('\n');
+            } else {
+                text.append(i == 0 ? "" : ",\n")
+                    .append("{\"reservationId\":").append(r.getReservationId())
+                    .append(",\"userId\":").append(r.getUserId())
+                    .append(",\"roomId\":").append(r.getRoomId())
+                    .append(",\"checkInDate\":\"").append(DateUtils.formatDate(r.getCheckInDate()))
+                    .append("\",\"checkOutDate\":\"").append(DateUtils.formatDate(r.getCheckOutDate()))
+                    .append("\",\"nights\":").append(r.getNumberOfNights())
+                    .append(",\"totalCost\":").append(cost).append('}');
+            }
+        }
+        if (format == ReservationExporter.Format.JSON) {
+            text.append(rows.isEmpty() ? "]\n" : "\n]\n");
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,129 @@
+package hotelreservationsystem.storage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * BPlusTree against a TreeMap, on pages small enough that a few thousand
+ * keys make a tree several levels deep, and the reuse of the pages that
+ * removals empty.
+ *
+ * @author Software Re-Engineering Enhancement
+ */
+public class BPlusTreeTest {
+    private static final int PAGE_SIZE = 128;
+    private static final int FRAMES = 64;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private FileChannel channel;
+    private BufferPool pool;
+    private FreePageList freePages;
+    private BPlusTree tree;
+    private final ByteBuffer value = ByteBuffer.allocate(Long.BYTES);
+
+    @Before
+    public void open() throws IOException {
+        channel = FileChannel.open(folder.newFile().toPath(), StandardOpenOption.READ,
+                                   StandardOpenOption.WRITE);
+        pool = new BufferPool(channel, PAGE_SIZE, FRAMES);
+        pool.allocate(); // Page 0, as the meta page of a store
+        freePages = new FreePageList(pool, 0);
+        tree = BPlusTree.create(pool, freePages, Long.BYTES);
+    }
+
+    @After
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    @Test
+    public void randomPutsAndRemovesMatchTreeMap() {
+        Random random = new Random(1);
+        TreeMap<Long, Long> expected = new TreeMap<>();
+        for (int i = 0; i < 100_000; i++) {
+            long key = random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key) != null, tree.remove(key));
+            } else {
+                put(key, i);
+                expected.put(key, (long) i);
+            }
+            if (i % 10_000 == 0) {
+                assertContents(expected);
+            }
+        }
+        assertContents(expected);
+        for (Map.Entry<Long, Long> entry : expected.entrySet()) {
+            assertTrue(tree.get(entry.getKey(), value.clear()));
+            assertEquals(entry.getValue().longValue(), value.getLong(0));
+        }
+    }
+
+    @Test
+    public void removingEveryKeyLeavesAnEmptyTreeThatRefills() {
+        for (long key = 0; key < 3_000; key++) {
+            put(key, key);
+        }
+        long pagesWhenFull = pool.getPageCount();
+        for (long key = 0; key < 3_000; key++) {
+            assertTrue(tree.remove(key));
+        }
+        assertContents(new TreeMap<>());
+
+        for (long key = 0; key < 3_000; key++) {
+            put(key, key);
+        }
+        assertEquals(pagesWhenFull, pool.getPageCount());
+        assertEquals(3_000, scan(Long.MIN_VALUE, Long.MAX_VALUE).size());
+    }
+
+    @Test
+    public void keysMovingForwardReuseFreedPages() {
+        int window = 1_000;
+        for (long key = 0; key < window; key++) {
+            put(key, key);
+        }
+        long pagesForWindow = pool.getPageCount();
+        for (long key = window; key < 50_000; key++) {
+            put(key, key);
+            assertTrue(tree.remove(key - window));
+        }
+        // Pages emptied at the front are what the back grows into
+        assertTrue(pool.getPageCount() <= 2 * pagesForWindow);
+        List<Long> keys = scan(Long.MIN_VALUE, Long.MAX_VALUE);
+        assertEquals(window, keys.size());
+        assertEquals(50_000 - window, keys.get(0).longValue());
+    }
+
+    private void put(long key, long entry) {
+        tree.put(key, value.clear().putLong(0, entry));
+    }
+
+    private List<Long> scan(long fromKey, long toKey) {
+        List<Long> keys = new ArrayList<>();
+        tree.scan(fromKey, toKey, (key, page, offset) -> keys.add(key));
+        return keys;
+    }
+
+    private void assertContents(TreeMap<Long, Long> expected) {
+        assertEquals(new ArrayList<>(expected.keySet()), scan(Long.MIN_VALUE, Long.MAX_VALUE));
+        assertEquals(new ArrayList<>(expected.subMap(1_000L, 2_000L).keySet()), scan(1_000, 2_000));
+    }
+}
@@ -0,0 +1,314 @@
+package hotelreservationsystem.storage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import hotelreservationsystem.EntityCodec;
+import hotelreservationsystem.Reservation;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * The Repository contract, run against every storage type: first-save
+ * order, replacing in place, removal, and for the file and B-tree stores
+ * reopening, recovery from a torn tail and reclaiming superseded records.
+ * The timed tests catch a store whose reads or writes stop being cheap.
+ *
+ * @author Software Re-Engineering Enhancement
+ */
+@RunWith(Parameterized.class)
+public class RepositoryConformanceTest {
+    private static final long DAY_MILLIS = 86_400_000L;
+    private static final long FIRST_CHECK_IN = 1_700_000_000_000L;
+    private static final int BULK_SIZE = 50_000;
+    private static final int CHURN_IDS = 100;
+    private static final int CHURN_SAVES = 120_000;
+
+    @Parameters(name = "{0}")
+    public static Collection<Object[]> storageTypes() {
+        List<Object[]> types = new ArrayList<>();
+        for (StorageType type : StorageType.values()) {
+            types.add(new Object[] {type});
+        }
+        return types;
+    }
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final StorageType storage;
+    private Path directory;
+    private Repository<Reservation> repository;
+
+    public RepositoryConformanceTest(StorageType storage) {
+        this.storage = storage;
+    }
+
+    @Before
+    public void open() throws IOException {
+        directory = folder.newFolder().toPath();
+        repository = create();
+    }
+
+    @After
+    public void close() {
+        repository.close();
+    }
+
+    @Test
+    public void iteratesInFirstSaveOrder() {
+        int[] ids = {42, 7, 1000, 3, 500};
+        for (int id : ids) {
+            repository.save(reservation(id, 1));
+        }
+        assertEquals(ids.length, repository.size());
+        assertIds(ids, repository.findAll());
+    }
+
+    @Test
+    public void saveReplacesInPlace() {
+        for (int id = 1; id <= 3; id++) {
+            repository.save(reservation(id, 1));
+        }
+        repository.save(reservation(2, 9));
+
+        assertEquals(3, repository.size());
+        assertIds(new int[] {1, 2, 3}, repository.findAll());
+        assertEquals(9, repository.findById(2).get().getUserId());
+    }
+
+    @Test
+    public void removeDropsOnlyThatEntity() {
+        for (int id = 1; id <= 3; id++) {
+            repository.save(reservation(id, 1));
+        }
+        assertTrue(repository.remove(2));
+        assertFalse(repository.remove(2));
+        assertFalse(repository.remove(99));
+
+        assertEquals(2, repository.size());
+        assertFalse(repository.contains(2));
+        assertEquals(Optional.empty(), repository.findById(2));
+        assertIds(new int[] {1, 3}, repository.findAll());
+
+        repository.save(reservation(2, 1));
+        assertIds(new int[] {1, 3, 2}, repository.findAll());
+    }
+
+    @Test
+    public void entitiesRoundTrip() {
+        Reservation saved = reservation(11, 4);
+        repository.save(saved);
+        Reservation found = repository.findById(11).get();
+        assertEquals(saved.getUserId(), found.getUserId());
+        assertEquals(saved.getRoomId(), found.getRoomId());
+        assertEquals(saved.getCheckInTime(), found.getCheckInTime());
+        assertEquals(saved.getCheckOutTime(), found.getCheckOutTime());
+        assertEquals(saved.getTotalCost(), found.getTotalCost(), 0.0);
+    }
+
+    @Test
+    public void reopenKeepsContentsAndOrder() {
+        assumePersistent();
+        for (int id = 10; id > 0; id--) {
+            repository.save(reservation(id, 1));
+        }
+        repository.save(reservation(5, 8));
+        repository.remove(3);
+        repository.close();
+
+        repository = create();
+        assertEquals(9, repository.size());
+        assertIds(new int[] {10, 9, 8, 7, 6, 5, 4, 2, 1}, repository.findAll());
+        assertEquals(8, repository.findById(5).get().getUserId());
+    }
+
+    @Test
+    public void tornTailIsDropped() throws IOException {
+        assumePersistent();
+        for (int id = 1; id <= 5; id++) {
+            repository.save(reservation(id, 1));
+        }
+        Path torn;
+        if (storage == StorageType.BTREE) {
+            // Files as a crash leaves them: copied while the store is open
+            torn = copyStoreFiles(folder.newFolder().toPath());
+            repository.close();
+            directory = torn;
+            appendTornRecord(logFile(directory));
+        } else {
+            repository.close();
+            appendTornRecord(storeFile(directory));
+        }
+
+        repository = create();
+        assertEquals(5, repository.size());
+        assertIds(new int[] {1, 2, 3, 4, 5}, repository.findAll());
+        repository.save(reservation(6, 1));
+        repository.close();
+
+        repository = create();
+        assertIds(new int[] {1, 2, 3, 4, 5, 6}, repository.findAll());
+    }
+
+    @Test
+    public void uncleanShutdownLosesNothing() throws IOException {
+        assumePersistent();
+        for (int id = 1; id <= 2_000; id++) {
+            repository.save(reservation(id, 1 + id % 7));
+        }
+        for (int id = 1; id <= 2_000; id += 3) {
+            repository.remove(id);
+        }
+        List<Reservation> expected = repository.findAll();
+        Path crashed = copyStoreFiles(folder.newFolder().toPath());
+        repository.close();
+
+        directory = crashed;
+        repository = create();
+        assertEquals(expected.size(), repository.size());
+        assertIds(ids(expected), repository.findAll());
+    }
+
+    @Test
+    public void supersededRecordsAreReclaimed() throws IOException {
+        Random random = new Random(1);
+        for (int i = 0; i < CHURN_SAVES; i++) {
+            int id = 1 + random.nextInt(CHURN_IDS);
+            if (i % 10 == 9) {
+                repository.remove(id);
+            } else {
+                repository.save(reservation(id, 1 + i % 5));
+            }
+        }
+        int size = repository.size();
+        assertEquals(size, repository.findAll().size());
+
+        if (repository instanceof OffHeapRepository) {
+            assertTrue(((OffHeapRepository<?>) repository).getOffHeapBytes()
+                       < OffHeapRepository.DEFAULT_INITIAL_BYTES * 4);
+        } else if (repository instanceof FileRepository) {
+            assertTrue(((FileRepository<?>) repository).getSizeBytes()
+                       < FileRepository.COMPACT_MIN_BYTES * 2);
+        } else if (storage == StorageType.BTREE) {
+            assertTrue(Files.size(logFile(directory))
+                       < BTreeReservationRepository.CHECKPOINT_LOG_BYTES + EntityCodec.RESERVATION_SIZE * 2);
+        }
+
+        if (isPersistent()) {
+            repository.close();
+            repository = create();
+            assertEquals(size, repository.size());
+        }
+    }
+
+    @Test(timeout = 30_000)
+    public void bulkLoadAndLookupsStayCheap() {
+        for (int id = 1; id <= BULK_SIZE; id++) {
+            repository.save(reservation(id, 1 + id % 100));
+        }
+        Random random = new Random(2);
+        for (int i = 0; i < BULK_SIZE; i++) {
+            int id = 1 + random.nextInt(BULK_SIZE);
+            assertEquals(id, repository.findById(id).get().getReservationId());
+        }
+        int count = 0;
+        for (Reservation ignored : repository) {
+            count++;
+        }
+        assertEquals(BULK_SIZE, count);
+    }
+
+    @Test(timeout = 30_000)
+    public void replacingEntitiesStaysCheap() {
+        for (int id = 1; id <= BULK_SIZE; id++) {
+            repository.save(reservation(id, 1));
+        }
+        for (int id = 1; id <= BULK_SIZE; id++) {
+            repository.save(reservation(id, 2));
+        }
+        assertEquals(BULK_SIZE, repository.size());
+        assertEquals(2, repository.findById(BULK_SIZE / 2).get().getUserId());
+    }
+
+    private Repository<Reservation> create() {
+        return Repositories.create(EntityType.RESERVATION, storage, directory);
+    }
+
+    private boolean isPersistent() {
+        return storage == StorageType.FILE || storage == StorageType.BTREE;
+    }
+
+    private void assumePersistent() {
+        assumeTrue(isPersistent());
+    }
+
+    private Path storeFile(Path in) {
+        String suffix = storage == StorageType.BTREE ? ".btree" : ".db";
+        return in.resolve(EntityType.RESERVATION.getName() + suffix);
+    }
+
+    private Path logFile(Path in) {
+        return in.resolve(storeFile(in).getFileName() + ".log");
+    }
+
+    /**
+     * Copies every file of the open store, as a crash would leave them
+     */
+    private Path copyStoreFiles(Path target) throws IOException {
+        try (var files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.copy(file, target.resolve(file.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        return target;
+    }
+
+    /**
+     * Appends the header of a record whose entity never made it to disk
+     */
+    private static void appendTornRecord(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE,
+                                                    StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.allocate(2 * Integer.BYTES + 3)
+                                    .putInt(77).putInt(EntityCodec.RESERVATION_SIZE)
+                                    .flip());
+        }
+    }
+
+    private static Reservation reservation(int id, int userId) {
+        long checkIn = FIRST_CHECK_IN + (id % 365) * DAY_MILLIS;
+        return new Reservation(id, userId, 100 + id % 50, new Date(checkIn),
+                               new Date(checkIn + 2 * DAY_MILLIS), 150.0 + id);
+    }
+
+    private static int[] ids(List<Reservation> reservations) {
+        return reservations.stream().mapToInt(Reservation::getReservationId).toArray();
+    }
+
+    private static void assertIds(int[] expected, List<Reservation> actual) {
+        assertEquals(Arrays.toString(expected), Arrays.toString(ids(actual)));
+    }
+}
@@ -0,0 +1,145 @@
+package hotelreservationsystem.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Date;
+import java.util.TimeZone;
+import org.junit.Test;
+
+/**
+ * The yyyy-MM-dd fast paths of DateUtils against LocalDate: every day of
+ * years 0000-9999 formats and parses back, and every month/day pair from
+ * 00 to 32, valid or not, is accepted exactly when it names a real day.
+ * Validity depends on the year only through the leap year rules, so the
+ * pairs are tried in every year from 1600 to 2400, which holds each
+ * kind of century, and at both ends of the four-digit range.
+ *
+ * @author Software Re-Engineering Enhancement
+ */
+public class DateUtilsTest {
+    private static final int FIRST_DAY = (int) LocalDate.of(0, 1, 1).toEpochDay();
+    private static final int LAST_DAY = (int) LocalDate.of(9999, 12, 31).toEpochDay();
+    private static final String[] ZONES = {"UTC", "America/Sao_Paulo", "Asia/Kathmandu"};
+    private static final int[][] VALIDATED_YEARS = {{0, 3}, {1600, 2400}, {9996, 9999}};
+
+    @Test
+    public void everyDayFormatsAndParsesLikeLocalDate() {
+        StringBuilder chars = new StringBuilder(DateUtils.ISO_DATE_LENGTH);
+        byte[] bytes = new byte[DateUtils.ISO_DATE_LENGTH + 1];
+        for (int epochDay = FIRST_DAY; epochDay <= LAST_DAY; epochDay++) {
+            String expected = LocalDate.ofEpochDay(epochDay).toString();
+
+            chars.setLength(0);
+            assertEquals(expected, DateUtils.formatEpochDay(epochDay, chars).toString());
+            assertEquals(DateUtils.ISO_DATE_LENGTH + 1, DateUtils.formatEpochDay(epochDay, bytes, 1));
+            assertEquals(expected, new String(bytes, 1, DateUtils.ISO_DATE_LENGTH,
+                                              StandardCharsets.US_ASCII));
+
+            assertEquals(epochDay, DateUtils.parseEpochDay(expected, 0));
+            assertEquals(epochDay, DateUtils.parseEpochDay(bytes, 1));
+        }
+    }
+
+    @Test
+    public void daysOutsideTheFourDigitYearsAreRefused() {
+        for (int epochDay : new int[] {FIRST_DAY - 1, LAST_DAY + 1}) {
+            try {
+                DateUtils.formatEpochDay(epochDay, new StringBuilder());
+                fail("Formatted " + LocalDate.ofEpochDay(epochDay));
+            } catch (IllegalArgumentException e) {
+                // Expected
+            }
+        }
+    }
+
+    @Test
+    public void everyMonthAndDayIsValidatedLikeLocalDate() {
+        byte[] bytes = "0000-00-00".getBytes(StandardCharsets.US_ASCII);
+        for (int[] years : VALIDATED_YEARS) {
+            for (int year = years[0]; year <= years[1]; year++) {
+                writeDigits(bytes, 0, 4, year);
+                for (int month = 0; month <= 13; month++) {
+                    writeDigits(bytes, 5, 2, month);
+                    for (int day = 0; day <= 32; day++) {
+                        writeDigits(bytes, 8, 2, day);
+                        Integer expected = epochDayOrNull(year, month, day);
+                        assertParses(expected, new String(bytes, StandardCharsets.US_ASCII), null);
+                        assertParses(expected, null, bytes);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void malformedTextIsRefused() {
+        String[] malformed = {
+            "2024-1-01x", "2024/01/01", "20240101xx", "2024-01-1 ", " 2024-01-1",
+            "2024-0a-01", "+024-01-01", "2024_01_01"
+        };
+        for (String text : malformed) {
+            assertParses(null, text, null);
+            assertParses(null, null, text.getBytes(StandardCharsets.US_ASCII));
+        }
+        assertParses(null, "2024-01-0", null);
+        assertParses(null, null, "2024-01-0".getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void datesRoundTripInEveryZone() {
+        TimeZone original = TimeZone.getDefault();
+        try {
+            for (String zone : ZONES) {
+                TimeZone.setDefault(TimeZone.getTimeZone(zone));
+                int from = (int) LocalDate.of(1900, 1, 1).toEpochDay();
+                int to = (int) LocalDate.of(2100, 12, 31).toEpochDay();
+                for (int epochDay = from; epochDay <= to; epochDay++) {
+                    String text = LocalDate.ofEpochDay(epochDay).toString();
+                    Date date = DateUtils.parseDate(text);
+                    assertEquals(zone + " " + text, epochDay, DateUtils.toEpochDay(date));
+                    assertEquals(zone + " " + text, text, DateUtils.formatDate(date));
+                    assertEquals(date, DateUtils.fromEpochDay(epochDay));
+                }
+            }
+        } finally {
+            TimeZone.setDefault(original);
+        }
+    }
+
+    private static void writeDigits(byte[] bytes, int offset, int count, int value) {
+        for (int i = offset + count - 1; i >= offset; i--, value /= 10) {
+            bytes[i] = (byte) ('0' + value % 10);
+        }
+    }
+
+    private static Integer epochDayOrNull(int year, int month, int day) {
+        if (month < 1 || month > 12 || day < 1 || day > YearMonth.of(year, month).lengthOfMonth()) {
+            return null;
+        }
+        return (int) LocalDate.of(year, month, day).toEpochDay();
+    }
+
+    /**
+     * Parses either the text or the bytes, expecting the given epoch day
+     * or, if null, a refusal
+     */
+    private static void assertParses(Integer expected, String text, byte[] bytes) {
+        String shown = text != null ? text : new String(bytes, StandardCharsets.US_ASCII);
+        try {
+            int epochDay = text != null ? DateUtils.parseEpochDay(text, 0)
+                                        : DateUtils.parseEpochDay(bytes, 0);
+            if (expected == null) {
+                fail("Accepted " + shown);
+            }
+            assertEquals(shown, expected.intValue(), epochDay);
+        } catch (IllegalArgumentException e) {
+            if (expected != null) {
+                fail("Refused " + shown);
+            }
+        }
+    }
+}
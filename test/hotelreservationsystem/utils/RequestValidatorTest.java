@@ -0,0 +1,89 @@
+package hotelreservationsystem.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import hotelreservationsystem.BookingRequest;
+import hotelreservationsystem.RoomRequest;
+import hotelreservationsystem.constants.AppConstants;
+import java.lang.management.ManagementFactory;
+import java.util.Date;
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * RequestValidator reports every failed rule of a request at once, and
+ * checking requests, valid or not, allocates nothing once warmed up
+ *
+ * @author Software Re-Engineering Enhancement
+ */
+public class RequestValidatorTest {
+    private static final int ITERATIONS = 200_000;
+    /** Far below one object per validation, which would be 16+ bytes each */
+    private static final long ALLOCATION_SLACK_BYTES = 1_024;
+
+    private static final Date EARLIER = new Date(1_700_000_000_000L);
+    private static final Date LATER = new Date(1_700_259_200_000L);
+
+    @Test
+    public void everyFailureIsReportedInRuleOrder() {
+        BookingRequest request = new BookingRequest(0, -1, 0, LATER, EARLIER);
+        long failures = BookingRequest.VALIDATOR.validate(request);
+        assertEquals(List.of(AppConstants.ERROR_INVALID_RESERVATION_ID,
+                             AppConstants.ERROR_INVALID_USER_ID,
+                             AppConstants.ERROR_INVALID_ROOM_ID,
+                             AppConstants.ERROR_INVALID_DATE_RANGE),
+                     BookingRequest.VALIDATOR.describe(failures));
+
+        RoomRequest room = new RoomRequest(7, " \t\n ", 0.0, true);
+        assertEquals(AppConstants.ERROR_EMPTY_ROOM_TYPE + "; " + AppConstants.ERROR_INVALID_PRICE,
+                     RoomRequest.VALIDATOR.describeAsString(RoomRequest.VALIDATOR.validate(room)));
+    }
+
+    @Test
+    public void validRequestsPass() {
+        assertTrue(BookingRequest.VALIDATOR.isValid(new BookingRequest(1, 2, 3, EARLIER, LATER)));
+        assertTrue(RoomRequest.VALIDATOR.isValid(new RoomRequest(1, "  Suite  ", 99.5, true)));
+        assertEquals(RequestValidator.VALID,
+                     BookingRequest.VALIDATOR.validate(new BookingRequest(1, 2, 3, EARLIER, LATER)));
+    }
+
+    @Test
+    public void validationAllocatesNothing() {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        BookingRequest[] bookings = {
+            new BookingRequest(1, 2, 3, EARLIER, LATER),
+            new BookingRequest(0, -1, 0, LATER, EARLIER),
+            new BookingRequest(1, 2, 3, null, LATER)
+        };
+        RoomRequest[] rooms = {
+            new RoomRequest(1, "Suite", 99.5, true),
+            new RoomRequest(2, "   padded   ", 120.0, false), // Used to be trimmed into a copy
+            new RoomRequest(0, "    ", -1.0, true),
+            new RoomRequest(3, null, 80.0, true)
+        };
+
+        long sink = validateAll(bookings, rooms); // Warm up, so the loop below is compiled
+        long before = threads.getCurrentThreadAllocatedBytes();
+        sink += validateAll(bookings, rooms);
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        assertTrue(sink != 0);
+        assertTrue("Validation allocated " + allocated + " bytes",
+                   allocated < ALLOCATION_SLACK_BYTES);
+    }
+
+    private static long validateAll(BookingRequest[] bookings, RoomRequest[] rooms) {
+        long failures = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            failures += BookingRequest.VALIDATOR.validate(bookings[i % bookings.length]);
+            failures += RoomRequest.VALIDATOR.validate(rooms[i % rooms.length]);
+        }
+        return failures;
+    }
+}
@@ -0,0 +1,136 @@
+package hotelreservationsystem.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * TimingWheel fires each timeout on the tick of its deadline, whichever
+ * wheel it starts in, how often it cascades down and whether it was
+ * parked beyond the coarsest wheel. Ticks are one millisecond.
+ *
+ * @author Software Re-Engineering Enhancement
+ */
+public class TimingWheelTest {
+    private static final long SPAN = 1L << 24; // 64^4 ticks, the reach of the coarsest wheel
+
+    @Test
+    public void firesOnItsTickAtEveryWheelBoundary() {
+        long[] deltas = {
+            1, 63, 64, 65, 4_095, 4_096, 4_097, 262_143, 262_144, 262_145, SPAN - 1
+        };
+        for (long start : new long[] {0, 12_345}) {
+            for (long delta : deltas) {
+                TimingWheel wheel = new TimingWheel(1, 0);
+                wheel.advance(start, payload -> { });
+                assertFiresAt(wheel, start + delta);
+            }
+        }
+    }
+
+    @Test
+    public void farDeadlinesAreParkedAndFireOnTime() {
+        for (long delta : new long[] {SPAN, SPAN + 1, 3 * SPAN + 17}) {
+            TimingWheel wheel = new TimingWheel(1, 0);
+            wheel.advance(777, payload -> { });
+            assertFiresAt(wheel, 777 + delta);
+        }
+    }
+
+    @Test
+    public void randomTimeoutsFireInTheRightAdvanceInDeadlineOrder() {
+        Random random = new Random(7);
+        TimingWheel wheel = new TimingWheel(1, 0, 16);
+        Map<Integer, Long> pending = new HashMap<>();
+        Map<Integer, Integer> handles = new HashMap<>();
+        long now = 0;
+        int nextPayload = 0;
+        while (now < 2 * SPAN) {
+            for (int i = random.nextInt(50); i > 0; i--) {
+                long deadline = now + 1 + randomDelta(random);
+                handles.put(nextPayload, wheel.schedule(deadline, nextPayload));
+                pending.put(nextPayload++, deadline);
+            }
+            if (!handles.isEmpty() && random.nextInt(4) == 0) {
+                Integer payload = handles.keySet().iterator().next();
+                assertTrue(wheel.cancel(handles.remove(payload)));
+                pending.remove(payload);
+            }
+
+            long previous = now;
+            now += 1 + random.nextInt(100_000);
+            long until = now;
+            List<Integer> fired = new ArrayList<>();
+            assertEquals(wheel.advance(now, fired::add), fired.size());
+            long lastDeadline = Long.MIN_VALUE;
+            for (int payload : fired) {
+                Long deadline = pending.remove(payload);
+                handles.remove(payload);
+                assertTrue("Fired a cancelled or unknown timeout", deadline != null);
+                assertTrue("Fired late or early", deadline > previous && deadline <= until);
+                assertTrue("Fired out of order", deadline >= lastDeadline);
+                lastDeadline = deadline;
+            }
+            for (long deadline : pending.values()) {
+                assertTrue("Missed a due timeout", deadline > until);
+            }
+            assertEquals(pending.size(), wheel.size());
+        }
+    }
+
+    @Test
+    public void cancelledTimeoutsNeverFire() {
+        TimingWheel wheel = new TimingWheel(1, 0);
+        int near = wheel.schedule(10, 1);
+        int far = wheel.schedule(10_000, 2);
+        int parked = wheel.schedule(2 * SPAN, 3);
+        assertTrue(wheel.cancel(near));
+        assertTrue(wheel.cancel(parked));
+        assertFalse(wheel.cancel(near));
+        assertEquals(1, wheel.size());
+
+        List<Integer> fired = new ArrayList<>();
+        wheel.advance(3 * SPAN, fired::add);
+        assertEquals(List.of(2), fired);
+        assertFalse(wheel.cancel(far));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void pastDeadlinesFireOnTheNextTick() {
+        TimingWheel wheel = new TimingWheel(1_000, 5_000);
+        wheel.advance(60_000, payload -> { });
+        wheel.schedule(1_000, 9);
+        List<Integer> fired = new ArrayList<>();
+        assertEquals(0, wheel.advance(60_999, fired::add));
+        assertEquals(1, wheel.advance(61_000, fired::add));
+        assertEquals(List.of(9), fired);
+    }
+
+    /**
+     * Schedules one timeout and checks it fires on its deadline's tick,
+     * not one tick before
+     */
+    private static void assertFiresAt(TimingWheel wheel, long deadline) {
+        List<Integer> fired = new ArrayList<>();
+        wheel.schedule(deadline, 42);
+        assertEquals("Fired before " + deadline, 0, wheel.advance(deadline - 1, fired::add));
+        assertEquals("Not fired at " + deadline, 1, wheel.advance(deadline, fired::add));
+        assertEquals(List.of(42), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    /**
+     * Deltas spread over every wheel and past the coarsest one
+     */
+    private static long randomDelta(Random random) {
+        return random.nextLong() & ((1L << random.nextInt(27)) - 1);
+    }
+}